@@ -1,11 +1,16 @@
 package org.opensourceway.sbom.batch.job;
 
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
+import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.dao.RawSbomRepository;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.entity.RawSbom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.configuration.JobFactory;
 import org.springframework.batch.core.configuration.JobRegistry;
@@ -14,11 +19,19 @@ import org.springframework.batch.core.configuration.support.ReferenceJobFactory;
 import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableBatchProcessing
@@ -26,6 +39,9 @@ public class JobConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(JobConfiguration.class);
 
+    private static final List<String> BUSY_TASK_STATUS = List.of(SbomConstants.TASK_STATUS_RUNNING,
+            SbomConstants.TASK_STATUS_FINISH_PARSE);
+
     @Autowired
     private JobRegistry jobRegistry;
 
@@ -48,18 +64,124 @@ public class JobConfiguration {
     @Autowired
     private RawSbomRepository rawSbomRepository;
 
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     /**
-     * jobLauncher.run is synchronized, thread will block until job finish or failure
+     * max number of readSbomJob instances running at the same time
      */
-    public void launchSbomReadJob() throws Exception {
-        jobLauncher.run(readSbomJob, new JobParametersBuilder().addLong("startTimestamp", System.currentTimeMillis()).toJobParameters());
+    @Value("${sbom.batch.read-job.concurrency:1}")
+    private Integer readJobConcurrency;
+
+    /**
+     * milliseconds a read job worker waits before trying again, when waiting raw sboms are left but none of them can be
+     * claimed, e.g. their products have a raw sbom being read by another worker
+     */
+    @Value("${sbom.batch.read-job.claim-retry-interval:5000}")
+    private Long readJobClaimRetryInterval;
+
+    /**
+     * max number of OpenHarmony third party metas fetched at the same time by OpenHarmonySpecialTaskStep
+     */
+    @Value("${sbom.openharmony.third-party.concurrency:8}")
+    private Integer openHarmonyThirdPartyConcurrency;
+
+    private final AtomicInteger runningReadJobWorkers = new AtomicInteger();
+
+    @Bean
+    public ThreadPoolTaskExecutor readSbomJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(readJobConcurrency);
+        executor.setMaxPoolSize(readJobConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("read-sbom-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor openHarmonyThirdPartyExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(openHarmonyThirdPartyConcurrency);
+        executor.setMaxPoolSize(openHarmonyThirdPartyConcurrency);
+        executor.setThreadNamePrefix("openharmony-third-party-");
+        return executor;
+    }
+
+    /**
+     * fill up free worker slots and return immediately, each worker keeps launching readSbomJob until no waiting raw
+     * sbom is left, so a burst of uploads is drained by readJobConcurrency jobs in parallel. A worker that can't claim
+     * any of the waiting raw sboms, because their products are busy, waits and tries again instead of exiting
+     */
+    public void launchSbomReadJob() {
+        while (tryAcquireReadJobWorker()) {
+            try {
+                readSbomJobExecutor().execute(this::runSbomReadJobs);
+            } catch (Exception e) {
+                runningReadJobWorkers.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private boolean tryAcquireReadJobWorker() {
+        int running;
+        do {
+            running = runningReadJobWorkers.get();
+            if (running >= readJobConcurrency) {
+                return false;
+            }
+        } while (!runningReadJobWorkers.compareAndSet(running, running + 1));
+        return true;
+    }
+
+    private void runSbomReadJobs() {
+        try {
+            while (true) {
+                // jobLauncher.run is synchronized, thread will block until job finish or failure
+                JobExecution jobExecution = jobLauncher.run(readSbomJob, new JobParametersBuilder()
+                        .addLong("startTimestamp", System.currentTimeMillis())
+                        .addString("launchId", UUID.randomUUID().toString())
+                        .toJobParameters());
+                if (jobExecution.getExecutionContext().containsKey(BatchContextConstants.BATCH_RAW_SBOM_ID_KEY)) {
+                    continue;
+                }
+                if (!rawSbomRepository.existsByTaskStatus(SbomConstants.TASK_STATUS_WAIT)) {
+                    logger.info("no waiting raw sbom left, read job worker exits");
+                    return;
+                }
+                logger.info("waiting raw sboms are left but none can be claimed, retry in {} ms", readJobClaimRetryInterval);
+                Thread.sleep(readJobClaimRetryInterval);
+            }
+        } catch (InterruptedException e) {
+            logger.warn("read job worker is interrupted");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("launch sbom read job failed", e);
+        } finally {
+            runningReadJobWorkers.decrementAndGet();
+        }
     }
 
     /**
      * jobOperator.restart is synchronized, thread will block until job finish or failure
+     * <p>
+     * The failed raw sbom is claimed like a waiting one, only if its product has no raw sbom being read, and it is
+     * marked as running before the product lock is released, so that no read job picks up another raw sbom of the
+     * product meanwhile.
      */
     public void restartSbomReadJob() throws Exception {
-        RawSbom rawSbom = rawSbomRepository.queryOneTaskByTaskStatusWithLock(SbomConstants.TASK_STATUS_FAILED).orElse(null);
+        RawSbom rawSbom = new TransactionTemplate(transactionManager).execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(SbomConstants.TASK_STATUS_FAILED, BUSY_TASK_STATUS)
+                .map(it -> {
+                    it.setTaskStatus(SbomConstants.TASK_STATUS_RUNNING);
+                    return rawSbomRepository.save(it);
+                })
+                .orElse(null));
         if (Objects.isNull(rawSbom)) {
             logger.info("no failed job need to restart");
             return;
@@ -71,13 +193,48 @@ public class JobConfiguration {
             return;
         }
 
+        JobExecution failedExecution = jobExplorer.getJobExecution(rawSbom.getJobExecutionId());
+        if (Objects.nonNull(failedExecution)
+                && !ExecutionContextUtils.stagedPayloadsExist(failedExecution.getExecutionContext(), sbomStagingStore)) {
+            rereadRawSbom(rawSbom, failedExecution);
+            return;
+        }
+
         logger.info("find a failed raw sbom id:{}, job execution id: {}, restart it", rawSbom.getId(), rawSbom.getJobExecutionId());
         if (!jobOperator.getJobNames().contains(readSbomJob.getName())) {
             JobFactory jobFactory = new ReferenceJobFactory(readSbomJob);
             jobRegistry.register(jobFactory);
         }
-        jobOperator.restart(rawSbom.getJobExecutionId());
+        try {
+            jobOperator.restart(rawSbom.getJobExecutionId());
+        } catch (Exception e) {
+            // the job didn't start, release the claim so that the raw sbom is restarted later
+            rawSbom.setTaskStatus(SbomConstants.TASK_STATUS_FAILED);
+            rawSbomRepository.save(rawSbom);
+            throw e;
+        }
         logger.info("failed raw sbom id:{}, restart finish", rawSbom.getId());
     }
 
-}
\ No newline at end of file
+    /**
+     * The payloads staged by the failed job are only on the local disk of the node that ran it, they are gone if the
+     * job ran on another node or the staging dir was cleaned up. Abandon the job and read the raw sbom again from its
+     * raw_sbom row.
+     */
+    private void rereadRawSbom(RawSbom rawSbom, JobExecution failedExecution) throws Exception {
+        logger.warn("staged payloads of failed raw sbom id:{}, job execution id: {} are gone, read it again",
+                rawSbom.getId(), failedExecution.getId());
+        jobOperator.abandon(failedExecution.getId());
+
+        // enrichment of the sbom may be incomplete, make the new import process all packages again
+        ExecutionContext jobContext = failedExecution.getExecutionContext();
+        if (jobContext.containsKey(BatchContextConstants.BATCH_SBOM_ID_KEY)) {
+            packageRepository.clearImportDigestBySbomId((UUID) jobContext.get(BatchContextConstants.BATCH_SBOM_ID_KEY));
+        }
+        rawSbom.setTaskStatus(SbomConstants.TASK_STATUS_WAIT);
+        rawSbom.setJobExecutionId(null);
+        rawSbomRepository.save(rawSbom);
+        launchSbomReadJob();
+    }
+
+}
@@ -2,6 +2,8 @@ package org.opensourceway.sbom.batch.listener;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.dao.RawSbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.constants.SbomConstants;
@@ -12,10 +14,12 @@ import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobOperator;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Objects;
 import java.util.UUID;
 
 public class AllStepsListener implements JobExecutionListener {
@@ -31,6 +35,15 @@ public class AllStepsListener implements JobExecutionListener {
     @Autowired
     private RawSbomRepository rawSbomRepository;
 
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     private static final Logger logger = LoggerFactory.getLogger(AllStepsListener.class);
 
     public AllStepsListener(Integer batchJobRestartMaxTimes) {
@@ -50,7 +63,9 @@ public class AllStepsListener implements JobExecutionListener {
             RawSbom rawSbom = rawSbomRepository.findById(rawSbomId)
                     .orElseThrow(() -> new RuntimeException("can't rawSbom metadata for %s".formatted(rawSbomId)));
 
-            if (StringUtils.equalsIgnoreCase(rawSbom.getTaskStatus(), SbomConstants.TASK_STATUS_FAILED)) {
+            // a restarted job runs in a new execution, the raw sbom still points to the failed one. The raw sbom is
+            // already marked as running when it is claimed for the restart, so the status doesn't tell a restart
+            if (!Objects.equals(rawSbom.getJobExecutionId(), jobExecution.getId())) {
                 updateJobRestartInfoBeforeJob(rawSbom, jobExecution);
             }
         } catch (Exception e) {
@@ -72,6 +87,7 @@ public class AllStepsListener implements JobExecutionListener {
                     .orElseThrow(() -> new RuntimeException("can't rawSbom metadata for %s".formatted(rawSbomId)));
 
             dealFailedJob(rawSbom, jobExecution);
+            cleanupStagedPayloads(rawSbom, jobExecution);
         } catch (Exception e) {
             logger.error("AllStepsListener[afterJob] Error.", e);
         }
@@ -91,6 +107,22 @@ public class AllStepsListener implements JobExecutionListener {
         logger.info("Finish updateJobRestartInfoBeforeJob");
     }
 
+    /**
+     * staged payloads are kept while the job can still be restarted, a restarted job reads the payloads staged by
+     * previous executions of the same job instance
+     */
+    private void cleanupStagedPayloads(RawSbom rawSbom, JobExecution jobExecution) {
+        if (StringUtils.equalsIgnoreCase(rawSbom.getTaskStatus(), SbomConstants.TASK_STATUS_FAILED)) {
+            return;
+        }
+        jobExplorer.getJobExecutions(jobExecution.getJobInstance())
+                .forEach(execution -> sbomStagingStore.cleanup(execution.getId()));
+        jobExecution.getExecutionContext().remove(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY);
+        jobExecution.getExecutionContext().remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY);
+        jobExecution.getExecutionContext().remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_FORMAT_KEY);
+        jobExecution.getExecutionContext().remove(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY);
+    }
+
     private void dealFailedJob(RawSbom rawSbom, JobExecution jobExecution) {
         if (jobExecution.getStatus() == BatchStatus.FAILED) {
             logger.error("batch job instance id:{} failed, rawSbomId:{}, exitStatus:{}",
@@ -112,6 +144,12 @@ public class AllStepsListener implements JobExecutionListener {
             logger.error("failed batch job isOverMaxRestartLimit:{}", isOverMaxRestartLimit);
             rawSbom.setTaskStatus(isOverMaxRestartLimit ? SbomConstants.TASK_STATUS_FAILED_FINISH : SbomConstants.TASK_STATUS_FAILED);
             rawSbomRepository.save(rawSbom);
+
+            // enrichment of the sbom may be incomplete, make the next incremental import process all packages again
+            if (isOverMaxRestartLimit && jobExecution.getExecutionContext().containsKey(BatchContextConstants.BATCH_SBOM_ID_KEY)) {
+                packageRepository.clearImportDigestBySbomId(
+                        (UUID) jobExecution.getExecutionContext().get(BatchContextConstants.BATCH_SBOM_ID_KEY));
+            }
         }
     }
 
@@ -0,0 +1,46 @@
+package org.opensourceway.sbom.batch.listener;
+
+import org.jetbrains.annotations.NotNull;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+/**
+ * Registered on the steps which persist or enrich the sbom, increases the data version of the sbom after each of them,
+ * so that exports cached for the previous version are not served any more.
+ */
+public class SbomModifiedStepListener implements StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SbomModifiedStepListener.class);
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Override
+    public void beforeStep(@NotNull StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(@NotNull StepExecution stepExecution) {
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        if (!jobContext.containsKey(BatchContextConstants.BATCH_SBOM_ID_KEY)) {
+            return null;
+        }
+        UUID sbomId = (UUID) jobContext.get(BatchContextConstants.BATCH_SBOM_ID_KEY);
+        try {
+            sbomRepository.increaseDataVersion(sbomId);
+            logger.info("sbom {} modified by step {}, data version increased", sbomId, stepExecution.getStepName());
+        } catch (Exception e) {
+            logger.error("failed to increase data version of sbom {} after step {}", sbomId, stepExecution.getStepName(), e);
+        }
+        return null;
+    }
+}
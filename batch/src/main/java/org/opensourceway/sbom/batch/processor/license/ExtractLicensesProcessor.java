@@ -45,6 +45,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class ExtractLicensesProcessor implements ItemProcessor<List<ExternalPurlRef>, ExtractLicenseVo>, StepExecutionListener {
 
@@ -125,22 +126,34 @@ public class ExtractLicensesProcessor implements ItemProcessor<List<ExternalPurl
     private Set<Pair<ExternalPurlRef, LicenseInfoVo>> extractLicenseWithRepoMeta(UUID sbomId, List<ExternalPurlRef> externalPurlChunk, Product product) {
         Set<Pair<ExternalPurlRef, LicenseInfoVo>> resultSet = new HashSet<>();
         List<String> noRepoMetaPkgList = new ArrayList<>();
+        List<Pair<ExternalPurlRef, RepoMetaLicenseCache.Key>> cacheKeys = new ArrayList<>();
+        Map<String, RepoMeta> repoMetas = repoMetaUtil.getRepoMetas(product,
+                externalPurlChunk.stream().map(purlRef -> purlRef.getPurl().getName()).toList());
         for (ExternalPurlRef purlRef : externalPurlChunk) {
-            RepoMeta repoMeta = repoMetaUtil.getRepoMeta(product, purlRef.getPurl().getName()).orElse(null);
+            RepoMeta repoMeta = repoMetas.get(purlRef.getPurl().getName());
             if (ObjectUtils.isEmpty(repoMeta)) {
                 noRepoMetaPkgList.add(purlRef.getPurl().getName());
             } else {
-                RepoMeta openEulerRepoMeta = repoMetaLicenseCache.getRepoMeta(purlRef.getPurl(), product, repoMeta.getRepoName(), repoMeta.getBranch());
-                if (openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE) == null) {
-                    continue;
-                }
-                LicenseInfoVo licenseInfoVo = new LicenseInfoVo((List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE),
-                        (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE_LEGAL),
-                        (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE_ILLEGAL),
-                        (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_COPYRIGHT));
-                resultSet.add(Pair.of(purlRef, licenseInfoVo));
+                cacheKeys.add(Pair.of(purlRef, new RepoMetaLicenseCache.Key(purlRef.getPurl(), product, repoMeta.getRepoName(), repoMeta.getBranch())));
             }
         }
+
+        // load the licenses of all the repos in the chunk at once, instead of one repo after another
+        Map<RepoMetaLicenseCache.Key, RepoMeta> openEulerRepoMetas = repoMetaLicenseCache.getRepoMetas(
+                cacheKeys.stream().map(Pair::getRight).collect(Collectors.toSet()));
+        cacheKeys.forEach(it -> {
+            ExternalPurlRef purlRef = it.getLeft();
+            RepoMeta openEulerRepoMeta = openEulerRepoMetas.get(it.getRight());
+            if (openEulerRepoMeta == null || openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE) == null) {
+                return;
+            }
+            LicenseInfoVo licenseInfoVo = new LicenseInfoVo((List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE),
+                    (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE_LEGAL),
+                    (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_LICENSE_ILLEGAL),
+                    (List<String>) openEulerRepoMeta.getExtendedAttr().get(SbomRepoConstants.REPO_COPYRIGHT));
+            resultSet.add(Pair.of(purlRef, licenseInfoVo));
+        });
+
         if (!ObjectUtils.isEmpty(noRepoMetaPkgList)) {
             logger.warn("ExtractLicenseProcessor can't find package's repoMeta, sbomId:{}, branch:{}, pkgName list:{}",
                     sbomId,
@@ -155,13 +168,15 @@ public class ExtractLicensesProcessor implements ItemProcessor<List<ExternalPurl
         Set<Pair<ExternalPurlRef, LicenseInfoVo>> resultSet = new HashSet<>();
         Set<String> repoPurlSet = new HashSet<>();
         Map<ExternalPurlRef, String> pkgRepoPurlTrans = new HashMap<>();
-        externalPurlChunk.forEach(purlRef -> {
-            String purlForLicense = licenseService.getPurlsForLicense(purlRef.getPurl(), product);
+        List<String> purlsForLicense = licenseService.getPurlsForLicense(
+                externalPurlChunk.stream().map(ExternalPurlRef::getPurl).toList(), product);
+        for (int i = 0; i < externalPurlChunk.size(); i++) {
+            String purlForLicense = purlsForLicense.get(i);
             if (!Objects.isNull(purlForLicense)) {
                 repoPurlSet.add(purlForLicense);
-                pkgRepoPurlTrans.put(purlRef, purlForLicense);
+                pkgRepoPurlTrans.put(externalPurlChunk.get(i), purlForLicense);
             }
-        });
+        }
 
         try {
             Map<String, LicenseInfoVo> licenseInfoVoMap = licenseService.getLicenseInfoVoFromPurl(new ArrayList<>(repoPurlSet));
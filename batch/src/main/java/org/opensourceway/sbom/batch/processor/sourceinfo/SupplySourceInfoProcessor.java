@@ -1,11 +1,14 @@
 package org.opensourceway.sbom.batch.processor.sourceinfo;
 
+import com.github.packageurl.PackageURL;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.vcs.VcsApi;
 import org.opensourceway.sbom.cache.OpenEulerRepoMetaCache;
+import org.opensourceway.sbom.cache.OpenHarmonyThirdPartyMetaCache;
 import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.constants.SbomConstants;
@@ -16,6 +19,7 @@ import org.opensourceway.sbom.model.entity.Package;
 import org.opensourceway.sbom.model.entity.RepoMeta;
 import org.opensourceway.sbom.model.entity.SbomElementRelationship;
 import org.opensourceway.sbom.model.enums.SbomFileType;
+import org.opensourceway.sbom.model.pojo.vo.repo.ThirdPartyMetaVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.SupplySourceInfo;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
@@ -38,9 +42,11 @@ import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, SupplySourceInfo>, StepExecutionListener {
 
@@ -59,6 +65,9 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
     @Autowired
     private RepoMetaUtil repoMetaUtil;
 
+    @Autowired
+    private OpenHarmonyThirdPartyMetaCache openHarmonyThirdPartyMetaCache;
+
     @Autowired
     private OpenHarmonyThirdPartyUtil openHarmonyThirdPartyUtil;
 
@@ -73,13 +82,14 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
                 (UUID) this.jobContext.get(BatchContextConstants.BATCH_SBOM_ID_KEY) : null;
         String productVersion = stepExecution.getExecutionContext().getString(BatchContextConstants.BATCH_PRODUCT_VERSION_KEY);
         String productType = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_TYPE_KEY);
-        String productName = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY);
 
         logger.info("start SupplySourceInfoProcessor sbomId:{}, productType:{}, productVersion:{}, first pkg id:{}",
                 sbomId, productType, productVersion, pkgIdList.get(0).toString());
 
         SupplySourceInfo supplySourceInfo = new SupplySourceInfo();
         List<String> noRepoMetaPkgList = new ArrayList<>();
+        List<Pair<Package, OpenEulerRepoMetaCache.RepoBranch>> upstreamRepoBranches = new ArrayList<>();
+        List<Package> repoMetaPkgList = new ArrayList<>();
 
         pkgIdList.forEach(pkgId -> {
             try {
@@ -92,11 +102,7 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
                 if (StringUtils.equals(SbomConstants.PRODUCT_OPENHARMONY_NAME, productType)) {
                     supplyUpstreamForOpenHarmony(pkg);
                 } else {
-                    repoMetaUtil.getRepoMeta(productType, productVersion, productName, pkg.getName()).ifPresentOrElse(repoMeta -> {
-                        supplyDownloadLocation(supplySourceInfo, pkg, repoMeta);
-                        supplyUpstream(supplySourceInfo, pkg, repoMeta);
-                        supplyPatchInfo(supplySourceInfo, pkg, repoMeta);
-                    }, () -> noRepoMetaPkgList.add(pkg.getName()));
+                    repoMetaPkgList.add(pkg);
                 }
             } catch (Exception e) {
                 logger.error("SupplySourceInfoProcessor failed, package id:{}", pkgId, e);
@@ -104,6 +110,26 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
             }
         });
 
+        // look up the repo metas of all the packages in the chunk at once, instead of one package after another
+        Map<String, RepoMeta> repoMetas = repoMetaUtil.getRepoMetas(productType, productVersion,
+                repoMetaPkgList.stream().map(Package::getName).toList());
+        repoMetaPkgList.forEach(pkg -> {
+            try {
+                RepoMeta repoMeta = repoMetas.get(pkg.getName());
+                if (repoMeta == null) {
+                    noRepoMetaPkgList.add(pkg.getName());
+                    return;
+                }
+                supplyDownloadLocation(supplySourceInfo, pkg, repoMeta);
+                upstreamRepoBranches.add(Pair.of(pkg, new OpenEulerRepoMetaCache.RepoBranch(repoMeta.getRepoName(), repoMeta.getBranch())));
+                supplyPatchInfo(supplySourceInfo, pkg, repoMeta);
+            } catch (Exception e) {
+                logger.error("SupplySourceInfoProcessor failed, package id:{}", pkg.getId(), e);
+                throw new RuntimeException(e);
+            }
+        });
+        supplyUpstream(upstreamRepoBranches);
+
         if (!ObjectUtils.isEmpty(noRepoMetaPkgList)) {
             logger.warn("SupplySourceInfoStep can't find package's repoMeta, sbomId:{}, branch:{}, pkgName list:{}",
                     sbomId,
@@ -131,12 +157,23 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
         supplySourceInfo.addPkg(pkg);
     }
 
-    private void supplyUpstream(SupplySourceInfo supplySourceInfo, Package pkg, RepoMeta repoMeta) {
+    /**
+     * Fetch the upstreams of all the repos in the chunk at once, instead of one repo after another.
+     */
+    private void supplyUpstream(List<Pair<Package, OpenEulerRepoMetaCache.RepoBranch>> upstreamRepoBranches) {
+        if (upstreamRepoBranches.isEmpty()) {
+            return;
+        }
+        Map<OpenEulerRepoMetaCache.RepoBranch, RepoMeta> openEulerRepoMetas =
+                openEulerUpstreamCache.getRepoMetas(upstreamRepoBranches.stream().map(Pair::getRight).collect(Collectors.toSet()));
+        upstreamRepoBranches.forEach(it -> supplyUpstream(it.getLeft(), openEulerRepoMetas.get(it.getRight())));
+    }
+
+    private void supplyUpstream(Package pkg, RepoMeta openEulerRepoMeta) {
         if (pkg.getExternalPurlRefs() == null) {
             pkg.setExternalPurlRefs(new ArrayList<>());
         }
 
-        RepoMeta openEulerRepoMeta = openEulerUpstreamCache.getRepoMeta(repoMeta.getRepoName(), repoMeta.getBranch());
         if (openEulerRepoMeta == null || CollectionUtils.isEmpty(openEulerRepoMeta.getUpstreamUrls())) {
             return;
         }
@@ -182,7 +219,7 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
         }
 
         try {
-            var metas = openHarmonyThirdPartyUtil.getThirdPartyMeta(PurlUtil.canonicalizePurl(ref.getPurl()));
+            var metas = getThirdPartyMeta(PurlUtil.canonicalizePurl(ref.getPurl()));
             if (ObjectUtils.isEmpty(metas)) {
                 return;
             }
@@ -213,6 +250,17 @@ public class SupplySourceInfoProcessor implements ItemProcessor<List<UUID>, Supp
         }
     }
 
+    private List<ThirdPartyMetaVo> getThirdPartyMeta(String purl) {
+        PackageURL packageURL = PurlUtil.newPackageURL(purl);
+        try {
+            return openHarmonyThirdPartyMetaCache.getThirdPartyMeta(packageURL.getName(),
+                    openHarmonyThirdPartyUtil.getRevision(packageURL), SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE);
+        } catch (Exception e) {
+            logger.warn("Unknown exception occurs when fetch repo meta for purl: {}", purl, e);
+            return null;
+        }
+    }
+
     private void supplyPatchInfo(SupplySourceInfo supplySourceInfo, Package pkg, RepoMeta repoMeta) {
         if (ArrayUtils.isEmpty(repoMeta.getPatchInfo())) {
             return;
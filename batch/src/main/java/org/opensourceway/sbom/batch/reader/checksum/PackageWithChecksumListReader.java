@@ -4,6 +4,8 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.checksum.ChecksumService;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.entity.Package;
@@ -24,6 +26,7 @@ import org.springframework.util.Assert;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
@@ -37,6 +40,9 @@ public class PackageWithChecksumListReader implements ItemReader<Package>, StepE
     @Autowired
     SbomRepository sbomRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     private List<Package> chunks = null;
 
     private StepExecution stepExecution;
@@ -69,8 +75,10 @@ public class PackageWithChecksumListReader implements ItemReader<Package>, StepE
             return;
         }
 
+        Set<UUID> changedPkgIds = ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore);
         this.chunks = sbomOptional.get().getPackages()
                 .stream()
+                .filter(pkg -> changedPkgIds == null || changedPkgIds.contains(pkg.getId()))
                 .filter(pkg -> pkg.getExternalPurlRefs()
                         .stream()
                         .anyMatch(externalPurlRef -> "checksum".equals(externalPurlRef.getType())))
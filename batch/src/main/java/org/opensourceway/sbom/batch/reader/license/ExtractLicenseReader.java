@@ -5,6 +5,8 @@ import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.license.LicenseService;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
@@ -27,6 +29,7 @@ import org.springframework.util.Assert;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
@@ -41,6 +44,9 @@ public class ExtractLicenseReader implements ItemReader<List<ExternalPurlRef>>,
     @Autowired
     SbomRepository sbomRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     private List<List<ExternalPurlRef>> chunks;
 
     private StepExecution stepExecution;
@@ -65,7 +71,9 @@ public class ExtractLicenseReader implements ItemReader<List<ExternalPurlRef>>,
             return;
         }
 
+        Set<UUID> changedPkgIds = ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore);
         List<ExternalPurlRef> externalPurlRefs = sbomOptional.get().getPackages().stream()
+                .filter(pkg -> changedPkgIds == null || changedPkgIds.contains(pkg.getId()))
                 .map(Package::getExternalPurlRefs)
                 .flatMap(List::stream)
                 .filter(externalPurlRef -> externalPurlRef.getCategory().equals("PACKAGE_MANAGER"))
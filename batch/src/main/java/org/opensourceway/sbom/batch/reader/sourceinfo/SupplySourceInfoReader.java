@@ -4,6 +4,8 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.dao.ProductRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
@@ -28,6 +30,7 @@ import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
@@ -45,6 +48,9 @@ public class SupplySourceInfoReader implements ItemReader<List<UUID>>, StepExecu
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     private List<List<UUID>> chunks = null;
 
     private StepExecution stepExecution;
@@ -68,9 +74,11 @@ public class SupplySourceInfoReader implements ItemReader<List<UUID>>, StepExecu
         this.stepExecution.getExecutionContext().putString(BatchContextConstants.BATCH_PRODUCT_VERSION_KEY,
                 String.valueOf(product.getAttribute().get(BatchContextConstants.BATCH_PRODUCT_VERSION_KEY)));
 
+        Set<UUID> changedPkgIds = ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore);
         List<UUID> pkgList = packageRepository.findBySbomId(sbomId)
                 .stream()
                 .map(Package::getId)
+                .filter(pkgId -> changedPkgIds == null || changedPkgIds.contains(pkgId))
                 .toList();
 
         if (CollectionUtils.isEmpty(pkgList)) {
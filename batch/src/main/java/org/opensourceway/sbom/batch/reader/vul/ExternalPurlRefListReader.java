@@ -5,6 +5,8 @@ import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.vul.VulService;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
@@ -28,6 +30,7 @@ import org.springframework.util.Assert;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
@@ -39,6 +42,9 @@ public class ExternalPurlRefListReader implements ItemReader<List<ExternalPurlRe
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     private List<List<ExternalPurlRef>> chunks;
 
     private StepExecution stepExecution;
@@ -73,7 +79,9 @@ public class ExternalPurlRefListReader implements ItemReader<List<ExternalPurlRe
             return;
         }
 
+        Set<UUID> changedPkgIds = ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore);
         List<ExternalPurlRef> externalPurlRefs = sbomOptional.get().getPackages().stream()
+                .filter(pkg -> changedPkgIds == null || changedPkgIds.contains(pkg.getId()))
                 .map(Package::getExternalPurlRefs)
                 .flatMap(List::stream)
                 .filter(ref -> ReferenceCategory.COORDINATES_TYPE_NAME_LIST.contains(ref.getCategory()))
@@ -0,0 +1,102 @@
+package org.opensourceway.sbom.batch.staging;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opensourceway.sbom.utils.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Stage payloads as files under {@code sbom.batch.staging.dir/<jobExecutionId>/<name>}.
+ */
+@Component
+@ConditionalOnProperty(name = "sbom.batch.staging.type", havingValue = "disk", matchIfMissing = true)
+public class LocalDiskSbomStagingStore implements SbomStagingStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalDiskSbomStagingStore.class);
+
+    @Value("${sbom.batch.staging.dir:}")
+    private String stagingDir;
+
+    protected Path getStagingRoot() {
+        return StringUtils.isEmpty(stagingDir)
+                ? Path.of(System.getProperty("java.io.tmpdir"), "sbom-staging")
+                : Path.of(stagingDir);
+    }
+
+    @Override
+    public String stage(Long jobExecutionId, String name, byte[] content) throws IOException {
+        String handle = "%s/%s".formatted(jobExecutionId, name);
+        Path target = resolve(handle);
+        FileUtil.ensureDirExists(target.getParent().toFile());
+
+        // write to a temp file first, so that a half written payload is never visible to a restarted job
+        Path tmp = target.resolveSibling(name + ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("staged {} bytes as {}", content.length, handle);
+        return handle;
+    }
+
+    @Override
+    public byte[] load(String handle) throws IOException {
+        return Files.readAllBytes(resolveExisting(handle));
+    }
+
+    @Override
+    public InputStream openStream(String handle) throws IOException {
+        return Files.newInputStream(resolveExisting(handle));
+    }
+
+    @Override
+    public boolean exists(String handle) {
+        return StringUtils.isNotEmpty(handle) && Files.isRegularFile(resolve(handle));
+    }
+
+    @Override
+    public void cleanup(Long jobExecutionId) {
+        Path dir = getStagingRoot().resolve(String.valueOf(jobExecutionId));
+        if (Files.notExists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("failed to delete staged file {}", path, e);
+                }
+            });
+            logger.info("cleaned up staged payloads of job execution {}", jobExecutionId);
+        } catch (IOException e) {
+            logger.warn("failed to clean up staged payloads of job execution {}", jobExecutionId, e);
+        }
+    }
+
+    protected Path resolveExisting(String handle) throws IOException {
+        Path path = resolve(handle);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("staged payload %s does not exist".formatted(handle));
+        }
+        return path;
+    }
+
+    protected Path resolve(String handle) {
+        Path root = getStagingRoot().toAbsolutePath().normalize();
+        Path path = root.resolve(handle).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("invalid staging handle: %s".formatted(handle));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,72 @@
+package org.opensourceway.sbom.batch.staging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Same layout as {@link LocalDiskSbomStagingStore}, but reads staged payloads through a memory-mapped file,
+ * so that streaming readers page the payload in on demand instead of copying it through the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "sbom.batch.staging.type", havingValue = "mmap")
+public class MappedFileSbomStagingStore extends LocalDiskSbomStagingStore {
+
+    @Override
+    public byte[] load(String handle) throws IOException {
+        MappedByteBuffer buffer = map(handle);
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return content;
+    }
+
+    @Override
+    public InputStream openStream(String handle) throws IOException {
+        return new ByteBufferInputStream(map(handle));
+    }
+
+    private MappedByteBuffer map(String handle) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolveExisting(handle), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.opensourceway.sbom.batch.staging;
+
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.sbom.SbomDocument;
+import org.opensourceway.sbom.utils.SbomMapperUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Staging area for large batch job payloads (raw sbom bytes, parsed sbom document).
+ * <p>
+ * Only the handle returned by {@link #stage} is put into the job ExecutionContext, so the payload is not serialized
+ * into BATCH_JOB_EXECUTION_CONTEXT on every step boundary.
+ * Staged payloads are kept until {@link #cleanup} is called for the job execution, which allows a restarted job to
+ * read the payloads staged by its previous execution.
+ */
+public interface SbomStagingStore {
+
+    String RAW_SBOM_BYTES_NAME = "raw-sbom";
+
+    String SBOM_DOCUMENT_NAME = "sbom-document";
+
+    String CHANGED_PACKAGES_NAME = "changed-packages";
+
+    /**
+     * stage content for a job execution, an existing payload with the same name will be overwritten
+     *
+     * @return handle of the staged content
+     */
+    String stage(Long jobExecutionId, String name, byte[] content) throws IOException;
+
+    byte[] load(String handle) throws IOException;
+
+    InputStream openStream(String handle) throws IOException;
+
+    boolean exists(String handle);
+
+    /**
+     * remove all payloads staged by a job execution
+     */
+    void cleanup(Long jobExecutionId);
+
+    default String stageDocument(Long jobExecutionId, SbomDocument document) throws IOException {
+        byte[] content = SbomMapperUtil.writeAsBytes(document, SbomFormat.JSON);
+        return stage(jobExecutionId, SBOM_DOCUMENT_NAME, content);
+    }
+
+    default <T> T loadDocument(String handle, Class<?> documentClass) throws IOException {
+        return SbomMapperUtil.readDocument(SbomFormat.JSON, documentClass, load(handle));
+    }
+}
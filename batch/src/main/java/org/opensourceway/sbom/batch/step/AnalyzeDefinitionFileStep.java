@@ -2,6 +2,7 @@ package org.opensourceway.sbom.batch.step;
 
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.analyzer.SbomContentAnalyzer;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
 import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.slf4j.Logger;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.UUID;
@@ -27,21 +29,24 @@ public class AnalyzeDefinitionFileStep implements Tasklet {
     @Qualifier("definitionFileAnalyzer")
     private SbomContentAnalyzer definitionFileAnalyzer;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     @Override
-    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) {
+    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) throws IOException {
         ExecutionContext jobContext = ExecutionContextUtils.getJobContext(contribution);
         UUID rawSbomId = (UUID) jobContext.get(BatchContextConstants.BATCH_RAW_SBOM_ID_KEY);
         logger.info("start AnalyzeDefinitionFileStep rawSbomId:{}", rawSbomId);
 
         String productName = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY);
-        byte[] data = (byte[]) jobContext.get(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY);
+        byte[] data = ExecutionContextUtils.loadRawSbomBytes(jobContext, sbomStagingStore);
         assert data != null;
 
         byte[] decodedData = Base64.getDecoder().decode(new String(data, StandardCharsets.UTF_8));
         logger.info("AnalyzeDefinitionFile productName:{}, decodedData:{}", productName, decodedData.length);
 
         byte[] sbomData = definitionFileAnalyzer.analyze(productName, new ByteArrayInputStream(decodedData));
-        jobContext.put(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY, sbomData);
+        ExecutionContextUtils.stageRawSbomBytes(contribution, sbomStagingStore, sbomData);
 
         logger.info("finish TraceDataAnalyzerStep rawSbomId:{}", rawSbomId);
         return RepeatStatus.FINISHED;
@@ -1,10 +1,14 @@
 package org.opensourceway.sbom.batch.step;
 
 import com.github.packageurl.PackageURL;
+import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
 import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
+import org.opensourceway.sbom.cache.OpenHarmonyThirdPartyMetaCache;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.pojo.vo.repo.ThirdPartyMetaVo;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.model.spdx.ReferenceType;
 import org.opensourceway.sbom.model.spdx.SpdxDocument;
@@ -20,19 +24,37 @@ import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.ObjectUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class OpenHarmonySpecialTaskStep implements Tasklet {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenHarmonySpecialTaskStep.class);
 
+    @Autowired
+    private OpenHarmonyThirdPartyMetaCache openHarmonyThirdPartyMetaCache;
+
     @Autowired
     private OpenHarmonyThirdPartyUtil openHarmonyThirdPartyUtil;
 
+    @Autowired
+    @Qualifier("openHarmonyThirdPartyExecutor")
+    private ThreadPoolTaskExecutor openHarmonyThirdPartyExecutor;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     @Override
     public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) throws Exception {
         ExecutionContext jobContext = ExecutionContextUtils.getJobContext(contribution);
@@ -40,34 +62,78 @@ public class OpenHarmonySpecialTaskStep implements Tasklet {
         String productName = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY);
         logger.info("start OpenHarmonySpecialTaskStep rawSbomId: {}, productName: {}", rawSbomId, productName);
 
-        var sbomDocument = (SpdxDocument) jobContext.get(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY);
+        SpdxDocument sbomDocument = ExecutionContextUtils.loadSbomDocument(jobContext, sbomStagingStore, SpdxDocument.class);
         Optional.ofNullable(sbomDocument)
                 .flatMap(it -> Optional.ofNullable(it.getPackages()))
-                .ifPresent(it -> it.stream().filter(Objects::nonNull).forEach(this::fulfillThirdPartyDependencies));
-        jobContext.put(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY, sbomDocument);
+                .ifPresent(this::fulfillThirdPartyDependencies);
+        if (Objects.nonNull(sbomDocument)) {
+            ExecutionContextUtils.stageSbomDocument(contribution, sbomStagingStore, sbomDocument);
+            jobContext.remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY);
+        }
 
         logger.info("finish OpenHarmonySpecialTaskStep rawSbomId: {}, productName: {}", rawSbomId, productName);
         return RepeatStatus.FINISHED;
     }
 
-    private void fulfillThirdPartyDependencies(SpdxPackage pkg) {
+    private void fulfillThirdPartyDependencies(List<SpdxPackage> packages) {
+        List<Pair<SpdxPackage, Pair<String, String>>> thirdPartyRepos = new ArrayList<>();
+        packages.stream().filter(Objects::nonNull).forEach(pkg -> {
+            PackageURL packageURL = getThirdPartyPackageURL(pkg);
+            if (Objects.nonNull(packageURL)) {
+                thirdPartyRepos.add(Pair.of(pkg,
+                        Pair.of(packageURL.getName(), openHarmonyThirdPartyUtil.getRevision(packageURL))));
+            }
+        });
+
+        Map<Pair<String, String>, List<ThirdPartyMetaVo>> thirdPartyMetas = fetchThirdPartyMetas(
+                thirdPartyRepos.stream().map(Pair::getRight).toList());
+        thirdPartyRepos.forEach(it -> fulfillThirdPartyDependencies(it.getLeft(), thirdPartyMetas.get(it.getRight())));
+    }
+
+    /**
+     * Fetch the metas of distinct repo and revision pairs concurrently, bounded by the openHarmonyThirdPartyExecutor.
+     * Repos fetched by previous imports are served by the cache.
+     */
+    private Map<Pair<String, String>, List<ThirdPartyMetaVo>> fetchThirdPartyMetas(Collection<Pair<String, String>> repos) {
+        Map<Pair<String, String>, CompletableFuture<List<ThirdPartyMetaVo>>> futures = new HashMap<>();
+        repos.forEach(repo -> futures.computeIfAbsent(repo, it -> CompletableFuture.supplyAsync(
+                () -> fetchThirdPartyMeta(it.getLeft(), it.getRight()), openHarmonyThirdPartyExecutor)));
+
+        Map<Pair<String, String>, List<ThirdPartyMetaVo>> thirdPartyMetas = new HashMap<>();
+        futures.forEach((repo, future) -> thirdPartyMetas.put(repo, future.join()));
+        return thirdPartyMetas;
+    }
+
+    private List<ThirdPartyMetaVo> fetchThirdPartyMeta(String repo, String revision) {
+        try {
+            return openHarmonyThirdPartyMetaCache.getThirdPartyMeta(repo, revision,
+                    SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE);
+        } catch (Exception e) {
+            logger.warn("Unknown exception occurs when fetch repo meta for repo: {}, revision: {}", repo, revision, e);
+            return null;
+        }
+    }
+
+    private PackageURL getThirdPartyPackageURL(SpdxPackage pkg) {
         if (Objects.isNull(pkg.getExternalRefs())) {
-            return;
+            return null;
         }
 
         var ref = pkg.getExternalRefs().stream()
                 .filter(it -> ReferenceCategory.PACKAGE_MANAGER.equals(it.referenceCategory()))
                 .findFirst().orElse(null);
         if (Objects.isNull(ref)) {
-            return;
+            return null;
         }
 
         PackageURL packageURL = PurlUtil.newPackageURL(ref.referenceLocator());
-        if (!packageURL.getName().startsWith(SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_REPO_PREFIX)) {
-            return;
+        if (!openHarmonyThirdPartyUtil.isThirdPartyRepo(packageURL)) {
+            return null;
         }
+        return packageURL;
+    }
 
-        var metas = openHarmonyThirdPartyUtil.getThirdPartyMeta(ref.referenceLocator());
+    private void fulfillThirdPartyDependencies(SpdxPackage pkg, List<ThirdPartyMetaVo> metas) {
         if (ObjectUtils.isEmpty(metas)) {
             return;
         }
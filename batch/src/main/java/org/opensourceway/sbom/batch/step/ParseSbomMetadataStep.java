@@ -2,6 +2,8 @@ package org.opensourceway.sbom.batch.step;
 
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.reader.SbomReader;
+import org.opensourceway.sbom.api.reader.StreamingSbomReader;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
 import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.enums.SbomFormat;
@@ -15,6 +17,7 @@ import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.UUID;
 
@@ -22,6 +25,9 @@ public class ParseSbomMetadataStep implements Tasklet {
 
     private static final Logger logger = LoggerFactory.getLogger(ParseSbomMetadataStep.class);
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     @Override
     public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) throws Exception {
         ExecutionContext jobContext = ExecutionContextUtils.getJobContext(contribution);
@@ -31,14 +37,22 @@ public class ParseSbomMetadataStep implements Tasklet {
         String productName = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY);
         SbomSpecification specification = (SbomSpecification) jobContext.get(BatchContextConstants.BATCH_SBOM_SPEC_KEY);
         SbomFormat format = (SbomFormat) jobContext.get(BatchContextConstants.BATCH_SBOM_FORMAT_KEY);
-        byte[] fileContent = (byte[]) jobContext.get(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY);
-        assert fileContent != null;
-        logger.info("sbom metadata productName:{}, SbomSpecification:{}, format:{}, traceData:{}", productName, specification, format, fileContent.length);
-
         SbomReader sbomReader = SbomApplicationContextHolder.getSbomReader(specification != null ? specification.getSpecification() : null);
-        SbomDocument document = sbomReader.readToDocument(productName, format, fileContent);
-        jobContext.put(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY, document);
+        if (sbomReader instanceof StreamingSbomReader streamingSbomReader && streamingSbomReader.supportStreaming(format)
+                && jobContext.containsKey(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY)) {
+            // PersistSbomMetadataStep streams the raw sbom from the staging store in its original format
+            logger.info("sbom metadata productName:{}, SbomSpecification:{}, format:{}, parse in streaming mode", productName, specification, format);
+            ExecutionContextUtils.useRawSbomAsDocument(jobContext, format);
+        } else {
+            byte[] fileContent = ExecutionContextUtils.loadRawSbomBytes(jobContext, sbomStagingStore);
+            assert fileContent != null;
+            logger.info("sbom metadata productName:{}, SbomSpecification:{}, format:{}, traceData:{}", productName, specification, format, fileContent.length);
+
+            SbomDocument document = sbomReader.readToDocument(productName, format, fileContent);
+            ExecutionContextUtils.stageSbomDocument(contribution, sbomStagingStore, document);
+        }
         jobContext.remove(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY);
+        jobContext.remove(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY);
 
         logger.info("finish ParseSbomMetadataStep rawSbomId:{}", rawSbomId);
         return RepeatStatus.FINISHED;
@@ -2,13 +2,17 @@ package org.opensourceway.sbom.batch.step;
 
 import org.jetbrains.annotations.NotNull;
 import org.opensourceway.sbom.api.reader.SbomReader;
+import org.opensourceway.sbom.api.reader.StreamingSbomReader;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
 import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.RawSbomRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.enums.SbomFormat;
 import org.opensourceway.sbom.model.enums.SbomSpecification;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
 import org.opensourceway.sbom.model.sbom.SbomDocument;
 import org.opensourceway.sbom.utils.SbomApplicationContextHolder;
 import org.slf4j.Logger;
@@ -19,7 +23,11 @@ import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 import java.util.UUID;
 
 public class PersistSbomMetadataStep implements Tasklet {
@@ -32,23 +40,50 @@ public class PersistSbomMetadataStep implements Tasklet {
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
+    @Value("${sbom.batch.persist.incremental:false}")
+    private Boolean incremental;
+
     @Override
-    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) {
+    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) throws IOException {
         ExecutionContext jobContext = ExecutionContextUtils.getJobContext(contribution);
         UUID rawSbomId = (UUID) jobContext.get(BatchContextConstants.BATCH_RAW_SBOM_ID_KEY);
         logger.info("start PersistSbomMetadataStep rawSbomId:{}", rawSbomId);
 
         String productName = jobContext.getString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY);
         SbomSpecification specification = (SbomSpecification) jobContext.get(BatchContextConstants.BATCH_SBOM_SPEC_KEY);
-        SbomDocument sbomDocument = (SbomDocument) jobContext.get(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY);
         logger.info("sbom metadata productName:{}, SbomSpecification:{}", productName, specification);
 
-        // delete all data of old sbom
-        sbomRepository.findByProductName(productName).ifPresent(sbom -> sbomRepository.delete(sbom));
-
-        // store new sbom
+        // store new sbom, stream the staged document straight into the database if possible
         SbomReader sbomReader = SbomApplicationContextHolder.getSbomReader(specification != null ? specification.getSpecification() : null);
-        Sbom sbom = sbomReader.persistSbom(productName, sbomDocument);
+        SbomFormat documentFormat = ExecutionContextUtils.getSbomDocumentFormat(jobContext);
+        Optional<Sbom> oldSbom = sbomRepository.findByProductName(productName);
+        jobContext.remove(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY);
+        UUID sbomId;
+        if (sbomReader instanceof StreamingSbomReader streamingSbomReader && streamingSbomReader.supportStreaming(documentFormat)
+                && jobContext.containsKey(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY)) {
+            try (InputStream documentStream = sbomStagingStore.openStream(
+                    jobContext.getString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY))) {
+                if (incremental && oldSbom.isPresent()) {
+                    // update the old sbom in place, only added and changed packages need to be enriched again
+                    SbomDiffVo diff = streamingSbomReader.persistSbomIncrementally(productName, documentFormat, documentStream);
+                    ExecutionContextUtils.stageChangedPackageIds(contribution, sbomStagingStore, diff.getChangedPackageIds());
+                    sbomId = diff.getSbomId();
+                } else {
+                    // delete all data of old sbom
+                    oldSbom.ifPresent(sbom -> sbomRepository.delete(sbom));
+                    sbomId = streamingSbomReader.persistSbom(productName, documentFormat, documentStream).getId();
+                }
+            }
+        } else {
+            // delete all data of old sbom
+            oldSbom.ifPresent(sbom -> sbomRepository.delete(sbom));
+            SbomDocument sbomDocument = ExecutionContextUtils.loadSbomDocument(jobContext, sbomStagingStore,
+                    specification != null ? specification.getDocumentClass() : null);
+            sbomId = sbomReader.persistSbom(productName, sbomDocument).getId();
+        }
 
         // update task status
         rawSbomRepository.findById(rawSbomId).ifPresent(rawSbom -> {
@@ -57,9 +92,11 @@ public class PersistSbomMetadataStep implements Tasklet {
         });
 
         // update context
-        jobContext.put(BatchContextConstants.BATCH_SBOM_ID_KEY, sbom.getId());
+        jobContext.put(BatchContextConstants.BATCH_SBOM_ID_KEY, sbomId);
         jobContext.remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY);
-        logger.info("finish PersistSbomMetadataStep rawSbomId:{}, sbom id:{}", rawSbomId, sbom.getId().toString());
+        jobContext.remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY);
+        jobContext.remove(BatchContextConstants.BATCH_SBOM_DOCUMENT_FORMAT_KEY);
+        logger.info("finish PersistSbomMetadataStep rawSbomId:{}, sbom id:{}", rawSbomId, sbomId.toString());
         return RepeatStatus.FINISHED;
     }
 
@@ -1,6 +1,7 @@
 package org.opensourceway.sbom.batch.step;
 
 import org.jetbrains.annotations.NotNull;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
 import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
 import org.opensourceway.sbom.dao.RawSbomRepository;
 import org.opensourceway.sbom.model.constants.BatchContextConstants;
@@ -19,6 +20,8 @@ import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 public class SelectWaitRawSbomStep implements Tasklet {
@@ -28,12 +31,16 @@ public class SelectWaitRawSbomStep implements Tasklet {
     @Autowired
     private RawSbomRepository rawSbomRepository;
 
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
     @Override
-    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) {
+    public RepeatStatus execute(@NotNull StepContribution contribution, @NotNull ChunkContext chunkContext) throws IOException {
         logger.info("start SelectWaitRawSbomStep, try to find a waiting raw sbom");
         ExecutionContext jobContext = ExecutionContextUtils.getJobContext(contribution);
 
-        RawSbom rawSbom = rawSbomRepository.queryOneTaskByTaskStatusWithLock(SbomConstants.TASK_STATUS_WAIT).orElse(null);
+        RawSbom rawSbom = rawSbomRepository.claimOneIdleProductTaskByTaskStatusWithLock(SbomConstants.TASK_STATUS_WAIT,
+                List.of(SbomConstants.TASK_STATUS_RUNNING, SbomConstants.TASK_STATUS_FINISH_PARSE)).orElse(null);
         if (Objects.isNull(rawSbom)) {
             logger.info("not find waiting raw sbom");
             contribution.setExitStatus(ExitStatus.STOPPED);
@@ -47,7 +54,7 @@ public class SelectWaitRawSbomStep implements Tasklet {
             jobContext.putString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY, rawSbom.getProduct().getName());
             jobContext.putString(BatchContextConstants.BATCH_SBOM_PRODUCT_TYPE_KEY,
                     String.valueOf(rawSbom.getProduct().getAttribute().get(BatchContextConstants.BATCH_PRODUCT_TYPE_KEY)));
-            jobContext.put(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY, rawSbom.getValue());
+            ExecutionContextUtils.stageRawSbomBytes(contribution, sbomStagingStore, rawSbom.getValue());
             jobContext.put(BatchContextConstants.BATCH_SBOM_CONTENT_TYPE_KEY, SbomContentType.findByType(rawSbom.getValueType()));
 
             SbomSpecification specification = SbomContentType.getSpecByType(rawSbom.getValueType());
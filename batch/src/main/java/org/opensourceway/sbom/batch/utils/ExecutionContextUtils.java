@@ -1,9 +1,25 @@
 package org.opensourceway.sbom.batch.utils;
 
+import org.apache.commons.lang3.StringUtils;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.sbom.SbomDocument;
+import org.opensourceway.sbom.utils.SbomMapperUtil;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepContribution;
 import org.springframework.batch.item.ExecutionContext;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 public class ExecutionContextUtils {
 
     public static ExecutionContext getJobContext(StepContribution contribution) {
@@ -14,4 +30,93 @@ public class ExecutionContextUtils {
         return contribution.getStepExecution().getJobExecution();
     }
 
+    public static void stageRawSbomBytes(StepContribution contribution, SbomStagingStore stagingStore, byte[] content) throws IOException {
+        String handle = stagingStore.stage(getJobExecution(contribution).getId(), SbomStagingStore.RAW_SBOM_BYTES_NAME, content);
+        getJobContext(contribution).putString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY, handle);
+    }
+
+    public static byte[] loadRawSbomBytes(ExecutionContext jobContext, SbomStagingStore stagingStore) throws IOException {
+        if (jobContext.containsKey(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY)) {
+            return stagingStore.load(jobContext.getString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY));
+        }
+        // job context persisted before the staging store was introduced
+        return (byte[]) jobContext.get(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY);
+    }
+
+    /**
+     * @return false if a payload staged by the job is gone, e.g. the job ran on another node or the staging dir was
+     * cleaned up, so that the job can't be restarted
+     */
+    public static boolean stagedPayloadsExist(ExecutionContext jobContext, SbomStagingStore stagingStore) {
+        return Stream.of(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY,
+                        BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY,
+                        BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY)
+                .filter(jobContext::containsKey)
+                .allMatch(key -> stagingStore.exists(jobContext.getString(key)));
+    }
+
+    public static void stageSbomDocument(StepContribution contribution, SbomStagingStore stagingStore, SbomDocument document) throws IOException {
+        String handle = stagingStore.stageDocument(getJobExecution(contribution).getId(), document);
+        getJobContext(contribution).putString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY, handle);
+        getJobContext(contribution).put(BatchContextConstants.BATCH_SBOM_DOCUMENT_FORMAT_KEY, SbomFormat.JSON);
+    }
+
+    /**
+     * use the staged raw sbom as the sbom document, it is read by a streaming reader in its original format
+     */
+    public static void useRawSbomAsDocument(ExecutionContext jobContext, SbomFormat format) {
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY,
+                jobContext.getString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY));
+        jobContext.put(BatchContextConstants.BATCH_SBOM_DOCUMENT_FORMAT_KEY, format);
+    }
+
+    public static SbomFormat getSbomDocumentFormat(ExecutionContext jobContext) {
+        SbomFormat format = (SbomFormat) jobContext.get(BatchContextConstants.BATCH_SBOM_DOCUMENT_FORMAT_KEY);
+        // documents staged by stageSbomDocument are always json
+        return Objects.requireNonNullElse(format, SbomFormat.JSON);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T loadSbomDocument(ExecutionContext jobContext, SbomStagingStore stagingStore, Class<?> documentClass) throws IOException {
+        if (!jobContext.containsKey(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY)) {
+            // job context persisted before the staging store was introduced
+            return (T) jobContext.get(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY);
+        }
+        String handle = jobContext.getString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY);
+        SbomFormat format = getSbomDocumentFormat(jobContext);
+        if (format != SbomFormat.JSON) {
+            return SbomMapperUtil.readDocument(format, documentClass, stagingStore.load(handle));
+        }
+        return stagingStore.loadDocument(handle, documentClass);
+    }
+
+    /**
+     * stage ids of the packages added or changed by an incremental import, enrichment steps only process these packages
+     */
+    public static void stageChangedPackageIds(StepContribution contribution, SbomStagingStore stagingStore, List<UUID> pkgIds) throws IOException {
+        String content = pkgIds.stream().map(UUID::toString).collect(Collectors.joining("\n"));
+        String handle = stagingStore.stage(getJobExecution(contribution).getId(), SbomStagingStore.CHANGED_PACKAGES_NAME,
+                content.getBytes(StandardCharsets.UTF_8));
+        getJobContext(contribution).putString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY, handle);
+    }
+
+    /**
+     * @return ids of the packages to be enriched, or null if all packages of the sbom need to be enriched
+     */
+    public static Set<UUID> loadChangedPackageIds(ExecutionContext jobContext, SbomStagingStore stagingStore) {
+        if (!jobContext.containsKey(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY)) {
+            return null;
+        }
+        try {
+            String content = new String(stagingStore.load(
+                    jobContext.getString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY)), StandardCharsets.UTF_8);
+            return Arrays.stream(content.split("\n"))
+                    .filter(StringUtils::isNotBlank)
+                    .map(UUID::fromString)
+                    .collect(Collectors.toSet());
+        } catch (IOException e) {
+            throw new RuntimeException("failed to load changed package ids", e);
+        }
+    }
+
 }
@@ -8,6 +8,7 @@ dependencies {
     implementation(project(":utils"))
     implementation(project(":dao"))
 
+    implementation("com.fasterxml.jackson.core:jackson-databind")
     implementation("com.github.package-url:packageurl-java:$packageUrlJavaVersion")
     implementation("org.apache.commons:commons-lang3:$commonsLang3Version")
     implementation("org.apache.commons:commons-collections4:$commonsCollections4Version")
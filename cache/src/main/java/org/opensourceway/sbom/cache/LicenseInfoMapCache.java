@@ -1,5 +1,6 @@
 package org.opensourceway.sbom.cache;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.opensourceway.sbom.api.license.LicenseClient;
 import org.opensourceway.sbom.cache.config.CacheProperties;
 import org.opensourceway.sbom.cache.constant.CacheConstants;
@@ -31,6 +32,8 @@ public class LicenseInfoMapCache {
                 .maximumCacheSize(1L)
                 .expireAfterWrite(45 * 60L)// 45min
                 .cacheNullValue(true)
+                .persistent(true)
+                .valueType(new TypeReference<Map<String, LicenseInfo>>() {})
                 .build();
     }
 
@@ -1,5 +1,6 @@
 package org.opensourceway.sbom.cache;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.opensourceway.sbom.api.vcs.VcsApi;
 import org.opensourceway.sbom.cache.config.CacheProperties;
 import org.opensourceway.sbom.cache.constant.CacheConstants;
@@ -33,6 +34,9 @@ public class OpenEulerRepoBranchCache {
                 .maximumCacheSize(6000L)
                 .expireAfterAccess(2 * 60L * 60L)// 2h
                 .cacheNullValue(true)
+                .persistent(true)
+                .persistentExpireAfterWrite(12 * 60L * 60L)// 12h
+                .valueType(new TypeReference<List<GiteeBranchInfo.BranchInfo>>() {})
                 .build();
     }
 
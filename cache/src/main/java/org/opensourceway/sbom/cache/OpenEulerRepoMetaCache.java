@@ -1,36 +1,46 @@
 package org.opensourceway.sbom.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.opensourceway.sbom.api.vcs.VcsApi;
-import org.opensourceway.sbom.cache.config.CacheProperties;
 import org.opensourceway.sbom.cache.constant.CacheConstants;
 import org.opensourceway.sbom.dao.RepoMetaRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.constants.SbomRepoConstants;
 import org.opensourceway.sbom.model.entity.RepoMeta;
 import org.opensourceway.sbom.utils.OpenEulerAdvisorParser;
+import org.opensourceway.sbom.utils.RepoMetaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.scanner.ScannerException;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-@Configuration
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of openEuler repo meta with the upstream urls fetched from the advisor files.
+ * <p>
+ * Values are loaded by the shared cacheLoaderExecutor, concurrent lookups of the same key wait for the same load. The
+ * missing keys of a bulk lookup are queried at once, then their upstreams are fetched concurrently.
+ */
+@Component
 public class OpenEulerRepoMetaCache {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenEulerRepoMetaCache.class);
@@ -45,106 +55,141 @@ public class OpenEulerRepoMetaCache {
     @Autowired
     private OpenEulerAdvisorParser advisorParser;
 
+    @Autowired
+    private RepoMetaUtil repoMetaUtil;
+
+    @Autowired
+    @Qualifier("cacheLoaderExecutor")
+    private ThreadPoolTaskExecutor cacheLoaderExecutor;
+
+    private AsyncLoadingCache<RepoBranch, Optional<RepoMeta>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(5000L)
+                .expireAfterAccess(Duration.ofHours(1))
+                .executor(cacheLoaderExecutor)
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<Optional<RepoMeta>> asyncLoad(RepoBranch key, Executor executor) {
+                        return CompletableFuture.supplyAsync(() -> load(key), executor);
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<RepoBranch, Optional<RepoMeta>>> asyncLoadAll(
+                            Iterable<? extends RepoBranch> keys, Executor executor) {
+                        return loadAll(keys, executor);
+                    }
+                });
+    }
+
+    public RepoMeta getRepoMeta(String repo, String branch) {
+        return cache.get(new RepoBranch(repo, branch)).join().orElse(null);
+    }
+
     /**
-     * @return {@link CacheProperties}
+     * Look up the repo metas of all the keys at once, the missing ones are loaded in bulk.
+     *
+     * @return repo meta of each key, keys without repo meta are absent
      */
-    @Bean
-    public CacheProperties openEulerUpstreamCacheProperties() {
-        return CacheProperties.builder()
-                .cacheName(CacheConstants.OPENEULER_REPO_META_CACHE_NAME)
-                .maximumCacheSize(5000L)
-                .expireAfterAccess(60L * 60L)// 1h
-                .cacheNullValue(true)
-                .build();
+    public Map<RepoBranch, RepoMeta> getRepoMetas(Collection<RepoBranch> keys) {
+        Map<RepoBranch, RepoMeta> repoMetas = new HashMap<>();
+        cache.getAll(keys).join().forEach((key, repoMeta) -> repoMeta.ifPresent(it -> repoMetas.put(key, it)));
+        return repoMetas;
     }
 
-    @Cacheable(value = {CacheConstants.OPENEULER_REPO_META_CACHE_NAME}, key = CacheConstants.OPENEULER_REPO_META_CACHE_KEY_PATTERN)
-    public RepoMeta getRepoMeta(String repo, String branch) {
-        Optional<RepoMeta> repoMetaOptional = repoMetaRepository.findByProductTypeAndRepoNameAndBranch(SbomConstants.PRODUCT_OPENEULER_NAME, repo, branch);
-        if (repoMetaOptional.isEmpty()) {
-            return null;
-        }
-        RepoMeta repoMeta = repoMetaOptional.get();
+    private Optional<RepoMeta> load(RepoBranch key) {
+        return repoMetaRepository.findByProductTypeAndRepoNameAndBranch(
+                SbomConstants.PRODUCT_OPENEULER_NAME, key.repo(), key.branch()).map(it -> enrich(key, it));
+    }
 
-        ExecutorService executorService = Executors.newWorkStealingPool();
-        List<Callable<Boolean>> fetchTasks = Arrays.asList(
-                new FetchUpstreamCallable(repoMeta)
-        );
-        try {
-            List<Boolean> tasksResult = executorService.invokeAll(fetchTasks).stream()
-                    .map(future -> {
-                        try {
-                            return future.get();
-                        } catch (Exception e) {
-                            logger.error("repo:{}, branch:{} get fetch task's result failed", repo, branch, e);
-                            return false;
-                        }
-                    }).toList();
+    /**
+     * One bulk query per branch for all the keys, then the upstreams of the found repo metas are fetched concurrently.
+     * Keys without repo meta are loaded as empty, so that they are cached as misses like the single lookup does.
+     */
+    private CompletableFuture<Map<RepoBranch, Optional<RepoMeta>>> loadAll(Iterable<? extends RepoBranch> keys, Executor executor) {
+        List<RepoBranch> keyList = new ArrayList<>();
+        keys.forEach(keyList::add);
+        return CompletableFuture.supplyAsync(() -> queryRepoMetas(keyList), executor).thenCompose(repoMetas -> {
+            Map<RepoBranch, CompletableFuture<Optional<RepoMeta>>> futures = new HashMap<>();
+            for (RepoBranch key : keyList) {
+                RepoMeta repoMeta = repoMetas.get(key);
+                futures.put(key, repoMeta == null
+                        ? CompletableFuture.completedFuture(Optional.empty())
+                        : CompletableFuture.supplyAsync(() -> Optional.of(enrich(key, repoMeta)), executor));
+            }
+            return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .thenApply(it -> futures.entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join())));
+        });
+    }
+
+    private Map<RepoBranch, RepoMeta> queryRepoMetas(List<RepoBranch> keys) {
+        Map<RepoBranch, RepoMeta> repoMetas = new HashMap<>();
+        keys.stream()
+                .collect(Collectors.groupingBy(RepoBranch::branch, Collectors.mapping(RepoBranch::repo, Collectors.toList())))
+                .forEach((branch, repos) -> repoMetaUtil.getRepoMetasByRepoNames(SbomConstants.PRODUCT_OPENEULER_NAME, branch, repos)
+                        .forEach((repo, repoMeta) -> repoMetas.put(new RepoBranch(repo, branch), repoMeta)));
+        return repoMetas;
+    }
 
+    private RepoMeta enrich(RepoBranch key, RepoMeta repoMeta) {
+        try {
             /*
-              聚合所有异步任务的结果，判断是否需要更新repoMeta，不更新的判断逻辑：
+              判断是否需要更新repoMeta，不更新的判断逻辑：
               <p>
-              1.全为null：无数据更新；
+              1.null：无数据更新；
               <p>
-              2.有一个False：repoMeta中有脏数据
+              2.False：repoMeta中有脏数据
               */
-            boolean isUpdateRepoMeta = !(tasksResult.stream().allMatch(Objects::isNull) || tasksResult.stream().anyMatch(Boolean.FALSE::equals));
-
-            if (isUpdateRepoMeta) {
+            if (Boolean.TRUE.equals(fetchUpstream(repoMeta))) {
                 repoMetaRepository.save(repoMeta);
             }
         } catch (Exception e) {
-            logger.error("", e);
-        } finally {
-            executorService.shutdown();
+            logger.error("{} load failed, repo:{}, branch:{}", CacheConstants.OPENEULER_REPO_META_CACHE_NAME,
+                    key.repo(), key.branch(), e);
         }
         return repoMeta;
     }
 
-    class FetchUpstreamCallable implements Callable<Boolean> {
-
-        private final RepoMeta repoMeta;
-
-        FetchUpstreamCallable(RepoMeta repoMeta) {
-            this.repoMeta = repoMeta;
+    /**
+     * @return null：无数据更新；True：数据可以更新；False：数据异常不可以更新
+     */
+    private Boolean fetchUpstream(RepoMeta repoMeta) {
+        Map<String, Object> extendedAttrs = repoMeta.getExtendedAttr() == null ? new ConcurrentHashMap<>() : repoMeta.getExtendedAttr();
+        if (extendedAttrs.containsKey(SbomRepoConstants.UPSTREAM_ATTR_KEY)) {
+            return null;
+        }
+        if (ArrayUtils.isEmpty(repoMeta.getUpstreamDownloadUrls())) {
+            return null;
         }
 
-        /**
-         * @return null：无数据更新；True：数据可以更新；False：数据异常不可以更新
-         */
-        @Override
-        public Boolean call() {
-            Map<String, Object> extendedAttrs = repoMeta.getExtendedAttr() == null ? new ConcurrentHashMap<>() : repoMeta.getExtendedAttr();
-            if (extendedAttrs.containsKey(SbomRepoConstants.UPSTREAM_ATTR_KEY)) {
-                return null;
-            }
-            if (ArrayUtils.isEmpty(repoMeta.getUpstreamDownloadUrls())) {
-                return null;
-            }
-
-            List<String> upstreamUrls = new ArrayList<>();
-            boolean isUpdateRepoMeta = Boolean.TRUE;
-            for (String upstreamDownloadUrl : repoMeta.getUpstreamDownloadUrls()) {
-                try {
-                    String advisorContent = giteeApi.getFileContext(upstreamDownloadUrl);
-                    String upstreamLocation = advisorParser.parseUpstreamLocation(advisorContent, upstreamDownloadUrl);
-                    if (StringUtils.isEmpty(upstreamLocation)) {
-                        continue;
-                    }
-                    upstreamUrls.add(upstreamLocation);
-                } catch (ScannerException e) {
-                    logger.error("openEuler upstream yaml parse failed, skip it, upstream:{}, error info:{}", upstreamDownloadUrl, e.getMessage());
-                    isUpdateRepoMeta = Boolean.FALSE;
-                } catch (Exception e) {
-                    logger.error("openEuler upstream fetch failed, upstream:{}", upstreamDownloadUrl, e);
-                    isUpdateRepoMeta = Boolean.FALSE;
+        List<String> upstreamUrls = new ArrayList<>();
+        boolean isUpdateRepoMeta = Boolean.TRUE;
+        for (String upstreamDownloadUrl : repoMeta.getUpstreamDownloadUrls()) {
+            try {
+                String advisorContent = giteeApi.getFileContext(upstreamDownloadUrl);
+                String upstreamLocation = advisorParser.parseUpstreamLocation(advisorContent, upstreamDownloadUrl);
+                if (StringUtils.isEmpty(upstreamLocation)) {
+                    continue;
                 }
+                upstreamUrls.add(upstreamLocation);
+            } catch (ScannerException e) {
+                logger.error("openEuler upstream yaml parse failed, skip it, upstream:{}, error info:{}", upstreamDownloadUrl, e.getMessage());
+                isUpdateRepoMeta = Boolean.FALSE;
+            } catch (Exception e) {
+                logger.error("openEuler upstream fetch failed, upstream:{}", upstreamDownloadUrl, e);
+                isUpdateRepoMeta = Boolean.FALSE;
             }
-
-            extendedAttrs.put(SbomRepoConstants.UPSTREAM_ATTR_KEY, upstreamUrls);
-            repoMeta.setExtendedAttr(extendedAttrs);
-            return isUpdateRepoMeta;
         }
+
+        extendedAttrs.put(SbomRepoConstants.UPSTREAM_ATTR_KEY, upstreamUrls);
+        repoMeta.setExtendedAttr(extendedAttrs);
+        return isUpdateRepoMeta;
+    }
+
+    public record RepoBranch(String repo, String branch) {
     }
 
-}
\ No newline at end of file
+}
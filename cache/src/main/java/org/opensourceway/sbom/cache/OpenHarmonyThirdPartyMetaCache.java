@@ -0,0 +1,50 @@
+package org.opensourceway.sbom.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.opensourceway.sbom.cache.config.CacheProperties;
+import org.opensourceway.sbom.cache.constant.CacheConstants;
+import org.opensourceway.sbom.model.pojo.vo.repo.ThirdPartyMetaVo;
+import org.opensourceway.sbom.utils.OpenHarmonyThirdPartyUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Cache of the third party metas of OpenHarmony repos, keyed by repo, revision and path of the meta file.
+ * <p>
+ * The same third party repos are referred by every OpenHarmony sbom, with the persistent second tier enabled a repeated
+ * import fetches nothing from gitee. Missing files are cached as null, fetch failures are thrown and not cached. Only
+ * the metas at tags and commit ids are cached, a branch such as master is fetched every time.
+ */
+@Configuration
+public class OpenHarmonyThirdPartyMetaCache {
+
+    @Autowired
+    private OpenHarmonyThirdPartyUtil openHarmonyThirdPartyUtil;
+
+    /**
+     * @return {@link CacheProperties}
+     */
+    @Bean
+    public CacheProperties openHarmonyThirdPartyMetaCacheProperties() {
+        return CacheProperties.builder()
+                .cacheName(CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME)
+                .maximumCacheSize(10000L)
+                .expireAfterAccess(24 * 60L * 60L)// 24h
+                .cacheNullValue(true)
+                .persistent(true)
+                .persistentExpireAfterWrite(7 * 24 * 60L * 60L)// 7d
+                .valueType(new TypeReference<List<ThirdPartyMetaVo>>() {})
+                .build();
+    }
+
+    @Cacheable(value = {CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME},
+            key = CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_KEY_PATTERN,
+            condition = CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_CONDITION)
+    public List<ThirdPartyMetaVo> getThirdPartyMeta(String repo, String revision, String path) {
+        return openHarmonyThirdPartyUtil.fetchThirdPartyMeta(repo, revision, path);
+    }
+}
@@ -1,9 +1,11 @@
 package org.opensourceway.sbom.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.apache.commons.lang3.ObjectUtils;
-import org.opensourceway.sbom.api.license.LicenseClient;
+import org.apache.commons.lang3.tuple.Pair;
 import org.opensourceway.sbom.api.license.LicenseService;
-import org.opensourceway.sbom.cache.config.CacheProperties;
 import org.opensourceway.sbom.cache.constant.CacheConstants;
 import org.opensourceway.sbom.dao.RepoMetaRepository;
 import org.opensourceway.sbom.model.constants.SbomRepoConstants;
@@ -15,27 +17,35 @@ import org.opensourceway.sbom.utils.RepoMetaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import java.util.Arrays;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-@Configuration
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of repo meta with the repo licenses fetched from the compliance service.
+ * <p>
+ * Values are loaded by the shared cacheLoaderExecutor, concurrent lookups of the same key wait for the same load. The
+ * missing keys of a bulk lookup are queried at once, then their licenses are fetched concurrently.
+ */
+@Component
 public class RepoMetaLicenseCache {
     private static final Logger logger = LoggerFactory.getLogger(RepoMetaLicenseCache.class);
 
-    @Autowired
-    private LicenseClient licenseClient;
-
     @Autowired
     private LicenseService licenseService;
 
@@ -45,95 +55,168 @@ public class RepoMetaLicenseCache {
     @Autowired
     private RepoMetaUtil repoMetaUtil;
 
-    @Bean
-    public CacheProperties repoMetaLicenseCacheProperties() {
-        return CacheProperties.builder()
-                .cacheName(CacheConstants.REPO_META_LICENSE_CACHE_NAME)
-                .maximumCacheSize(5000L)
-                .expireAfterWrite(60L * 60L)// 1h
-                .cacheNullValue(true)
-                .build();
+    @Autowired
+    @Qualifier("cacheLoaderExecutor")
+    private ThreadPoolTaskExecutor cacheLoaderExecutor;
+
+    private AsyncLoadingCache<Key, Optional<RepoMeta>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(5000L)
+                .expireAfterWrite(Duration.ofHours(1))
+                .executor(cacheLoaderExecutor)
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<Optional<RepoMeta>> asyncLoad(Key key, Executor executor) {
+                        return CompletableFuture.supplyAsync(() -> load(key), executor);
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Key, Optional<RepoMeta>>> asyncLoadAll(
+                            Iterable<? extends Key> keys, Executor executor) {
+                        return loadAll(keys, executor);
+                    }
+                });
     }
 
-
-    @Cacheable(value = {CacheConstants.REPO_META_LICENSE_CACHE_NAME}, key = CacheConstants.REPO_META_LICENSE_CACHE_KEY_PATTERN)
     public RepoMeta getRepoMeta(PackageUrlVo packageUrlVo, Product product, String repo, String branch) {
+        return cache.get(new Key(packageUrlVo, product, repo, branch)).join().orElse(null);
+    }
 
-        Optional<RepoMeta> repoMetaOptional = repoMetaUtil.getRepoMeta(product, packageUrlVo.getName());
-        if (repoMetaOptional.isEmpty()) {
-            return null;
-        }
-        RepoMeta repoMeta = repoMetaOptional.get();
+    /**
+     * Look up the repo metas of all the keys at once, the missing ones are loaded in bulk.
+     *
+     * @return repo meta of each key, keys without repo meta are absent
+     */
+    public Map<Key, RepoMeta> getRepoMetas(Collection<Key> keys) {
+        Map<Key, RepoMeta> repoMetas = new HashMap<>();
+        cache.getAll(keys).join().forEach((key, repoMeta) -> repoMeta.ifPresent(it -> repoMetas.put(key, it)));
+        return repoMetas;
+    }
 
-        ExecutorService executorService = Executors.newWorkStealingPool();
-        List<Callable<Boolean>> fetchTasks = Arrays.asList(
-                new RepoMetaLicenseCache.FetchLicenseCallable(repoMeta, packageUrlVo, product)
-        );
+    private Optional<RepoMeta> load(Key key) {
+        return repoMetaUtil.getRepoMeta(key.product, key.packageUrlVo.getName()).map(it -> enrich(key, it));
+    }
 
-        try {
-            List<Boolean> tasksResult = executorService.invokeAll(fetchTasks).stream()
-                    .map(future -> {
-                        try {
-                            return future.get();
-                        } catch (Exception e) {
-                            logger.error("repo:{}, branch:{} get fetch task's result failed", repo, branch, e);
-                            return false;
-                        }
-                    }).toList();
+    /**
+     * One bulk query per product type and version for all the keys, then the licenses of the found repo metas are
+     * fetched concurrently, once per repo meta. Keys without repo meta are loaded as empty, so that they are cached as
+     * misses like the single lookup does.
+     */
+    private CompletableFuture<Map<Key, Optional<RepoMeta>>> loadAll(Iterable<? extends Key> keys, Executor executor) {
+        List<Key> keyList = new ArrayList<>();
+        keys.forEach(keyList::add);
+        return CompletableFuture.supplyAsync(() -> queryRepoMetas(keyList), executor).thenCompose(repoMetas -> {
+            Map<UUID, CompletableFuture<Optional<RepoMeta>>> enriched = new HashMap<>();
+            Map<Key, CompletableFuture<Optional<RepoMeta>>> futures = new HashMap<>();
+            for (Key key : keyList) {
+                RepoMeta repoMeta = repoMetas.get(key);
+                futures.put(key, repoMeta == null
+                        ? CompletableFuture.completedFuture(Optional.empty())
+                        : enriched.computeIfAbsent(repoMeta.getId(), id ->
+                        CompletableFuture.supplyAsync(() -> Optional.of(enrich(key, repoMeta)), executor)));
+            }
+            return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .thenApply(it -> futures.entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join())));
+        });
+    }
 
-            boolean isUpdateRepoMeta = !(tasksResult.stream().allMatch(Objects::isNull) || tasksResult.stream().anyMatch(Boolean.FALSE::equals));
+    private Map<Key, RepoMeta> queryRepoMetas(List<Key> keys) {
+        Map<Key, RepoMeta> repoMetas = new HashMap<>();
+        keys.stream()
+                .collect(Collectors.groupingBy(key -> Pair.of(key.product.getProductType(), key.product.getProductVersion())))
+                .forEach((product, productKeys) -> {
+                    Map<String, RepoMeta> repoMetaByPkgName = repoMetaUtil.getRepoMetas(product.getLeft(),
+                            product.getRight(), productKeys.stream().map(key -> key.packageUrlVo.getName()).toList());
+                    productKeys.forEach(key -> {
+                        RepoMeta repoMeta = repoMetaByPkgName.get(key.packageUrlVo.getName());
+                        if (repoMeta != null) {
+                            repoMetas.put(key, repoMeta);
+                        }
+                    });
+                });
+        return repoMetas;
+    }
 
-            if (isUpdateRepoMeta) {
+    private RepoMeta enrich(Key key, RepoMeta repoMeta) {
+        try {
+            if (Boolean.TRUE.equals(fetchLicense(repoMeta, key.packageUrlVo, key.product))) {
                 repoMetaRepository.save(repoMeta);
             }
         } catch (Exception e) {
-            logger.error("", e);
-        } finally {
-            executorService.shutdown();
+            logger.error("{} load failed, repo:{}, branch:{}", CacheConstants.REPO_META_LICENSE_CACHE_NAME,
+                    key.repo, key.branch, e);
         }
         return repoMeta;
     }
 
-    class FetchLicenseCallable implements Callable<Boolean> {
+    private Boolean fetchLicense(RepoMeta repoMeta, PackageUrlVo packageUrlVo, Product product) {
+        Map<String, Object> extendedAttrs = repoMeta.getExtendedAttr() == null ? new ConcurrentHashMap<>() : repoMeta.getExtendedAttr();
+        if (extendedAttrs.containsKey(SbomRepoConstants.REPO_LICENSE)) {
+            return null;
+        }
+        LicenseInfoVo licenseInfoVo = new LicenseInfoVo();
+        boolean isUpdateRepoMeta = Boolean.TRUE;
+        try {
+            String purl = licenseService.getPurlsForLicense(packageUrlVo, product);
+            licenseInfoVo = licenseService.getLicenseInfoVoFromPurl(List.of(purl)).get(purl);
+
+            if (ObjectUtils.isEmpty(licenseInfoVo)) {
+                return null;
+            }
+        } catch (Exception e) {
+            logger.error("get license for product {} repo {} branch {} from compliance failed, skip it", product.getProductType(), repoMeta.getRepoName(), repoMeta.getBranch(), e);
+            isUpdateRepoMeta = Boolean.FALSE;
+        }
+
+        extendedAttrs.put(SbomRepoConstants.REPO_LICENSE, licenseInfoVo.getRepoLicense());
+        extendedAttrs.put(SbomRepoConstants.REPO_LICENSE_ILLEGAL, licenseInfoVo.getRepoLicenseIllegal());
+        extendedAttrs.put(SbomRepoConstants.REPO_LICENSE_LEGAL, licenseInfoVo.getRepoLicenseLegal());
+        extendedAttrs.put(SbomRepoConstants.REPO_COPYRIGHT, licenseInfoVo.getRepoCopyrightLegal());
+        repoMeta.setExtendedAttr(extendedAttrs);
+        return isUpdateRepoMeta;
+    }
 
-        private final RepoMeta repoMeta;
+    /**
+     * Identified by product type, repo and branch, the purl and product are only carried to load the value.
+     */
+    public static class Key {
 
         private final PackageUrlVo packageUrlVo;
 
         private final Product product;
 
-        FetchLicenseCallable(RepoMeta repoMeta, PackageUrlVo packageUrlVo, Product product) {
-            this.repoMeta = repoMeta;
+        private final String repo;
+
+        private final String branch;
+
+        public Key(PackageUrlVo packageUrlVo, Product product, String repo, String branch) {
             this.packageUrlVo = packageUrlVo;
             this.product = product;
+            this.repo = repo;
+            this.branch = branch;
         }
 
         @Override
-        public Boolean call() {
-            Map<String, Object> extendedAttrs = repoMeta.getExtendedAttr() == null ? new ConcurrentHashMap<>() : repoMeta.getExtendedAttr();
-            if (extendedAttrs.containsKey(SbomRepoConstants.REPO_LICENSE)) {
-                return null;
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-            LicenseInfoVo licenseInfoVo = new LicenseInfoVo();
-            boolean isUpdateRepoMeta = Boolean.TRUE;
-            try {
-                String purl = licenseService.getPurlsForLicense(packageUrlVo, product);
-                licenseInfoVo = licenseService.getLicenseInfoVoFromPurl(List.of(purl)).get(purl);
-
-                if (ObjectUtils.isEmpty(licenseInfoVo)) {
-                    return null;
-                }
-            } catch (Exception e) {
-                logger.error("get license for product {} repo {} branch {} from compliance failed, skip it", product.getProductType(), repoMeta.getRepoName(), repoMeta.getBranch(), e);
-                isUpdateRepoMeta = Boolean.FALSE;
+            if (o == null || getClass() != o.getClass()) {
+                return false;
             }
+            Key key = (Key) o;
+            return Objects.equals(product.getProductType(), key.product.getProductType())
+                    && Objects.equals(repo, key.repo)
+                    && Objects.equals(branch, key.branch);
+        }
 
-            extendedAttrs.put(SbomRepoConstants.REPO_LICENSE, licenseInfoVo.getRepoLicense());
-            extendedAttrs.put(SbomRepoConstants.REPO_LICENSE_ILLEGAL, licenseInfoVo.getRepoLicenseIllegal());
-            extendedAttrs.put(SbomRepoConstants.REPO_LICENSE_LEGAL, licenseInfoVo.getRepoLicenseLegal());
-            extendedAttrs.put(SbomRepoConstants.REPO_COPYRIGHT, licenseInfoVo.getRepoCopyrightLegal());
-            repoMeta.setExtendedAttr(extendedAttrs);
-            return isUpdateRepoMeta;
+        @Override
+        public int hashCode() {
+            return Objects.hash(product.getProductType(), repo, branch);
         }
     }
 
@@ -0,0 +1,29 @@
+package org.opensourceway.sbom.cache.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class CacheLoaderConfig {
+
+    /**
+     * max number of cache values loaded at the same time by the async loading caches
+     */
+    @Value("${sbom.cache.loader.concurrency:8}")
+    private Integer loaderConcurrency;
+
+    /**
+     * Shared by all async loading caches, so that the number of loading threads is bounded no matter how many lookups
+     * miss at the same time.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheLoaderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(loaderConcurrency);
+        executor.setMaxPoolSize(loaderConcurrency);
+        executor.setThreadNamePrefix("cache-loader-");
+        return executor;
+    }
+}
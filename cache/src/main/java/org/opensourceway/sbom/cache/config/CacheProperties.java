@@ -1,6 +1,7 @@
 package org.opensourceway.sbom.cache.config;
 
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 
 public class CacheProperties<K, V> {
@@ -49,6 +50,33 @@ public class CacheProperties<K, V> {
      */
     private CacheLoader<K, V> cacheLoader;
 
+    /**
+     * 是否启用持久化的二级缓存，默认：false；仅在sbom.cache.persistent.enabled为true时生效
+     * <p>
+     * 二级缓存存储在数据库中，所有节点共享且重启后不丢失，Caffeine缓存作为一级缓存
+     */
+    private Boolean persistent;
+
+    /**
+     * 二级缓存在写入后失效时长，单位：秒；为空时使用expireAfterWrite或expireAfterAccess
+     */
+    private Long persistentExpireAfterWrite;
+
+    /**
+     * 一级缓存未命中时是否读取二级缓存，默认：true
+     */
+    private Boolean readThrough;
+
+    /**
+     * 写入一级缓存时是否同步写入二级缓存，默认：true
+     */
+    private Boolean writeThrough;
+
+    /**
+     * 缓存值的类型，用于反序列化二级缓存中的json，启用二级缓存时必填
+     */
+    private TypeReference<V> valueType;
+
     public CacheProperties(String cacheName) {
         this.cacheName = cacheName;
     }
@@ -62,6 +90,11 @@ public class CacheProperties<K, V> {
         setMaximumCacheSize(builder.maximumCacheSize);
         setCacheNullValue(builder.cacheNullValue);
         setCacheLoader(builder.cacheLoader);
+        setPersistent(builder.persistent);
+        setPersistentExpireAfterWrite(builder.persistentExpireAfterWrite);
+        setReadThrough(builder.readThrough);
+        setWriteThrough(builder.writeThrough);
+        setValueType(builder.valueType);
     }
 
 
@@ -129,6 +162,46 @@ public class CacheProperties<K, V> {
         this.cacheLoader = cacheLoader;
     }
 
+    public Boolean getPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(Boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    public Long getPersistentExpireAfterWrite() {
+        return persistentExpireAfterWrite;
+    }
+
+    public void setPersistentExpireAfterWrite(Long persistentExpireAfterWrite) {
+        this.persistentExpireAfterWrite = persistentExpireAfterWrite;
+    }
+
+    public Boolean getReadThrough() {
+        return readThrough;
+    }
+
+    public void setReadThrough(Boolean readThrough) {
+        this.readThrough = readThrough;
+    }
+
+    public Boolean getWriteThrough() {
+        return writeThrough;
+    }
+
+    public void setWriteThrough(Boolean writeThrough) {
+        this.writeThrough = writeThrough;
+    }
+
+    public TypeReference<V> getValueType() {
+        return valueType;
+    }
+
+    public void setValueType(TypeReference<V> valueType) {
+        this.valueType = valueType;
+    }
+
     @SuppressWarnings("rawtypes")
     public static Builder builder() {
         return new Builder<>();
@@ -143,6 +216,11 @@ public class CacheProperties<K, V> {
         private Long maximumCacheSize;
         private Boolean cacheNullValue;
         private CacheLoader<K, V> cacheLoader;
+        private Boolean persistent;
+        private Long persistentExpireAfterWrite;
+        private Boolean readThrough;
+        private Boolean writeThrough;
+        private TypeReference<V> valueType;
 
         public Builder<K, V> cacheName(String val) {
             cacheName = val;
@@ -184,6 +262,31 @@ public class CacheProperties<K, V> {
             return this;
         }
 
+        public Builder<K, V> persistent(Boolean val) {
+            persistent = val;
+            return this;
+        }
+
+        public Builder<K, V> persistentExpireAfterWrite(Long val) {
+            persistentExpireAfterWrite = val;
+            return this;
+        }
+
+        public Builder<K, V> readThrough(Boolean val) {
+            readThrough = val;
+            return this;
+        }
+
+        public Builder<K, V> writeThrough(Boolean val) {
+            writeThrough = val;
+            return this;
+        }
+
+        public Builder<K, V> valueType(TypeReference<V> val) {
+            valueType = val;
+            return this;
+        }
+
         public CacheProperties<K, V> build() {
             return new CacheProperties<>(this);
         }
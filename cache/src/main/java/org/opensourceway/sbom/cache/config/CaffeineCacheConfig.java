@@ -2,7 +2,10 @@ package org.opensourceway.sbom.cache.config;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -11,10 +14,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.CollectionUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 
 /**
@@ -31,12 +37,24 @@ import java.util.concurrent.TimeUnit;
  *  }
  * </pre>
  * </blockquote>
+ * <p>
+ * sbom.cache.persistent.enabled为true时，persistent为true的缓存由{@link PersistentCaffeineCache}以数据库作为二级缓存
  */
 @Configuration
 @EnableCaching
 public class CaffeineCacheConfig {
+    private static final Logger logger = LoggerFactory.getLogger(CaffeineCacheConfig.class);
+
     private static final Long DEFAULT_MAX_SIZE_LONG = 1000L;
 
+    private static final Long DEFAULT_PERSISTENT_EXPIRE_AFTER_WRITE_LONG = 24 * 60 * 60L;
+
+    @Value("${sbom.cache.persistent.enabled:false}")
+    private Boolean persistentEnabled;
+
+    @Autowired
+    private PersistentCacheStore persistentCacheStore;
+
     @Bean
     public CacheManager cacheManager(@Autowired(required = false) List<CacheProperties<String,Object>> cachePropertiesList) {
         SimpleCacheManager cacheManager = new SimpleCacheManager();
@@ -49,6 +67,9 @@ public class CaffeineCacheConfig {
         if (CollectionUtils.isEmpty(cachePropertiesList)) {
             return caches;
         }
+        if (persistentEnabled) {
+            persistentCacheStore.removeExpired();
+        }
 
         for (CacheProperties cacheProperties : cachePropertiesList) {
             Cache<Object, Object> cacheConfig;
@@ -71,9 +92,28 @@ public class CaffeineCacheConfig {
             } else {
                 cacheConfig = cacheConfigBuilder.build();
             }
-            caches.add(new CaffeineCache(cacheProperties.getCacheName(), cacheConfig, cacheProperties.getCacheNullValue()));
+            if (persistentEnabled && Boolean.TRUE.equals(cacheProperties.getPersistent())) {
+                caches.add(initPersistentCache(cacheProperties, cacheConfig));
+            } else {
+                caches.add(new CaffeineCache(cacheProperties.getCacheName(), cacheConfig, cacheProperties.getCacheNullValue()));
+            }
         }
         return caches;
     }
 
+    private PersistentCaffeineCache initPersistentCache(CacheProperties<?, ?> cacheProperties, Cache<Object, Object> cacheConfig) {
+        Long expireAfterWrite = Stream.of(cacheProperties.getPersistentExpireAfterWrite(),
+                        cacheProperties.getExpireAfterWrite(), cacheProperties.getExpireAfterAccess())
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(DEFAULT_PERSISTENT_EXPIRE_AFTER_WRITE_LONG);
+        boolean readThrough = Optional.ofNullable(cacheProperties.getReadThrough()).orElse(true);
+        boolean writeThrough = Optional.ofNullable(cacheProperties.getWriteThrough()).orElse(true);
+        logger.info("cache {} is backed by persistent cache, expire after write: {}s, read through: {}, write through: {}",
+                cacheProperties.getCacheName(), expireAfterWrite, readThrough, writeThrough);
+        return new PersistentCaffeineCache(cacheProperties.getCacheName(), cacheConfig, cacheProperties.getCacheNullValue(),
+                persistentCacheStore, persistentCacheStore.constructType(cacheProperties), Duration.ofSeconds(expireAfterWrite),
+                readThrough, writeThrough);
+    }
+
 }
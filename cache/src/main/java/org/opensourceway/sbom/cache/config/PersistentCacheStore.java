@@ -0,0 +1,118 @@
+package org.opensourceway.sbom.cache.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.opensourceway.sbom.dao.CacheEntryRepository;
+import org.opensourceway.sbom.model.entity.CacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.support.NullValue;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistent second tier of the caches, stores the cached values as json in table cache_entry.
+ * <p>
+ * The second tier only saves remote calls, so a failure to read or write it is logged and treated as a miss, it never
+ * fails the cached method.
+ */
+@Component
+public class PersistentCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentCacheStore.class);
+
+    private static final String NULL_VALUE = "null";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Autowired
+    private CacheEntryRepository cacheEntryRepository;
+
+    public JavaType constructType(CacheProperties<?, ?> cacheProperties) {
+        if (cacheProperties.getValueType() == null) {
+            throw new RuntimeException("value type of persistent cache %s is missing".formatted(cacheProperties.getCacheName()));
+        }
+        return objectMapper.getTypeFactory().constructType(cacheProperties.getValueType());
+    }
+
+    /**
+     * @return the stored value, {@link NullValue#INSTANCE} if null is stored, null if the key is not stored or expired
+     */
+    public Object get(String cacheName, Object key, JavaType valueType) {
+        Optional<CacheEntry> entry;
+        try {
+            entry = cacheEntryRepository.findByCacheNameAndCacheKeyAndExpireAtAfter(cacheName, String.valueOf(key),
+                    new Timestamp(System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            logger.warn("failed to read persistent cache {}, key: {}", cacheName, key, e);
+            return null;
+        }
+        if (entry.isEmpty()) {
+            return null;
+        }
+
+        String value = entry.get().getValue();
+        if (NULL_VALUE.equals(value)) {
+            return NullValue.INSTANCE;
+        }
+        try {
+            return objectMapper.readValue(value, valueType);
+        } catch (JsonProcessingException e) {
+            // written by a previous version of the value class
+            logger.warn("failed to deserialize persistent cache {}, key: {}, drop it", cacheName, key, e);
+            evict(cacheName, key);
+            return null;
+        }
+    }
+
+    /**
+     * @param storeValue value to store, {@link NullValue#INSTANCE} for null
+     */
+    public void put(String cacheName, Object key, Object storeValue, Duration ttl) {
+        try {
+            String value = storeValue == NullValue.INSTANCE ? NULL_VALUE : objectMapper.writeValueAsString(storeValue);
+            cacheEntryRepository.upsert(UUID.randomUUID(), cacheName, String.valueOf(key), value,
+                    new Timestamp(System.currentTimeMillis() + ttl.toMillis()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("failed to write persistent cache {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    public void evict(String cacheName, Object key) {
+        try {
+            cacheEntryRepository.deleteByCacheNameAndCacheKey(cacheName, String.valueOf(key));
+        } catch (RuntimeException e) {
+            logger.warn("failed to evict persistent cache {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    public void clear(String cacheName) {
+        try {
+            cacheEntryRepository.deleteByCacheName(cacheName);
+        } catch (RuntimeException e) {
+            logger.warn("failed to clear persistent cache {}", cacheName, e);
+        }
+    }
+
+    public void removeExpired() {
+        try {
+            int count = cacheEntryRepository.deleteExpired(new Timestamp(System.currentTimeMillis()));
+            logger.info("removed {} expired persistent cache entries", count);
+        } catch (RuntimeException e) {
+            logger.warn("failed to remove expired persistent cache entries", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.opensourceway.sbom.cache.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine cache as the first tier, backed by {@link PersistentCacheStore} as the second tier.
+ * <p>
+ * Read-through: a miss of the first tier is looked up in the second tier, and a hit is put back into the first tier.
+ * <p>
+ * Write-through: values put into the first tier, including the values loaded on a miss, are also written to the second
+ * tier.
+ * <p>
+ * Evictions are always applied to both tiers, so that an evicted value is never read back from the second tier.
+ */
+public class PersistentCaffeineCache extends CaffeineCache {
+
+    private final PersistentCacheStore store;
+
+    private final JavaType valueType;
+
+    private final Duration ttl;
+
+    private final boolean readThrough;
+
+    private final boolean writeThrough;
+
+    public PersistentCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                                   PersistentCacheStore store, JavaType valueType, Duration ttl,
+                                   boolean readThrough, boolean writeThrough) {
+        super(name, cache, allowNullValues);
+        this.store = store;
+        this.valueType = valueType;
+        this.ttl = ttl;
+        this.readThrough = readThrough;
+        this.writeThrough = writeThrough;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value == null && readThrough) {
+            value = store.get(getName(), key, valueType);
+            if (value != null) {
+                getNativeCache().put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return super.get(key, () -> {
+            if (readThrough) {
+                Object stored = store.get(getName(), key, valueType);
+                if (stored != null) {
+                    return (T) fromStoreValue(stored);
+                }
+            }
+            T value = valueLoader.call();
+            if (writeThrough) {
+                store.put(getName(), key, toStoreValue(value), ttl);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        if (writeThrough) {
+            store.put(getName(), key, toStoreValue(value), ttl);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        if (existing == null && writeThrough) {
+            store.put(getName(), key, toStoreValue(value), ttl);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        store.evict(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        store.evict(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        store.clear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = super.invalidate();
+        store.clear(getName());
+        return notEmpty;
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import javax.annotation.PostConstruct;
 import java.time.Duration;
 import java.util.List;
 
@@ -21,24 +22,47 @@ public class UvpClientImpl implements UvpClient {
     @Value("${uvp.api.url}")
     private String defaultBaseUrl;
 
+    @Value("${uvp.api.concurrency:4}")
+    private Integer concurrency;
+
+    @Value("${uvp.api.timeout:30s}")
+    private Duration timeout;
+
+    @Value("${uvp.api.retry.max-attempts:3}")
+    private Integer retryMaxAttempts;
+
+    @Value("${uvp.api.retry.backoff:1s}")
+    private Duration retryBackoff;
+
     @Autowired
     private WebUtil webUtil;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = webUtil.createPooledWebClient(defaultBaseUrl, "uvp", concurrency, timeout);
+    }
+
     @Override
     public boolean needRequest() {
         return StringUtils.hasText(this.defaultBaseUrl);
     }
 
     @Override
-    public Mono<UvpVulnerabilityReport[]> getComponentReport(List<String> coordinates) {
-        WebClient client = webUtil.createWebClient(defaultBaseUrl);
+    public int getConcurrency() {
+        return concurrency;
+    }
 
+    @Override
+    public Mono<UvpVulnerabilityReport[]> getComponentReport(List<String> coordinates) {
         return client.post()
                 .uri("/uvp-api/queryBatchV2")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(coordinates)
                 .retrieve()
                 .bodyToMono(UvpVulnerabilityReport[].class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)));
+                .timeout(timeout)
+                .retryWhen(Retry.backoff(retryMaxAttempts, retryBackoff));
     }
 }
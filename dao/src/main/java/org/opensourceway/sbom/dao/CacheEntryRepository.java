@@ -0,0 +1,47 @@
+package org.opensourceway.sbom.dao;
+
+import org.opensourceway.sbom.model.entity.CacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CacheEntryRepository extends JpaRepository<CacheEntry, UUID> {
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    Optional<CacheEntry> findByCacheNameAndCacheKeyAndExpireAtAfter(String cacheName, String cacheKey, Timestamp now);
+
+    /**
+     * Insert the entry, or replace the value and expiration of the entry with the same cache name and key, so that
+     * concurrent writers of different nodes never fail on the unique key.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO cache_entry(id, cache_name, cache_key, value, expire_at) " +
+            "VALUES (:id, :cacheName, :cacheKey, :value, :expireAt) " +
+            "ON CONFLICT (cache_name, cache_key) DO UPDATE SET value = EXCLUDED.value, expire_at = EXCLUDED.expire_at",
+            nativeQuery = true)
+    int upsert(@Param("id") UUID id, @Param("cacheName") String cacheName, @Param("cacheKey") String cacheKey,
+               @Param("value") String value, @Param("expireAt") Timestamp expireAt);
+
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "DELETE FROM cache_entry WHERE cache_name = :cacheName AND cache_key = :cacheKey", nativeQuery = true)
+    int deleteByCacheNameAndCacheKey(@Param("cacheName") String cacheName, @Param("cacheKey") String cacheKey);
+
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "DELETE FROM cache_entry WHERE cache_name = :cacheName", nativeQuery = true)
+    int deleteByCacheName(@Param("cacheName") String cacheName);
+
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "DELETE FROM cache_entry WHERE expire_at <= :now", nativeQuery = true)
+    int deleteExpired(@Param("now") Timestamp now);
+}
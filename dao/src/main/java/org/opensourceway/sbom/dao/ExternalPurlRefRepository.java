@@ -12,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,6 +26,12 @@ public interface ExternalPurlRefRepository extends JpaRepository<ExternalPurlRef
             nativeQuery = true)
     List<ExternalPurlRef> findBySbomId(UUID sbomId);
 
+    @Query(value = "SELECT ref FROM ExternalPurlRef ref JOIN FETCH ref.pkg pkg " +
+            "WHERE pkg.sbom.id = :sbomId AND pkg.spdxId IN :spdxIds AND ref.category = :category")
+    List<ExternalPurlRef> findBySbomIdAndSpdxIdInAndCategory(@Param("sbomId") UUID sbomId,
+                                                             @Param("spdxIds") Collection<String> spdxIds,
+                                                             @Param("category") String category);
+
     // TODO: 后续去除RUNTIME_DEPENDENCY_OF
     @Query(value = "SELECT * FROM external_purl_ref WHERE category = 'PACKAGE_MANAGER' \n" +
             "	AND pkg_id IN (\n" +
@@ -37,6 +44,8 @@ public interface ExternalPurlRefRepository extends JpaRepository<ExternalPurlRef
 
     // TODO: 通过自定义函数简化SQL
     // TODO: 后续去除RUNTIME_DEPENDENCY_OF
+    // purl_type, purl_namespace, purl_name and purl_version are generated columns created by sql/purl-components.sql,
+    // the fuzzy matches on them are served by pg_trgm gin indexes instead of a sequential scan
     @Query(value = "SELECT * FROM external_purl_ref \n" +
             "	WHERE\n" +
             "		category = 'PACKAGE_MANAGER' \n" +
@@ -54,21 +63,21 @@ public interface ExternalPurlRefRepository extends JpaRepository<ExternalPurlRef
             "								AND epr.category = 'PACKAGE_MANAGER' \n" +
             "								AND epr.TYPE = :#{#condition.refType} \n" +
             "								AND (:#{#condition.isTypeExactly} IS NULL OR COALESCE(:#{#condition.isTypeExactly}) = 'FALSE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'type') = CAST(:#{#condition.type} AS VARCHAR)) \n" +
+            "                                   OR epr.purl_type = CAST(:#{#condition.type} AS VARCHAR)) \n" +
             "								AND (:#{#condition.isTypeExactly} IS NULL OR COALESCE(:#{#condition.isTypeExactly}) = 'TRUE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'type') LIKE CONCAT('%', :#{#condition.type}, '%')) \n" +
+            "                                   OR epr.purl_type LIKE CONCAT('%', :#{#condition.type}, '%')) \n" +
             "								AND (:#{#condition.isNamespaceExactly} IS NULL OR COALESCE(:#{#condition.isNamespaceExactly}) = 'FALSE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'namespace') = CAST(:#{#condition.namespace} AS VARCHAR)) \n" +
+            "                                   OR epr.purl_namespace = CAST(:#{#condition.namespace} AS VARCHAR)) \n" +
             "								AND (:#{#condition.isNamespaceExactly} IS NULL OR COALESCE(:#{#condition.isNamespaceExactly}) = 'TRUE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'namespace') LIKE CONCAT('%', :#{#condition.namespace}, '%')) \n" +
+            "                                   OR epr.purl_namespace LIKE CONCAT('%', :#{#condition.namespace}, '%')) \n" +
             "								AND (:#{#condition.isNameExactly} IS NULL OR COALESCE(:#{#condition.isNameExactly}) = 'FALSE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'name') = CAST(:#{#condition.name} AS VARCHAR)) \n" +
+            "                                   OR epr.purl_name = CAST(:#{#condition.name} AS VARCHAR)) \n" +
             "								AND (:#{#condition.isNameExactly} IS NULL OR COALESCE(:#{#condition.isNameExactly}) = 'TRUE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'name') LIKE CONCAT('%', :#{#condition.name}, '%')) \n" +
+            "                                   OR epr.purl_name LIKE CONCAT('%', :#{#condition.name}, '%')) \n" +
             "								AND (:#{#condition.isVersionExactly} IS NULL OR COALESCE(:#{#condition.isVersionExactly}) = 'FALSE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'version') = CAST(:#{#condition.version} AS VARCHAR)) \n" +
+            "                                   OR epr.purl_version = CAST(:#{#condition.version} AS VARCHAR)) \n" +
             "								AND (:#{#condition.isVersionExactly} IS NULL OR COALESCE(:#{#condition.isVersionExactly}) = 'TRUE' " +
-            "                                   OR jsonb_extract_path_text(epr.purl, 'version') LIKE CONCAT('%', :#{#condition.version}, '%')) \n" +
+            "                                   OR epr.purl_version LIKE CONCAT('%', :#{#condition.version}, '%')) \n" +
             "					) AND ser.relationship_type IN ('DEPENDS_ON', 'RUNTIME_DEPENDENCY_OF') \n" +
             "		) ORDER BY purl",
             countProjection = "1",
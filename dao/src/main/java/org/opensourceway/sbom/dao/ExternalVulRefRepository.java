@@ -17,41 +17,17 @@ public interface ExternalVulRefRepository extends JpaRepository<ExternalVulRef,
     List<ExternalVulRef> findBySbomId(UUID sbomId);
 
     @Query(value = """
-            WITH all_vul AS (
-            SELECT evf.*, v.vul_id v_vul_id , coalesce(
-            (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-            (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2'),
-            'UNKNOWN'
-            ) severity, coalesce(
-            (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-            (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2')
-            ) score, coalesce(
-            (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-            (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2')
-            ) scoring_system FROM external_vul_ref evf join vulnerability v on evf.vul_id = v.id
+            SELECT evf.* FROM external_vul_ref evf JOIN vulnerability v ON evf.vul_id = v.id
             WHERE evf.pkg_id = :packageId
-            )
-            SELECT * FROM all_vul v WHERE (:severity IS NULL OR v.severity = :severity)
-            AND (:vulId IS NULL OR v.v_vul_id = :vulId)
-            ORDER BY v.score DESC NULLS LAST, v.v_vul_id DESC, v.scoring_system DESC NULLS LAST
+            AND (:severity IS NULL OR v.severity = :severity)
+            AND (:vulId IS NULL OR v.vul_id = :vulId)
+            ORDER BY v.score DESC NULLS LAST, v.vul_id DESC, v.scoring_system DESC NULLS LAST
             """,
             countQuery = """
-                    WITH all_vul AS (
-                    SELECT evf.*, v.vul_id v_vul_id, coalesce(
-                    (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-                    (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2'),
-                    'UNKNOWN'
-                    ) severity, coalesce(
-                    (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-                    (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2')
-                    ) score, coalesce(
-                    (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V3'),
-                    (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = evf.vul_id AND vs.scoring_system = 'CVSS_V2')
-                    ) scoring_system FROM external_vul_ref evf join vulnerability v on evf.vul_id = v.id
+                    SELECT COUNT(1) FROM external_vul_ref evf JOIN vulnerability v ON evf.vul_id = v.id
                     WHERE evf.pkg_id = :packageId
-                    )
-                    SELECT COUNT(1) FROM all_vul v WHERE (:severity IS NULL OR v.severity = :severity)
-                    AND (:vulId IS NULL OR v.v_vul_id = :vulId)
+                    AND (:severity IS NULL OR v.severity = :severity)
+                    AND (:vulId IS NULL OR v.vul_id = :vulId)
                     """,
             nativeQuery = true)
     Page<ExternalVulRef> findByPackageIdAndSeverityAndVulId(@Param("packageId") UUID packageId,
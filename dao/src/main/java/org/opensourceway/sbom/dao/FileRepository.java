@@ -6,12 +6,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface FileRepository extends JpaRepository<File, UUID> {
 
@@ -24,6 +27,13 @@ public interface FileRepository extends JpaRepository<File, UUID> {
             nativeQuery = true)
     Page<File> findFilesBySbomIdForPage(@Param("sbomId") UUID sbomId, Pageable pageable);
 
+    /**
+     * Stream the files of a sbom through a database cursor, ordered by the unique key.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT * FROM file WHERE sbom_id = :sbomId ORDER BY spdx_id, file_name", nativeQuery = true)
+    Stream<File> streamBySbomId(@Param("sbomId") UUID sbomId);
+
     @Query(value = "SELECT * FROM file WHERE sbom_id = :sbomId\n" +
             "	AND file_types [ 1 ] = 'SOURCE' \n" +
             "	AND spdx_id IN (\n" +
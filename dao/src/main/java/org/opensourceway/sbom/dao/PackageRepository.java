@@ -4,11 +4,17 @@ import org.opensourceway.sbom.model.entity.Package;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface PackageRepository extends JpaRepository<Package, UUID> {
 
@@ -25,6 +31,15 @@ public interface PackageRepository extends JpaRepository<Package, UUID> {
             nativeQuery = true)
     Page<Package> findPackagesBySbomIdForPage(@Param("sbomId") UUID sbomId, Pageable pageable);
 
+    /**
+     * Stream the packages of a sbom through a database cursor, used to write large sboms without loading all of them.
+     * Must be consumed inside a transaction and closed. Ordered by the unique key, so that exports of the same sbom are
+     * identical.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT * FROM package WHERE sbom_id = :sbomId ORDER BY spdx_id, name, version", nativeQuery = true)
+    Stream<Package> streamBySbomId(@Param("sbomId") UUID sbomId);
+
     @Query(value = "SELECT * FROM package WHERE sbom_id = ( SELECT id FROM sbom WHERE product_id = (SELECT id FROM product WHERE name = :productName)) " +
             "AND (:equalPackageName IS NULL OR name = :equalPackageName) AND (:likePackageName IS NULL OR (name LIKE %:likePackageName%)) limit :maxLine",
             nativeQuery = true)
@@ -56,5 +71,11 @@ public interface PackageRepository extends JpaRepository<Package, UUID> {
                                               @Param("licenseId") String licenseId,
                                               Pageable pageable);
 
-
-}
\ No newline at end of file
+    /**
+     * Forget the import digests of a sbom, so that all its packages are enriched again on the next incremental import.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE package SET import_digest = NULL WHERE sbom_id = :sbomId", nativeQuery = true)
+    int clearImportDigestBySbomId(@Param("sbomId") UUID sbomId);
+}
@@ -4,6 +4,7 @@ import org.opensourceway.sbom.model.entity.RawSbom;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,4 +21,45 @@ public interface RawSbomRepository extends JpaRepository<RawSbom, UUID> {
     @Query(value = "select * from raw_sbom where task_status = :taskStatus for update skip locked limit 1", nativeQuery = true)
     Optional<RawSbom> queryOneTaskByTaskStatusWithLock(String taskStatus);
 
+    /**
+     * same as queryOneTaskByTaskStatusWithLock, but skip tasks whose product already has a task being processed,
+     * so that concurrent read jobs never persist two sboms of one product at the same time
+     */
+    @Query(value = "select * from raw_sbom r where r.task_status = :taskStatus and not exists " +
+            "(select 1 from raw_sbom o where o.product_id = r.product_id and o.id <> r.id and o.task_status in :busyTaskStatus) " +
+            "order by r.update_time for update skip locked limit 1", nativeQuery = true)
+    Optional<RawSbom> queryOneIdleProductTaskByTaskStatusWithLock(String taskStatus, List<String> busyTaskStatus);
+
+    /**
+     * transaction level advisory lock of a product, released when the current transaction ends
+     */
+    @Query(value = "select count(*) from pg_advisory_xact_lock(hashtext(CAST(:productId AS TEXT)))", nativeQuery = true)
+    Long lockProduct(UUID productId);
+
+    boolean existsByTaskStatus(String taskStatus);
+
+    boolean existsByProductIdAndIdNotAndTaskStatusIn(UUID productId, UUID id, List<String> taskStatus);
+
+    /**
+     * Claim a task whose product has no task in busyTaskStatus, must be called in a transaction.
+     * <p>
+     * Tasks of one product may have several rows, the busy check of queryOneIdleProductTaskByTaskStatusWithLock can't
+     * see a row of the same product that a concurrent transaction is claiming. So the product of the candidate is
+     * locked until the end of the transaction and checked again, a concurrent claimer of the same product waits for
+     * the lock and then sees the committed busy task.
+     */
+    default Optional<RawSbom> claimOneIdleProductTaskByTaskStatusWithLock(String taskStatus, List<String> busyTaskStatus) {
+        Optional<RawSbom> rawSbom = queryOneIdleProductTaskByTaskStatusWithLock(taskStatus, busyTaskStatus);
+        if (rawSbom.isEmpty()) {
+            return rawSbom;
+        }
+
+        UUID productId = rawSbom.get().getProduct().getId();
+        lockProduct(productId);
+        if (existsByProductIdAndIdNotAndTaskStatusIn(productId, rawSbom.get().getId(), busyTaskStatus)) {
+            return Optional.empty();
+        }
+        return rawSbom;
+    }
+
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,7 +28,31 @@ public interface RepoMetaRepository extends JpaRepository<RepoMeta, UUID> {
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     Optional<RepoMeta> findByProductTypeAndRepoNameAndBranch(String productType, String repoName, String branch);
 
-    @Query(value = "SELECT * FROM repo_meta WHERE product_type = :productType AND branch = :branch AND :packageName = ANY(package_names)",
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    List<RepoMeta> findByProductTypeAndBranchAndRepoNameIn(String productType, String branch, Collection<String> repoNames);
+
+    @Query(value = "SELECT * FROM repo_meta WHERE product_type = :productType AND branch = :branch " +
+            "AND package_names @> CAST(ARRAY[:packageName] AS TEXT[])",
             nativeQuery = true)
     List<RepoMeta> queryRepoMetaByPackageName(@Param("productType") String productType, @Param("branch") String branch, @Param("packageName") String packageName);
+
+    /**
+     * Query the repo metas containing any of the package names in one round trip, served by the gin index on
+     * package_names.
+     */
+    @Query(value = "SELECT * FROM repo_meta WHERE product_type = :productType AND branch = :branch " +
+            "AND package_names && CAST(ARRAY[:packageNames] AS TEXT[])",
+            nativeQuery = true)
+    List<RepoMeta> queryRepoMetaByPackageNames(@Param("productType") String productType, @Param("branch") String branch,
+                                               @Param("packageNames") Collection<String> packageNames);
+
+    /**
+     * Record that the repo metas are synced at the time, without touching the other attributes.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE repo_meta SET extended_attr = COALESCE(extended_attr, CAST('{}' AS JSONB)) || " +
+            "jsonb_build_object('syncedAt', :syncedAt) WHERE id IN (:ids)",
+            nativeQuery = true)
+    int updateSyncedAt(@Param("ids") Collection<UUID> ids, @Param("syncedAt") Long syncedAt);
 }
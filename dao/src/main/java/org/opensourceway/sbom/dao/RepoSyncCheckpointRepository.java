@@ -0,0 +1,66 @@
+package org.opensourceway.sbom.dao;
+
+import org.opensourceway.sbom.model.entity.RepoSyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RepoSyncCheckpointRepository extends JpaRepository<RepoSyncCheckpoint, String> {
+
+    /**
+     * Create the checkpoint of a product never synced before, as a run starting now.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO repo_sync_checkpoint(product_type, started_at) VALUES (:productType, now()) " +
+            "ON CONFLICT (product_type) DO NOTHING",
+            nativeQuery = true)
+    void insertIfAbsent(@Param("productType") String productType);
+
+    /**
+     * Claim the checkpoint for a run if no other run holds it, or if the holder made no progress within the timeout.
+     * The update locks the row, so only one of the concurrent claims succeeds.
+     *
+     * @return 1 if claimed, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE repo_sync_checkpoint SET claimed_by = :claimId, heartbeat_at = now() " +
+            "WHERE product_type = :productType " +
+            "AND (claimed_by IS NULL OR heartbeat_at IS NULL OR heartbeat_at < now() - :timeoutSeconds * INTERVAL '1 second')",
+            nativeQuery = true)
+    int claim(@Param("productType") String productType, @Param("claimId") String claimId,
+              @Param("timeoutSeconds") Integer timeoutSeconds);
+
+    /**
+     * @return 0 if the claim was taken over by another run
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE repo_sync_checkpoint SET heartbeat_at = now() " +
+            "WHERE product_type = :productType AND claimed_by = :claimId",
+            nativeQuery = true)
+    int heartbeat(@Param("productType") String productType, @Param("claimId") String claimId);
+
+    /**
+     * @return 0 if the claim was taken over by another run
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE repo_sync_checkpoint SET finished_at = now(), claimed_by = NULL, heartbeat_at = NULL " +
+            "WHERE product_type = :productType AND claimed_by = :claimId",
+            nativeQuery = true)
+    int finish(@Param("productType") String productType, @Param("claimId") String claimId);
+
+    /**
+     * Give up the claim of an unfinished run, so that the next run resumes it at once.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE repo_sync_checkpoint SET claimed_by = NULL, heartbeat_at = NULL " +
+            "WHERE product_type = :productType AND claimed_by = :claimId",
+            nativeQuery = true)
+    int release(@Param("productType") String productType, @Param("claimId") String claimId);
+}
@@ -4,17 +4,29 @@ import org.opensourceway.sbom.model.entity.SbomElementRelationship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface SbomElementRelationshipRepository extends JpaRepository<SbomElementRelationship, UUID> {
 
     List<SbomElementRelationship> findBySbomId(UUID sbomId);
 
+    /**
+     * Stream the relationships of a sbom through a database cursor, ordered by the unique key.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(value = "SELECT * FROM sbom_element_relationship WHERE sbom_id = :sbomId " +
+            "ORDER BY element_id, related_element_id, relationship_type", nativeQuery = true)
+    Stream<SbomElementRelationship> streamBySbomId(@Param("sbomId") UUID sbomId);
+
     @Modifying(flushAutomatically = true)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     List<SbomElementRelationship> deleteBySbomIdAndRelationshipType(UUID sbomId, String relationshipType);
@@ -2,9 +2,12 @@ package org.opensourceway.sbom.dao;
 
 import org.opensourceway.sbom.model.entity.Sbom;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +16,24 @@ public interface SbomRepository extends JpaRepository<Sbom, UUID> {
     @Query(value = "SELECT * FROM sbom WHERE product_id = (SELECT id FROM product WHERE name = :productName)",
             nativeQuery = true)
     Optional<Sbom> findByProductName(@Param("productName") String productName);
+
+    /**
+     * Mark the data of a sbom as changed, cached exports of older versions are not served any more.
+     * Joins the transaction modifying the sbom if there is one, so that the new version is committed with the data.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE sbom SET data_version = data_version + 1 WHERE id = :sbomId", nativeQuery = true)
+    int increaseDataVersion(@Param("sbomId") UUID sbomId);
+
+    /**
+     * Mark the data of all sboms with packages referring to any of the vulnerabilities as changed, vulnerabilities are
+     * shared by sboms and embedded in their exports.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE sbom SET data_version = data_version + 1 WHERE id IN (" +
+            "SELECT DISTINCT p.sbom_id FROM package p JOIN external_vul_ref evr ON evr.pkg_id = p.id " +
+            "WHERE evr.vul_id IN :vulIds)", nativeQuery = true)
+    int increaseDataVersionByVulIds(@Param("vulIds") List<UUID> vulIds);
 }
\ No newline at end of file
@@ -4,9 +4,12 @@ import org.opensourceway.sbom.model.entity.Vulnerability;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,49 +21,50 @@ public interface VulnerabilityRepository extends JpaRepository<Vulnerability, UU
     @Query(value = "SELECT * FROM vulnerability WHERE vul_id in :vulIds", nativeQuery = true)
     List<Vulnerability> findByVulIds(List<String> vulIds);
 
+    /**
+     * Materialize the effective score of the vulnerabilities from their scores: the CVSS_V3 score, or the CVSS_V2 score
+     * if there is no CVSS_V3 score, preferring the greatest vector of a scoring system. Call it after the scores of the
+     * vulnerabilities are written, so that queries filtering and ordering by severity and score see them.
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
     @Query(value = """
-            WITH all_vul AS (
-            SELECT v.*, coalesce(
-            (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-            (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1),
-            'UNKNOWN'
-            ) severity, coalesce(
-            (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-            (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1)
-            ) score, coalesce(
-            (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-            (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1)
-            ) scoring_system FROM external_vul_ref evf join vulnerability v on evf.vul_id = v.id
-            WHERE (CAST(:packageId AS UUID) IS NULL AND evf.pkg_id IN (
-                SELECT id FROM package WHERE sbom_id = (
-                    SELECT id FROM sbom WHERE product_id = (
-                        SELECT id FROM product WHERE name = :productName))))
-            OR (CAST(:packageId AS UUID) IS NOT NULL AND evf.pkg_id = CAST(:packageId AS UUID))
+            UPDATE vulnerability v SET severity = coalesce(es.severity, 'UNKNOWN'), score = es.score,
+            scoring_system = es.scoring_system
+            FROM vulnerability ev LEFT JOIN LATERAL (
+                SELECT vs.severity, vs.score, vs.scoring_system FROM vul_score vs
+                WHERE vs.vul_id = ev.id AND vs.scoring_system IN ('CVSS_V3', 'CVSS_V2')
+                ORDER BY vs.scoring_system = 'CVSS_V3' DESC, vs.vector DESC
+                LIMIT 1
+            ) es ON TRUE
+            WHERE v.id = ev.id AND v.id IN :vulIds
+            """,
+            nativeQuery = true)
+    int refreshEffectiveScores(@Param("vulIds") Collection<UUID> vulIds);
+
+    @Query(value = """
+            SELECT v.* FROM vulnerability v WHERE v.id IN (
+                SELECT evf.vul_id FROM external_vul_ref evf
+                WHERE (CAST(:packageId AS UUID) IS NULL AND evf.pkg_id IN (
+                    SELECT id FROM package WHERE sbom_id = (
+                        SELECT id FROM sbom WHERE product_id = (
+                            SELECT id FROM product WHERE name = :productName))))
+                OR (CAST(:packageId AS UUID) IS NOT NULL AND evf.pkg_id = CAST(:packageId AS UUID))
             )
-            SELECT DISTINCT(id), * FROM all_vul v WHERE (:severity IS NULL OR v.severity = :severity)
+            AND (:severity IS NULL OR v.severity = :severity)
             AND (:vulId IS NULL OR v.vul_id = :vulId)
             ORDER BY v.score DESC NULLS LAST, v.vul_id DESC, v.scoring_system DESC NULLS LAST
             """,
             countQuery = """
-                    WITH all_vul AS (
-                    SELECT v.*, coalesce(
-                    (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-                    (SELECT vs.severity FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1),
-                    'UNKNOWN'
-                    ) severity, coalesce(
-                    (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-                    (SELECT vs.score FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1)
-                    ) score, coalesce(
-                    (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V3' ORDER BY vs.vector DESC LIMIT 1),
-                    (SELECT vs.scoring_system FROM vul_score vs WHERE vs.vul_id = v.id AND vs.scoring_system = 'CVSS_V2' ORDER BY vs.vector DESC LIMIT 1)
-                    ) scoring_system  FROM external_vul_ref evf join vulnerability v on evf.vul_id = v.id
-                    WHERE (CAST(:packageId AS UUID) IS NULL AND evf.pkg_id IN (
-                        SELECT id FROM package WHERE sbom_id = (
-                            SELECT id FROM sbom WHERE product_id = (
-                                SELECT id FROM product WHERE name = :productName))))
-                    OR (CAST(:packageId AS UUID) IS NOT NULL AND evf.pkg_id = CAST(:packageId AS UUID))
+                    SELECT COUNT(1) FROM vulnerability v WHERE v.id IN (
+                        SELECT evf.vul_id FROM external_vul_ref evf
+                        WHERE (CAST(:packageId AS UUID) IS NULL AND evf.pkg_id IN (
+                            SELECT id FROM package WHERE sbom_id = (
+                                SELECT id FROM sbom WHERE product_id = (
+                                    SELECT id FROM product WHERE name = :productName))))
+                        OR (CAST(:packageId AS UUID) IS NOT NULL AND evf.pkg_id = CAST(:packageId AS UUID))
                     )
-                    SELECT COUNT(DISTINCT(id)) FROM all_vul v WHERE (:severity IS NULL OR v.severity = :severity)
+                    AND (:severity IS NULL OR v.severity = :severity)
                     AND (:vulId IS NULL OR v.vul_id = :vulId)
                     """,
             nativeQuery = true)
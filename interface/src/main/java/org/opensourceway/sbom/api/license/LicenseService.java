@@ -15,5 +15,13 @@ public interface LicenseService {
 
     String getPurlsForLicense(PackageUrlVo packageUrlVo, Product product);
 
+    /**
+     * Bulk version of {@link #getPurlsForLicense(PackageUrlVo, Product)}, the repo metas of openEuler packages are
+     * looked up at once.
+     *
+     * @return purl for license of each purl, in the same order, null if not supported
+     */
+    List<String> getPurlsForLicense(List<PackageUrlVo> packageUrlVos, Product product);
+
     Map<String, LicenseInfoVo> getLicenseInfoVoFromPurl(List<String> purls) throws Exception;
 }
@@ -0,0 +1,30 @@
+package org.opensourceway.sbom.api.reader;
+
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link SbomReader} that persists a sbom document straight from its serialized form, without materializing the
+ * whole document or the whole entity graph in memory.
+ */
+public interface StreamingSbomReader extends SbomReader {
+
+    boolean supportStreaming(SbomFormat format);
+
+    /**
+     * Persist the document as a new sbom of the product, the old sbom of the product must have been deleted by the
+     * caller in the same transaction, see PersistSbomMetadataStep.
+     */
+    Sbom persistSbom(String productName, SbomFormat format, InputStream documentStream) throws IOException;
+
+    /**
+     * Update the existing sbom of the product in place. Packages are matched by spdxId or purl, unchanged packages
+     * and their enrichment (licenses, vulnerabilities, source info) are kept, only added, changed and removed packages
+     * are written.
+     */
+    SbomDiffVo persistSbomIncrementally(String productName, SbomFormat format, InputStream documentStream) throws IOException;
+}
@@ -6,6 +6,7 @@ import org.opensourceway.sbom.model.entity.Package;
 import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.ProductStatistics;
 import org.opensourceway.sbom.model.entity.RawSbom;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.opensourceway.sbom.model.pojo.request.sbom.AddProductRequest;
 import org.opensourceway.sbom.model.pojo.request.sbom.PublishSbomRequest;
 import org.opensourceway.sbom.model.pojo.request.sbom.QuerySbomPackagesRequest;
@@ -25,6 +26,8 @@ import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -41,6 +44,14 @@ public interface SbomService {
 
     byte[] writeSbom(String productName, String spec, String specVersion, String format) throws IOException;
 
+    /**
+     * Write the sbom to the output stream, streaming it page by page when the writer supports the format.
+     *
+     * @param compact write without indentation and line breaks
+     */
+    void writeSbom(String productName, String spec, String specVersion, String format, boolean compact,
+                   OutputStream outputStream) throws IOException;
+
     PageVo<Package> findPackagesPageable(String productName, int page, int size);
 
     List<PackageWithStatisticsVo> queryPackageInfoByName(String productName, String packageName, boolean isExactly);
@@ -77,14 +88,27 @@ public interface SbomService {
 
     PageVo<VulnerabilityVo> queryVulnerability(String productName, String packageId, String severity, String vulId, Pageable pageable);
 
-    Graph queryVulImpact(String productName, String vulId);
+    Graph queryVulImpact(String productName, String vulId, Integer maxDepth, Integer maxNodes);
 
     void addProduct(AddProductRequest req);
 
     byte[] writePackageSbom(String productName, String pkgName, String pkgVersion,
-                            String spec, String specVersion, String format) throws IOException;
+                            String spec, String specVersion, String format, boolean compact) throws IOException;
 
     byte[] writeAllPackageSbom(String productName, String spec, String specVersion, String format) throws IOException;
 
+    /**
+     * Write a tar.gz archive of the sboms of all packages to the output stream, package sboms are rendered in parallel
+     * and written in the order of their entry names.
+     */
+    void writeAllPackageSbom(String productName, String spec, String specVersion, String format, boolean compact,
+                             OutputStream outputStream) throws IOException;
+
     byte[] generateVerificationAndTar(String sbomFilename, byte[] sbomContent) throws IOException;
+
+    /**
+     * Same as {@link #generateVerificationAndTar(String, byte[])} for a sbom file on disk, the sha256 and signature
+     * files are created next to it and the archive is written to the output stream.
+     */
+    void generateVerificationAndTar(Path sbomFile, ArchiveCompression compression, OutputStream outputStream) throws IOException;
 }
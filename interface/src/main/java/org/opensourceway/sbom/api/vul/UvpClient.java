@@ -8,5 +8,10 @@ import java.util.List;
 public interface UvpClient {
     boolean needRequest();
 
+    /**
+     * Max number of in-flight requests, which is also the size of the connection pool of the client.
+     */
+    int getConcurrency();
+
     Mono<UvpVulnerabilityReport[]> getComponentReport(List<String> coordinates);
 }
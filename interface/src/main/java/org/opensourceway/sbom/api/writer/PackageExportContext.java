@@ -0,0 +1,9 @@
+package org.opensourceway.sbom.api.writer;
+
+/**
+ * What the package sboms of a product have in common, precomputed once by
+ * {@link SbomWriter#createPackageExportContext(String)} and shared by the package sboms written from it. A context is
+ * immutable, so it can be shared by threads writing package sboms in parallel.
+ */
+public interface PackageExportContext {
+}
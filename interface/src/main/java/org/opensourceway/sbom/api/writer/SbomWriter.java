@@ -2,11 +2,37 @@ package org.opensourceway.sbom.api.writer;
 
 
 import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.sbom.SbomDocument;
 
 import java.io.IOException;
 
 public interface SbomWriter {
-    byte[] write(String productName, SbomFormat format) throws IOException;
+    default byte[] write(String productName, SbomFormat format) throws IOException {
+        return write(productName, format, false);
+    }
 
-    byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format) throws IOException;
+    /**
+     * @param compact serialize without indentation and line breaks
+     */
+    byte[] write(String productName, SbomFormat format, boolean compact) throws IOException;
+
+    default byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format) throws IOException {
+        return writePackage(productName, pkgName, pkgVersion, format, false);
+    }
+
+    byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException;
+
+    PackageExportContext createPackageExportContext(String productName);
+
+    /**
+     * Same as {@link #writePackage(String, String, String, SbomFormat, boolean)}, without loading the whole sbom of the
+     * product again for every package.
+     */
+    byte[] writePackage(PackageExportContext context, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException;
+
+    /**
+     * Build the document of a package sbom, all data of the package is read here, so the document can be serialized
+     * by a thread without a transaction of its own.
+     */
+    SbomDocument createPackageDocument(PackageExportContext context, String pkgName, String pkgVersion);
 }
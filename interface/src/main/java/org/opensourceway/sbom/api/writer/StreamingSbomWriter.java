@@ -0,0 +1,21 @@
+package org.opensourceway.sbom.api.writer;
+
+import org.opensourceway.sbom.model.enums.SbomFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link SbomWriter} that serializes a sbom document straight to an output stream, paging the packages from the
+ * database instead of materializing the whole document in memory.
+ */
+public interface StreamingSbomWriter extends SbomWriter {
+
+    boolean supportStreaming(SbomFormat format);
+
+    default void write(String productName, SbomFormat format, OutputStream outputStream) throws IOException {
+        write(productName, format, false, outputStream);
+    }
+
+    void write(String productName, SbomFormat format, boolean compact, OutputStream outputStream) throws IOException;
+}
@@ -20,6 +20,14 @@ public class BatchContextConstants {
 
     public final static String BATCH_SBOM_DOCUMENT_KEY = "BATCH_SBOM_DOCUMENT";
 
+    public final static String BATCH_RAW_SBOM_HANDLE_KEY = "BATCH_RAW_SBOM_HANDLE";
+
+    public final static String BATCH_SBOM_DOCUMENT_HANDLE_KEY = "BATCH_SBOM_DOCUMENT_HANDLE";
+
+    public final static String BATCH_SBOM_DOCUMENT_FORMAT_KEY = "BATCH_SBOM_DOCUMENT_FORMAT";
+
+    public final static String BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY = "BATCH_SBOM_CHANGED_PACKAGES_HANDLE";
+
     public final static String BATCH_JOB_RESTART_COUNTER_KEY = "BATCH_JOB_RESTART_COUNTER";
 
     public final static String BATCH_READER_STEP_REMAINING_SIZE_KEY = "BATCH_READER_STEP_REMAINING_SIZE";
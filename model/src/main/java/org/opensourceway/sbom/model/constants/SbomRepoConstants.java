@@ -11,6 +11,8 @@ public class SbomRepoConstants {
 
     public static final String LAST_COMMIT_ID_KEY = "lastCommitId";
 
+    public static final String SYNCED_AT_KEY = "syncedAt";
+
     public static final String UPSTREAM_ATTR_KEY = "upstreamUrls";
 
     public static final String REPO_LICENSE_LEGAL = "repoLicenseLegal";
@@ -35,6 +37,10 @@ public class SbomRepoConstants {
 
     public static final String OPEN_HARMONY_PURL_QUALIFIER_REVISION = "revision";
 
+    public static final String OPEN_HARMONY_TAG_REVISION_REGEX = "OpenHarmony-v\\d.*";
+
+    public static final String COMMIT_ID_REGEX = "[0-9a-f]{40}";
+
     public static final String OPEN_HARMONY_THIRD_PARTY_PURL_PATTERN = "pkg:generic/%s@%s?download_url=%s";
 
 }
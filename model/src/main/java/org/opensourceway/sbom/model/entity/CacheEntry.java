@@ -0,0 +1,91 @@
+package org.opensourceway.sbom.model.entity;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Entry of the persistent second tier of a cache, shared by all nodes and kept across restarts.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "cache_entry_uk", columnList = "cache_name, cache_key", unique = true),
+        @Index(name = "cache_entry_expire_at_idx", columnList = "expire_at")
+})
+public class CacheEntry {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    /**
+     * Name of the cache the entry belongs to.
+     */
+    @Column(columnDefinition = "TEXT", name = "cache_name", nullable = false)
+    private String cacheName;
+
+    /**
+     * Key of the entry in the cache.
+     */
+    @Column(columnDefinition = "TEXT", name = "cache_key", nullable = false)
+    private String cacheKey;
+
+    /**
+     * Json of the cached value.
+     */
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String value;
+
+    /**
+     * The entry is not served after this time.
+     */
+    @Column(columnDefinition = "TIMESTAMP WITH TIME ZONE", name = "expire_at", nullable = false)
+    private Timestamp expireAt;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public void setCacheName(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Timestamp getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(Timestamp expireAt) {
+        this.expireAt = expireAt;
+    }
+}
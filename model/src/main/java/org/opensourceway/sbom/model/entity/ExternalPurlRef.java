@@ -30,7 +30,8 @@ import java.util.UUID;
 })
 @Table(indexes = {
         @Index(name = "external_purl_ref_pkg_id_idx", columnList = "pkg_id"),
-        @Index(name = "external_purl_ref_uk", columnList = "pkg_id, category, type, purl", unique = true)
+        @Index(name = "external_purl_ref_uk", columnList = "pkg_id, category, type, purl", unique = true),
+        @Index(name = "external_purl_ref_purl_version_key_idx", columnList = "purl_version_key")
 })
 public class ExternalPurlRef {
     @Id
@@ -64,6 +65,16 @@ public class ExternalPurlRef {
     @Type(type = "jsonb")
     private PackageUrlVo purl;
 
+    /**
+     * Sortable key of the version of the purl, ordering the same as {@code VersionUtil}, null if the purl has no version
+     * or the version can't be parsed as a {@link java.lang.module.ModuleDescriptor.Version}.
+     * <p>
+     * The key is computed by the trigger on the table from {@code version_sort_key} of sql/purl-version-key.sql whenever
+     * the purl is written, it is never written by JPA.
+     */
+    @Column(columnDefinition = "TEXT COLLATE \"C\"", name = "purl_version_key", insertable = false, updatable = false)
+    private String purlVersionKey;
+
     /**
      * Package of the reference.
      */
@@ -112,6 +123,14 @@ public class ExternalPurlRef {
         this.purl = purl;
     }
 
+    public String getPurlVersionKey() {
+        return purlVersionKey;
+    }
+
+    public void setPurlVersionKey(String purlVersionKey) {
+        this.purlVersionKey = purlVersionKey;
+    }
+
     public Package getPkg() {
         return pkg;
     }
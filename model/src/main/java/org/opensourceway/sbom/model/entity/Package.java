@@ -122,6 +122,13 @@ public class Package {
     @Column(columnDefinition = "TEXT", name = "source_info")
     private String sourceInfo;
 
+    /**
+     * Digest of the package element in the imported sbom document, used to detect unchanged packages on re-import.
+     */
+    @Column(columnDefinition = "TEXT", name = "import_digest")
+    @JsonIgnore
+    private String importDigest;
+
     @OneToMany(mappedBy = "pkg", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private Set<PkgLicenseRelp> pkgLicenseRelps;
@@ -287,6 +294,14 @@ public class Package {
         this.sourceInfo = sourceInfo;
     }
 
+    public String getImportDigest() {
+        return importDigest;
+    }
+
+    public void setImportDigest(String importDigest) {
+        this.importDigest = importDigest;
+    }
+
     public Set<PkgLicenseRelp> getPkgLicenseRelps() {
         return pkgLicenseRelps;
     }
@@ -0,0 +1,84 @@
+package org.opensourceway.sbom.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.sql.Timestamp;
+
+/**
+ * Progress of the repo meta sync of a product, an unfinished run is resumed by the next run. A run claims the row before
+ * syncing, so that runs started by the scheduler and by the endpoint don't sync the same repos at the same time.
+ */
+@Entity
+public class RepoSyncCheckpoint {
+    /**
+     * Product type whose repo metas are synced.
+     */
+    @Id
+    @Column(columnDefinition = "TEXT", name = "product_type", nullable = false)
+    private String productType;
+
+    /**
+     * Start time of the current run, repos synced after it are skipped when the run is resumed.
+     */
+    @Column(columnDefinition = "TIMESTAMP WITH TIME ZONE", name = "started_at", nullable = false)
+    private Timestamp startedAt;
+
+    /**
+     * End time of the current run, null if the run is not finished.
+     */
+    @Column(columnDefinition = "TIMESTAMP WITH TIME ZONE", name = "finished_at")
+    private Timestamp finishedAt;
+
+    /**
+     * Id of the run syncing the repos, null if no run is syncing.
+     */
+    @Column(columnDefinition = "TEXT", name = "claimed_by")
+    private String claimedBy;
+
+    /**
+     * Last time the claiming run reported progress, a claim without progress for a while is taken over by the next run.
+     */
+    @Column(columnDefinition = "TIMESTAMP WITH TIME ZONE", name = "heartbeat_at")
+    private Timestamp heartbeatAt;
+
+    public String getProductType() {
+        return productType;
+    }
+
+    public void setProductType(String productType) {
+        this.productType = productType;
+    }
+
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Timestamp startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Timestamp getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Timestamp finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Timestamp getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Timestamp heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
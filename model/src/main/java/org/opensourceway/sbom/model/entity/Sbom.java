@@ -14,6 +14,7 @@ import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.OrderBy;
 import javax.persistence.Table;
 import java.util.List;
 import java.util.Objects;
@@ -72,6 +73,13 @@ public class Sbom {
     @Column(columnDefinition = "TEXT", name = "license_list_version")
     private String licenseListVersion;
 
+    /**
+     * Version of the data of a sbom, increased every time the sbom is re-imported in place or enriched.
+     * Only maintained by {@code SbomRepository.increaseDataVersion}, so it is never written back with a stale value.
+     */
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0", name = "data_version", insertable = false, updatable = false)
+    private Long dataVersion;
+
     @OneToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "product_id", foreignKey = @ForeignKey(name = "product_id_fk"))
     @JsonIgnore
@@ -81,6 +89,7 @@ public class Sbom {
      * Packages referred in a sbom document.
      */
     @OneToMany(mappedBy = "sbom", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("spdxId, name, version")
     private List<Package> packages;
 
     /**
@@ -93,9 +102,11 @@ public class Sbom {
      * Element relationships in a sbom document.
      */
     @OneToMany(mappedBy = "sbom", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("elementId, relatedElementId, relationshipType")
     private List<SbomElementRelationship> sbomElementRelationships;
 
     @OneToMany(mappedBy = "sbom", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("spdxId, fileName")
     private List<File> files;
 
     public UUID getId() {
@@ -146,6 +157,14 @@ public class Sbom {
         this.licenseListVersion = licenseListVersion;
     }
 
+    public Long getDataVersion() {
+        return dataVersion;
+    }
+
+    public void setDataVersion(Long dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
     public Product getProduct() {
         return product;
     }
@@ -21,7 +21,9 @@ import java.util.UUID;
  */
 @Entity
 @Table(indexes = {
-        @Index(name = "vul_uk", columnList = "vul_id", unique = true)
+        @Index(name = "vul_uk", columnList = "vul_id", unique = true),
+        @Index(name = "vul_severity_idx", columnList = "severity"),
+        @Index(name = "vul_score_idx", columnList = "score")
 })
 public class Vulnerability {
 
@@ -46,6 +48,28 @@ public class Vulnerability {
     @CreationTimestamp
     private Timestamp recordTime;
 
+    /**
+     * Severity of the effective score of a vulnerability, which is its CVSS_V3 score, or its CVSS_V2 score if it has no
+     * CVSS_V3 score. UNKNOWN if it has neither.
+     * <p>
+     * The effective score is materialized from the scores by
+     * {@code VulnerabilityRepository.refreshEffectiveScores} whenever they are written, it is never written by JPA.
+     */
+    @Column(columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String severity;
+
+    /**
+     * Score of the effective score of a vulnerability, null if it has no CVSS_V3 or CVSS_V2 score.
+     */
+    @Column(insertable = false, updatable = false)
+    private Double score;
+
+    /**
+     * Scoring system of the effective score of a vulnerability, null if it has no CVSS_V3 or CVSS_V2 score.
+     */
+    @Column(columnDefinition = "TEXT", name = "scoring_system", insertable = false, updatable = false)
+    private String scoringSystem;
+
     /**
      * Scores of a vulnerability.
      */
@@ -96,6 +120,30 @@ public class Vulnerability {
         this.recordTime = recordTime;
     }
 
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public String getScoringSystem() {
+        return scoringSystem;
+    }
+
+    public void setScoringSystem(String scoringSystem) {
+        this.scoringSystem = scoringSystem;
+    }
+
     public List<VulScore> getVulScores() {
         return vulScores;
     }
@@ -0,0 +1,37 @@
+package org.opensourceway.sbom.model.enums;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Compression of the tar archives returned by the export endpoints.
+ */
+public enum ArchiveCompression {
+    GZIP("gzip", "tar.gz"),
+    ZSTD("zstd", "tar.zst");
+
+    private final String value;
+
+    private final String fileExtName;
+
+    ArchiveCompression(String value, String fileExtName) {
+        this.value = value;
+        this.fileExtName = fileExtName;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getFileExtName() {
+        return fileExtName;
+    }
+
+    public static ArchiveCompression findCompression(String value) {
+        return Arrays.stream(ArchiveCompression.values())
+                .filter(it -> StringUtils.equalsIgnoreCase(it.getValue(), value))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("invalid archive compression: %s".formatted(value)));
+    }
+}
@@ -9,14 +9,31 @@ import java.util.Arrays;
 public enum SbomContentType {
     SPDX_2_2_JSON_SBOM("spdx_2.2_json_sbom"),
 
+    CYCLONEDX_1_4_JSON_SBOM("cyclonedx_1.4_json_sbom", SbomSpecification.CYCLONEDX_1_4, SbomFormat.JSON),
+
+    CYCLONEDX_1_4_XML_SBOM("cyclonedx_1.4_xml_sbom", SbomSpecification.CYCLONEDX_1_4, SbomFormat.XML),
+
     SBOM_TRACER_DATA("sbom_tracer_data"),
 
     DEFINITION_FILE("definition_file");
 
     private final String type;
 
+    /**
+     * specification and format of the sbom to be read, trace data and definition files are analyzed to spdx json
+     */
+    private final SbomSpecification specification;
+
+    private final SbomFormat format;
+
     SbomContentType(String type) {
+        this(type, SbomSpecification.SPDX_2_2, SbomFormat.JSON);
+    }
+
+    SbomContentType(String type, SbomSpecification specification, SbomFormat format) {
         this.type = type;
+        this.specification = specification;
+        this.format = format;
     }
 
     public String getType() {
@@ -40,17 +57,23 @@ public enum SbomContentType {
     }
 
     public static SbomSpecification getSpecByType(String type) {
-        return SbomSpecification.SPDX_2_2;
+        return findByType(type).specification;
     }
 
     public static SbomFormat getFormatByType(String type) {
-        return SbomFormat.JSON;
+        return findByType(type).format;
     }
 
     public static SbomContentType findBySpecAndFormat(SbomSpecification spec, SbomFormat format) {
         if (SbomSpecification.SPDX_2_2.equals(spec) && SbomFormat.JSON.equals(format)) {
             return SbomContentType.SPDX_2_2_JSON_SBOM;
         }
+        if (SbomSpecification.CYCLONEDX_1_4.equals(spec) && SbomFormat.JSON.equals(format)) {
+            return SbomContentType.CYCLONEDX_1_4_JSON_SBOM;
+        }
+        if (SbomSpecification.CYCLONEDX_1_4.equals(spec) && SbomFormat.XML.equals(format)) {
+            return SbomContentType.CYCLONEDX_1_4_XML_SBOM;
+        }
         throw new RuntimeException("unsupported spec and format: %s, %s".formatted(spec, format));
     }
 }
@@ -3,12 +3,13 @@ package org.opensourceway.sbom.model.enums;
 import com.fasterxml.jackson.annotation.JsonClassDescription;
 import org.apache.commons.lang3.StringUtils;
 import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.cyclonedx.CycloneDXDocument;
 import org.opensourceway.sbom.model.spdx.SpdxDocument;
 
 @JsonClassDescription
 public enum SbomSpecification {
     SPDX_2_2(SbomConstants.SPDX_NAME, "2.2", SpdxDocument.class),
-    CYCLONEDX_1_4(SbomConstants.CYCLONEDX_NAME, "1.4", null),
+    CYCLONEDX_1_4(SbomConstants.CYCLONEDX_NAME, "1.4", CycloneDXDocument.class),
     SWID(SbomConstants.SWID_NAME, null, null);
 
     private final String specification;
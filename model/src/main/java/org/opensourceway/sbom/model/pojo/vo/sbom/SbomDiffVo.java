@@ -0,0 +1,81 @@
+package org.opensourceway.sbom.model.pojo.vo.sbom;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of an incremental import of a sbom into the existing sbom of a product.
+ */
+public class SbomDiffVo implements Serializable {
+
+    private UUID sbomId;
+
+    /**
+     * Ids of added and changed packages, which need to be enriched again.
+     */
+    private List<UUID> changedPackageIds = new ArrayList<>();
+
+    private Long addedPackageCount = 0L;
+
+    private Long updatedPackageCount = 0L;
+
+    private Long unchangedPackageCount = 0L;
+
+    private Long removedPackageCount = 0L;
+
+    public UUID getSbomId() {
+        return sbomId;
+    }
+
+    public void setSbomId(UUID sbomId) {
+        this.sbomId = sbomId;
+    }
+
+    public List<UUID> getChangedPackageIds() {
+        return changedPackageIds;
+    }
+
+    public void setChangedPackageIds(List<UUID> changedPackageIds) {
+        this.changedPackageIds = changedPackageIds;
+    }
+
+    public Long getAddedPackageCount() {
+        return addedPackageCount;
+    }
+
+    public void setAddedPackageCount(Long addedPackageCount) {
+        this.addedPackageCount = addedPackageCount;
+    }
+
+    public Long getUpdatedPackageCount() {
+        return updatedPackageCount;
+    }
+
+    public void setUpdatedPackageCount(Long updatedPackageCount) {
+        this.updatedPackageCount = updatedPackageCount;
+    }
+
+    public Long getUnchangedPackageCount() {
+        return unchangedPackageCount;
+    }
+
+    public void setUnchangedPackageCount(Long unchangedPackageCount) {
+        this.unchangedPackageCount = unchangedPackageCount;
+    }
+
+    public Long getRemovedPackageCount() {
+        return removedPackageCount;
+    }
+
+    public void setRemovedPackageCount(Long removedPackageCount) {
+        this.removedPackageCount = removedPackageCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SbomDiffVo{sbomId=%s, added=%s, updated=%s, unchanged=%s, removed=%s}"
+                .formatted(sbomId, addedPackageCount, updatedPackageCount, unchangedPackageCount, removedPackageCount);
+    }
+}
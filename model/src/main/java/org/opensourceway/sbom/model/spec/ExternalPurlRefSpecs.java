@@ -7,6 +7,7 @@ import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Pair;
 
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import java.lang.reflect.Field;
@@ -71,6 +72,47 @@ public final class ExternalPurlRefSpecs {
         };
     }
 
+    /**
+     * startVersion <= version <= endVersion, an empty bound is not checked. Versions are compared the same as
+     * {@code VersionUtil}: by their sortable keys, see {@link ExternalPurlRef#getPurlVersionKey()}, or as strings when
+     * the version or a bound can't be parsed.
+     */
+    public static Specification<ExternalPurlRef> hasVersionInRange(String startVersion, String endVersion) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<String> versionKey = root.get("purlVersionKey");
+            Expression<String> versionText = criteriaBuilder.function("version_text_key", String.class,
+                    criteriaBuilder.function("jsonb_extract_path_text", String.class, root.get("purl"),
+                            criteriaBuilder.literal("version")));
+            List<Predicate> parsed = new ArrayList<>(List.of(criteriaBuilder.isNotNull(versionKey)));
+            List<Predicate> byKey = new ArrayList<>();
+            List<Predicate> byText = new ArrayList<>();
+            if (StringUtils.isNotEmpty(startVersion)) {
+                Expression<String> startKey = criteriaBuilder.function("version_sort_key", String.class,
+                        criteriaBuilder.literal(startVersion));
+                parsed.add(criteriaBuilder.isNotNull(startKey));
+                byKey.add(criteriaBuilder.greaterThanOrEqualTo(versionKey, startKey));
+                byText.add(criteriaBuilder.greaterThanOrEqualTo(versionText, criteriaBuilder.function(
+                        "version_text_key", String.class, criteriaBuilder.literal(startVersion))));
+            }
+            if (StringUtils.isNotEmpty(endVersion)) {
+                Expression<String> endKey = criteriaBuilder.function("version_sort_key", String.class,
+                        criteriaBuilder.literal(endVersion));
+                parsed.add(criteriaBuilder.isNotNull(endKey));
+                byKey.add(criteriaBuilder.lessThanOrEqualTo(versionKey, endKey));
+                byText.add(criteriaBuilder.lessThanOrEqualTo(versionText, criteriaBuilder.function(
+                        "version_text_key", String.class, criteriaBuilder.literal(endVersion))));
+            }
+            if (byKey.isEmpty()) {
+                return null;
+            }
+
+            Predicate allParsed = criteriaBuilder.and(parsed.toArray(new Predicate[0]));
+            return criteriaBuilder.or(
+                    criteriaBuilder.and(allParsed, criteriaBuilder.and(byKey.toArray(new Predicate[0]))),
+                    criteriaBuilder.and(criteriaBuilder.not(allParsed), criteriaBuilder.and(byText.toArray(new Predicate[0]))));
+        };
+    }
+
     public static Specification<ExternalPurlRef> withSort(String property) {
         return (root, query, criteriaBuilder) -> {
             query.orderBy(criteriaBuilder.asc(criteriaBuilder.function("jsonb_extract_path_text",
@@ -84,6 +126,10 @@ public final class ExternalPurlRefSpecs {
                 .and(ExternalPurlRefSpecs.hasCategory(condition.getBinaryType()))
                 .and(ExternalPurlRefSpecs.hasType(condition.getRefType()))
                 .and(ExternalPurlRefSpecs.hasPurlComponent(condition.getPurlComponents()))
+                // the version range is only used when no version is specified
+                .and(StringUtils.isEmpty(condition.getVersion())
+                        ? ExternalPurlRefSpecs.hasVersionInRange(condition.getStartVersion(), condition.getEndVersion())
+                        : null)
                 .and(ExternalPurlRefSpecs.withSort(condition.getSortField()));
     }
 
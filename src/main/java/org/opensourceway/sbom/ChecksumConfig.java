@@ -0,0 +1,37 @@
+package org.opensourceway.sbom;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ChecksumConfig {
+
+    /**
+     * max number of checksums resolved by sonatype at the same time
+     */
+    @Value("${sbom.checksum.sonatype.concurrency:4}")
+    private Integer sonatypeConcurrency;
+
+    /**
+     * max number of requests per second sent to sonatype, shared by all the chunks resolved at the same time
+     */
+    @Value("${sbom.checksum.sonatype.rate:5}")
+    private Double sonatypeRate;
+
+    @Bean
+    public ThreadPoolTaskExecutor sonatypeChecksumExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sonatypeConcurrency);
+        executor.setMaxPoolSize(sonatypeConcurrency);
+        executor.setThreadNamePrefix("sonatype-checksum-");
+        return executor;
+    }
+
+    @Bean
+    public RateLimiter sonatypeRateLimiter() {
+        return RateLimiter.create(sonatypeRate);
+    }
+}
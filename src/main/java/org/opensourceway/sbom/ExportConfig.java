@@ -0,0 +1,27 @@
+package org.opensourceway.sbom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExportConfig {
+
+    /**
+     * max number of package sboms rendered at the same time when exporting all package sboms of a product
+     */
+    @Value("${sbom.export.package-sbom.concurrency:4}")
+    private Integer packageSbomConcurrency;
+
+    @Bean
+    public ThreadPoolTaskExecutor exportPackageSbomExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(packageSbomConcurrency);
+        executor.setMaxPoolSize(packageSbomConcurrency);
+        executor.setThreadNamePrefix("export-package-sbom-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
@@ -0,0 +1,25 @@
+package org.opensourceway.sbom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RepoSyncConfig {
+
+    /**
+     * max number of repos fetched from gitee at the same time when syncing repo metas
+     */
+    @Value("${sbom.repo-sync.concurrency:8}")
+    private Integer repoSyncConcurrency;
+
+    @Bean
+    public ThreadPoolTaskExecutor repoSyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(repoSyncConcurrency);
+        executor.setMaxPoolSize(repoSyncConcurrency);
+        executor.setThreadNamePrefix("repo-sync-");
+        return executor;
+    }
+}
@@ -8,6 +8,7 @@ import org.opensourceway.sbom.model.echarts.Graph;
 import org.opensourceway.sbom.model.entity.Package;
 import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.ProductStatistics;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.opensourceway.sbom.model.exception.AddProductException;
 import org.opensourceway.sbom.model.pojo.request.sbom.AddProductRequest;
 import org.opensourceway.sbom.model.pojo.request.sbom.PublishSbomRequest;
@@ -27,15 +28,18 @@ import org.opensourceway.sbom.model.pojo.vo.sbom.ProductConfigVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.VulCountVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.VulnerabilityVo;
 import org.opensourceway.sbom.model.spec.ExternalPurlRefCondition;
+import org.opensourceway.sbom.service.sbom.impl.SbomExportCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -53,10 +57,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -67,12 +74,20 @@ public class SbomController {
 
     private static final Logger logger = LoggerFactory.getLogger(SbomController.class);
 
+    private static final String EXPORT_TMP_DIR_PREFIX = "sbom-export";
+
     @Autowired
     private SbomService sbomService;
 
     @Autowired
     private RepoService repoService;
 
+    @Autowired
+    private SbomExportCache sbomExportCache;
+
+    @Value("${sbom.export.package-sbom.sign:false}")
+    private Boolean signPackageSboms;
+
     @PostMapping("/publishSbomFile")
     public @ResponseBody ResponseEntity publishSbomFile(@RequestBody PublishSbomRequest publishSbomRequest) {
         logger.info("publish sbom file request:{}", publishSbomRequest);
@@ -134,46 +149,38 @@ public class SbomController {
     @Deprecated
     @RequestMapping("/exportSbomFile")
     public void exportSbomFile(HttpServletRequest request, HttpServletResponse response, @RequestParam String productName, @RequestParam String spec,
-            @RequestParam String specVersion, @RequestParam String format) throws IOException {
-        logger.info("download original sbom file productName:{}, use spec:{}, specVersion:{}, format:{}",
+            @RequestParam String specVersion, @RequestParam String format,
+            @RequestParam(required = false, defaultValue = "gzip") String compression) throws IOException {
+        logger.info("download original sbom file productName:{}, use spec:{}, specVersion:{}, format:{}, compression:{}",
                 productName,
                 spec,
                 specVersion,
-                format);
-        byte[] rawSbom = null;
-        String errorMsg = null;
-
-        try {
-            var sbom = sbomService.writeSbomFile(productName, spec, specVersion, format);
-            rawSbom = sbom.getValue();
-        } catch (Exception e) {
-            logger.error("exportSbomFile failed", e);
-            errorMsg = "exportSbomFile failed";
-        }
-
+                format,
+                compression);
         var filename = "%s-%s-sbom.%s".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8), spec, format);
-        downloadSbom(request, response, filename, rawSbom, errorMsg);
+        downloadSpooledSbom(request, response, productName, List.of("exportSbomFile", spec, specVersion, format, compression),
+                filename, compression,
+                outputStream -> outputStream.write(sbomService.writeSbomFile(productName, spec, specVersion, format).getValue()),
+                "exportSbomFile failed");
     }
 
     @RequestMapping("/exportSbom")
     public void exportSbom(HttpServletRequest request, HttpServletResponse response, @RequestParam String productName, @RequestParam String spec,
-            @RequestParam String specVersion, @RequestParam String format) throws IOException {
-        logger.info("download sbom metadata productName:{}, use spec:{}, specVersion:{}, format:{}",
+            @RequestParam String specVersion, @RequestParam String format,
+            @RequestParam(required = false, defaultValue = "false") Boolean compact,
+            @RequestParam(required = false, defaultValue = "gzip") String compression) throws IOException {
+        logger.info("download sbom metadata productName:{}, use spec:{}, specVersion:{}, format:{}, compact:{}, compression:{}",
                 productName,
                 spec,
                 specVersion,
-                format);
-        byte[] sbom = null;
-        String errorMsg = null;
-
-        try {
-            sbom = sbomService.writeSbom(productName, spec, specVersion, format);
-        } catch (Exception e) {
-            logger.error("export sbom metadata failed", e);
-            errorMsg = "export sbom metadata failed";
-        }
+                format,
+                compact,
+                compression);
         String filename = "%s-%s-sbom.%s".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8), spec, format);
-        downloadSbom(request, response, filename, sbom, errorMsg);
+        downloadSpooledSbom(request, response, productName,
+                List.of("exportSbom", spec, specVersion, format, compact.toString(), compression), filename, compression,
+                outputStream -> sbomService.writeSbom(productName, spec, specVersion, format, compact, outputStream),
+                "export sbom metadata failed");
     }
 
     @Deprecated
@@ -529,13 +536,18 @@ public class SbomController {
     }
 
     @GetMapping("/queryVulImpact/{*productName}")
-    public @ResponseBody ResponseEntity queryVulImpact(@PathVariable String productName, @RequestParam String vulId) {
+    public @ResponseBody ResponseEntity queryVulImpact(@PathVariable String productName, @RequestParam String vulId,
+                                                       @RequestParam(required = false) Integer maxDepth,
+                                                       @RequestParam(required = false) Integer maxNodes) {
         productName = productName.substring(1);
-        logger.info("queryVulImpact by productName: {}, vulId: {}", productName, vulId);
+        logger.info("queryVulImpact by productName: {}, vulId: {}, maxDepth: {}, maxNodes: {}", productName, vulId, maxDepth, maxNodes);
 
         Graph graph;
         try {
-            graph = sbomService.queryVulImpact(productName, vulId);
+            graph = sbomService.queryVulImpact(productName, vulId, maxDepth, maxNodes);
+        } catch (IllegalArgumentException e) {
+            logger.error("queryVulImpact error: ", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             logger.error("queryVulImpact error: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("queryVulImpact error");
@@ -583,77 +595,128 @@ public class SbomController {
     @RequestMapping("/exportPackageSbom")
     public void exportPackageSbom(HttpServletRequest request, HttpServletResponse response,
             @RequestParam String productName, @RequestParam String packageName, @RequestParam String packageVersion,
-            @RequestParam String spec, @RequestParam String specVersion, @RequestParam String format)
-            throws IOException {
+            @RequestParam String spec, @RequestParam String specVersion, @RequestParam String format,
+            @RequestParam(required = false, defaultValue = "false") Boolean compact,
+            @RequestParam(required = false, defaultValue = "gzip") String compression) throws IOException {
         logger.info("download package sbom metadata productName: {}, packageName: {}, packageVersion: {}, " +
-                "use spec: {}, specVersion: {}, format: {}", productName, packageName, packageVersion, spec, specVersion, format);
-        byte[] sbom = null;
-        String errorMsg = null;
-
-        try {
-            sbom = sbomService.writePackageSbom(productName, packageName, packageVersion, spec, specVersion, format);
-        } catch (Exception e) {
-            logger.error("export package sbom metadata failed", e);
-            errorMsg = "export package sbom metadata failed";
-        }
-
+                "use spec: {}, specVersion: {}, format: {}, compact: {}, compression: {}",
+                productName, packageName, packageVersion, spec, specVersion, format, compact, compression);
         String fileName = "%s-%s-%s-%s-sbom.%s".formatted(
                 URLEncoder.encode(productName, StandardCharsets.UTF_8), packageName, packageVersion, spec, format);
-        downloadSbom(request, response, fileName, sbom, errorMsg);
+        downloadSpooledSbom(request, response, productName,
+                List.of("exportPackageSbom", packageName, packageVersion, spec, specVersion, format, compact.toString(), compression),
+                fileName, compression,
+                outputStream -> outputStream.write(sbomService.writePackageSbom(
+                        productName, packageName, packageVersion, spec, specVersion, format, compact)),
+                "export package sbom metadata failed");
     }
 
     @RequestMapping("/exportAllPackageSbom")
     public void exportAllPackageSbom(HttpServletRequest request, HttpServletResponse response,
             @RequestParam String productName, @RequestParam String spec, @RequestParam String specVersion,
-            @RequestParam String format) throws IOException {
-        logger.info("download all package sbom metadata, productName: {}, use spec: {}, specVersion: {}, format: {}",
-                productName, spec, specVersion, format);
-        byte[] allPkgSbom = null;
-        String errorMsg = null;
+            @RequestParam String format,
+            @RequestParam(required = false, defaultValue = "false") Boolean compact,
+            @RequestParam(required = false, defaultValue = "gzip") String compression) throws IOException {
+        logger.info("download all package sbom metadata, productName: {}, use spec: {}, specVersion: {}, format: {}, " +
+                "compact: {}, compression: {}", productName, spec, specVersion, format, compact, compression);
+        String filename = "%s-%s-sbom.tar.gz".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8), spec);
+        downloadSpooledSbom(request, response, productName,
+                List.of("exportAllPackageSbom", spec, specVersion, format, compact.toString(), compression,
+                        signPackageSboms.toString()), filename, compression,
+                outputStream -> sbomService.writeAllPackageSbom(productName, spec, specVersion, format, compact, outputStream),
+                "export all package sbom metadata failed");
+    }
 
+    /**
+     * Spool the sbom and its archive to temporary files instead of memory, the archive needs the size, digest and
+     * signature of the sbom before sending it. Archives are cached by the data version of the sbom, so repeated
+     * exports of an unchanged sbom are served from the export cache.
+     *
+     * @param compression name of the {@link ArchiveCompression} of the archive
+     */
+    private void downloadSpooledSbom(HttpServletRequest request, HttpServletResponse response, String productName,
+            List<String> exportParams, String filename, String compression, SbomContentWriter sbomContentWriter,
+            String errorMsg) throws IOException {
+        Path tmpDirPath = Files.createTempDirectory(EXPORT_TMP_DIR_PREFIX);
         try {
-            allPkgSbom = sbomService.writeAllPackageSbom(productName, spec, specVersion, format);
-        } catch (Exception e) {
-            logger.error("export all package sbom metadata failed", e);
-            errorMsg = "export all package sbom metadata failed";
+            ArchiveCompression archiveCompression;
+            SbomExportCache.ExportArchive archive;
+            try {
+                archiveCompression = ArchiveCompression.findCompression(compression);
+                archive = openSbomArchive(tmpDirPath, productName, exportParams, filename, archiveCompression, sbomContentWriter);
+            } catch (Exception e) {
+                logger.error(errorMsg, e);
+                response.reset();
+                writeErrorResponse(request, response, errorMsg);
+                return;
+            }
+
+            try (archive) {
+                response.reset();
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.setContentType("application/octet-stream");
+                response.setHeader("Content-Disposition", "attachment;filename=%s.%s"
+                        .formatted(filename, archiveCompression.getFileExtName()));
+                response.addHeader("Content-Length", String.valueOf(archive.size()));
+
+                OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
+                archive.content().transferTo(outputStream);
+                outputStream.flush();
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(tmpDirPath);
         }
+    }
 
-        String filename = "%s-%s-sbom.tar.gz".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8), spec);
-        downloadSbom(request, response, filename, allPkgSbom, errorMsg);
-    }
-
-    private void downloadSbom(HttpServletRequest request, HttpServletResponse response,
-            String filename, byte[] content, String errorMsg) throws IOException {
-        response.reset();
-
-        if (Objects.isNull(content)) {
-            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
-            response.setContentType("text/plain");
-            response.addHeader("Content-Length", String.valueOf(errorMsg.getBytes(StandardCharsets.UTF_8).length));
-            //CORS
-            String origin = request.getHeader("origin");
-            if (SbomConstants.ALLOW_ORIGINS.contains(origin)) {
-                response.addHeader("Access-Control-Allow-Origin", origin);
-                response.addHeader("Access-Control-Allow-Methods", "POST");
-                response.addHeader("Access-Control-Allow-Headers", "Content-Type");
-                response.addHeader("Access-Control-Expose-Headers", "Content-Disposition");
+    private SbomExportCache.ExportArchive openSbomArchive(Path tmpDirPath, String productName, List<String> exportParams,
+            String filename, ArchiveCompression compression, SbomContentWriter sbomContentWriter) throws IOException {
+        Optional<SbomExportCache.CacheKey> cacheKey = sbomExportCache.createKey(productName, exportParams);
+        if (cacheKey.isPresent()) {
+            SbomExportCache.ExportArchive cachedArchive = sbomExportCache.open(cacheKey.get());
+            if (Objects.nonNull(cachedArchive)) {
+                return cachedArchive;
             }
+        }
 
-            OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
-            outputStream.write(errorMsg.getBytes(StandardCharsets.UTF_8));
-            outputStream.flush();
-        } else {
-            var sbomWithVerification = sbomService.generateVerificationAndTar(filename, content);
+        Path archiveFile = spoolSbomArchive(tmpDirPath, filename, compression, sbomContentWriter);
+        cacheKey.ifPresent(key -> sbomExportCache.put(key, archiveFile));
+        return new SbomExportCache.ExportArchive(Files.size(archiveFile), Files.newInputStream(archiveFile));
+    }
 
-            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-            response.setContentType("application/octet-stream");
-            response.setHeader("Content-Disposition", "attachment;filename=%s.tar.gz".formatted(filename));
-            response.addHeader("Content-Length", String.valueOf(sbomWithVerification.length));
+    private Path spoolSbomArchive(Path tmpDirPath, String filename, ArchiveCompression compression,
+            SbomContentWriter sbomContentWriter) throws IOException {
+        Path sbomFile = tmpDirPath.resolve(filename);
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(sbomFile))) {
+            sbomContentWriter.write(outputStream);
+        }
+        Path archiveFile = tmpDirPath.resolve("%s.%s".formatted(filename, compression.getFileExtName()));
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(archiveFile))) {
+            sbomService.generateVerificationAndTar(sbomFile, compression, outputStream);
+        }
+        return archiveFile;
+    }
+
+    @FunctionalInterface
+    private interface SbomContentWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
 
-            OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
-            outputStream.write(sbomWithVerification);
-            outputStream.flush();
+    private void writeErrorResponse(HttpServletRequest request, HttpServletResponse response, String errorMsg) throws IOException {
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        response.setContentType("text/plain");
+        response.addHeader("Content-Length", String.valueOf(errorMsg.getBytes(StandardCharsets.UTF_8).length));
+        //CORS
+        String origin = request.getHeader("origin");
+        if (SbomConstants.ALLOW_ORIGINS.contains(origin)) {
+            response.addHeader("Access-Control-Allow-Origin", origin);
+            response.addHeader("Access-Control-Allow-Methods", "POST");
+            response.addHeader("Access-Control-Allow-Headers", "Content-Type");
+            response.addHeader("Access-Control-Expose-Headers", "Content-Disposition");
         }
+
+        OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
+        outputStream.write(errorMsg.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
     }
 }
@@ -1,5 +1,7 @@
 package org.opensourceway.sbom.service.checksum.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.RateLimiter;
 import org.opensourceway.sbom.api.checksum.ChecksumService;
 import org.opensourceway.sbom.api.checksum.SonatypeClient;
 import org.opensourceway.sbom.cache.ChecksumSkipMapCache;
@@ -13,21 +15,28 @@ import org.opensourceway.sbom.model.pojo.response.checksum.maven.Docs;
 import org.opensourceway.sbom.model.pojo.response.checksum.maven.GAVInfo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.utils.Mapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Service
 @Qualifier("checksumServiceImpl")
@@ -36,6 +45,9 @@ public class ChecksumServiceImpl implements ChecksumService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChecksumServiceImpl.class);
 
+    private static final String UPSERT_PACKAGE_META_SQL = "INSERT INTO package_meta(checksum, checksum_type, purl, " +
+            "extended_attr) VALUES (?, ?, ?::jsonb, ?::jsonb) ON CONFLICT (checksum) DO NOTHING";
+
     @Autowired
     @Qualifier("sonatypeClientImpl")
     private SonatypeClient sonatypeClient;
@@ -49,6 +61,19 @@ public class ChecksumServiceImpl implements ChecksumService {
     @Autowired
     private PackageMetaRepository packageMetaRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("sonatypeChecksumExecutor")
+    private ThreadPoolTaskExecutor sonatypeChecksumExecutor;
+
+    @Autowired
+    private RateLimiter sonatypeRateLimiter;
+
+    @Value("${sbom.checksum.upsert-batch-size:500}")
+    private Integer batchSize;
+
     private boolean checksumSkip(Docs docs) {
         List<String> groupToSkip = checksumSkipMapCache.getChecksumSkipMap(CacheConstants.CHECKSUM_SKIP_MAP_CACHE_KEY_PATTERN).get(SbomConstants.CHECKSUM_SKIP_GROUP);
         if (groupToSkip.contains(docs.getGroup())) {
@@ -69,8 +94,9 @@ public class ChecksumServiceImpl implements ChecksumService {
         List<ExternalPurlRef> externalPurlRefsTORemove = new ArrayList<>();
         Set<PackageUrlVo> vos = new HashSet<>();
         List<ExternalPurlRef> ExternalPurlRefList = externalPurlRefRepository.queryPackageRef(pkgId, category, type);
+        Map<String, PackageUrlVo> checksumPurls = getPurlsByChecksum(ExternalPurlRefList);
         ExternalPurlRefList.forEach(ref -> {
-            PackageUrlVo vo = getPurlByChecksum(ref);
+            PackageUrlVo vo = checksumPurls.get(ref.getPurl().getName());
             if (ObjectUtils.isEmpty(vo) || vos.contains(vo)) {
                 logger.debug("GAV of checksum {} already exists", ref.getPurl().getName());
                 externalPurlRefsTORemove.add(ref);
@@ -88,20 +114,51 @@ public class ChecksumServiceImpl implements ChecksumService {
 
     }
 
-    private PackageUrlVo getPurlByChecksum(ExternalPurlRef ref) {
-        PackageMeta meta = packageMetaRepository.findById(ref.getPurl().getName()).orElse(null);
-        if (!ObjectUtils.isEmpty(meta)) {
-            return meta.getPurl();
+    /**
+     * Resolve the GAV of all the checksums at once: known checksums are read from package_meta with one query, the
+     * others are resolved by sonatype concurrently and saved to package_meta in batches.
+     *
+     * @return purl of each checksum, null if the checksum has no GAV
+     */
+    private Map<String, PackageUrlVo> getPurlsByChecksum(List<ExternalPurlRef> refs) {
+        Map<String, PackageUrlVo> checksumPurls = new HashMap<>();
+        Set<String> checksums = refs.stream().map(ref -> ref.getPurl().getName()).collect(Collectors.toSet());
+        packageMetaRepository.findAllById(checksums).forEach(meta -> checksumPurls.put(meta.getChecksum(), meta.getPurl()));
+
+        Map<String, ExternalPurlRef> missingRefs = new LinkedHashMap<>();
+        refs.stream()
+                .filter(ref -> !checksumPurls.containsKey(ref.getPurl().getName()))
+                .forEach(ref -> missingRefs.putIfAbsent(ref.getPurl().getName(), ref));
+        if (missingRefs.isEmpty()) {
+            return checksumPurls;
         }
 
-        GAVInfo gavInfo;
-        try {
-            gavInfo = sonatypeClient.getGAVByChecksum(ref.getPurl().getName());
-        } catch (Exception e) {
-            logger.error("failed to GAV info for {} from API", ref);
-            throw new RuntimeException(e);
-        }
+        Map<String, CompletableFuture<GAVInfo>> gavInfoFutures = new LinkedHashMap<>();
+        missingRefs.keySet().forEach(checksum -> gavInfoFutures.put(checksum, CompletableFuture.supplyAsync(() -> {
+            sonatypeRateLimiter.acquire();
+            return sonatypeClient.getGAVByChecksum(checksum);
+        }, sonatypeChecksumExecutor)));
 
+        List<PackageMeta> packageMetas = new ArrayList<>();
+        gavInfoFutures.forEach((checksum, gavInfoFuture) -> {
+            GAVInfo gavInfo;
+            try {
+                gavInfo = gavInfoFuture.join();
+            } catch (Exception e) {
+                logger.error("failed to GAV info for {} from API", missingRefs.get(checksum));
+                gavInfoFutures.values().forEach(it -> it.cancel(false));
+                throw new RuntimeException(e);
+            }
+            PackageMeta packageMeta = toPackageMeta(missingRefs.get(checksum), gavInfo);
+            checksumPurls.put(checksum, packageMeta.getPurl());
+            packageMetas.add(packageMeta);
+        });
+
+        savePackageMetas(packageMetas);
+        return checksumPurls;
+    }
+
+    private PackageMeta toPackageMeta(ExternalPurlRef ref, GAVInfo gavInfo) {
         PackageUrlVo vo;
         Docs checksumDocs = gavInfo.getResponse().getDocs().stream().filter(doc -> !checksumSkip(doc)).findFirst().orElse(null);
         if (ObjectUtils.isEmpty(checksumDocs)) {
@@ -123,20 +180,26 @@ public class ChecksumServiceImpl implements ChecksumService {
         packageMeta.setChecksumType(ref.getPurl().getNamespace());
         packageMeta.setPurl(vo);
         packageMeta.setExtendedAttr(Map.of("doc_count", gavInfo.getResponse().getNumFound()));
+        return packageMeta;
+    }
 
-        synchronized (this) {
-            try {
-                meta = packageMetaRepository.findById(ref.getPurl().getName()).orElse(null);
-                if (!ObjectUtils.isEmpty(meta)) {
-                    return meta.getPurl();
-                }
-                Executors.newFixedThreadPool(1).submit(() -> packageMetaRepository.saveAndFlush(packageMeta)).get();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+    /**
+     * Checksums resolved by other chunks in the meantime are kept as they are, so no lock is needed between chunks.
+     */
+    private void savePackageMetas(List<PackageMeta> packageMetas) {
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            for (PackageMeta packageMeta : packageMetas) {
+                rows.add(new Object[]{packageMeta.getChecksum(), packageMeta.getChecksumType(),
+                        packageMeta.getPurl() == null ? null : Mapper.objectMapper.writeValueAsString(packageMeta.getPurl()),
+                        Mapper.objectMapper.writeValueAsString(packageMeta.getExtendedAttr())});
             }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            jdbcTemplate.batchUpdate(UPSERT_PACKAGE_META_SQL, rows.subList(i, Math.min(i + batchSize, rows.size())));
         }
-
-        return vo;
     }
 
     @Override
@@ -3,7 +3,6 @@ package org.opensourceway.sbom.service.license.impl;
 import com.github.packageurl.MalformedPackageURLException;
 import org.opensourceway.sbom.api.license.LicenseClient;
 import org.opensourceway.sbom.api.license.LicenseService;
-import org.opensourceway.sbom.dao.RepoMetaRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.constants.SbomRepoConstants;
 import org.opensourceway.sbom.model.entity.Product;
@@ -12,16 +11,18 @@ import org.opensourceway.sbom.model.pojo.response.license.ComplianceResponse;
 import org.opensourceway.sbom.model.pojo.vo.license.LicenseInfoVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.opensourceway.sbom.utils.PurlUtil;
+import org.opensourceway.sbom.utils.RepoMetaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +40,7 @@ public class LicenseServiceImpl implements LicenseService {
     private LicenseClient licenseClient;
 
     @Autowired
-    private RepoMetaRepository repoMetaRepository;
+    private RepoMetaUtil repoMetaUtil;
 
     @Override
     public Integer getBulkRequestSize() {
@@ -76,13 +77,34 @@ public class LicenseServiceImpl implements LicenseService {
 
     @Override
     public String getPurlsForLicense(PackageUrlVo packageUrlVo, Product product) {
+        return getPurlsForLicense(Collections.singletonList(packageUrlVo), product).get(0);
+    }
+
+    @Override
+    public List<String> getPurlsForLicense(List<PackageUrlVo> packageUrlVos, Product product) {
+        Map<String, RepoMeta> repoMetas = Collections.emptyMap();
+        if (SbomConstants.PRODUCT_OPENEULER_NAME.equals(product.getProductType())) {
+            repoMetas = repoMetaUtil.getRepoMetas(product, packageUrlVos.stream()
+                    .filter(packageUrlVo -> "rpm".equals(packageUrlVo.getType()))
+                    .map(PackageUrlVo::getName)
+                    .toList());
+        }
+
+        List<String> purls = new ArrayList<>(packageUrlVos.size());
+        for (PackageUrlVo packageUrlVo : packageUrlVos) {
+            purls.add(getPurlForLicense(packageUrlVo, product, repoMetas));
+        }
+        return purls;
+    }
+
+    private String getPurlForLicense(PackageUrlVo packageUrlVo, Product product, Map<String, RepoMeta> repoMetas) {
         String purl = "";
         try {
 
             if (SbomConstants.PRODUCT_MINDSPORE_NAME.equals(product.getProductType())) {
                 purl = dealMindsporePurl(packageUrlVo);
             } else if (SbomConstants.PRODUCT_OPENEULER_NAME.equals(product.getProductType())) {
-                purl = dealOpenEulerPurl(packageUrlVo, product);
+                purl = dealOpenEulerPurl(packageUrlVo, product, repoMetas);
             } else if (SbomConstants.PRODUCT_OPENHARMONY_NAME.equals(product.getProductType())) {
                 purl = dealOpenHarmonyPurl(packageUrlVo, product);
             } else if (SbomConstants.PRODUCT_OPENGAUSS_NAME.equals(product.getProductType())) {
@@ -108,16 +130,15 @@ public class LicenseServiceImpl implements LicenseService {
      * for example:
      * pkg:rpm/nodejs-lodash-some@3.10.1-1.oe2203 -> pkg:gitee/src-openeuler/nodejs-lodash-some@openEuler-22.03-LTS
      ***/
-    private String dealOpenEulerPurl(PackageUrlVo packageUrlVo, Product product) throws MalformedPackageURLException {
+    private String dealOpenEulerPurl(PackageUrlVo packageUrlVo, Product product, Map<String, RepoMeta> repoMetas) throws MalformedPackageURLException {
         if (!"rpm".equals(packageUrlVo.getType())) {
             return (PurlUtil.canonicalizePurl(PurlUtil.newPackageURL(packageUrlVo.getType(), packageUrlVo.getNamespace(),
                     packageUrlVo.getName(), packageUrlVo.getVersion(), null, null)));
         } else {
-            List<RepoMeta> repoMetaList = repoMetaRepository.queryRepoMetaByPackageName(SbomConstants.PRODUCT_OPENEULER_NAME,
-                    product.getProductVersion(), packageUrlVo.getName());
+            RepoMeta repoMeta = repoMetas.get(packageUrlVo.getName());
             String repoName = packageUrlVo.getName();
-            if (!CollectionUtils.isEmpty(repoMetaList) && !repoMetaList.get(0).getDownloadLocation().isEmpty()) {
-                String downloadLocation = repoMetaList.get(0).getDownloadLocation();
+            if (repoMeta != null && !repoMeta.getDownloadLocation().isEmpty()) {
+                String downloadLocation = repoMeta.getDownloadLocation();
                 List<String> repoInfo = Arrays.stream(Arrays.stream(downloadLocation.split("/tree/")).toList().get(0).split("/")).toList();
                 repoName = repoInfo.get(repoInfo.size() - 1);
             }
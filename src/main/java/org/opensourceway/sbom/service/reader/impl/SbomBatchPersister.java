@@ -0,0 +1,421 @@
+package org.opensourceway.sbom.service.reader.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.utils.Mapper;
+import org.opensourceway.sbom.utils.PurlUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persist a sbom with fixed-size JDBC batches instead of building the whole JPA entity graph.
+ * <p>
+ * Rows are buffered per table and flushed in foreign key order (package before its children) whenever any buffer
+ * reaches the batch size, so memory use is bounded by the batch size rather than the size of the sbom.
+ * Callers must run inside a transaction, and must flush pending JPA changes (e.g. deletion of the old sbom of the
+ * product) before opening a session, since plain JDBC statements don't trigger a Hibernate flush.
+ * <p>
+ * An incremental session updates an existing sbom in place instead: packages are matched by spdxId, then by purl, and
+ * packages whose {@link Package#getImportDigest() import digest} is unchanged are left untouched together with their
+ * enrichment. Changed packages lose their enrichment, including their files, which the enrichment steps rebuild. It keeps an index of the existing packages and relationships of the sbom in memory.
+ */
+@Component
+public class SbomBatchPersister {
+
+    private static final Logger logger = LoggerFactory.getLogger(SbomBatchPersister.class);
+
+    private static final String INSERT_SBOM_SQL = "INSERT INTO sbom(id, product_id) VALUES (?, ?)";
+
+    private static final String UPDATE_SBOM_SQL = "UPDATE sbom SET name = ?, data_license = ?, namespace = ?, created = ?, " +
+            "license_list_version = ? WHERE id = ?";
+
+    private static final String INSERT_SBOM_CREATOR_SQL = "INSERT INTO sbom_creator(id, name, sbom_id) VALUES (?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String DELETE_SBOM_CREATOR_SQL = "DELETE FROM sbom_creator WHERE sbom_id = ?";
+
+    private static final String INSERT_PACKAGE_SQL = "INSERT INTO package(id, spdx_id, name, version, supplier, originator, " +
+            "description, copyright, summary, homepage, download_location, files_analyzed, license_concluded, " +
+            "license_declared, source_info, import_digest, sbom_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PACKAGE_SQL = "UPDATE package SET spdx_id = ?, name = ?, version = ?, supplier = ?, " +
+            "originator = ?, description = ?, copyright = ?, summary = ?, homepage = ?, download_location = ?, " +
+            "files_analyzed = ?, license_concluded = ?, license_declared = ?, source_info = ?, import_digest = ?, " +
+            "sbom_id = ? WHERE id = ?";
+
+    private static final String INSERT_PKG_VERF_CODE_SQL = "INSERT INTO pkg_verf_code(id, value, pkg_id) VALUES (?, ?, ?)";
+
+    private static final String INSERT_PKG_VERF_CODE_EXCLUDED_FILE_SQL = "INSERT INTO pkg_verf_code_excluded_file(id, file, " +
+            "pkg_verf_code_id) VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_CHECKSUM_SQL = "INSERT INTO checksum(id, algorithm, value, pkg_id) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_EXTERNAL_PURL_REF_SQL = "INSERT INTO external_purl_ref(id, category, type, comment, purl, " +
+            "pkg_id) VALUES (?, ?, ?, ?, ?::jsonb, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_SBOM_ELEMENT_RELATIONSHIP_SQL = "INSERT INTO sbom_element_relationship(id, element_id, " +
+            "related_element_id, relationship_type, comment, sbom_id) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String SELECT_EXISTING_PACKAGES_SQL = "SELECT p.id, p.spdx_id, p.import_digest, r.purl FROM package p " +
+            "LEFT JOIN external_purl_ref r ON r.pkg_id = p.id AND r.category = ? AND r.type = ? WHERE p.sbom_id = ?";
+
+    /**
+     * relationships between files and packages are added by enrichment (e.g. patches), they are not part of the document
+     */
+    private static final String SELECT_EXISTING_RELATIONSHIPS_SQL = "SELECT r.element_id, r.related_element_id, " +
+            "r.relationship_type FROM sbom_element_relationship r WHERE r.sbom_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM file f WHERE f.sbom_id = r.sbom_id AND f.spdx_id = r.element_id)";
+
+    private static final String DELETE_SBOM_ELEMENT_RELATIONSHIP_SQL = "DELETE FROM sbom_element_relationship WHERE sbom_id = ? " +
+            "AND element_id = ? AND related_element_id = ? AND relationship_type = ?";
+
+    private static final String DELETE_FILE_RELATIONSHIP_OF_PACKAGE_SQL = "DELETE FROM sbom_element_relationship WHERE sbom_id = ? " +
+            "AND related_element_id = ? AND element_id IN (SELECT spdx_id FROM file WHERE sbom_id = ?)";
+
+    /**
+     * files are shared by the packages of a repo (e.g. patches), a file is removed once no package refers to it anymore
+     */
+    private static final String DELETE_ORPHAN_FILE_SQL = "DELETE FROM file f WHERE f.sbom_id = ? AND NOT EXISTS " +
+            "(SELECT 1 FROM sbom_element_relationship r WHERE r.sbom_id = f.sbom_id AND r.element_id = f.spdx_id)";
+
+    /**
+     * children of a package, including enrichment, in foreign key order
+     */
+    private static final List<String> DELETE_PACKAGE_CHILDREN_SQLS = List.of(
+            "DELETE FROM pkg_verf_code_excluded_file WHERE pkg_verf_code_id IN (SELECT id FROM pkg_verf_code WHERE pkg_id = ?)",
+            "DELETE FROM pkg_verf_code WHERE pkg_id = ?",
+            "DELETE FROM checksum WHERE pkg_id = ?",
+            "DELETE FROM external_purl_ref WHERE pkg_id = ?",
+            "DELETE FROM external_vul_ref WHERE pkg_id = ?",
+            "DELETE FROM pkg_license_relp WHERE pkg_id = ?",
+            "DELETE FROM package_statistics WHERE package_id = ?");
+
+    private static final String DELETE_PACKAGE_SQL = "DELETE FROM package WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sbom.reader.batch-size:1000}")
+    private Integer batchSize;
+
+    public Session openSession(UUID productId) {
+        UUID sbomId = UUID.randomUUID();
+        jdbcTemplate.update(INSERT_SBOM_SQL, sbomId, productId);
+        return new Session(sbomId, false);
+    }
+
+    /**
+     * Open a session which updates the existing sbom in place, see {@link Session#getDiff()} for the outcome.
+     */
+    public Session openIncrementalSession(UUID sbomId) {
+        Session session = new Session(sbomId, true);
+        jdbcTemplate.query(SELECT_EXISTING_PACKAGES_SQL, rs -> {
+            UUID pkgId = rs.getObject("id", UUID.class);
+            session.indexExistingPackage(new ExistingPackage(pkgId, rs.getString("spdx_id"),
+                    rs.getString("import_digest"), canonicalizePurl(pkgId, rs.getString("purl"))));
+        }, ReferenceCategory.PACKAGE_MANAGER.name(), ReferenceType.PURL.getType(), sbomId);
+        jdbcTemplate.query(SELECT_EXISTING_RELATIONSHIPS_SQL, rs -> {
+            session.staleRelationships.add(new RelationshipKey(rs.getString("element_id"),
+                    rs.getString("related_element_id"), rs.getString("relationship_type")));
+        }, sbomId);
+        logger.info("open incremental session for sbom {} with {} existing packages and {} existing relationships",
+                sbomId, session.existingPackages.size(), session.staleRelationships.size());
+        return session;
+    }
+
+    private String canonicalizePurl(UUID pkgId, String purlJson) {
+        if (Objects.isNull(purlJson)) {
+            return null;
+        }
+        try {
+            return PurlUtil.canonicalizePurl(Mapper.objectMapper.readValue(purlJson, PackageUrlVo.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("failed to parse purl {} of package {}", purlJson, pkgId);
+            return null;
+        }
+    }
+
+    private record ExistingPackage(UUID id, String spdxId, String importDigest, String purl) {
+    }
+
+    private record RelationshipKey(String elementId, String relatedElementId, String relationshipType) {
+    }
+
+    public class Session {
+
+        private final UUID sbomId;
+
+        private final boolean incremental;
+
+        private final Set<String> creators = new LinkedHashSet<>();
+
+        private final List<Object[]> resetPackages = new ArrayList<>();
+
+        private final List<Object[]> resetFileRelationships = new ArrayList<>();
+
+        private final List<Object[]> packageUpdates = new ArrayList<>();
+
+        private final List<Object[]> packages = new ArrayList<>();
+
+        private final List<Object[]> pkgVerfCodes = new ArrayList<>();
+
+        private final List<Object[]> pkgVerfCodeExcludedFiles = new ArrayList<>();
+
+        private final List<Object[]> checksums = new ArrayList<>();
+
+        private final List<Object[]> externalPurlRefs = new ArrayList<>();
+
+        private final List<Object[]> relationships = new ArrayList<>();
+
+        private long packageCount = 0;
+
+        private long relationshipCount = 0;
+
+        private final Map<UUID, ExistingPackage> existingPackages = new HashMap<>();
+
+        private final Map<String, ExistingPackage> existingPackagesBySpdxId = new HashMap<>();
+
+        private final Map<String, ExistingPackage> existingPackagesByPurl = new HashMap<>();
+
+        private final Set<UUID> matchedPkgIds = new HashSet<>();
+
+        private final Set<UUID> unchangedPkgIds = new HashSet<>();
+
+        /**
+         * existing relationships which haven't been seen in the new document yet
+         */
+        private final Set<RelationshipKey> staleRelationships = new HashSet<>();
+
+        private final SbomDiffVo diff = new SbomDiffVo();
+
+        private Session(UUID sbomId, boolean incremental) {
+            this.sbomId = sbomId;
+            this.incremental = incremental;
+            this.diff.setSbomId(sbomId);
+        }
+
+        public UUID getSbomId() {
+            return sbomId;
+        }
+
+        /**
+         * @return changes made by an incremental session, a full session adds all packages
+         */
+        public SbomDiffVo getDiff() {
+            return diff;
+        }
+
+        public void addCreator(String name) {
+            creators.add(name);
+        }
+
+        /**
+         * @param pkg  detached package entity used as a value holder, its id and associations are ignored
+         * @param purl canonical package manager purl of the package, used to match existing packages in incremental sessions
+         * @return id of the package row
+         */
+        public UUID addPackage(Package pkg, String purl) {
+            packageCount++;
+            ExistingPackage existing = incremental ? matchExistingPackage(pkg.getSpdxId(), purl) : null;
+            if (Objects.isNull(existing)) {
+                UUID pkgId = UUID.randomUUID();
+                packages.add(new Object[]{pkgId, pkg.getSpdxId(), pkg.getName(), pkg.getVersion(), pkg.getSupplier(),
+                        pkg.getOriginator(), pkg.getDescription(), pkg.getCopyright(), pkg.getSummary(), pkg.getHomepage(),
+                        pkg.getDownloadLocation(), pkg.isFilesAnalyzed(), pkg.getLicenseConcluded(), pkg.getLicenseDeclared(),
+                        pkg.getSourceInfo(), pkg.getImportDigest(), sbomId});
+                diff.getChangedPackageIds().add(pkgId);
+                diff.setAddedPackageCount(diff.getAddedPackageCount() + 1);
+                flushIfFull();
+                return pkgId;
+            }
+
+            if (Objects.nonNull(pkg.getImportDigest()) && Objects.equals(pkg.getImportDigest(), existing.importDigest())) {
+                unchangedPkgIds.add(existing.id());
+                diff.setUnchangedPackageCount(diff.getUnchangedPackageCount() + 1);
+                return existing.id();
+            }
+
+            // the package changed, replace its children and drop its enrichment, which is rebuilt by the enrichment steps
+            resetPackages.add(new Object[]{existing.id()});
+            resetFileRelationships.add(new Object[]{sbomId, existing.spdxId(), sbomId});
+            if (!Objects.equals(existing.spdxId(), pkg.getSpdxId())) {
+                resetFileRelationships.add(new Object[]{sbomId, pkg.getSpdxId(), sbomId});
+            }
+            packageUpdates.add(new Object[]{pkg.getSpdxId(), pkg.getName(), pkg.getVersion(), pkg.getSupplier(),
+                    pkg.getOriginator(), pkg.getDescription(), pkg.getCopyright(), pkg.getSummary(), pkg.getHomepage(),
+                    pkg.getDownloadLocation(), pkg.isFilesAnalyzed(), pkg.getLicenseConcluded(), pkg.getLicenseDeclared(),
+                    pkg.getSourceInfo(), pkg.getImportDigest(), sbomId, existing.id()});
+            diff.getChangedPackageIds().add(existing.id());
+            diff.setUpdatedPackageCount(diff.getUpdatedPackageCount() + 1);
+            flushIfFull();
+            return existing.id();
+        }
+
+        public void addPkgVerfCode(UUID pkgId, String value, List<String> excludedFiles) {
+            if (unchangedPkgIds.contains(pkgId)) {
+                return;
+            }
+            UUID pkgVerfCodeId = UUID.randomUUID();
+            pkgVerfCodes.add(new Object[]{pkgVerfCodeId, value, pkgId});
+            if (!ObjectUtils.isEmpty(excludedFiles)) {
+                excludedFiles.forEach(file -> pkgVerfCodeExcludedFiles.add(new Object[]{UUID.randomUUID(), file, pkgVerfCodeId}));
+            }
+            flushIfFull();
+        }
+
+        public void addChecksum(UUID pkgId, String algorithm, String value) {
+            if (unchangedPkgIds.contains(pkgId)) {
+                return;
+            }
+            checksums.add(new Object[]{UUID.randomUUID(), algorithm, value, pkgId});
+            flushIfFull();
+        }
+
+        public void addExternalPurlRef(UUID pkgId, String category, String type, String comment, PackageUrlVo purl) {
+            if (unchangedPkgIds.contains(pkgId)) {
+                return;
+            }
+            try {
+                externalPurlRefs.add(new Object[]{UUID.randomUUID(), category, type, comment,
+                        Mapper.objectMapper.writeValueAsString(purl), pkgId});
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("failed to serialize purl of package %s".formatted(pkgId), e);
+            }
+            flushIfFull();
+        }
+
+        public void addRelationship(String elementId, String relatedElementId, String relationshipType, String comment) {
+            relationshipCount++;
+            if (incremental && staleRelationships.remove(new RelationshipKey(elementId, relatedElementId, relationshipType))) {
+                return;
+            }
+            relationships.add(new Object[]{UUID.randomUUID(), elementId, relatedElementId, relationshipType, comment, sbomId});
+            flushIfFull();
+        }
+
+        /**
+         * flush all buffered rows, remove stale rows of an incremental session and fill up the metadata of the sbom row
+         */
+        public void finish(String name, String dataLicense, String namespace, String created, String licenseListVersion) {
+            flush();
+            if (incremental) {
+                removeStalePackages();
+                removeStaleRelationships();
+                jdbcTemplate.update(DELETE_ORPHAN_FILE_SQL, sbomId);
+                jdbcTemplate.update(DELETE_SBOM_CREATOR_SQL, sbomId);
+            }
+            jdbcTemplate.batchUpdate(INSERT_SBOM_CREATOR_SQL, creators.stream()
+                    .map(creator -> new Object[]{UUID.randomUUID(), creator, sbomId})
+                    .toList());
+            jdbcTemplate.update(UPDATE_SBOM_SQL, name, dataLicense, namespace, created, licenseListVersion, sbomId);
+            if (incremental) {
+                logger.info("incrementally persisted sbom {} with {} packages and {} relationships, {}",
+                        sbomId, packageCount, relationshipCount, diff);
+            } else {
+                logger.info("persisted sbom {} with {} packages and {} relationships", sbomId, packageCount, relationshipCount);
+            }
+        }
+
+        private void indexExistingPackage(ExistingPackage existing) {
+            // a package has at most one row per purl ref, keep the first one
+            if (existingPackages.putIfAbsent(existing.id(), existing) != null) {
+                return;
+            }
+            existingPackagesBySpdxId.putIfAbsent(existing.spdxId(), existing);
+            if (Objects.nonNull(existing.purl())) {
+                existingPackagesByPurl.putIfAbsent(existing.purl(), existing);
+            }
+        }
+
+        private ExistingPackage matchExistingPackage(String spdxId, String purl) {
+            ExistingPackage existing = existingPackagesBySpdxId.get(spdxId);
+            if ((Objects.isNull(existing) || matchedPkgIds.contains(existing.id())) && Objects.nonNull(purl)) {
+                existing = existingPackagesByPurl.get(purl);
+            }
+            if (Objects.isNull(existing) || !matchedPkgIds.add(existing.id())) {
+                return null;
+            }
+            return existing;
+        }
+
+        private void removeStalePackages() {
+            List<ExistingPackage> stalePackages = existingPackages.values().stream()
+                    .filter(it -> !matchedPkgIds.contains(it.id()))
+                    .toList();
+            for (int i = 0; i < stalePackages.size(); i += batchSize) {
+                List<ExistingPackage> batch = stalePackages.subList(i, Math.min(i + batchSize, stalePackages.size()));
+                List<Object[]> ids = batch.stream().map(it -> new Object[]{it.id()}).toList();
+                DELETE_PACKAGE_CHILDREN_SQLS.forEach(sql -> jdbcTemplate.batchUpdate(sql, ids));
+                jdbcTemplate.batchUpdate(DELETE_FILE_RELATIONSHIP_OF_PACKAGE_SQL, batch.stream()
+                        .map(it -> new Object[]{sbomId, it.spdxId(), sbomId})
+                        .toList());
+                jdbcTemplate.batchUpdate(DELETE_PACKAGE_SQL, ids);
+            }
+            diff.setRemovedPackageCount((long) stalePackages.size());
+        }
+
+        private void removeStaleRelationships() {
+            List<Object[]> rows = staleRelationships.stream()
+                    .map(it -> new Object[]{sbomId, it.elementId(), it.relatedElementId(), it.relationshipType()})
+                    .toList();
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                jdbcTemplate.batchUpdate(DELETE_SBOM_ELEMENT_RELATIONSHIP_SQL, rows.subList(i, Math.min(i + batchSize, rows.size())));
+            }
+            staleRelationships.clear();
+        }
+
+        private void flushIfFull() {
+            if (packages.size() >= batchSize || resetFileRelationships.size() >= batchSize || packageUpdates.size() >= batchSize || pkgVerfCodes.size() >= batchSize
+                    || pkgVerfCodeExcludedFiles.size() >= batchSize || checksums.size() >= batchSize
+                    || externalPurlRefs.size() >= batchSize || relationships.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            // drop children of changed packages before their new children are inserted
+            if (!resetPackages.isEmpty()) {
+                DELETE_PACKAGE_CHILDREN_SQLS.forEach(sql -> jdbcTemplate.batchUpdate(sql, resetPackages));
+                resetPackages.clear();
+            }
+            // files of changed packages are rebuilt by the enrichment steps as well, files left orphaned are removed on finish
+            flush(DELETE_FILE_RELATIONSHIP_OF_PACKAGE_SQL, resetFileRelationships);
+            flush(UPDATE_PACKAGE_SQL, packageUpdates);
+            // keep foreign key order: package -> pkg_verf_code -> pkg_verf_code_excluded_file / checksum / external_purl_ref
+            flush(INSERT_PACKAGE_SQL, packages);
+            flush(INSERT_PKG_VERF_CODE_SQL, pkgVerfCodes);
+            flush(INSERT_PKG_VERF_CODE_EXCLUDED_FILE_SQL, pkgVerfCodeExcludedFiles);
+            flush(INSERT_CHECKSUM_SQL, checksums);
+            flush(INSERT_EXTERNAL_PURL_REF_SQL, externalPurlRefs);
+            flush(INSERT_SBOM_ELEMENT_RELATIONSHIP_SQL, relationships);
+        }
+
+        private void flush(String sql, List<Object[]> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -1,37 +1,103 @@
 package org.opensourceway.sbom.service.reader.impl.cyclonedx;
 
-import org.opensourceway.sbom.api.reader.SbomReader;
+import org.opensourceway.sbom.api.reader.StreamingSbomReader;
+import org.opensourceway.sbom.dao.ProductRepository;
+import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.Sbom;
 import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.enums.SbomSpecification;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
 import org.opensourceway.sbom.model.sbom.SbomDocument;
+import org.opensourceway.sbom.utils.SbomMapperUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
 
 @Service(value = SbomConstants.CYCLONEDX_NAME + SbomConstants.READER_NAME)
 @Transactional(rollbackFor = Exception.class)
-public class CycloneDXReader implements SbomReader {
+public class CycloneDXReader implements StreamingSbomReader {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Autowired
+    private CycloneDXStreamReader cycloneDXStreamReader;
+
     @Override
     public void read(String productName, File file) throws IOException {
-
+        SbomFormat format = SbomMapperUtil.fileToExt(file.getName());
+        try (InputStream inputStream = new FileInputStream(file)) {
+            deleteOldSbom(productName);
+            persistSbom(productName, format, inputStream);
+        }
     }
 
     @Override
     public void read(String productName, SbomFormat format, byte[] fileContent) throws IOException {
+        deleteOldSbom(productName);
+        persistSbom(productName, format, new ByteArrayInputStream(fileContent));
+    }
 
+    private void deleteOldSbom(String productName) {
+        sbomRepository.findByProductName(productName).ifPresent(sbom -> sbomRepository.delete(sbom));
     }
 
     @Override
     public SbomDocument readToDocument(String productName, SbomFormat format, byte[] fileContent) throws IOException {
-        return null;
+        return SbomMapperUtil.readDocument(format, SbomSpecification.CYCLONEDX_1_4.getDocumentClass(), fileContent);
     }
 
     @Override
     public Sbom persistSbom(String productName, SbomDocument sbomDocument) {
-        return null;
+        try {
+            byte[] content = SbomMapperUtil.writeAsBytes(sbomDocument, SbomFormat.JSON);
+            return persistSbom(productName, SbomFormat.JSON, new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            throw new RuntimeException("failed to persist %s's cyclonedx sbom".formatted(productName), e);
+        }
+    }
+
+    @Override
+    public boolean supportStreaming(SbomFormat format) {
+        return format == SbomFormat.JSON || format == SbomFormat.XML;
+    }
+
+    @Override
+    public Sbom persistSbom(String productName, SbomFormat format, InputStream documentStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming read is not supported for sbom file format %s".formatted(format));
+        }
+        Product product = productRepository.findByName(productName)
+                .orElseThrow(() -> new RuntimeException("can't find %s's product metadata".formatted(productName)));
+        // rows are written with plain jdbc, make sure the deletion of the old sbom has reached the database
+        sbomRepository.flush();
+
+        UUID sbomId = cycloneDXStreamReader.persist(product.getId(), format, documentStream);
+        return sbomRepository.findById(sbomId)
+                .orElseThrow(() -> new RuntimeException("can't find persisted sbom %s".formatted(sbomId)));
     }
 
+    @Override
+    public SbomDiffVo persistSbomIncrementally(String productName, SbomFormat format, InputStream documentStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming read is not supported for sbom file format %s".formatted(format));
+        }
+        Sbom sbom = sbomRepository.findByProductName(productName)
+                .orElseThrow(() -> new RuntimeException("can't find %s's sbom to update".formatted(productName)));
+        sbomRepository.flush();
+
+        return cycloneDXStreamReader.persistIncrementally(sbom.getId(), format, documentStream);
+    }
 }
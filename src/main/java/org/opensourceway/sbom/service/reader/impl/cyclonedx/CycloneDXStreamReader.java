@@ -0,0 +1,438 @@
+package org.opensourceway.sbom.service.reader.impl.cyclonedx;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.commons.lang3.StringUtils;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.cyclonedx.Algorithm;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.service.reader.impl.SbomBatchPersister;
+import org.opensourceway.sbom.utils.Mapper;
+import org.opensourceway.sbom.utils.PurlUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Read a CycloneDX 1.4 json/xml document as a stream, only one component or dependency is materialized at a time and
+ * rows are persisted through {@link SbomBatchPersister}.
+ * <p>
+ * Json documents are read token by token with jackson, xml documents with StAX. Each xml component is converted to a
+ * {@link JsonNode} of the same shape as its json counterpart, so that both formats share the same mapping, which is
+ * the inverse of CycloneDXWriter.
+ */
+@Component
+public class CycloneDXStreamReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CycloneDXStreamReader.class);
+
+    private static final String RELATION_CATEGORY = "RelationCategory";
+
+    private static final String SUMMARY = "summary";
+
+    private static final String TOOL_PREFIX = "Tool: ";
+
+    private static final String GENERATED_SPDX_ID_PREFIX = "SPDXRef-Package-";
+
+    /** xml elements whose children are the items of a json array */
+    private static final Set<String> XML_ARRAY_ELEMENTS = Set.of(
+            "components", "hashes", "licenses", "externalReferences", "properties", "tools", "authors");
+
+    /** xml array elements whose items are wrapped by an object keyed by element name in json, e.g. licenses */
+    private static final Set<String> XML_WRAPPED_ARRAY_ELEMENTS = Set.of("licenses");
+
+    /** json field name of the text content of xml elements which also have attributes */
+    private static final Map<String, String> XML_TEXT_FIELDS = Map.of("hash", "content", "property", "value");
+
+    private static final Map<String, String> ALGORITHMS = Arrays.stream(Algorithm.values())
+            .collect(Collectors.toMap(Algorithm::getAlg, Algorithm::name));
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    @Autowired
+    private SbomBatchPersister sbomBatchPersister;
+
+    public UUID persist(UUID productId, SbomFormat format, InputStream documentStream) throws IOException {
+        SbomBatchPersister.Session session = sbomBatchPersister.openSession(productId);
+        persist(session, format, documentStream);
+        return session.getSbomId();
+    }
+
+    public SbomDiffVo persistIncrementally(UUID sbomId, SbomFormat format, InputStream documentStream) throws IOException {
+        SbomBatchPersister.Session session = sbomBatchPersister.openIncrementalSession(sbomId);
+        persist(session, format, documentStream);
+        return session.getDiff();
+    }
+
+    private void persist(SbomBatchPersister.Session session, SbomFormat format, InputStream documentStream) throws IOException {
+        BomHandler handler = new BomHandler(session);
+        if (format == SbomFormat.JSON) {
+            readJson(documentStream, handler);
+        } else if (format == SbomFormat.XML) {
+            readXml(documentStream, handler);
+        } else {
+            throw new RuntimeException("streaming read is not supported for cyclonedx file format %s".formatted(format));
+        }
+        handler.finish();
+    }
+
+    private void readJson(InputStream documentStream, BomHandler handler) throws IOException {
+        try (JsonParser parser = Mapper.jsonSbomMapper.getFactory().createParser(documentStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("invalid cyclonedx document, root element is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "serialNumber" -> handler.serialNumber = parser.getValueAsString();
+                    case "metadata" -> handler.metadata = Mapper.jsonSbomMapper.readTree(parser);
+                    case "components" -> readJsonArray(parser, it -> handler.handleComponent(it, null));
+                    case "dependencies" -> readJsonArray(parser, it -> handler.handleDependency(
+                            text(it, "ref"), elements(it.get("dependsOn")).stream().map(JsonNode::asText).toList()));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void readJsonArray(JsonParser parser, Consumer<JsonNode> consumer) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            JsonNode node = Mapper.jsonSbomMapper.readTree(parser);
+            if (Objects.nonNull(node) && node.isObject()) {
+                consumer.accept(node);
+            }
+        }
+    }
+
+    private void readXml(InputStream documentStream, BomHandler handler) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(documentStream);
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !StringUtils.equals(reader.getLocalName(), "bom")) {
+                throw new IOException("invalid cyclonedx document, root element is not bom");
+            }
+            handler.serialNumber = reader.getAttributeValue(null, "serialNumber");
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "metadata" -> handler.metadata = readXmlElement(reader);
+                    case "components" -> {
+                        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                            handler.handleComponent(readXmlElement(reader), null);
+                        }
+                    }
+                    case "dependencies" -> {
+                        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                            readXmlDependency(reader, handler);
+                        }
+                    }
+                    default -> skipXmlElement(reader);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid cyclonedx xml document", e);
+        } finally {
+            if (Objects.nonNull(reader)) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.warn("failed to close xml stream reader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * convert the current xml element and its children to json, the reader is left at the end of the element
+     */
+    private JsonNode readXmlElement(XMLStreamReader reader) throws XMLStreamException {
+        String name = reader.getLocalName();
+        ObjectNode node = Mapper.jsonSbomMapper.createObjectNode();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            node.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        ArrayNode array = XML_ARRAY_ELEMENTS.contains(name) ? Mapper.jsonSbomMapper.createArrayNode() : null;
+        StringBuilder text = new StringBuilder();
+
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String childName = reader.getLocalName();
+                JsonNode child = readXmlElement(reader);
+                if (Objects.isNull(array)) {
+                    node.set(childName, child);
+                } else if (XML_WRAPPED_ARRAY_ELEMENTS.contains(name)) {
+                    array.add(Mapper.jsonSbomMapper.createObjectNode().set(childName, child));
+                } else {
+                    array.add(child);
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            }
+        }
+
+        if (Objects.nonNull(array)) {
+            return array;
+        }
+        String value = text.toString().strip();
+        if (node.isEmpty()) {
+            return TextNode.valueOf(value);
+        }
+        if (!value.isEmpty()) {
+            node.put(XML_TEXT_FIELDS.getOrDefault(name, "content"), value);
+        }
+        return node;
+    }
+
+    /**
+     * {@code <dependency ref="a"><dependency ref="b"/></dependency>}
+     */
+    private void readXmlDependency(XMLStreamReader reader, BomHandler handler) throws XMLStreamException {
+        String ref = reader.getAttributeValue(null, "ref");
+        List<String> dependsOn = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            dependsOn.add(reader.getAttributeValue(null, "ref"));
+            skipXmlElement(reader);
+        }
+        handler.handleDependency(ref, dependsOn);
+    }
+
+    private void skipXmlElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static String text(JsonNode node, String field) {
+        if (Objects.isNull(node)) {
+            return null;
+        }
+        JsonNode value = node.get(field);
+        if (Objects.isNull(value) || value.isNull()) {
+            return null;
+        }
+        if (value.isArray()) {
+            return value.isEmpty() ? null : value.get(0).asText();
+        }
+        return StringUtils.trimToNull(value.asText());
+    }
+
+    private static List<JsonNode> elements(JsonNode node) {
+        List<JsonNode> elements = new ArrayList<>();
+        if (Objects.isNull(node)) {
+            return elements;
+        }
+        if (node.isArray()) {
+            node.forEach(elements::add);
+        } else if (node.isObject()) {
+            // single xml child or cyclonedx 1.5 style tools
+            elements.add(node);
+        }
+        return elements;
+    }
+
+    private static String algorithmName(String alg) {
+        return ALGORITHMS.getOrDefault(alg, StringUtils.upperCase(StringUtils.remove(alg, "-")));
+    }
+
+    private class BomHandler {
+
+        private final SbomBatchPersister.Session session;
+
+        private String serialNumber;
+
+        private JsonNode metadata;
+
+        private long generatedSpdxIdCount = 0;
+
+        private BomHandler(SbomBatchPersister.Session session) {
+            this.session = session;
+        }
+
+        /**
+         * @return spdxId of the persisted package
+         */
+        private String handleComponent(JsonNode component, String parentSpdxId) {
+            String spdxId = Objects.requireNonNullElseGet(text(component, "bom-ref"),
+                    () -> GENERATED_SPDX_ID_PREFIX + ++generatedSpdxIdCount);
+
+            Package pkg = new Package();
+            pkg.setSpdxId(spdxId);
+            pkg.setName(text(component, "name"));
+            pkg.setVersion(text(component, "version"));
+            pkg.setCopyright(text(component, "copyright"));
+            pkg.setDescription(text(component, "description"));
+            pkg.setSupplier(supplierOf(component));
+            pkg.setOriginator(prefixOrganization(text(component, "author")));
+            pkg.setLicenseConcluded(licenseOf(component));
+            pkg.setSummary(propertyOf(component, SUMMARY));
+            for (JsonNode reference : elements(component.get("externalReferences"))) {
+                String type = text(reference, "type");
+                if (StringUtils.equalsIgnoreCase(type, "website")) {
+                    pkg.setHomepage(text(reference, "url"));
+                } else if (StringUtils.equalsIgnoreCase(type, "distribution")) {
+                    pkg.setDownloadLocation(text(reference, "url"));
+                }
+            }
+            // nested components are part of the digest, a change of a nested component marks its parent as changed too
+            pkg.setImportDigest(DigestUtils.md5DigestAsHex(component.toString().getBytes(StandardCharsets.UTF_8)));
+            UUID pkgId = session.addPackage(pkg, canonicalizePurl(text(component, "purl")));
+
+            for (JsonNode hash : elements(component.get("hashes"))) {
+                session.addChecksum(pkgId, algorithmName(text(hash, "alg")), text(hash, "content"));
+            }
+            addPurlRef(pkgId, ReferenceCategory.PACKAGE_MANAGER.name(), text(component, "purl"));
+
+            for (JsonNode nested : elements(component.get("components"))) {
+                String relationCategory = propertyOf(nested, RELATION_CATEGORY);
+                if (Objects.nonNull(ReferenceCategory.findReferenceCategory(relationCategory))) {
+                    // written by CycloneDXWriter for external purl refs other than the package manager one
+                    addPurlRef(pkgId, relationCategory, text(nested, "purl"));
+                } else {
+                    handleComponent(nested, spdxId);
+                }
+            }
+            if (Objects.nonNull(parentSpdxId)) {
+                session.addRelationship(parentSpdxId, spdxId, RelationshipType.CONTAINS.name(), null);
+            }
+            return spdxId;
+        }
+
+        private void handleDependency(String ref, List<String> dependsOn) {
+            if (Objects.isNull(ref)) {
+                return;
+            }
+            dependsOn.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(it -> session.addRelationship(ref, it, RelationshipType.DEPENDS_ON.name(), null));
+        }
+
+        private void finish() {
+            String name = null;
+            String dataLicense = null;
+            String created = null;
+            if (Objects.nonNull(metadata)) {
+                created = text(metadata, "timestamp");
+                dataLicense = licenseOf(metadata);
+                name = text(metadata.get("component"), "name");
+                JsonNode tools = metadata.get("tools");
+                List<JsonNode> toolList = Objects.nonNull(tools) && tools.has("components") ?
+                        elements(tools.get("components")) : elements(tools);
+                for (JsonNode tool : toolList) {
+                    String toolName = text(tool, "name");
+                    if (Objects.isNull(toolName)) {
+                        continue;
+                    }
+                    String toolVersion = text(tool, "version");
+                    session.addCreator(TOOL_PREFIX + (Objects.isNull(toolVersion) ? toolName : toolName + "-" + toolVersion));
+                }
+                String manufacture = text(metadata.get("manufacture"), "name");
+                if (Objects.nonNull(manufacture)) {
+                    session.addCreator(prefixOrganization(manufacture));
+                }
+            }
+            session.finish(name, dataLicense, serialNumber, created, null);
+        }
+
+        private String canonicalizePurl(String purl) {
+            if (StringUtils.isBlank(purl)) {
+                return null;
+            }
+            try {
+                return PurlUtil.canonicalizePurl(purl);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        private void addPurlRef(UUID pkgId, String category, String purl) {
+            if (StringUtils.isBlank(purl)) {
+                return;
+            }
+            try {
+                session.addExternalPurlRef(pkgId, category, ReferenceType.PURL.getType(), null, PurlUtil.strToPackageUrlVo(purl));
+            } catch (RuntimeException e) {
+                logger.warn("skip invalid purl {} of package {}", purl, pkgId);
+            }
+        }
+
+        private String supplierOf(JsonNode component) {
+            JsonNode supplier = component.get("supplier");
+            return prefixOrganization(Objects.requireNonNullElse(text(supplier, "name"), StringUtils.defaultString(text(supplier, "url"))));
+        }
+
+        private String licenseOf(JsonNode node) {
+            List<String> licenses = new ArrayList<>();
+            for (JsonNode license : elements(node.get("licenses"))) {
+                String expression = text(license, "expression");
+                if (Objects.isNull(expression)) {
+                    JsonNode choice = license.get("license");
+                    expression = Objects.requireNonNullElse(text(choice, "id"), StringUtils.defaultString(text(choice, "name")));
+                }
+                if (StringUtils.isNotEmpty(expression)) {
+                    licenses.add(expression);
+                }
+            }
+            return licenses.isEmpty() ? null : String.join(" AND ", licenses);
+        }
+
+        private String propertyOf(JsonNode component, String propertyName) {
+            return elements(component.get("properties")).stream()
+                    .filter(it -> StringUtils.equals(text(it, "name"), propertyName))
+                    .map(it -> text(it, "value"))
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        private String prefixOrganization(String name) {
+            return StringUtils.isEmpty(name) ? null : SbomConstants.ORGANIZATION_PREFIX + name;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package org.opensourceway.sbom.service.reader.impl.spdx;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
-import org.opensourceway.sbom.api.reader.SbomReader;
+import org.opensourceway.sbom.api.reader.StreamingSbomReader;
 import org.opensourceway.sbom.dao.ProductRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
@@ -11,11 +11,13 @@ import org.opensourceway.sbom.model.entity.ExternalPurlRef;
 import org.opensourceway.sbom.model.entity.Package;
 import org.opensourceway.sbom.model.entity.PkgVerfCode;
 import org.opensourceway.sbom.model.entity.PkgVerfCodeExcludedFile;
+import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.Sbom;
 import org.opensourceway.sbom.model.entity.SbomCreator;
 import org.opensourceway.sbom.model.entity.SbomElementRelationship;
 import org.opensourceway.sbom.model.enums.SbomFormat;
 import org.opensourceway.sbom.model.enums.SbomSpecification;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
 import org.opensourceway.sbom.model.sbom.SbomDocument;
 import org.opensourceway.sbom.model.spdx.ReferenceType;
 import org.opensourceway.sbom.model.spdx.SpdxDocument;
@@ -29,17 +31,19 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service(value = SbomConstants.SPDX_NAME + SbomConstants.READER_NAME)
 @Transactional(rollbackFor = Exception.class)
-public class SpdxReader implements SbomReader {
+public class SpdxReader implements StreamingSbomReader {
 
     @Autowired
     private ProductRepository productRepository;
@@ -47,6 +51,9 @@ public class SpdxReader implements SbomReader {
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private SpdxStreamReader spdxStreamReader;
+
     @Override
     public void read(String productName, File file) throws IOException {
         SbomFormat format = SbomMapperUtil.fileToExt(file.getName());
@@ -90,6 +97,38 @@ public class SpdxReader implements SbomReader {
         return sbomRepository.saveAndFlush(sbom);
     }
 
+    @Override
+    public boolean supportStreaming(SbomFormat format) {
+        return format == SbomFormat.JSON;
+    }
+
+    @Override
+    public Sbom persistSbom(String productName, SbomFormat format, InputStream documentStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming read is not supported for sbom file format %s".formatted(format));
+        }
+        Product product = productRepository.findByName(productName)
+                .orElseThrow(() -> new RuntimeException("can't find %s's product metadata".formatted(productName)));
+        // rows are written with plain jdbc, make sure the deletion of the old sbom has reached the database
+        sbomRepository.flush();
+
+        UUID sbomId = spdxStreamReader.persist(product.getId(), documentStream);
+        return sbomRepository.findById(sbomId)
+                .orElseThrow(() -> new RuntimeException("can't find persisted sbom %s".formatted(sbomId)));
+    }
+
+    @Override
+    public SbomDiffVo persistSbomIncrementally(String productName, SbomFormat format, InputStream documentStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming read is not supported for sbom file format %s".formatted(format));
+        }
+        Sbom sbom = sbomRepository.findByProductName(productName)
+                .orElseThrow(() -> new RuntimeException("can't find %s's sbom to update".formatted(productName)));
+        sbomRepository.flush();
+
+        return spdxStreamReader.persistIncrementally(sbom.getId(), documentStream);
+    }
+
     private List<SbomCreator> persistSbomCreators(SpdxDocument document, Sbom sbom) {
         if (Objects.isNull(document.getCreationInfo().creators())) {
             return new ArrayList<>();
@@ -168,6 +207,7 @@ public class SpdxReader implements SbomReader {
             pkg.setSourceInfo(it.getSourceInfo());
             pkg.setSummary(it.getSummary());
             pkg.setSupplier(it.getSupplier());
+            pkg.setImportDigest(SpdxStreamReader.importDigest(it));
             pkg.setSbom(sbom);
 
             PkgVerfCode pkgVerfCode = persistPkgVerfCode(it, pkg);
@@ -0,0 +1,150 @@
+package org.opensourceway.sbom.service.reader.impl.spdx;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.model.spdx.SpdxCreationInfo;
+import org.opensourceway.sbom.model.spdx.SpdxPackage;
+import org.opensourceway.sbom.model.spdx.SpdxRelationship;
+import org.opensourceway.sbom.service.reader.impl.SbomBatchPersister;
+import org.opensourceway.sbom.utils.Mapper;
+import org.opensourceway.sbom.utils.PurlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Read a SPDX json document token by token, only one package or relationship is materialized at a time and rows are
+ * persisted through {@link SbomBatchPersister}.
+ */
+@Component
+public class SpdxStreamReader {
+
+    @Autowired
+    private SbomBatchPersister sbomBatchPersister;
+
+    public UUID persist(UUID productId, InputStream documentStream) throws IOException {
+        SbomBatchPersister.Session session = sbomBatchPersister.openSession(productId);
+        persist(session, documentStream);
+        return session.getSbomId();
+    }
+
+    public SbomDiffVo persistIncrementally(UUID sbomId, InputStream documentStream) throws IOException {
+        SbomBatchPersister.Session session = sbomBatchPersister.openIncrementalSession(sbomId);
+        persist(session, documentStream);
+        return session.getDiff();
+    }
+
+    private void persist(SbomBatchPersister.Session session, InputStream documentStream) throws IOException {
+        String name = null;
+        String dataLicense = null;
+        String namespace = null;
+        SpdxCreationInfo creationInfo = null;
+
+        try (JsonParser parser = Mapper.jsonSbomMapper.getFactory().createParser(documentStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("invalid spdx document, root element is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = parser.getValueAsString();
+                    case "dataLicense" -> dataLicense = parser.getValueAsString();
+                    case "documentNamespace" -> namespace = parser.getValueAsString();
+                    case "creationInfo" -> creationInfo = Mapper.jsonSbomMapper.readValue(parser, SpdxCreationInfo.class);
+                    case "packages" -> readArray(parser, SpdxPackage.class, it -> persistPackage(session, it));
+                    case "relationships" -> readArray(parser, SpdxRelationship.class, it -> session.addRelationship(
+                            it.spdxElementId(), it.relatedSpdxElement(), it.relationshipType().name(), it.comment()));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (Objects.nonNull(creationInfo) && Objects.nonNull(creationInfo.creators())) {
+            creationInfo.creators().forEach(session::addCreator);
+        }
+        session.finish(name, dataLicense, namespace,
+                Objects.isNull(creationInfo) ? null : creationInfo.created(),
+                Objects.isNull(creationInfo) ? null : creationInfo.licenseListVersion());
+    }
+
+    private <T> void readArray(JsonParser parser, Class<T> clazz, Consumer<T> consumer) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            T value = Mapper.jsonSbomMapper.readValue(parser, clazz);
+            if (Objects.nonNull(value)) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private void persistPackage(SbomBatchPersister.Session session, SpdxPackage spdxPackage) {
+        Package pkg = new Package();
+        pkg.setSpdxId(spdxPackage.getSpdxId());
+        pkg.setName(spdxPackage.getName());
+        pkg.setVersion(spdxPackage.getVersionInfo());
+        pkg.setCopyright(spdxPackage.getCopyrightText());
+        pkg.setDescription(spdxPackage.getDescription());
+        pkg.setDownloadLocation(spdxPackage.getDownloadLocation());
+        pkg.setFilesAnalyzed(spdxPackage.getFilesAnalyzed());
+        pkg.setHomepage(spdxPackage.getHomepage());
+        pkg.setLicenseConcluded(spdxPackage.getLicenseConcluded());
+        pkg.setLicenseDeclared(spdxPackage.getLicenseDeclared());
+        pkg.setSourceInfo(spdxPackage.getSourceInfo());
+        pkg.setSummary(spdxPackage.getSummary());
+        pkg.setSupplier(spdxPackage.getSupplier());
+        pkg.setImportDigest(importDigest(spdxPackage));
+        UUID pkgId = session.addPackage(pkg, packageManagerPurl(spdxPackage));
+
+        if (Objects.nonNull(spdxPackage.getPackageVerificationCode())) {
+            session.addPkgVerfCode(pkgId, spdxPackage.getPackageVerificationCode().packageVerificationCodeValue(),
+                    spdxPackage.getPackageVerificationCode().packageVerificationCodeExcludedFiles());
+        }
+        if (Objects.nonNull(spdxPackage.getChecksums())) {
+            spdxPackage.getChecksums().forEach(it -> session.addChecksum(pkgId, it.algorithm().toString(), it.checksumValue()));
+        }
+        if (Objects.nonNull(spdxPackage.getExternalRefs())) {
+            spdxPackage.getExternalRefs().stream()
+                    .filter(it -> List.of(ReferenceType.PURL, ReferenceType.CHECKSUM).contains(it.referenceType()))
+                    .forEach(it -> session.addExternalPurlRef(pkgId, it.referenceCategory().name(),
+                            it.referenceType().getType(), it.comment(), PurlUtil.strToPackageUrlVo(it.referenceLocator())));
+        }
+    }
+
+    /**
+     * digest of the package as it appears in the document, used to detect unchanged packages on re-import
+     */
+    public static String importDigest(SpdxPackage spdxPackage) {
+        try {
+            return DigestUtils.md5DigestAsHex(Mapper.jsonSbomMapper.writeValueAsBytes(spdxPackage));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("failed to serialize package %s".formatted(spdxPackage.getSpdxId()), e);
+        }
+    }
+
+    private String packageManagerPurl(SpdxPackage spdxPackage) {
+        if (Objects.isNull(spdxPackage.getExternalRefs())) {
+            return null;
+        }
+        return spdxPackage.getExternalRefs().stream()
+                .filter(it -> it.referenceCategory() == ReferenceCategory.PACKAGE_MANAGER && it.referenceType() == ReferenceType.PURL)
+                .map(it -> PurlUtil.canonicalizePurl(it.referenceLocator()))
+                .findFirst()
+                .orElse(null);
+    }
+}
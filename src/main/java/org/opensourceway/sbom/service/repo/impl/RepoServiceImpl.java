@@ -8,12 +8,14 @@ import org.opensourceway.sbom.dao.ExternalPurlRefRepository;
 import org.opensourceway.sbom.dao.FileRepository;
 import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.dao.RepoMetaRepository;
+import org.opensourceway.sbom.dao.RepoSyncCheckpointRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.constants.SbomRepoConstants;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
 import org.opensourceway.sbom.model.entity.File;
 import org.opensourceway.sbom.model.entity.Package;
 import org.opensourceway.sbom.model.entity.RepoMeta;
+import org.opensourceway.sbom.model.entity.RepoSyncCheckpoint;
 import org.opensourceway.sbom.model.pojo.response.sbom.UpstreamAndPatchInfoResponse;
 import org.opensourceway.sbom.model.pojo.vo.repo.RepoInfoVo;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
@@ -21,18 +23,31 @@ import org.opensourceway.sbom.model.spdx.ReferenceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Transactional(rollbackFor = Exception.class)
@@ -55,42 +70,206 @@ public class RepoServiceImpl implements RepoService {
     @Autowired
     private ExternalPurlRefRepository externalPurlRefRepository;
 
+    @Autowired
+    private RepoSyncCheckpointRepository repoSyncCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("repoSyncExecutor")
+    private ThreadPoolTaskExecutor repoSyncExecutor;
+
+    @Value("${sbom.repo-sync.batch-size:100}")
+    private Integer repoSyncBatchSize;
+
+    @Value("${sbom.repo-sync.claim-timeout-seconds:1800}")
+    private Integer repoSyncClaimTimeoutSeconds;
+
+    @Value("${sbom.repo-sync.heartbeat-interval-seconds:60}")
+    private Integer repoSyncHeartbeatIntervalSeconds;
+
+    /**
+     * Repos are fetched concurrently and saved in batches as they complete, each batch in its own transaction, so that a
+     * failure only loses the unsaved batch. An interrupted run is resumed by the next run, which skips the repos synced
+     * since the interrupted run started. A run is skipped while another run holds the claim of the checkpoint, the
+     * claim is refreshed every heartbeat interval while the run waits for repos, and whenever a batch is saved.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Set<RepoInfoVo> fetchOpenEulerRepoMeta() throws IOException {
+        String productType = SbomConstants.PRODUCT_OPENEULER_NAME;
+        String claimId = UUID.randomUUID().toString();
+        RepoSyncCheckpoint checkpoint = claimRepoSync(productType, claimId);
+        if (checkpoint == null) {
+            logger.warn("the repo sync of {} is running in another run, skip", productType);
+            return new LinkedHashSet<>();
+        }
+
+        boolean finished = false;
+        try {
+            Set<RepoInfoVo> changedRepoInfoSet = syncOpenEulerRepoMeta(checkpoint, claimId);
+            if (repoSyncCheckpointRepository.finish(productType, claimId) == 0) {
+                throw new RuntimeException("the repo sync of %s was taken over by another run".formatted(productType));
+            }
+            finished = true;
+            logger.info("save new openEuler repo meta set size:{}", changedRepoInfoSet.size());
+            return changedRepoInfoSet;
+        } finally {
+            if (!finished) {
+                repoSyncCheckpointRepository.release(productType, claimId);
+            }
+        }
+    }
+
+    private Set<RepoInfoVo> syncOpenEulerRepoMeta(RepoSyncCheckpoint checkpoint, String claimId) throws IOException {
         Set<RepoInfoVo> repoInfoSet = repoMetaParser.fetchObsMetaSourceCode();
+        keepRepoSyncClaim(checkpoint, claimId);
+        long heartbeatAt = System.currentTimeMillis();
+        long heartbeatIntervalMillis = TimeUnit.SECONDS.toMillis(repoSyncHeartbeatIntervalSeconds);
+        long runStartedAt = checkpoint.getStartedAt().getTime();
 
-        Iterator<RepoInfoVo> repoInfoIt = repoInfoSet.iterator();
-        int counter = 0;
+        Map<Pair<String, String>, RepoMeta> existingRepoMetas = new HashMap<>();
+        repoMetaRepository.findByProductType(SbomConstants.PRODUCT_OPENEULER_NAME)
+                .forEach(repoMeta -> existingRepoMetas.put(Pair.of(repoMeta.getRepoName(), repoMeta.getBranch()), repoMeta));
+        logger.info("fetchOpenEulerRepoMeta repo size:{}, existing repo meta size:{}, run started at:{}",
+                repoInfoSet.size(), existingRepoMetas.size(), checkpoint.getStartedAt());
 
-        while (repoInfoIt.hasNext()) {
-            RepoInfoVo repoInfo = repoInfoIt.next();
-            if (counter++ % 20 == 0) {
-                logger.info("fetchOpenEulerRepoMeta run loops:{}, current repo name:{} ,branch:{}", counter, repoInfo.getRepoName(), repoInfo.getBranch());
+        CompletionService<RepoSyncResult> completionService = new ExecutorCompletionService<>(repoSyncExecutor);
+        int taskCount = 0;
+        int resumedCount = 0;
+        for (RepoInfoVo repoInfo : repoInfoSet) {
+            RepoMeta repoMeta = existingRepoMetas.get(Pair.of(repoInfo.getRepoName(), repoInfo.getBranch()));
+            if (isSyncedSince(repoMeta, runStartedAt)) {
+                resumedCount++;
+                continue;
             }
+            completionService.submit(() -> syncRepo(repoInfo, repoMeta));
+            taskCount++;
+        }
+        logger.info("fetchOpenEulerRepoMeta skip {} repos synced by the interrupted run", resumedCount);
 
-            RepoMeta repoMeta = repoMetaRepository.findByProductTypeAndRepoNameAndBranch(
-                    SbomConstants.PRODUCT_OPENEULER_NAME, repoInfo.getRepoName(), repoInfo.getBranch()).orElse(new RepoMeta());
-            String oldLastCommitId = (repoMeta.getExtendedAttr() == null || !repoMeta.getExtendedAttr().containsKey(SbomRepoConstants.LAST_COMMIT_ID_KEY)) ?
-                    null : String.valueOf(repoMeta.getExtendedAttr().get(SbomRepoConstants.LAST_COMMIT_ID_KEY));
-            Pair<Boolean, String> repoChangeInfo = repoMetaParser.isRepoChanged(repoInfo, oldLastCommitId);
-            if (BooleanUtils.isFalse(repoChangeInfo.getFirst())) {
-                repoInfoIt.remove();
+        Set<RepoInfoVo> changedRepoInfoSet = new LinkedHashSet<>();
+        List<RepoMeta> changedRepoMetas = new ArrayList<>();
+        List<UUID> unchangedRepoMetaIds = new ArrayList<>();
+        int counter = 0;
+        while (counter < taskCount) {
+            RepoSyncResult result;
+            try {
+                // wait at most one heartbeat interval, so that the claim is kept while a slow repo is being fetched
+                Future<RepoSyncResult> future = completionService.poll(heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+                if (System.currentTimeMillis() - heartbeatAt >= heartbeatIntervalMillis) {
+                    keepRepoSyncClaim(checkpoint, claimId);
+                    heartbeatAt = System.currentTimeMillis();
+                }
+                if (future == null) {
+                    continue;
+                }
+                counter++;
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                // not marked as synced, so it's retried by the next run
+                logger.error("fetchOpenEulerRepoMeta sync repo failed", e.getCause());
                 continue;
             }
 
-            logger.info("repo name:{}, repo branch:{} has changed, fetch repo info again",
-                    repoInfo.getRepoName(),
-                    repoInfo.getBranch());
-            repoInfo.setId(repoMeta.getId());
-            repoInfo.setLastCommitId(repoChangeInfo.getSecond());
-            repoMetaParser.fetchRepoBuildFileInfo(repoInfo);
-            repoMetaParser.fetchRepoPackageAndPatchInfo(repoInfo);
+            if (result.changed()) {
+                changedRepoInfoSet.add(result.repoInfo());
+                RepoMeta repoMeta = RepoMeta.fromRepoInfoVo(SbomConstants.PRODUCT_OPENEULER_NAME, result.repoInfo());
+                repoMeta.getExtendedAttr().put(SbomRepoConstants.SYNCED_AT_KEY, System.currentTimeMillis());
+                changedRepoMetas.add(repoMeta);
+            } else if (result.repoInfo().getId() != null) {
+                unchangedRepoMetaIds.add(result.repoInfo().getId());
+            }
+            if (changedRepoMetas.size() >= repoSyncBatchSize || unchangedRepoMetaIds.size() >= repoSyncBatchSize) {
+                saveRepoSyncBatch(checkpoint, claimId, changedRepoMetas, unchangedRepoMetaIds);
+                heartbeatAt = System.currentTimeMillis();
+                changedRepoMetas = new ArrayList<>();
+                unchangedRepoMetaIds = new ArrayList<>();
+            }
+            if (counter % 100 == 0) {
+                logger.info("fetchOpenEulerRepoMeta synced repos:{}/{}, changed repos:{}", counter, taskCount, changedRepoInfoSet.size());
+            }
+        }
+        saveRepoSyncBatch(checkpoint, claimId, changedRepoMetas, unchangedRepoMetaIds);
+        return changedRepoInfoSet;
+    }
+
+    /**
+     * Claim the checkpoint of the product, then resume its unfinished run or start a new run.
+     *
+     * @return null if another run holds the claim
+     */
+    private RepoSyncCheckpoint claimRepoSync(String productType, String claimId) {
+        repoSyncCheckpointRepository.insertIfAbsent(productType);
+        if (repoSyncCheckpointRepository.claim(productType, claimId, repoSyncClaimTimeoutSeconds) == 0) {
+            return null;
+        }
+        RepoSyncCheckpoint checkpoint = repoSyncCheckpointRepository.findById(productType)
+                .orElseThrow(() -> new RuntimeException("can't find the repo sync checkpoint of %s".formatted(productType)));
+        if (checkpoint.getFinishedAt() == null) {
+            logger.info("resume the repo sync of {} started at {}", productType, checkpoint.getStartedAt());
+            return checkpoint;
         }
+        checkpoint.setStartedAt(new Timestamp(System.currentTimeMillis()));
+        checkpoint.setFinishedAt(null);
+        return repoSyncCheckpointRepository.save(checkpoint);
+    }
+
+    private boolean isSyncedSince(RepoMeta repoMeta, long runStartedAt) {
+        if (repoMeta == null || repoMeta.getExtendedAttr() == null
+                || !(repoMeta.getExtendedAttr().get(SbomRepoConstants.SYNCED_AT_KEY) instanceof Number syncedAt)) {
+            return false;
+        }
+        return syncedAt.longValue() >= runStartedAt;
+    }
+
+    private RepoSyncResult syncRepo(RepoInfoVo repoInfo, RepoMeta repoMeta) {
+        String oldLastCommitId = (repoMeta == null || repoMeta.getExtendedAttr() == null || !repoMeta.getExtendedAttr().containsKey(SbomRepoConstants.LAST_COMMIT_ID_KEY)) ?
+                null : String.valueOf(repoMeta.getExtendedAttr().get(SbomRepoConstants.LAST_COMMIT_ID_KEY));
+        repoInfo.setId(repoMeta == null ? null : repoMeta.getId());
+        Pair<Boolean, String> repoChangeInfo = repoMetaParser.isRepoChanged(repoInfo, oldLastCommitId);
+        if (BooleanUtils.isFalse(repoChangeInfo.getFirst())) {
+            return new RepoSyncResult(repoInfo, false);
+        }
+
+        logger.info("repo name:{}, repo branch:{} has changed, fetch repo info again",
+                repoInfo.getRepoName(),
+                repoInfo.getBranch());
+        repoInfo.setLastCommitId(repoChangeInfo.getSecond());
+        repoMetaParser.fetchRepoBuildFileInfo(repoInfo);
+        repoMetaParser.fetchRepoPackageAndPatchInfo(repoInfo);
+        return new RepoSyncResult(repoInfo, true);
+    }
+
+    /**
+     * The heartbeat and the batch are saved in one transaction. The heartbeat locks the checkpoint row until the batch
+     * is committed, so another run can't take over the claim while the batch is being saved.
+     */
+    private void saveRepoSyncBatch(RepoSyncCheckpoint checkpoint, String claimId, List<RepoMeta> changedRepoMetas,
+                                   List<UUID> unchangedRepoMetaIds) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // stop before saving anything if another run took over the claim
+            keepRepoSyncClaim(checkpoint, claimId);
+            if (!changedRepoMetas.isEmpty()) {
+                repoMetaRepository.saveAll(changedRepoMetas);
+            }
+            if (!unchangedRepoMetaIds.isEmpty()) {
+                repoMetaRepository.updateSyncedAt(unchangedRepoMetaIds, System.currentTimeMillis());
+            }
+        });
+    }
+
+    private void keepRepoSyncClaim(RepoSyncCheckpoint checkpoint, String claimId) {
+        if (repoSyncCheckpointRepository.heartbeat(checkpoint.getProductType(), claimId) == 0) {
+            throw new RuntimeException("the repo sync of %s was taken over by another run".formatted(checkpoint.getProductType()));
+        }
+    }
 
-        logger.info("save new openEuler repo meta set size:{}", repoInfoSet.size());
-        repoMetaRepository.saveAll(repoInfoSet.stream()
-                .map(temp -> RepoMeta.fromRepoInfoVo(SbomConstants.PRODUCT_OPENEULER_NAME, temp)).toList());
-        return repoInfoSet;
+    private record RepoSyncResult(RepoInfoVo repoInfo, boolean changed) {
     }
 
     @Override
@@ -0,0 +1,209 @@
+package org.opensourceway.sbom.service.sbom.impl;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.StringUtils;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Cache the signed export archives of sboms on local disk, as
+ * {@code sbom.export.cache.dir/sbom-export-cache/<sbomId>/<dataVersion>-<sha256 of export params>.archive}.
+ * <p>
+ * The data version of a sbom is increased whenever it is re-imported in place or enriched, or a vulnerability embedded
+ * in it is changed by the enrichment of another sbom, so an archive is only served while the sbom is unchanged. Archives of older versions are removed when a newer one is cached, and the least
+ * recently used archives are evicted once the cache exceeds {@code sbom.export.cache.max-size}.
+ */
+@Component
+public class SbomExportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SbomExportCache.class);
+
+    private static final String ARCHIVE_SUFFIX = ".archive";
+
+    private static final String CACHE_DIR_NAME = "sbom-export-cache";
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Value("${sbom.export.cache.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${sbom.export.cache.dir:}")
+    private String cacheDir;
+
+    @Value("${sbom.export.cache.max-size:2GB}")
+    private DataSize maxSize;
+
+    /**
+     * Archives cached by a previous run may be signed by another key or rendered by another version of the writers.
+     * Only the directory owned by the cache is removed, {@code sbom.export.cache.dir} itself may be shared.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (enabled) {
+            FileSystemUtils.deleteRecursively(getCacheRoot());
+        }
+    }
+
+    protected Path getCacheRoot() {
+        return StringUtils.isEmpty(cacheDir)
+                ? Path.of(System.getProperty("java.io.tmpdir"), CACHE_DIR_NAME)
+                : Path.of(cacheDir, CACHE_DIR_NAME);
+    }
+
+    /**
+     * @return key of the export of the current version of the product's sbom, empty if the cache is disabled or the
+     * product has no sbom
+     */
+    public Optional<CacheKey> createKey(String productName, List<String> exportParams) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String digest = Hashing.sha256().hashString(String.join("\n", exportParams), StandardCharsets.UTF_8).toString();
+        return sbomRepository.findByProductName(productName)
+                .map(sbom -> new CacheKey(sbom.getId(), Objects.requireNonNullElse(sbom.getDataVersion(), 0L), digest));
+    }
+
+    /**
+     * @return the cached archive, null if it is not cached
+     */
+    public ExportArchive open(CacheKey key) throws IOException {
+        Path archive = resolve(key);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(archive, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted after it is opened, the opened channel is still readable
+            logger.debug("failed to touch cached export {}", archive, e);
+        }
+        try {
+            long size = channel.size();
+            logger.info("serve cached export {}", archive);
+            return new ExportArchive(size, Channels.newInputStream(channel));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copy the archive into the cache. A failure to cache is only logged, it never fails the export.
+     */
+    public void put(CacheKey key, Path archive) {
+        Path target = resolve(key);
+        // copy to a temp file first, so that a half written archive is never served
+        Path tmp = target.resolveSibling("%s.%s.tmp".formatted(target.getFileName(), UUID.randomUUID()));
+        try {
+            Files.createDirectories(target.getParent());
+            Files.copy(archive, tmp);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("cached export {}", target);
+        } catch (IOException e) {
+            logger.warn("failed to cache export {}", target, e);
+            delete(tmp);
+            return;
+        }
+
+        removeOlderVersions(key, target.getParent());
+        evict();
+    }
+
+    private void removeOlderVersions(CacheKey key, Path sbomDir) {
+        String versionPrefix = "%s-".formatted(key.dataVersion());
+        try (Stream<Path> archives = Files.list(sbomDir)) {
+            archives.filter(it -> it.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                    .filter(it -> !it.getFileName().toString().startsWith(versionPrefix))
+                    .forEach(this::delete);
+        } catch (IOException e) {
+            logger.warn("failed to remove older cached exports in {}", sbomDir, e);
+        }
+    }
+
+    private synchronized void evict() {
+        List<CachedFile> cachedFiles = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(getCacheRoot())) {
+            for (Path path : paths.filter(it -> it.getFileName().toString().endsWith(ARCHIVE_SUFFIX)).toList()) {
+                try {
+                    cachedFiles.add(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (NoSuchFileException ignored) {
+                    // removed concurrently
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("failed to list cached exports", e);
+            return;
+        }
+
+        long totalSize = cachedFiles.stream().mapToLong(CachedFile::size).sum();
+        cachedFiles.sort(Comparator.comparing(CachedFile::lastModified));
+        for (CachedFile cachedFile : cachedFiles) {
+            if (totalSize <= maxSize.toBytes()) {
+                break;
+            }
+            delete(cachedFile.path());
+            totalSize -= cachedFile.size();
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            if (Files.deleteIfExists(path)) {
+                logger.info("removed cached export {}", path);
+            }
+        } catch (IOException e) {
+            logger.warn("failed to remove cached export {}", path, e);
+        }
+    }
+
+    private Path resolve(CacheKey key) {
+        return getCacheRoot().resolve(key.sbomId().toString())
+                .resolve("%s-%s%s".formatted(key.dataVersion(), key.digest(), ARCHIVE_SUFFIX));
+    }
+
+    public record CacheKey(UUID sbomId, Long dataVersion, String digest) {
+    }
+
+    public record ExportArchive(long size, InputStream content) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    private record CachedFile(Path path, long size, FileTime lastModified) {
+    }
+}
@@ -3,11 +3,14 @@ package org.opensourceway.sbom.service.sbom.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.collect.Lists;
 import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
 import org.apache.commons.lang3.StringUtils;
 import org.opensourceway.sbom.analyzer.TraceDataAnalyzer;
 import org.opensourceway.sbom.api.reader.SbomReader;
 import org.opensourceway.sbom.api.sbom.SbomService;
+import org.opensourceway.sbom.api.writer.PackageExportContext;
 import org.opensourceway.sbom.api.writer.SbomWriter;
+import org.opensourceway.sbom.api.writer.StreamingSbomWriter;
 import org.opensourceway.sbom.cache.ProductConfigCache;
 import org.opensourceway.sbom.dao.ExternalPurlRefRepository;
 import org.opensourceway.sbom.dao.ExternalVulRefRepository;
@@ -18,6 +21,7 @@ import org.opensourceway.sbom.dao.ProductRepository;
 import org.opensourceway.sbom.dao.ProductStatisticsRepository;
 import org.opensourceway.sbom.dao.ProductTypeRepository;
 import org.opensourceway.sbom.dao.RawSbomRepository;
+import org.opensourceway.sbom.dao.SbomElementRelationshipRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.dao.VulnerabilityRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
@@ -36,8 +40,8 @@ import org.opensourceway.sbom.model.entity.ProductStatistics;
 import org.opensourceway.sbom.model.entity.ProductType;
 import org.opensourceway.sbom.model.entity.RawSbom;
 import org.opensourceway.sbom.model.entity.Sbom;
-import org.opensourceway.sbom.model.entity.SbomElementRelationship;
 import org.opensourceway.sbom.model.entity.Vulnerability;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.opensourceway.sbom.model.enums.SbomContentType;
 import org.opensourceway.sbom.model.enums.SbomFormat;
 import org.opensourceway.sbom.model.enums.SbomSpecification;
@@ -57,6 +61,7 @@ import org.opensourceway.sbom.model.pojo.vo.sbom.PageVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.ProductConfigVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.VulCountVo;
 import org.opensourceway.sbom.model.pojo.vo.sbom.VulnerabilityVo;
+import org.opensourceway.sbom.model.sbom.SbomDocument;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.model.spdx.ReferenceType;
 import org.opensourceway.sbom.model.spec.ExternalPurlRefCondition;
@@ -70,10 +75,10 @@ import org.opensourceway.sbom.utils.SbomApplicationContextHolder;
 import org.opensourceway.sbom.utils.SbomMapperUtil;
 import org.opensourceway.sbom.utils.SignatureUtil;
 import org.opensourceway.sbom.utils.UrlUtil;
-import org.opensourceway.sbom.utils.VersionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -81,23 +86,37 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.util.Pair;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.ObjectUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -109,6 +128,8 @@ public class SbomServiceImpl implements SbomService {
 
     private static final Logger logger = LoggerFactory.getLogger(SbomServiceImpl.class);
 
+    private static final int VUL_IMPACT_QUERY_BATCH_SIZE = 1000;
+
     @Autowired
     private RawSbomRepository sbomFileRepository;
 
@@ -133,6 +154,9 @@ public class SbomServiceImpl implements SbomService {
     @Autowired
     private ExternalVulRefRepository externalVulRefRepository;
 
+    @Autowired
+    private SbomElementRelationshipRepository sbomElementRelationshipRepository;
+
     @Autowired
     private LicenseRepository licenseRepository;
 
@@ -151,12 +175,34 @@ public class SbomServiceImpl implements SbomService {
     @Autowired
     private SignatureUtil signatureUtil;
 
+    @Autowired
+    @Qualifier("exportPackageSbomExecutor")
+    private ThreadPoolTaskExecutor exportPackageSbomExecutor;
+
     @Value("${sbom.service.website.domain}")
     private String sbomWebsiteDomain;
 
     @Value("${product_type.addable}")
     private String[] addableProductTypes;
 
+    @Value("${sbom.vul-impact.max-depth:10}")
+    private Integer vulImpactMaxDepth;
+
+    @Value("${sbom.vul-impact.max-nodes:2000}")
+    private Integer vulImpactMaxNodes;
+
+    /**
+     * whether every package sbom of an all package sboms export carries its own digest and signature
+     */
+    @Value("${sbom.export.package-sbom.sign:false}")
+    private Boolean signPackageSboms;
+
+    /**
+     * package sboms spooled and signed at a time, one signing client invocation each
+     */
+    @Value("${signatrust.client.batch-size:500}")
+    private Integer signBatchSize;
+
     @Override
     public UUID publishSbom(PublishSbomRequest publishSbomRequest) {
         PublishSbomRequestValidator.validate(publishSbomRequest);
@@ -184,6 +230,9 @@ public class SbomServiceImpl implements SbomService {
             rawSbom.setCreateTime(oldRawSbom.getCreateTime());
         }
         sbomFileRepository.save(rawSbom);
+        // the original sbom file is exported from the raw sbom
+        sbomRepository.findByProductName(publishSbomRequest.getProductName())
+                .ifPresent(sbom -> sbomRepository.increaseDataVersion(sbom.getId()));
 
         return rawSbom.getTaskId();
     }
@@ -247,6 +296,7 @@ public class SbomServiceImpl implements SbomService {
 
         SbomReader sbomReader = SbomApplicationContextHolder.getSbomReader(specification.getSpecification());
         sbomReader.read(productName, format, fileContent);
+        sbomRepository.findByProductName(productName).ifPresent(sbom -> sbomRepository.increaseDataVersion(sbom.getId()));
     }
 
     @Override
@@ -290,6 +340,30 @@ public class SbomServiceImpl implements SbomService {
         return sbomWriter.write(productName, SbomFormat.EXT_TO_FORMAT.get(format));
     }
 
+    @Override
+    public void writeSbom(String productName, String spec, String specVersion, String format, boolean compact,
+                          OutputStream outputStream) throws IOException {
+        format = StringUtils.lowerCase(format);
+        spec = StringUtils.lowerCase(spec);
+
+        if (!SbomFormat.EXT_TO_FORMAT.containsKey(format)) {
+            throw new RuntimeException("sbom file format: %s is not support".formatted(format));
+        }
+
+        SbomSpecification sbomSpec = SbomSpecification.findSpecification(spec, specVersion);
+        if (sbomSpec == null) {
+            throw new RuntimeException("sbom file specification: %s - %s is not support".formatted(spec, specVersion));
+        }
+
+        SbomFormat sbomFormat = SbomFormat.EXT_TO_FORMAT.get(format);
+        SbomWriter sbomWriter = SbomApplicationContextHolder.getSbomWriter(sbomSpec.getSpecification());
+        if (sbomWriter instanceof StreamingSbomWriter streamingSbomWriter && streamingSbomWriter.supportStreaming(sbomFormat)) {
+            streamingSbomWriter.write(productName, sbomFormat, compact, outputStream);
+        } else {
+            outputStream.write(sbomWriter.write(productName, sbomFormat, compact));
+        }
+    }
+
     @Override
     public PageVo<Package> findPackagesPageable(String productName, int page, int size) {
         Sbom sbom = sbomRepository.findByProductName(productName).orElseThrow(() -> new RuntimeException("can't find %s `s sbom metadata".formatted(productName)));
@@ -371,21 +445,6 @@ public class SbomServiceImpl implements SbomService {
         condition.setSbomId(sbom.getId());
         condition.setSortField("name");
 
-        /*
-          指定版本非空或者版本上下限均为空时，按分页查询处理
-          指定版本为空并且版本上下限任一非空时，先查出所有符合条件的组件再根据版本范围过滤，最后返回一个假分页
-          */
-        if (!StringUtils.equalsIgnoreCase(condition.getBinaryType(), ReferenceCategory.RELATIONSHIP_MANAGER.name())
-                && StringUtils.isEmpty(condition.getVersion())
-                && (StringUtils.isNotEmpty(condition.getStartVersion()) || StringUtils.isNotEmpty(condition.getEndVersion()))) {
-            List<ExternalPurlRef> result = queryPackageInfoByBinaryFromDB(condition, null).getContent();
-            List<ExternalPurlRef> filteredResult = filterVersionRange(condition, result);
-            List<ExternalPurlRef> pagedResult = pageList(filteredResult, pageable);
-
-            return new PageVo<>(new PageImpl(pagedResult.stream().map(this::fromExternalPurlRef).toList(),
-                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()), filteredResult.size()));
-        }
-
         Page<ExternalPurlRef> result = queryPackageInfoByBinaryFromDB(condition, pageable);
         return new PageVo<>(new PageImpl(result.stream().map(this::fromExternalPurlRef).collect(Collectors.toList()),
                 result.getPageable(),
@@ -431,46 +490,11 @@ public class SbomServiceImpl implements SbomService {
         if (StringUtils.equalsIgnoreCase(condition.getBinaryType(), ReferenceCategory.RELATIONSHIP_MANAGER.name())) {
             return externalPurlRefRepository.queryPackageRefByRelation(condition, pageable);
         } else {
-            if (pageable == null) {
-                pageable = PageRequest.of(0, SbomConstants.MAX_PAGE_SIZE);
-            }
+            // the version range is filtered by ExternalPurlRefSpecs, so that it is paged in the database
             return externalPurlRefRepository.findAll(ExternalPurlRefSpecs.convertCondition(condition), pageable);
         }
     }
 
-    private List<ExternalPurlRef> filterVersionRange(ExternalPurlRefCondition condition, List<ExternalPurlRef> result) {
-        List<ExternalPurlRef> returnResult;
-        // 上下限均非空，startVersion <= version <= endVersion
-        if (StringUtils.isNotEmpty(condition.getStartVersion()) && StringUtils.isNotEmpty(condition.getEndVersion())) {
-            returnResult = result.stream()
-                    .filter(ref -> VersionUtil.inRange(ref.getPurl().getVersion(), condition.getStartVersion(), condition.getEndVersion()))
-                    .toList();
-            // 下限为空，上限非空，version <= endVersion
-        } else if (StringUtils.isEmpty(condition.getStartVersion())) {
-            returnResult = result.stream()
-                    .filter(ref -> VersionUtil.lessThanOrEqualTo(ref.getPurl().getVersion(), condition.getEndVersion()))
-                    .toList();
-            // 上限为空，下限非空，startVersion <= version
-        } else {
-            returnResult = result.stream()
-                    .filter(ref -> VersionUtil.greaterThanOrEqualTo(ref.getPurl().getVersion(), condition.getStartVersion()))
-                    .toList();
-        }
-        return returnResult;
-    }
-
-    private <T> List<T> pageList(List<T> list, Pageable pageable) {
-        if (pageable.getOffset() >= list.size()) {
-            return new ArrayList<>();
-        }
-
-        if (pageable.getOffset() + pageable.getPageSize() > list.size()) {
-            return list.subList((int) pageable.getOffset(), list.size());
-        }
-
-        return list.subList((int) pageable.getOffset(), (int) pageable.getOffset() + pageable.getPageSize());
-    }
-
     @Override
     public List<String> queryProductType() {
         return productTypeRepository.findAll().stream()
@@ -594,7 +618,13 @@ public class SbomServiceImpl implements SbomService {
     }
 
     @Override
-    public Graph queryVulImpact(String productName, String vulId) {
+    public Graph queryVulImpact(String productName, String vulId, Integer maxDepth, Integer maxNodes) {
+        int depthLimit = Objects.requireNonNullElse(maxDepth, vulImpactMaxDepth);
+        int nodeLimit = Objects.requireNonNullElse(maxNodes, vulImpactMaxNodes);
+        if (depthLimit <= 0 || nodeLimit <= 0) {
+            throw new IllegalArgumentException("maxDepth and maxNodes must be positive, maxDepth: %s, maxNodes: %s"
+                    .formatted(depthLimit, nodeLimit));
+        }
         var graph = new Graph();
         var refs = externalVulRefRepository.findByProductNameAndVulId(productName, vulId);
         if (ObjectUtils.isEmpty(refs)) {
@@ -604,7 +634,8 @@ public class SbomServiceImpl implements SbomService {
         var vulNode = graph.createVulNode(vulId);
         graph.addNode(vulNode);
 
-        refs.forEach(ref -> {
+        List<VulImpactNode> packageNodes = new ArrayList<>();
+        for (var ref : refs) {
             var directPurlRef = ref.getPkg().getExternalPurlRefs().stream()
                     .filter(purlRef -> purlRef.getPurl().equals(ref.getPurl()))
                     .findFirst()
@@ -618,54 +649,109 @@ public class SbomServiceImpl implements SbomService {
             if (StringUtils.equals(directPurlRef.getCategory(), ReferenceCategory.PACKAGE_MANAGER.name())) {
                 packageNode = graph.createPackageNode(PurlUtil.canonicalizePurl(directPurlRef.getPurl()), directPurlRef.getPkg().getId().toString());
                 if (graph.nodeVisited(packageNode)) {
-                    return;
+                    continue;
+                }
+                if (isVulImpactGraphFull(graph, nodeLimit, vulId, productName)) {
+                    return graph;
                 }
                 graph.addNode(packageNode);
                 graph.addEdge(new Edge(vulNode.getId(), packageNode.getId()));
-                extractTransitiveDepRecursively(graph, packagePurlRef, packageNode);
             } else {
                 var directNode = graph.createDepNode(PurlUtil.canonicalizePurl(directPurlRef.getPurl()), directPurlRef.getPkg().getId().toString());
                 if (graph.nodeVisited(directNode)) {
-                    return;
+                    continue;
+                }
+                if (isVulImpactGraphFull(graph, nodeLimit, vulId, productName)) {
+                    return graph;
                 }
                 graph.addNode(directNode);
                 graph.addEdge(new Edge(vulNode.getId(), directNode.getId()));
 
                 packageNode = graph.createPackageNode(PurlUtil.canonicalizePurl(packagePurlRef.getPurl()), packagePurlRef.getPkg().getId().toString());
-                graph.addEdge(new Edge(directNode.getId(), packageNode.getId()));
                 if (graph.nodeVisited(packageNode)) {
-                    return;
+                    graph.addEdge(new Edge(directNode.getId(), packageNode.getId()));
+                    continue;
+                }
+                if (isVulImpactGraphFull(graph, nodeLimit, vulId, productName)) {
+                    return graph;
                 }
                 graph.addNode(packageNode);
-                extractTransitiveDepRecursively(graph, packagePurlRef, packageNode);
+                graph.addEdge(new Edge(directNode.getId(), packageNode.getId()));
             }
-        });
+            packageNodes.add(new VulImpactNode(packagePurlRef.getPkg().getSpdxId(), packageNode));
+        }
+
+        extractTransitiveDeps(graph, refs.get(0).getPkg().getSbom().getId(), packageNodes, depthLimit, nodeLimit);
         return graph;
     }
 
-    private void extractTransitiveDepRecursively(Graph graph, ExternalPurlRef startRef, Node startNode) {
-        var transitiveDepSpdxIds = startRef.getPkg().getSbom().getSbomElementRelationships().stream()
-                .filter(it -> StringUtils.equals(it.getRelatedElementId(), startRef.getPkg().getSpdxId()))
-                .map(SbomElementRelationship::getElementId)
-                .toList();
-        if (ObjectUtils.isEmpty(transitiveDepSpdxIds)) {
+    private boolean isVulImpactGraphFull(Graph graph, int nodeLimit, String vulId, String productName) {
+        if (graph.getNodes().size() < nodeLimit) {
+            return false;
+        }
+        logger.info("vul impact graph of {} in {} is truncated at {} nodes", vulId, productName, nodeLimit);
+        return true;
+    }
+
+    /**
+     * Breadth-first walk from the impacted packages to the packages depending on them, level by level.
+     * The relationships of the sbom are indexed by related element once, and the package manager purls of the
+     * packages of each level are fetched with one query.
+     * <p>
+     * A package depending on several packages of the graph is attached to the one closest to the impacted packages,
+     * among those at the same depth to the first one walked. The dependents of a package are walked in the order of
+     * their spdx ids.
+     */
+    private void extractTransitiveDeps(Graph graph, UUID sbomId, List<VulImpactNode> startNodes, int maxDepth, int maxNodes) {
+        if (startNodes.isEmpty()) {
             return;
         }
-        startRef.getPkg().getSbom().getPackages().stream()
-                .filter(pkg -> transitiveDepSpdxIds.contains(pkg.getSpdxId()))
-                .map(Package::getExternalPurlRefs)
-                .flatMap(List::stream)
-                .filter(ref -> StringUtils.equals(ref.getCategory(), ReferenceCategory.PACKAGE_MANAGER.name()))
-                .forEach(ref -> {
-                    var node = graph.createTransitiveDepNode(PurlUtil.canonicalizePurl(ref.getPurl()), startNode.getY(), ref.getPkg().getId().toString());
-                    if (graph.nodeVisited(node)) {
-                        return;
+        Map<String, List<String>> dependentsIndex = new HashMap<>();
+        sbomElementRelationshipRepository.findBySbomId(sbomId).forEach(it -> dependentsIndex
+                .computeIfAbsent(it.getRelatedElementId(), k -> new ArrayList<>())
+                .add(it.getElementId()));
+        dependentsIndex.values().forEach(Collections::sort);
+
+        List<VulImpactNode> level = startNodes;
+        for (int depth = 0; depth < maxDepth && !level.isEmpty(); depth++) {
+            Set<String> dependentSpdxIds = level.stream()
+                    .map(it -> dependentsIndex.getOrDefault(it.spdxId(), List.of()))
+                    .flatMap(List::stream)
+                    .collect(Collectors.toSet());
+            if (dependentSpdxIds.isEmpty()) {
+                return;
+            }
+            Map<String, List<ExternalPurlRef>> packageRefsBySpdxId = Lists.partition(new ArrayList<>(dependentSpdxIds), VUL_IMPACT_QUERY_BATCH_SIZE)
+                    .stream()
+                    .map(spdxIds -> externalPurlRefRepository.findBySbomIdAndSpdxIdInAndCategory(
+                            sbomId, spdxIds, ReferenceCategory.PACKAGE_MANAGER.name()))
+                    .flatMap(List::stream)
+                    .collect(Collectors.groupingBy(ref -> ref.getPkg().getSpdxId()));
+
+            List<VulImpactNode> nextLevel = new ArrayList<>();
+            for (VulImpactNode start : level) {
+                for (String dependentSpdxId : dependentsIndex.getOrDefault(start.spdxId(), List.of())) {
+                    for (ExternalPurlRef ref : packageRefsBySpdxId.getOrDefault(dependentSpdxId, List.of())) {
+                        var node = graph.createTransitiveDepNode(PurlUtil.canonicalizePurl(ref.getPurl()), start.node().getY(), ref.getPkg().getId().toString());
+                        if (graph.nodeVisited(node)) {
+                            continue;
+                        }
+                        if (graph.getNodes().size() >= maxNodes) {
+                            logger.info("vul impact graph of sbom {} is truncated at {} nodes", sbomId, maxNodes);
+                            return;
+                        }
+                        graph.addNode(node);
+                        graph.addEdge(new Edge(start.node().getId(), node.getId()));
+                        start.node().setSize(start.node().getSize() + 1);
+                        nextLevel.add(new VulImpactNode(dependentSpdxId, node));
                     }
-                    graph.addNode(node);
-                    graph.addEdge(new Edge(startNode.getId(), node.getId()));
-                    startNode.setSize(startNode.getSize() + 1);
-                    extractTransitiveDepRecursively(graph, ref, node);
-                });
+                }
+            }
+            level = nextLevel;
+        }
+    }
+
+    private record VulImpactNode(String spdxId, Node node) {
     }
 
     @Override
@@ -735,7 +821,7 @@ public class SbomServiceImpl implements SbomService {
 
     @Override
     public byte[] writePackageSbom(String productName, String pkgName, String pkgVersion,
-            String spec, String specVersion, String format) throws IOException {
+            String spec, String specVersion, String format, boolean compact) throws IOException {
         format = StringUtils.lowerCase(format);
         spec = StringUtils.lowerCase(spec);
 
@@ -749,12 +835,20 @@ public class SbomServiceImpl implements SbomService {
         }
 
         SbomWriter sbomWriter = SbomApplicationContextHolder.getSbomWriter(sbomSpec.getSpecification());
-        return sbomWriter.writePackage(productName, pkgName, pkgVersion, SbomFormat.EXT_TO_FORMAT.get(format));
+        return sbomWriter.writePackage(productName, pkgName, pkgVersion, SbomFormat.EXT_TO_FORMAT.get(format), compact);
     }
 
     @Override
     public byte[] writeAllPackageSbom(String productName, String originSpec, String specVersion, String originFormat)
             throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeAllPackageSbom(productName, originSpec, specVersion, originFormat, false, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public void writeAllPackageSbom(String productName, String originSpec, String specVersion, String originFormat,
+                                    boolean compact, OutputStream outputStream) throws IOException {
         var format = StringUtils.lowerCase(originFormat);
         var spec = StringUtils.lowerCase(originSpec);
 
@@ -768,19 +862,101 @@ public class SbomServiceImpl implements SbomService {
         }
 
         SbomWriter sbomWriter = SbomApplicationContextHolder.getSbomWriter(sbomSpec.getSpecification());
+        SbomFormat sbomFormat = SbomFormat.EXT_TO_FORMAT.get(format);
         Sbom sbom = sbomRepository.findByProductName(productName)
                 .orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
-        var nameToSbom = sbom.getPackages().stream().collect(Collectors.toMap(
-                pkg -> "%s-%s-%s-%s-sbom.%s".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8),
+        // sorted by entry name, so that the archive does not depend on which package is rendered first
+        TreeMap<String, Pair<String, String>> entryToPkg = new TreeMap<>();
+        sbom.getPackages().forEach(pkg -> entryToPkg.putIfAbsent(
+                "%s-%s-%s-%s-sbom.%s".formatted(URLEncoder.encode(productName, StandardCharsets.UTF_8),
                         pkg.getName(), pkg.getVersion(), spec, format),
-                pkg -> {
-                    try {
-                        return sbomWriter.writePackage(productName, pkg.getName(), pkg.getVersion(), SbomFormat.EXT_TO_FORMAT.get(format));
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
+                Pair.of(pkg.getName(), pkg.getVersion())));
+
+        PackageExportContext context = sbomWriter.createPackageExportContext(productName);
+        try (FileUtil.TarStreamWriter tar = new FileUtil.TarStreamWriter(outputStream)) {
+            if (signPackageSboms) {
+                writeSignedPackageSboms(productName, entryToPkg, sbomWriter, context, sbomFormat, compact, tar);
+            } else {
+                renderPackageSboms(productName, entryToPkg.entrySet(), sbomWriter, context, sbomFormat, compact, tar::putEntry);
+            }
+        }
+    }
+
+    /**
+     * Spool the package sboms to disk one signing batch at a time, sign each batch with one signing client invocation,
+     * and add the digest and signature of every package sbom next to it.
+     */
+    private void writeSignedPackageSboms(String productName, Map<String, Pair<String, String>> entryToPkg,
+                                         SbomWriter sbomWriter, PackageExportContext context, SbomFormat sbomFormat,
+                                         boolean compact, FileUtil.TarStreamWriter tar) throws IOException {
+        for (List<Map.Entry<String, Pair<String, String>>> batch : Lists.partition(
+                new ArrayList<>(entryToPkg.entrySet()), signBatchSize)) {
+            Path tmpDirPath = Files.createTempDirectory("sbom-package-export");
+            try {
+                // spooled files are named by index, package names may contain characters not allowed in file names
+                List<Pair<String, Path>> pkgSbomFiles = new ArrayList<>();
+                renderPackageSboms(productName, batch, sbomWriter, context, sbomFormat, compact, (entryName, content) -> {
+                    Path file = tmpDirPath.resolve("package-%d".formatted(pkgSbomFiles.size()));
+                    Files.write(file, content);
+                    pkgSbomFiles.add(Pair.of(entryName, file));
+                });
+
+                Map<Path, SignatureUtil.SignFile> signFiles = signatureUtil.sign(pkgSbomFiles.stream().map(Pair::getSecond).toList());
+                for (Pair<String, Path> pkgSbomFile : pkgSbomFiles) {
+                    tar.putEntry(pkgSbomFile.getFirst(), pkgSbomFile.getSecond());
+                    tar.putEntry("%s.sha256".formatted(pkgSbomFile.getFirst()),
+                            MoreFiles.asByteSource(pkgSbomFile.getSecond()).hash(Hashing.sha256()).toString().getBytes(StandardCharsets.UTF_8));
+                    SignatureUtil.SignFile signFile = signFiles.get(pkgSbomFile.getSecond());
+                    if (Objects.nonNull(signFile)) {
+                        tar.putEntry("%s%s".formatted(pkgSbomFile.getFirst(), SignatureUtil.SIGN_SUFFIX), signFile.getContent());
                     }
-                }));
-        return FileUtil.tarBytes(nameToSbom);
+                }
+            } finally {
+                FileSystemUtils.deleteRecursively(tmpDirPath);
+            }
+        }
+    }
+
+    /**
+     * Serialize package sboms in parallel and hand them to the consumer in the order of the entries, at most a window of
+     * serialized sboms is waiting to be consumed at a time.
+     * <p>
+     * Package data is read in the calling thread, within its transaction, the workers only serialize the documents, so
+     * an export takes one database connection whatever the concurrency is.
+     */
+    private void renderPackageSboms(String productName, Collection<Map.Entry<String, Pair<String, String>>> entries,
+                                    SbomWriter sbomWriter, PackageExportContext context, SbomFormat sbomFormat,
+                                    boolean compact, PackageSbomConsumer consumer) throws IOException {
+        int window = exportPackageSbomExecutor.getMaxPoolSize() * 2;
+        Iterator<Map.Entry<String, Pair<String, String>>> pending = entries.iterator();
+        Deque<PackageSbomTask> inFlight = new ArrayDeque<>();
+        try {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < window) {
+                    var entry = pending.next();
+                    SbomDocument document = sbomWriter.createPackageDocument(
+                            context, entry.getValue().getFirst(), entry.getValue().getSecond());
+                    inFlight.add(new PackageSbomTask(entry.getKey(), exportPackageSbomExecutor.submit(
+                            () -> SbomMapperUtil.writeAsBytes(document, sbomFormat, compact))));
+                }
+                PackageSbomTask task = inFlight.poll();
+                consumer.accept(task.entryName(), task.content().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while exporting package sboms of %s".formatted(productName), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("failed to export package sboms of %s".formatted(productName), e.getCause());
+        } finally {
+            inFlight.forEach(task -> task.content().cancel(true));
+        }
+    }
+
+    private interface PackageSbomConsumer {
+        void accept(String entryName, byte[] content) throws IOException;
+    }
+
+    private record PackageSbomTask(String entryName, Future<byte[]> content) {
     }
 
     @Override
@@ -797,4 +973,20 @@ public class SbomServiceImpl implements SbomService {
 
         return FileUtil.tarBytes(nameToData);
     }
+
+    @Override
+    public void generateVerificationAndTar(Path sbomFile, ArchiveCompression compression, OutputStream outputStream)
+            throws IOException {
+        String sbomFilename = sbomFile.getFileName().toString();
+        Path sha256File = sbomFile.resolveSibling("%s.sha256".formatted(sbomFilename));
+        Files.writeString(sha256File, MoreFiles.asByteSource(sbomFile).hash(Hashing.sha256()).toString());
+
+        List<Path> files = new ArrayList<>(List.of(sbomFile, sha256File));
+        SignatureUtil.SignFile signFile = signatureUtil.sign(sbomFile.toString());
+        if (Objects.nonNull(signFile)) {
+            files.add(sbomFile.resolveSibling(signFile.getFilename()));
+        }
+
+        FileUtil.tarFiles(files, outputStream, compression);
+    }
 }
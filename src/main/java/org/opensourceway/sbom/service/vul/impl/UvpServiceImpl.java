@@ -6,6 +6,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.opensourceway.sbom.api.vul.UvpClient;
 import org.opensourceway.sbom.dao.ExternalVulRefRepository;
 import org.opensourceway.sbom.dao.PackageRepository;
+import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.dao.VulnerabilityRepository;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
 import org.opensourceway.sbom.model.entity.ExternalVulRef;
@@ -28,11 +29,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,6 +54,8 @@ public class UvpServiceImpl extends AbstractVulService {
 
     private static final Integer BULK_REQUEST_SIZE = 16;
 
+    private static final Pattern CVE_ID_PATTERN = Pattern.compile("^CVE-\\d+-\\d+$");
+
     @Autowired
     private UvpClient uvpClient;
 
@@ -63,6 +68,9 @@ public class UvpServiceImpl extends AbstractVulService {
     @Autowired
     private PackageRepository packageRepository;
 
+    @Autowired
+    private SbomRepository sbomRepository;
+
     @Override
     public Integer getBulkRequestSize() {
         return BULK_REQUEST_SIZE;
@@ -77,40 +85,51 @@ public class UvpServiceImpl extends AbstractVulService {
     public Map<ExternalPurlRef, List<UvpVulnerability>> extractVulForPurlRefChunk(UUID sbomId, List<ExternalPurlRef> externalPurlChunk) {
         logger.info("Start to extract vulnerability from uvp for sbom {}, chunk size:{}", sbomId, externalPurlChunk.size());
         Map<ExternalPurlRef, List<UvpVulnerability>> externalPurlRefMap = new HashMap<>();
-        Map<ExternalPurlRef, Set<String>> externalPurlRefToVulIdMap = new HashMap<>();
 
-        List<String> requestPurls = externalPurlChunk.stream()
-                .map(ExternalPurlRef::getPurl)
-                .map(this::enrichPurlForVulnMatch)
+        Map<ExternalPurlRef, List<String>> enrichedPurls = new LinkedHashMap<>();
+        externalPurlChunk.forEach(purlRef -> enrichedPurls.computeIfAbsent(purlRef, it -> enrichPurlForVulnMatch(it.getPurl())));
+        List<String> requestPurls = enrichedPurls.values().stream()
                 .flatMap(List::stream)
                 .distinct()
                 .toList();
 
-        ListUtils.partition(requestPurls, getBulkRequestSize()).forEach(requestPurlsChunk -> {
-            try {
-                UvpVulnerabilityReport[] response = uvpClient.getComponentReport(requestPurlsChunk).block();
-                if (ObjectUtils.isEmpty(response)) {
-                    return;
-                }
-
-                externalPurlChunk.forEach(purlRef -> Arrays.stream(response)
-                        .filter(vulReport -> enrichPurlForVulnMatch(purlRef.getPurl()).contains(vulReport.getPurl()))
-                        .filter(vulReport -> ObjectUtils.isNotEmpty(vulReport.getUvpVulnerabilities()))
-                        .forEach(vulReport -> vulReport.getUvpVulnerabilities().stream()
-                                .filter(vul -> Pattern.compile("^CVE-\\d+-\\d+$").matcher(vul.getId()).matches())
-                                .forEach(vul -> {
-                                    externalPurlRefMap.putIfAbsent(purlRef, new ArrayList<>());
-                                    externalPurlRefToVulIdMap.putIfAbsent(purlRef, new HashSet<>());
-                                    if (!externalPurlRefToVulIdMap.get(purlRef).contains(vul.getId())) {
-                                        externalPurlRefMap.get(purlRef).add(vul);
-                                        externalPurlRefToVulIdMap.get(purlRef).add(vul.getId());
-                                    }
-                                })));
-            } catch (Exception e) {
-                logger.error("failed to extract vulnerabilities from uvp for sbom {}", sbomId);
-                reportVulFetchFailure(sbomId);
-                throw e;
+        List<UvpVulnerabilityReport> reports;
+        try {
+            // flatMapSequential keeps the responses in request order, so the result is the same as querying chunk by chunk
+            reports = Flux.fromIterable(ListUtils.partition(requestPurls, getBulkRequestSize()))
+                    .flatMapSequential(uvpClient::getComponentReport, uvpClient.getConcurrency())
+                    .filter(ObjectUtils::isNotEmpty)
+                    .flatMapIterable(Arrays::asList)
+                    .collectList()
+                    .block();
+        } catch (Exception e) {
+            logger.error("failed to extract vulnerabilities from uvp for sbom {}", sbomId);
+            reportVulFetchFailure(sbomId);
+            throw e;
+        }
+        if (ObjectUtils.isEmpty(reports)) {
+            return externalPurlRefMap;
+        }
+
+        // index the reports by purl, keeping their response order so that vulnerabilities are added in the same order
+        Map<String, List<Integer>> reportIndexesByPurl = new HashMap<>();
+        for (int i = 0; i < reports.size(); i++) {
+            if (ObjectUtils.isNotEmpty(reports.get(i).getUvpVulnerabilities())) {
+                reportIndexesByPurl.computeIfAbsent(reports.get(i).getPurl(), it -> new ArrayList<>()).add(i);
             }
+        }
+
+        externalPurlChunk.forEach(purlRef -> {
+            Set<String> vulIds = new HashSet<>();
+            enrichedPurls.get(purlRef).stream()
+                    .flatMap(purl -> reportIndexesByPurl.getOrDefault(purl, List.of()).stream())
+                    .sorted()
+                    .distinct()
+                    .map(reports::get)
+                    .forEach(vulReport -> vulReport.getUvpVulnerabilities().stream()
+                            .filter(vul -> CVE_ID_PATTERN.matcher(vul.getId()).matches())
+                            .filter(vul -> vulIds.add(vul.getId()))
+                            .forEach(vul -> externalPurlRefMap.computeIfAbsent(purlRef, it -> new ArrayList<>()).add(vul)));
         });
 
         return externalPurlRefMap;
@@ -124,8 +143,33 @@ public class UvpServiceImpl extends AbstractVulService {
     @SuppressWarnings("unchecked")
     @Override
     public void persistExternalVulRefChunk(Map<ExternalPurlRef, ?> externalVulRefMap) {
+        if (externalVulRefMap.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Package> packages = packageRepository.findAllById(externalVulRefMap.keySet().stream()
+                        .map(purlRef -> purlRef.getPkg().getId())
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Package::getId, Function.identity()));
+
+        Map<String, UvpVulnerability> uvpVuls = new LinkedHashMap<>();
+        externalVulRefMap.values().forEach(vuls -> ((List<UvpVulnerability>) vuls).forEach(vul -> uvpVuls.putIfAbsent(vul.getId(), vul)));
+        Map<String, Vulnerability> existVuls = vulnerabilityRepository.findByVulIds(List.copyOf(uvpVuls.keySet()))
+                .stream()
+                .collect(Collectors.toMap(Vulnerability::getVulId, Function.identity()));
+        Map<UUID, VulnerabilityContent> existVulContents = existVuls.values().stream()
+                .collect(Collectors.toMap(Vulnerability::getId, VulnerabilityContent::of));
+        uvpVuls.values().forEach(vul -> existVuls.put(vul.getId(), persistVulnerability(vul, existVuls)));
+        List<UUID> changedVulIds = existVuls.values().stream()
+                .filter(vul -> existVulContents.containsKey(vul.getId()))
+                .filter(vul -> !existVulContents.get(vul.getId()).equals(VulnerabilityContent.of(vul)))
+                .map(Vulnerability::getId)
+                .toList();
+
+        List<ExternalVulRef> externalVulRefs = new ArrayList<>();
         externalVulRefMap.forEach((purlRef, vuls) -> {
-            Package purlOwnerPackage = packageRepository.findById(purlRef.getPkg().getId())
+            Package purlOwnerPackage = Optional.ofNullable(packages.get(purlRef.getPkg().getId()))
                     .orElseThrow(() -> new RuntimeException("package id: %s not found".formatted(purlRef.getPkg().getId())));
             Map<Pair<Vulnerability, String>, ExternalVulRef> existExternalVulRefs = Optional
                     .ofNullable(purlOwnerPackage.getExternalVulRefs())
@@ -135,29 +179,48 @@ public class UvpServiceImpl extends AbstractVulService {
                             it -> Pair.of(it.getVulnerability(), PurlUtil.canonicalizePurl(it.getPurl())),
                             Function.identity()));
 
-            var uvpVuls = ((List<UvpVulnerability>) vuls);
-            Map<String, Vulnerability> existVuls = vulnerabilityRepository
-                    .findByVulIds(uvpVuls.stream().map(UvpVulnerability::getId).toList())
-                    .stream()
-                    .collect(Collectors.toMap(Vulnerability::getVulId, Function.identity()));
-
-            uvpVuls.forEach(vul -> {
-                Vulnerability vulnerability = persistVulnerability(vul, existVuls);
-                existVuls.put(vul.getId(), vulnerability);
-
+            String canonicalPurl = PurlUtil.canonicalizePurl(purlRef.getPurl());
+            ((List<UvpVulnerability>) vuls).forEach(vul -> {
+                Vulnerability vulnerability = existVuls.get(vul.getId());
                 ExternalVulRef externalVulRef = existExternalVulRefs.getOrDefault(
-                        Pair.of(vulnerability, PurlUtil.canonicalizePurl(purlRef.getPurl())), new ExternalVulRef());
+                        Pair.of(vulnerability, canonicalPurl), new ExternalVulRef());
                 externalVulRef.setCategory(ReferenceCategory.SECURITY.name());
                 externalVulRef.setPurl(purlRef.getPurl());
                 externalVulRef.setVulnerability(vulnerability);
                 externalVulRef.setPkg(purlOwnerPackage);
-                existExternalVulRefs.put(
-                        Pair.of(vulnerability, PurlUtil.canonicalizePurl(purlRef.getPurl())), externalVulRef);
+                existExternalVulRefs.put(Pair.of(vulnerability, canonicalPurl), externalVulRef);
             });
-
-            vulnerabilityRepository.saveAll(existVuls.values());
-            externalVulRefRepository.saveAll(existExternalVulRefs.values());
+            externalVulRefs.addAll(existExternalVulRefs.values());
         });
+
+        List<Vulnerability> vulnerabilities = vulnerabilityRepository.saveAll(existVuls.values());
+        if (ObjectUtils.isNotEmpty(vulnerabilities)) {
+            vulnerabilityRepository.refreshEffectiveScores(vulnerabilities.stream().map(Vulnerability::getId).toList());
+        }
+        externalVulRefRepository.saveAll(externalVulRefs);
+
+        // vulnerabilities are shared by sboms, exports of other sboms embedding a changed one are stale now
+        if (ObjectUtils.isNotEmpty(changedVulIds)) {
+            int sbomCount = sbomRepository.increaseDataVersionByVulIds(changedVulIds);
+            logger.info("{} vulnerabilities changed, data version of {} sboms increased", changedVulIds.size(), sbomCount);
+        }
+    }
+
+    /**
+     * The part of a vulnerability written into exported sboms, scores and severities are derived from the vectors.
+     */
+    private record VulnerabilityContent(String description, Set<Pair<String, String>> references,
+                                        Set<Pair<String, String>> scores) {
+
+        static VulnerabilityContent of(Vulnerability vulnerability) {
+            return new VulnerabilityContent(vulnerability.getDescription(),
+                    Optional.ofNullable(vulnerability.getVulReferences()).orElse(List.of()).stream()
+                            .map(it -> Pair.of(it.getType(), it.getUrl()))
+                            .collect(Collectors.toSet()),
+                    Optional.ofNullable(vulnerability.getVulScores()).orElse(List.of()).stream()
+                            .map(it -> Pair.of(it.getScoringSystem(), it.getVector()))
+                            .collect(Collectors.toSet()));
+        }
     }
 
     private Vulnerability persistVulnerability(UvpVulnerability uvpVulnerability, Map<String, Vulnerability> existVuls) {
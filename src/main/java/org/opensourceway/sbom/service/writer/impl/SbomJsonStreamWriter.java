@@ -0,0 +1,101 @@
+package org.opensourceway.sbom.service.writer.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.opensourceway.sbom.utils.Mapper;
+
+import javax.persistence.EntityManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Write a sbom json document through a {@link JsonGenerator}. The large arrays of the document are written element by
+ * element from a stream of entities, which are detached once written, so the persistence context does not grow with
+ * the size of the sbom.
+ */
+public class SbomJsonStreamWriter implements Closeable {
+
+    private static final ObjectWriter PRETTY_VALUE_WRITER = Mapper.jsonSbomMapper.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final ObjectWriter COMPACT_VALUE_WRITER = PRETTY_VALUE_WRITER
+            .without(SerializationFeature.INDENT_OUTPUT);
+
+    private final JsonGenerator generator;
+
+    private final ObjectWriter valueWriter;
+
+    private final EntityManager entityManager;
+
+    /**
+     * @param compact write without indentation and line breaks
+     */
+    public SbomJsonStreamWriter(OutputStream outputStream, EntityManager entityManager, boolean compact) throws IOException {
+        JsonGenerator jsonGenerator = Mapper.jsonSbomMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator = compact ? jsonGenerator : jsonGenerator.useDefaultPrettyPrinter();
+        this.valueWriter = compact ? COMPACT_VALUE_WRITER : PRETTY_VALUE_WRITER;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Start the document with the fields of a document whose large arrays are left unset.
+     */
+    public void writeStart(Object documentShell) throws IOException {
+        ObjectNode shell = Mapper.jsonSbomMapper.valueToTree(documentShell);
+        generator.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> it = shell.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            generator.writeFieldName(field.getKey());
+            valueWriter.writeValue(generator, field.getValue());
+        }
+    }
+
+    /**
+     * Write an array field from a stream of entities. Like the NON_EMPTY arrays of the documents, the field is omitted
+     * when there is no element.
+     */
+    public <E, T> void writeArray(String fieldName, Stream<E> entities, Function<E, T> transformer) throws IOException {
+        Iterator<E> it = entities.iterator();
+        if (!it.hasNext()) {
+            return;
+        }
+        generator.writeArrayFieldStart(fieldName);
+        while (it.hasNext()) {
+            E entity = it.next();
+            valueWriter.writeValue(generator, transformer.apply(entity));
+            entityManager.detach(entity);
+        }
+        generator.writeEndArray();
+    }
+
+    public <T> void writeArray(String fieldName, List<T> elements) throws IOException {
+        if (elements.isEmpty()) {
+            return;
+        }
+        generator.writeArrayFieldStart(fieldName);
+        for (T element : elements) {
+            valueWriter.writeValue(generator, element);
+        }
+        generator.writeEndArray();
+    }
+
+    public void writeEnd() throws IOException {
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
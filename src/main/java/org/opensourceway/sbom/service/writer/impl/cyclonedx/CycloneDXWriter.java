@@ -1,8 +1,11 @@
 package org.opensourceway.sbom.service.writer.impl.cyclonedx;
 
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.opensourceway.sbom.api.writer.SbomWriter;
+import org.opensourceway.sbom.api.writer.PackageExportContext;
+import org.opensourceway.sbom.api.writer.StreamingSbomWriter;
+import org.opensourceway.sbom.dao.FileRepository;
+import org.opensourceway.sbom.dao.PackageRepository;
+import org.opensourceway.sbom.dao.SbomElementRelationshipRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.cyclonedx.Algorithm;
@@ -39,6 +42,7 @@ import org.opensourceway.sbom.model.enums.SbomFormat;
 import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.service.writer.impl.SbomJsonStreamWriter;
 import org.opensourceway.sbom.utils.PurlUtil;
 import org.opensourceway.sbom.utils.SbomMapperUtil;
 import org.slf4j.Logger;
@@ -47,7 +51,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,10 +63,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service(value = SbomConstants.CYCLONEDX_NAME + SbomConstants.WRITER_NAME)
 @Transactional(rollbackFor = Exception.class)
-public class CycloneDXWriter implements SbomWriter {
+public class CycloneDXWriter implements StreamingSbomWriter {
     private static final Logger logger = LoggerFactory.getLogger(CycloneDXWriter.class);
 
     private static final String BOM_FORMAT = "CycloneDX";
@@ -84,19 +93,86 @@ public class CycloneDXWriter implements SbomWriter {
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private SbomElementRelationshipRepository sbomElementRelationshipRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
-    public byte[] write(String productName, SbomFormat format) throws IOException {
+    public byte[] write(String productName, SbomFormat format, boolean compact) throws IOException {
         Sbom sbom = sbomRepository.findByProductName(productName).orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
+        CycloneDXDocument document = createDocument(sbom);
+        setComponents(sbom, document);
+        setDependencies(sbom, document);
+
+        return SbomMapperUtil.writeAsBytes(document, format, compact);
+    }
+
+    @Override
+    public boolean supportStreaming(SbomFormat format) {
+        return format == SbomFormat.JSON;
+    }
+
+    @Override
+    public void write(String productName, SbomFormat format, boolean compact, OutputStream outputStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming write is not supported for sbom file format %s".formatted(format));
+        }
+        Sbom sbom = sbomRepository.findByProductName(productName).orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
+        CycloneDXDocument document = createDocument(sbom);
+        UUID sbomId = sbom.getId();
+
+        Map<String, String> patchUrlMap = new HashMap<>();
+        try (Stream<File> files = fileRepository.streamBySbomId(sbomId)) {
+            files.forEach(file -> {
+                patchUrlMap.put(file.getSpdxId(), file.getFileName());
+                entityManager.detach(file);
+            });
+        }
+        Map<String, List<String>> pkgPatchMap = new HashMap<>();
+        Map<String, List<String>> sbomRelationsMap = new HashMap<>();
+        try (Stream<SbomElementRelationship> relationships = sbomElementRelationshipRepository.streamBySbomId(sbomId)) {
+            relationships.forEach(relationship -> {
+                if (relationship.getRelationshipType().equals(RelationshipType.PATCH_APPLIED.name())) {
+                    pkgPatchMap.computeIfAbsent(relationship.getRelatedElementId(), it -> new ArrayList<>())
+                            .add(patchUrlMap.get(relationship.getElementId()));
+                } else if (relationship.getRelationshipType().equals(RelationshipType.DEPENDS_ON.name())) {
+                    sbomRelationsMap.computeIfAbsent(relationship.getElementId(), it -> new ArrayList<>())
+                            .add(relationship.getRelatedElementId());
+                }
+                entityManager.detach(relationship);
+            });
+        }
+
+        List<String> bomRefs = new ArrayList<>();
+        try (SbomJsonStreamWriter writer = new SbomJsonStreamWriter(outputStream, entityManager, compact);
+             Stream<Package> packages = packageRepository.streamBySbomId(sbomId)) {
+            writer.writeStart(document);
+            writer.writeArray("components", packages, pkg -> {
+                Component component = transformPackage(pkg, pkgPatchMap);
+                bomRefs.add(component.getBomRef());
+                return component;
+            });
+            writer.writeArray("dependencies", transformDependencies(bomRefs, sbomRelationsMap));
+            writer.writeEnd();
+        }
+    }
+
+    private CycloneDXDocument createDocument(Sbom sbom) {
         CycloneDXDocument document = new CycloneDXDocument(SERIAL_NUMBER_PREFIX + sbom.getId().toString());
 
         document.setBomFormat(BOM_FORMAT);
         document.setSpecVersion(CYCLONEDX_VERSION);
         document.setVersion(VERSION);
         setMetadata(sbom, document);
-        setComponents(sbom, document);
-        setDependencies(sbom, document);
-
-        return SbomMapperUtil.writeAsBytes(document, format);
+        return document;
     }
 
     private void setMetadata(Sbom sbom, CycloneDXDocument document) {
@@ -294,7 +370,6 @@ public class CycloneDXWriter implements SbomWriter {
     private void setDependencies(Sbom sbom, CycloneDXDocument document) {
         List<SbomElementRelationship> sbomElementRelationships = sbom.getSbomElementRelationships().stream()
                 .filter(sbomElementRelationship -> sbomElementRelationship.getRelationshipType().equals(RelationshipType.DEPENDS_ON.name())).toList();
-        List<Dependency> dependencies = new ArrayList<>();
 
         Map<String, List<String>> sbomRelationsMap = new HashMap<>();
         for (SbomElementRelationship sbomElementRelationship : sbomElementRelationships) {
@@ -304,13 +379,19 @@ public class CycloneDXWriter implements SbomWriter {
                 sbomRelationsMap.put(sbomElementRelationship.getElementId(), new ArrayList<>(Collections.singletonList(sbomElementRelationship.getRelatedElementId())));
             }
         }
-        for (Component component : document.getComponents()) {
+        document.setDependencies(transformDependencies(
+                document.getComponents().stream().map(Component::getBomRef).toList(), sbomRelationsMap));
+    }
+
+    private List<Dependency> transformDependencies(List<String> bomRefs, Map<String, List<String>> sbomRelationsMap) {
+        List<Dependency> dependencies = new ArrayList<>();
+        for (String bomRef : bomRefs) {
             Dependency dependency = new Dependency();
-            dependency.setRef(component.getBomRef());
-            dependency.setDependsOn(sbomRelationsMap.get(component.getBomRef()));
+            dependency.setRef(bomRef);
+            dependency.setDependsOn(sbomRelationsMap.get(bomRef));
             dependencies.add(dependency);
         }
-        document.setDependencies(dependencies);
+        return dependencies;
     }
 
     private Rating transformVulRatings(VulScore vulScore) {
@@ -321,55 +402,94 @@ public class CycloneDXWriter implements SbomWriter {
     }
 
     @Override
-    public byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format) throws IOException {
+    public byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException {
+        return writePackage(createPackageExportContext(productName), pkgName, pkgVersion, format, compact);
+    }
+
+    @Override
+    public PackageExportContext createPackageExportContext(String productName) {
         Sbom sbom = sbomRepository.findByProductName(productName)
                 .orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
-        var pkg = sbom.getPackages().stream()
-                .filter(it -> StringUtils.equals(pkgName, it.getName()) && StringUtils.equals(pkgVersion, it.getVersion()))
-                .findAny()
+
+        // the first package of the sbom wins for duplicated keys, as the linear searches before did
+        Map<PackageKey, UUID> pkgIds = new HashMap<>();
+        Map<String, UUID> spdxIdToPkgId = new HashMap<>();
+        for (Package pkg : sbom.getPackages()) {
+            pkgIds.putIfAbsent(new PackageKey(pkg.getName(), pkg.getVersion()), pkg.getId());
+            spdxIdToPkgId.putIfAbsent(pkg.getSpdxId(), pkg.getId());
+        }
+
+        Map<String, List<String>> pkgDependencies = new HashMap<>();
+        sbom.getSbomElementRelationships().stream()
+                .filter(it -> it.getRelationshipType().equals(RelationshipType.DEPENDS_ON.name()))
+                .forEach(it -> pkgDependencies.computeIfAbsent(it.getElementId(), k -> new ArrayList<>())
+                        .add(it.getRelatedElementId()));
+
+        return new CycloneDXPackageExportContext(productName, sbom.getId(), Collections.unmodifiableMap(pkgIds),
+                Collections.unmodifiableMap(spdxIdToPkgId), Collections.unmodifiableMap(getPkgPatchMap(sbom)),
+                Collections.unmodifiableMap(pkgDependencies));
+    }
+
+    @Override
+    public byte[] writePackage(PackageExportContext context, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException {
+        return SbomMapperUtil.writeAsBytes(createPackageDocument(context, pkgName, pkgVersion), format, compact);
+    }
+
+    @Override
+    public CycloneDXDocument createPackageDocument(PackageExportContext context, String pkgName, String pkgVersion) {
+        CycloneDXPackageExportContext cycloneDXContext = (CycloneDXPackageExportContext) context;
+        UUID pkgId = cycloneDXContext.pkgIds().get(new PackageKey(pkgName, pkgVersion));
+        if (Objects.isNull(pkgId)) {
+            throw new RuntimeException("can't find package <%s> with version <%s> in product <%s>"
+                    .formatted(pkgName, pkgVersion, cycloneDXContext.productName()));
+        }
+        Sbom sbom = sbomRepository.findById(cycloneDXContext.sbomId())
+                .orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(cycloneDXContext.productName())));
+        Package pkg = packageRepository.findById(pkgId)
                 .orElseThrow(() -> new RuntimeException("can't find package <%s> with version <%s> in product <%s>"
-                        .formatted(pkgName, pkgVersion, productName)));
+                        .formatted(pkgName, pkgVersion, cycloneDXContext.productName())));
         CycloneDXDocument document = new CycloneDXDocument(SERIAL_NUMBER_PREFIX + pkg.getId().toString());
 
         document.setBomFormat(BOM_FORMAT);
         document.setSpecVersion(CYCLONEDX_VERSION);
         document.setVersion(VERSION);
-        setPackageMetadata(sbom, pkg, document);
-        setPackageDependencies(sbom, pkg, document);
-
-        return SbomMapperUtil.writeAsBytes(document, format);
+        setPackageMetadata(sbom, pkg, cycloneDXContext, document);
+        setPackageDependencies(pkg, cycloneDXContext, document);
+        return document;
     }
 
-    private void setPackageMetadata(Sbom sbom, Package pkg, CycloneDXDocument document) {
+    private void setPackageMetadata(Sbom sbom, Package pkg, CycloneDXPackageExportContext context, CycloneDXDocument document) {
         Metadata metadata = new Metadata();
         metadata.setTimestamp(sbom.getCreated());
         setToolsAndManufacture(sbom, metadata);
         metadata.setLicenses(List.of(new License(sbom.getDataLicense())));
-        metadata.setComponent(parsePackageMetadataComponent(sbom, pkg));
+        metadata.setComponent(transformPackage(pkg, context.pkgPatchMap()));
         document.setMetadata(metadata);
     }
 
-    private Component parsePackageMetadataComponent(Sbom sbom, Package pkg) {
-        return transformPackage(pkg, getPkgPatchMap(sbom));
-    }
-
-    private void setPackageDependencies(Sbom sbom, Package pkg, CycloneDXDocument document) {
+    private void setPackageDependencies(Package pkg, CycloneDXPackageExportContext context, CycloneDXDocument document) {
         List<Dependency> dependencies = new ArrayList<>();
-
-        sbom.getSbomElementRelationships().stream()
-                .filter(it -> StringUtils.equals(it.getElementId(), pkg.getSpdxId()))
-                .filter(it -> it.getRelationshipType().equals(RelationshipType.DEPENDS_ON.name()))
-                .forEach(it -> {
-                    var dependency = new Dependency();
-                    var refPkgId = sbom.getPackages().stream()
-                            .filter(p -> StringUtils.equals(p.getSpdxId(), it.getRelatedElementId()))
-                            .findAny()
-                            .map(Package::getId)
-                            .orElse(null);
-                    dependency.setRef(REF_SERIAL_NUMBER_FORMAT.formatted(refPkgId, VERSION, it.getRelatedElementId()));
-                    dependencies.add(dependency);
-                });
+        for (String relatedElementId : context.pkgDependencies().getOrDefault(pkg.getSpdxId(), List.of())) {
+            var dependency = new Dependency();
+            dependency.setRef(REF_SERIAL_NUMBER_FORMAT.formatted(
+                    context.spdxIdToPkgId().get(relatedElementId), VERSION, relatedElementId));
+            dependencies.add(dependency);
+        }
 
         document.setDependencies(dependencies);
     }
+
+    /**
+     * @param pkgIds          ids of the packages by their name and version
+     * @param spdxIdToPkgId   ids of the packages by their spdx ids
+     * @param pkgPatchMap     patch urls of the packages by their spdx ids
+     * @param pkgDependencies spdx ids of the dependencies of the packages by their spdx ids, in relationship order
+     */
+    private record CycloneDXPackageExportContext(String productName, UUID sbomId, Map<PackageKey, UUID> pkgIds,
+                                                 Map<String, UUID> spdxIdToPkgId, Map<String, List<String>> pkgPatchMap,
+                                                 Map<String, List<String>> pkgDependencies) implements PackageExportContext {
+    }
+
+    private record PackageKey(String name, String version) {
+    }
 }
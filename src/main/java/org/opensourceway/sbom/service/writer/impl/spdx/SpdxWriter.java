@@ -1,6 +1,10 @@
 package org.opensourceway.sbom.service.writer.impl.spdx;
 
-import org.opensourceway.sbom.api.writer.SbomWriter;
+import org.opensourceway.sbom.api.writer.PackageExportContext;
+import org.opensourceway.sbom.api.writer.StreamingSbomWriter;
+import org.opensourceway.sbom.dao.FileRepository;
+import org.opensourceway.sbom.dao.PackageRepository;
+import org.opensourceway.sbom.dao.SbomElementRelationshipRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.entity.Checksum;
@@ -13,6 +17,7 @@ import org.opensourceway.sbom.model.entity.Sbom;
 import org.opensourceway.sbom.model.entity.SbomCreator;
 import org.opensourceway.sbom.model.entity.SbomElementRelationship;
 import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.sbom.SbomDocument;
 import org.opensourceway.sbom.model.spdx.Algorithm;
 import org.opensourceway.sbom.model.spdx.FileType;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
@@ -26,29 +31,82 @@ import org.opensourceway.sbom.model.spdx.SpdxFile;
 import org.opensourceway.sbom.model.spdx.SpdxPackage;
 import org.opensourceway.sbom.model.spdx.SpdxPackageVerificationCode;
 import org.opensourceway.sbom.model.spdx.SpdxRelationship;
+import org.opensourceway.sbom.service.writer.impl.SbomJsonStreamWriter;
 import org.opensourceway.sbom.utils.PurlUtil;
 import org.opensourceway.sbom.utils.SbomMapperUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service(value = SbomConstants.SPDX_NAME + SbomConstants.WRITER_NAME)
 @Transactional(rollbackFor = Exception.class)
-public class SpdxWriter implements SbomWriter {
+public class SpdxWriter implements StreamingSbomWriter {
     private static final String SPDX_VERSION = "SPDX-2.2";
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private SbomElementRelationshipRepository sbomElementRelationshipRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
-    public byte[] write(String productName, SbomFormat format) throws IOException {
+    public byte[] write(String productName, SbomFormat format, boolean compact) throws IOException {
+        Sbom sbom = sbomRepository.findByProductName(productName).orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
+        SpdxDocument document = createDocument(sbom);
+        document.setPackages(sbom.getPackages().stream().map(this::transformPackage).toList());
+        document.setFiles(sbom.getFiles().stream().filter(Objects::nonNull).map(this::transformFile).toList());
+        document.setRelationships(sbom.getSbomElementRelationships().stream().filter(Objects::nonNull).map(this::transformRelationship).toList());
+
+        return SbomMapperUtil.writeAsBytes(document, format, compact);
+    }
+
+    @Override
+    public boolean supportStreaming(SbomFormat format) {
+        return format == SbomFormat.JSON;
+    }
+
+    @Override
+    public void write(String productName, SbomFormat format, boolean compact, OutputStream outputStream) throws IOException {
+        if (!supportStreaming(format)) {
+            throw new RuntimeException("streaming write is not supported for sbom file format %s".formatted(format));
+        }
         Sbom sbom = sbomRepository.findByProductName(productName).orElseThrow(() -> new RuntimeException("can't find %s's sbom metadata".formatted(productName)));
+        SpdxDocument document = createDocument(sbom);
+        UUID sbomId = sbom.getId();
+
+        try (SbomJsonStreamWriter writer = new SbomJsonStreamWriter(outputStream, entityManager, compact);
+             Stream<Package> packages = packageRepository.streamBySbomId(sbomId);
+             Stream<File> files = fileRepository.streamBySbomId(sbomId);
+             Stream<SbomElementRelationship> relationships = sbomElementRelationshipRepository.streamBySbomId(sbomId)) {
+            writer.writeStart(document);
+            writer.writeArray("packages", packages, this::transformPackage);
+            writer.writeArray("files", files, this::transformFile);
+            writer.writeArray("relationships", relationships, this::transformRelationship);
+            writer.writeEnd();
+        }
+    }
+
+    private SpdxDocument createDocument(Sbom sbom) {
         SpdxDocument document = new SpdxDocument(sbom.getId().toString());
 
         document.setSpdxVersion(SPDX_VERSION);
@@ -61,12 +119,8 @@ public class SpdxWriter implements SbomWriter {
         document.setAnnotations(null);
         document.setDocumentNamespace(sbom.getNamespace());
         document.setDocumentDescribes(null);
-        document.setPackages(sbom.getPackages().stream().map(this::transformPackage).toList());
-        document.setFiles(sbom.getFiles().stream().filter(Objects::nonNull).map(this::transformFile).toList());
         document.setSnippets(null);
-        document.setRelationships(sbom.getSbomElementRelationships().stream().filter(Objects::nonNull).map(this::transformRelationship).toList());
-
-        return SbomMapperUtil.writeAsBytes(document, format);
+        return document;
     }
 
     private void setCreationInfo(Sbom sbom, SpdxDocument document) {
@@ -158,7 +212,22 @@ public class SpdxWriter implements SbomWriter {
     }
 
     @Override
-    public byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format) throws IOException {
+    public byte[] writePackage(String productName, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public PackageExportContext createPackageExportContext(String productName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public byte[] writePackage(PackageExportContext context, String pkgName, String pkgVersion, SbomFormat format, boolean compact) throws IOException {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public SbomDocument createPackageDocument(PackageExportContext context, String pkgName, String pkgVersion) {
         throw new RuntimeException("Not implemented");
     }
 }
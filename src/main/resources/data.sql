@@ -3,9 +3,22 @@ BEGIN;
 -- Init table index(json field)
 CREATE INDEX IF NOT EXISTS external_purl_ref_purl_idx ON external_purl_ref USING btree (jsonb_extract_path_text ( purl,'type'), jsonb_extract_path_text ( purl,'name'));
 
+-- Lookup of repo metas by package names, see RepoMetaRepository.queryRepoMetaByPackageNames
+CREATE INDEX IF NOT EXISTS repo_meta_package_names_idx ON repo_meta USING gin (package_names);
+
 -- Alter
 ALTER TABLE product_config DROP COLUMN IF EXISTS value_type;
 
+-- Materialize the effective score of vulnerabilities persisted before it was maintained, see VulnerabilityRepository.refreshEffectiveScores
+UPDATE vulnerability v SET severity = coalesce(es.severity, 'UNKNOWN'), score = es.score, scoring_system = es.scoring_system
+FROM vulnerability ev LEFT JOIN LATERAL (
+    SELECT vs.severity, vs.score, vs.scoring_system FROM vul_score vs
+    WHERE vs.vul_id = ev.id AND vs.scoring_system IN ('CVSS_V3', 'CVSS_V2')
+    ORDER BY vs.scoring_system = 'CVSS_V3' DESC, vs.vector DESC
+    LIMIT 1
+) es ON TRUE
+WHERE v.id = ev.id AND v.severity IS NULL;
+
 -- Init table product_type
 INSERT INTO product_type(type, active) VALUES
 ('openEuler', true),
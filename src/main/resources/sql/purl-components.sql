@@ -0,0 +1,20 @@
+BEGIN;
+
+-- Generated purl component columns of external_purl_ref, see ExternalPurlRefRepository.queryPackageRefByRelation
+-- Adding STORED generated columns rewrites external_purl_ref under an exclusive lock, so the first startup after the
+-- columns are introduced takes about as long as copying the table and blocks every access to it meanwhile. All columns
+-- are added by one statement so that the table is rewritten only once, later startups skip it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE external_purl_ref
+    ADD COLUMN IF NOT EXISTS purl_type TEXT GENERATED ALWAYS AS (jsonb_extract_path_text(purl, 'type')) STORED,
+    ADD COLUMN IF NOT EXISTS purl_namespace TEXT GENERATED ALWAYS AS (jsonb_extract_path_text(purl, 'namespace')) STORED,
+    ADD COLUMN IF NOT EXISTS purl_name TEXT GENERATED ALWAYS AS (jsonb_extract_path_text(purl, 'name')) STORED,
+    ADD COLUMN IF NOT EXISTS purl_version TEXT GENERATED ALWAYS AS (jsonb_extract_path_text(purl, 'version')) STORED;
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_name_version_idx ON external_purl_ref USING btree (purl_name, purl_version);
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_namespace_idx ON external_purl_ref USING btree (purl_namespace);
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_type_trgm_idx ON external_purl_ref USING gin (purl_type gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_namespace_trgm_idx ON external_purl_ref USING gin (purl_namespace gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_name_trgm_idx ON external_purl_ref USING gin (purl_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS external_purl_ref_purl_version_trgm_idx ON external_purl_ref USING gin (purl_version gin_trgm_ops);
+
+COMMIT;
@@ -0,0 +1,135 @@
+BEGIN;
+
+-- Sortable version key of external_purl_ref, see ExternalPurlRef.purlVersionKey
+-- The key orders versions the same as VersionUtil, that is java.lang.module.ModuleDescriptor.Version, and is null for
+-- versions it can't parse. Keys are compared in "C" collation, a list of tokens is encoded as
+--   number: chr(3) || digit count || digits, string: chr(2) or chr(4) || string || chr(1), end of list: chr(1)
+-- strings starting with a character before '0' get chr(2), so that they are less than numbers as in Version.
+-- Differences from Version: numbers are compared by value whatever their length, where Version overflows int, and
+-- trailing zeros are always ignored, where Version orders 1.0 above 1!x but equal to 1.
+CREATE OR REPLACE FUNCTION version_tokens_key(tokens TEXT[]) RETURNS TEXT AS '
+DECLARE
+    token TEXT;
+    digits TEXT;
+    zeros TEXT := '''';
+    sort_key TEXT := '''';
+BEGIN
+    FOREACH token IN ARRAY tokens LOOP
+        IF token ~ ''^[0-9]+$'' THEN
+            digits := ltrim(token, ''0'');
+            IF digits = '''' THEN
+                -- zeros only count when another token follows, 1 = 1.0 = 1.0.0
+                zeros := zeros || chr(3) || ''0010'';
+                CONTINUE;
+            END IF;
+            sort_key := sort_key || zeros || chr(3) || lpad(length(digits)::TEXT, 3, ''0'') || digits;
+        ELSE
+            sort_key := sort_key || zeros || CASE WHEN token < ''0'' COLLATE "C" THEN chr(2) ELSE chr(4) END
+                || token || chr(1);
+        END IF;
+        zeros := '''';
+    END LOOP;
+    RETURN sort_key || chr(1);
+END ' LANGUAGE plpgsql IMMUTABLE;
+
+-- Tokenize like Version.parse: sequence '-' pre-release '+' build, tokens are separated by '.', '-' (pre-release and
+-- build only), '+' (build only), or by changes between digits and other characters
+CREATE OR REPLACE FUNCTION version_sort_key(v TEXT) RETURNS TEXT AS '
+DECLARE
+    n INT := length(v);
+    i INT;
+    c TEXT;
+    token TEXT;
+    seq TEXT[] := ''{}'';
+    pre TEXT[] := ''{}'';
+    build TEXT[] := ''{}'';
+BEGIN
+    IF v IS NULL OR v !~ ''^[0-9]'' THEN
+        RETURN NULL;
+    END IF;
+
+    token := substring(v from ''^[0-9]+'');
+    seq := seq || token;
+    i := length(token) + 1;
+    c := substr(v, 1, 1);
+    WHILE i <= n LOOP
+        c := substr(v, i, 1);
+        IF c = ''.'' THEN
+            i := i + 1;
+            CONTINUE;
+        END IF;
+        IF c IN (''-'', ''+'') THEN
+            i := i + 1;
+            EXIT;
+        END IF;
+        token := substring(substr(v, i) from CASE WHEN c ~ ''[0-9]'' THEN ''^[0-9]+'' ELSE ''^.[^0-9.+-]*'' END);
+        seq := seq || token;
+        i := i + length(token);
+    END LOOP;
+    IF c = ''-'' AND i > n THEN
+        RETURN NULL;
+    END IF;
+
+    WHILE i <= n LOOP
+        c := substr(v, i, 1);
+        token := substring(substr(v, i) from CASE WHEN c ~ ''[0-9]'' THEN ''^[0-9]+'' ELSE ''^.[^0-9.+-]*'' END);
+        pre := pre || token;
+        i := i + length(token);
+        EXIT WHEN i > n;
+        c := substr(v, i, 1);
+        IF c IN (''.'', ''-'') THEN
+            i := i + 1;
+            CONTINUE;
+        END IF;
+        IF c = ''+'' THEN
+            i := i + 1;
+            EXIT;
+        END IF;
+    END LOOP;
+    IF c = ''+'' AND i > n THEN
+        RETURN NULL;
+    END IF;
+
+    WHILE i <= n LOOP
+        c := substr(v, i, 1);
+        token := substring(substr(v, i) from CASE WHEN c ~ ''[0-9]'' THEN ''^[0-9]+'' ELSE ''^.[^0-9.+-]*'' END);
+        build := build || token;
+        i := i + length(token);
+        EXIT WHEN i > n;
+        IF substr(v, i, 1) IN (''.'', ''-'', ''+'') THEN
+            i := i + 1;
+        END IF;
+    END LOOP;
+
+    -- a version with a pre-release is less than the same version without
+    RETURN version_tokens_key(seq)
+        || CASE WHEN cardinality(pre) = 0 THEN chr(3) ELSE chr(2) || version_tokens_key(pre) END
+        || version_tokens_key(build);
+END ' LANGUAGE plpgsql IMMUTABLE;
+
+-- Versions VersionUtil can't parse are compared as strings, by their UTF-8 bytes which order as the characters
+CREATE OR REPLACE FUNCTION version_text_key(v TEXT) RETURNS BYTEA AS '
+    SELECT convert_to(v, ''UTF8'')
+' LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION external_purl_ref_version_key() RETURNS TRIGGER AS '
+BEGIN
+    NEW.purl_version_key := version_sort_key(jsonb_extract_path_text(NEW.purl, ''version''));
+    RETURN NEW;
+END ' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS external_purl_ref_version_key_trigger ON external_purl_ref;
+CREATE TRIGGER external_purl_ref_version_key_trigger BEFORE INSERT OR UPDATE OF purl ON external_purl_ref
+    FOR EACH ROW EXECUTE FUNCTION external_purl_ref_version_key();
+
+-- Compute the keys of purls persisted before the trigger existed or with an older key format, once per key format.
+-- The format is recorded as the comment of version_sort_key, bump it whenever the key changes.
+DO '
+BEGIN
+    IF obj_description(''version_sort_key(TEXT)''::regprocedure, ''pg_proc'') IS DISTINCT FROM ''key format 2'' THEN
+        UPDATE external_purl_ref SET purl_version_key = version_sort_key(jsonb_extract_path_text(purl, ''version''));
+        COMMENT ON FUNCTION version_sort_key(TEXT) IS ''key format 2'';
+    END IF;
+END ';
+
+COMMIT;
@@ -150,6 +150,14 @@ public class SbomDataInitTest {
         insertExternalVulRef(pkg, vul_1, "pkg:pypi/asttokens@2.0.5");
         insertExternalVulRef(pkg, vul_2, "pkg:pypi/asttokens@2.0.5");
         insertExternalVulRef(pkg, vul_3, "pkg:pypi/asttokens@2.0.5");
+
+        // scores are inserted directly, materialize them as UvpServiceImpl does after writing scores
+        vulnerabilityRepository.refreshEffectiveScores(List.of(vul_1.getId(), vul_2.getId(), vul_3.getId()));
+        assertThat(vulnerabilityRepository.findByVulId("CVE-2022-00000-test").orElseThrow().getScoringSystem())
+                .isEqualTo(VulScoringSystem.CVSS_V3.name());
+        assertThat(vulnerabilityRepository.findByVulId("CVE-2022-00001-test").orElseThrow().getScore()).isEqualTo(9.8);
+        assertThat(vulnerabilityRepository.findByVulId("CVE-2022-00002-test").orElseThrow().getSeverity())
+                .isEqualTo(CvssSeverity.UNKNOWN.name());
     }
 
     private Vulnerability insertVulnerability(String vulId) {
@@ -0,0 +1,173 @@
+package org.opensourceway.sbom.batch.listener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.dao.ProductRepository;
+import org.opensourceway.sbom.dao.RawSbomRepository;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Product;
+import org.opensourceway.sbom.model.entity.RawSbom;
+import org.opensourceway.sbom.model.enums.SbomContentType;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AllStepsListenerTest {
+
+    private static final String PRODUCT_NAME = "allStepsListenerTestProduct";
+
+    private static final String JOB_NAME = "allStepsListenerTest";
+
+    @Autowired
+    private AllStepsListener allStepsListener;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
+    @Autowired
+    private RawSbomRepository rawSbomRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<Long> jobExecutionIds = new ArrayList<>();
+
+    private RawSbom rawSbom;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        Product product = new Product();
+        product.setName(PRODUCT_NAME);
+        product.setAttribute(Map.of("productType", PRODUCT_NAME));
+        product = productRepository.save(product);
+
+        rawSbom = new RawSbom();
+        rawSbom.setProduct(product);
+        rawSbom.setValueType(SbomContentType.SPDX_2_2_JSON_SBOM.getType());
+        rawSbom.setValue(new byte[0]);
+        rawSbom.setTaskStatus(SbomConstants.TASK_STATUS_RUNNING);
+        rawSbom = rawSbomRepository.save(rawSbom);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jobExecutionIds.forEach(sbomStagingStore::cleanup);
+        jobExecutionIds.clear();
+        productRepository.findByName(PRODUCT_NAME).ifPresent(productRepository::delete);
+    }
+
+    @Test
+    public void cleanupOnCompleted() throws Exception {
+        JobExecution jobExecution = startJob();
+        List<String> handles = stagePayloads(jobExecution);
+        rawSbom.setTaskStatus(SbomConstants.TASK_STATUS_FINISH);
+        rawSbomRepository.save(rawSbom);
+
+        finish(jobExecution, BatchStatus.COMPLETED);
+        allStepsListener.afterJob(jobExecution);
+
+        assertThat(handles).noneMatch(sbomStagingStore::exists);
+        assertStagedHandlesRemoved(jobExecution.getExecutionContext());
+        assertThat(rawSbomRepository.findById(rawSbom.getId()).orElseThrow().getTaskStatus())
+                .isEqualTo(SbomConstants.TASK_STATUS_FINISH);
+    }
+
+    @Test
+    public void keepPayloadsOnFailed() throws Exception {
+        JobExecution jobExecution = startJob();
+        List<String> handles = stagePayloads(jobExecution);
+
+        finish(jobExecution, BatchStatus.FAILED);
+        allStepsListener.afterJob(jobExecution);
+
+        // the job is restarted later, the restarted execution reads the payloads staged by this one
+        assertThat(rawSbomRepository.findById(rawSbom.getId()).orElseThrow().getTaskStatus())
+                .isEqualTo(SbomConstants.TASK_STATUS_FAILED);
+        assertThat(handles).allMatch(sbomStagingStore::exists);
+        assertThat(jobExecution.getExecutionContext().getString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY))
+                .isEqualTo(handles.get(0));
+        assertThat(jobExecution.getExecutionContext().getString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY))
+                .isEqualTo(handles.get(1));
+        assertThat(jobExecution.getExecutionContext().getString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY))
+                .isEqualTo(handles.get(2));
+    }
+
+    @Test
+    public void cleanupAllExecutionsOnFailedFinish() throws Exception {
+        JobExecution firstExecution = startJob();
+        List<String> firstHandles = stagePayloads(firstExecution);
+        finish(firstExecution, BatchStatus.FAILED);
+
+        // the last restart, it fails again
+        JobExecution lastExecution = jobRepository.createJobExecution(JOB_NAME,
+                firstExecution.getJobParameters());
+        jobExecutionIds.add(lastExecution.getId());
+        List<String> lastHandles = stagePayloads(lastExecution);
+        lastExecution.getExecutionContext().putInt(BatchContextConstants.BATCH_JOB_RESTART_COUNTER_KEY, 3);
+        finish(lastExecution, BatchStatus.FAILED);
+        allStepsListener.afterJob(lastExecution);
+
+        assertThat(rawSbomRepository.findById(rawSbom.getId()).orElseThrow().getTaskStatus())
+                .isEqualTo(SbomConstants.TASK_STATUS_FAILED_FINISH);
+        assertThat(firstHandles).noneMatch(sbomStagingStore::exists);
+        assertThat(lastHandles).noneMatch(sbomStagingStore::exists);
+        assertStagedHandlesRemoved(lastExecution.getExecutionContext());
+    }
+
+    private JobExecution startJob() throws Exception {
+        JobExecution jobExecution = jobRepository.createJobExecution(JOB_NAME, new JobParametersBuilder()
+                .addString("rawSbomId", rawSbom.getId().toString())
+                .addDate("startDate", new Date())
+                .toJobParameters());
+        jobExecutionIds.add(jobExecution.getId());
+        rawSbom.setJobExecutionId(jobExecution.getId());
+        rawSbom = rawSbomRepository.save(rawSbom);
+        return jobExecution;
+    }
+
+    private List<String> stagePayloads(JobExecution jobExecution) throws IOException {
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+        jobContext.put(BatchContextConstants.BATCH_RAW_SBOM_ID_KEY, rawSbom.getId());
+        List<String> handles = List.of(
+                sbomStagingStore.stage(jobExecution.getId(), SbomStagingStore.RAW_SBOM_BYTES_NAME, new byte[]{1}),
+                sbomStagingStore.stage(jobExecution.getId(), SbomStagingStore.SBOM_DOCUMENT_NAME, new byte[]{1}),
+                sbomStagingStore.stage(jobExecution.getId(), SbomStagingStore.CHANGED_PACKAGES_NAME, new byte[0]));
+        jobContext.putString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY, handles.get(0));
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY, handles.get(1));
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY, handles.get(2));
+        return handles;
+    }
+
+    private void finish(JobExecution jobExecution, BatchStatus status) {
+        jobExecution.setStatus(status);
+        jobExecution.setEndTime(new Date());
+        jobRepository.update(jobExecution);
+        jobRepository.updateExecutionContext(jobExecution);
+    }
+
+    private void assertStagedHandlesRemoved(ExecutionContext jobContext) {
+        assertThat(jobContext.containsKey(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY)).isFalse();
+        assertThat(jobContext.containsKey(BatchContextConstants.BATCH_SBOM_DOCUMENT_HANDLE_KEY)).isFalse();
+        assertThat(jobContext.containsKey(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY)).isFalse();
+    }
+}
@@ -0,0 +1,154 @@
+package org.opensourceway.sbom.batch.staging;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.opensourceway.sbom.model.spdx.SpdxDocument;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class LocalDiskSbomStagingStoreTest {
+
+    private static final Long JOB_EXECUTION_ID = -1L;
+
+    private static Path stagingDir;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
+    @DynamicPropertySource
+    public static void stagingDir(DynamicPropertyRegistry registry) throws IOException {
+        stagingDir = Files.createTempDirectory("sbom-staging-test");
+        registry.add("sbom.batch.staging.dir", stagingDir::toString);
+    }
+
+    @AfterAll
+    public static void removeStagingDir() {
+        FileSystemUtils.deleteRecursively(stagingDir.toFile());
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        sbomStagingStore.cleanup(JOB_EXECUTION_ID);
+    }
+
+    @Test
+    public void stageAndLoad() throws IOException {
+        byte[] content = "{\"name\": \"raw sbom\"}".getBytes(StandardCharsets.UTF_8);
+
+        String handle = sbomStagingStore.stage(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME, content);
+
+        assertThat(handle).isEqualTo("%s/%s".formatted(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME));
+        assertThat(stagingDir.resolve(handle)).hasBinaryContent(content);
+        assertThat(sbomStagingStore.exists(handle)).isTrue();
+        assertThat(sbomStagingStore.load(handle)).isEqualTo(content);
+        try (InputStream stream = sbomStagingStore.openStream(handle)) {
+            assertThat(stream.readAllBytes()).isEqualTo(content);
+        }
+
+        SpdxDocument document = new SpdxDocument("SPDXRef-DOCUMENT");
+        String documentHandle = sbomStagingStore.stageDocument(JOB_EXECUTION_ID, document);
+        SpdxDocument loaded = sbomStagingStore.loadDocument(documentHandle, SpdxDocument.class);
+        assertThat(loaded.getSpdxId()).isEqualTo("SPDXRef-DOCUMENT");
+    }
+
+    @Test
+    public void writeThroughTmpFile() throws IOException {
+        String handle = "%s/%s".formatted(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME);
+        Path target = stagingDir.resolve(handle);
+        Path tmp = target.resolveSibling(SbomStagingStore.RAW_SBOM_BYTES_NAME + ".tmp");
+
+        // a write interrupted before the move leaves only the tmp file, which is never visible as the payload
+        Files.createDirectories(tmp.getParent());
+        Files.writeString(tmp, "half written");
+        assertThat(sbomStagingStore.exists(handle)).isFalse();
+        assertThatThrownBy(() -> sbomStagingStore.load(handle)).isInstanceOf(IOException.class);
+
+        sbomStagingStore.stage(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME, "first".getBytes(StandardCharsets.UTF_8));
+        assertThat(tmp).doesNotExist();
+        assertThat(target).hasContent("first");
+
+        // a payload staged again replaces the previous one as a whole
+        sbomStagingStore.stage(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME, "second".getBytes(StandardCharsets.UTF_8));
+        assertThat(tmp).doesNotExist();
+        assertThat(target).hasContent("second");
+        try (var files = Files.list(target.getParent())) {
+            assertThat(files.map(it -> it.getFileName().toString()).toList())
+                    .containsExactly(SbomStagingStore.RAW_SBOM_BYTES_NAME);
+        }
+    }
+
+    @Test
+    public void rejectHandleOutsideStagingDir() {
+        assertThatThrownBy(() -> sbomStagingStore.load("../outside")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void cleanupJobExecution() throws IOException {
+        String handle = sbomStagingStore.stage(JOB_EXECUTION_ID, SbomStagingStore.RAW_SBOM_BYTES_NAME, new byte[]{1});
+        String otherHandle = sbomStagingStore.stage(JOB_EXECUTION_ID - 1, SbomStagingStore.RAW_SBOM_BYTES_NAME, new byte[]{1});
+        try {
+            sbomStagingStore.cleanup(JOB_EXECUTION_ID);
+
+            assertThat(sbomStagingStore.exists(handle)).isFalse();
+            assertThat(stagingDir.resolve(String.valueOf(JOB_EXECUTION_ID))).doesNotExist();
+            assertThat(sbomStagingStore.exists(otherHandle)).isTrue();
+        } finally {
+            sbomStagingStore.cleanup(JOB_EXECUTION_ID - 1);
+        }
+    }
+
+    @Test
+    public void stagedPayloadsGone() throws IOException {
+        ExecutionContext jobContext = new ExecutionContext();
+        jobContext.putString(BatchContextConstants.BATCH_RAW_SBOM_HANDLE_KEY, sbomStagingStore.stage(JOB_EXECUTION_ID,
+                SbomStagingStore.RAW_SBOM_BYTES_NAME, new byte[]{1}));
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY, sbomStagingStore.stage(
+                JOB_EXECUTION_ID, SbomStagingStore.CHANGED_PACKAGES_NAME, new byte[0]));
+        assertThat(ExecutionContextUtils.stagedPayloadsExist(jobContext, sbomStagingStore)).isTrue();
+
+        // e.g. the failed job ran on another node
+        Files.delete(stagingDir.resolve(jobContext.getString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY)));
+        assertThat(ExecutionContextUtils.stagedPayloadsExist(jobContext, sbomStagingStore)).isFalse();
+    }
+
+    @Test
+    public void loadLegacyInlineValues() throws IOException {
+        // job context persisted before the staging store was introduced
+        ExecutionContext jobContext = new ExecutionContext();
+        byte[] rawSbom = "{\"name\": \"raw sbom\"}".getBytes(StandardCharsets.UTF_8);
+        SpdxDocument document = new SpdxDocument("SPDXRef-DOCUMENT");
+        jobContext.put(BatchContextConstants.BATCH_RAW_SBOM_BYTES_KEY, rawSbom);
+        jobContext.put(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY, document);
+
+        assertThat(ExecutionContextUtils.loadRawSbomBytes(jobContext, sbomStagingStore)).isEqualTo(rawSbom);
+        SpdxDocument loaded = ExecutionContextUtils.loadSbomDocument(jobContext, sbomStagingStore, SpdxDocument.class);
+        assertThat(loaded).isSameAs(document);
+        assertThat(ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore)).isNull();
+        assertThat(ExecutionContextUtils.stagedPayloadsExist(jobContext, sbomStagingStore)).isTrue();
+
+        // the staged payload is used once it is there
+        UUID pkgId = UUID.randomUUID();
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_CHANGED_PACKAGES_HANDLE_KEY, sbomStagingStore.stage(
+                JOB_EXECUTION_ID, SbomStagingStore.CHANGED_PACKAGES_NAME, pkgId.toString().getBytes(StandardCharsets.UTF_8)));
+        assertThat(ExecutionContextUtils.loadChangedPackageIds(jobContext, sbomStagingStore)).isEqualTo(Set.of(pkgId));
+    }
+}
@@ -0,0 +1,321 @@
+package org.opensourceway.sbom.batch.step;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.model.entity.ExternalPurlRef;
+import org.opensourceway.sbom.model.entity.ExternalVulRef;
+import org.opensourceway.sbom.model.entity.License;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.PackageStatistics;
+import org.opensourceway.sbom.model.entity.PkgLicenseRelp;
+import org.opensourceway.sbom.model.entity.ProductStatistics;
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.entity.SbomElementRelationship;
+import org.opensourceway.sbom.model.entity.VulScore;
+import org.opensourceway.sbom.model.entity.Vulnerability;
+import org.opensourceway.sbom.model.enums.CvssSeverity;
+import org.opensourceway.sbom.model.enums.VulScoringSystem;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Check that the single pass CollectStatisticsStep produces the same statistics as the previous stream based
+ * implementation, which is kept below as reference.
+ */
+public class CollectStatisticsStepTest {
+
+    private static final List<String> CATEGORIES = List.of(ReferenceCategory.PACKAGE_MANAGER.name(),
+            ReferenceCategory.EXTERNAL_MANAGER.name(), ReferenceCategory.PROVIDE_MANAGER.name());
+
+    private static final List<String> SEVERITIES = List.of(CvssSeverity.CRITICAL.name(), CvssSeverity.HIGH.name(),
+            CvssSeverity.MEDIUM.name(), CvssSeverity.LOW.name(), CvssSeverity.NONE.name());
+
+    private final CollectStatisticsStep collectStatisticsStep = new CollectStatisticsStep();
+
+    @Test
+    public void sameStatisticsAsReferenceImplementation() {
+        for (long seed = 0; seed < 20; seed++) {
+            assertSameStatistics(generateSbom(new Random(seed), 50 + (int) seed * 10));
+        }
+    }
+
+    @Test
+    public void sameStatisticsForEmptySbom() {
+        assertSameStatistics(generateSbom(new Random(0), 0));
+    }
+
+    @Test
+    public void sameStatisticsForLargeSbom() {
+        assertSameStatistics(generateSbom(new Random(42), 5000));
+    }
+
+    private void assertSameStatistics(Sbom sbom) {
+        ProductStatistics expected = new ProductStatistics();
+        new ReferenceImplementation().collect(expected, sbom);
+        Map<Package, PackageStatistics> expectedPackageStatistics = sbom.getPackages().stream()
+                .collect(Collectors.toMap(it -> it, Package::getPackageStatistics));
+
+        ProductStatistics actual = new ProductStatistics();
+        collectStatisticsStep.collectStatistics(actual, sbom);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        for (Package pkg : sbom.getPackages()) {
+            assertThat(pkg.getPackageStatistics()).isNotSameAs(expectedPackageStatistics.get(pkg));
+            assertThat(pkg.getPackageStatistics()).usingRecursiveComparison()
+                    .ignoringFields("pkg")
+                    .isEqualTo(expectedPackageStatistics.get(pkg));
+        }
+    }
+
+    private Sbom generateSbom(Random random, int packageCount) {
+        Sbom sbom = new Sbom();
+
+        List<Vulnerability> vulnerabilities = new ArrayList<>();
+        for (int i = 0; i < packageCount / 5 + 1; i++) {
+            Vulnerability vulnerability = new Vulnerability();
+            vulnerability.setVulId("CVE-2022-%05d".formatted(i));
+            List<VulScore> scores = new ArrayList<>();
+            for (VulScoringSystem system : List.of(VulScoringSystem.CVSS_V2, VulScoringSystem.CVSS_V3)) {
+                if (random.nextInt(3) > 0) {
+                    VulScore score = new VulScore();
+                    score.setScoringSystem(system.name());
+                    score.setSeverity(SEVERITIES.get(random.nextInt(SEVERITIES.size())));
+                    score.setVulnerability(vulnerability);
+                    scores.add(score);
+                }
+            }
+            vulnerability.setVulScores(scores);
+            vulnerabilities.add(vulnerability);
+        }
+
+        List<License> licenses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            License license = new License();
+            license.setSpdxLicenseId("License-" + i);
+            license.setIsLegal(random.nextInt(4) > 0);
+            licenses.add(license);
+        }
+
+        List<Package> packages = new ArrayList<>();
+        for (int i = 0; i < packageCount; i++) {
+            Package pkg = new Package();
+            pkg.setSpdxId("SPDXRef-Package-" + i);
+            pkg.setName("package-" + i);
+            pkg.setSbom(sbom);
+
+            List<ExternalPurlRef> purlRefs = new ArrayList<>();
+            int purlRefCount = random.nextInt(6);
+            for (int j = 0; j < purlRefCount; j++) {
+                ExternalPurlRef ref = new ExternalPurlRef();
+                ref.setCategory(j == 0 ? ReferenceCategory.PACKAGE_MANAGER.name() : CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+                ref.setPkg(pkg);
+                purlRefs.add(ref);
+            }
+            pkg.setExternalPurlRefs(purlRefs);
+
+            List<ExternalVulRef> vulRefs = new ArrayList<>();
+            int vulRefCount = random.nextInt(4);
+            for (int j = 0; j < vulRefCount; j++) {
+                ExternalVulRef ref = new ExternalVulRef();
+                // the same vulnerability may be referenced twice by a package
+                ref.setVulnerability(vulnerabilities.get(random.nextInt(vulnerabilities.size())));
+                ref.setPkg(pkg);
+                vulRefs.add(ref);
+            }
+            pkg.setExternalVulRefs(vulRefs);
+
+            Set<PkgLicenseRelp> relps = new LinkedHashSet<>();
+            int relpCount = random.nextInt(4);
+            for (int j = 0; j < relpCount; j++) {
+                PkgLicenseRelp relp = new PkgLicenseRelp();
+                relp.setLicense(licenses.get(random.nextInt(licenses.size())));
+                relp.setPkg(pkg);
+                relps.add(relp);
+            }
+            pkg.setPkgLicenseRelps(relps);
+            packages.add(pkg);
+        }
+        sbom.setPackages(packages);
+
+        List<SbomElementRelationship> relationships = new ArrayList<>();
+        for (int i = 0; i < packageCount * 2; i++) {
+            SbomElementRelationship relationship = new SbomElementRelationship();
+            // some relationships come from files or refer to elements which aren't packages
+            relationship.setElementId(random.nextInt(10) == 0 ? "SPDXRef-File-" + i : "SPDXRef-Package-" + random.nextInt(packageCount));
+            relationship.setRelatedElementId("SPDXRef-Package-" + random.nextInt(packageCount + 10));
+            relationship.setRelationshipType(RelationshipType.DEPENDS_ON.name());
+            relationship.setSbom(sbom);
+            relationships.add(relationship);
+        }
+        sbom.setSbomElementRelationships(relationships);
+        return sbom;
+    }
+
+    /**
+     * the stream based implementation of CollectStatisticsStep before it was rewritten to a single pass
+     */
+    private static class ReferenceImplementation {
+
+        private void collect(ProductStatistics statistics, Sbom sbom) {
+            collectDepStatistics(statistics, sbom);
+            collectVulStatistics(statistics, sbom);
+            collectLicenseStatistics(statistics, sbom);
+            collectPackageStatistics(sbom);
+        }
+
+        private void collectDepStatistics(ProductStatistics statistics, Sbom sbom) {
+            Map<String, Long> categoryPackageCountMap = sbom.getPackages().stream()
+                    .map(Package::getExternalPurlRefs)
+                    .flatMap(List::stream)
+                    .collect(Collectors.groupingBy(ExternalPurlRef::getCategory, Collectors.counting()));
+
+            statistics.setPackageCount(categoryPackageCountMap.getOrDefault(ReferenceCategory.PACKAGE_MANAGER.name(), 0L));
+            statistics.setDepCount(categoryPackageCountMap.getOrDefault(ReferenceCategory.EXTERNAL_MANAGER.name(), 0L));
+            statistics.setModuleCount(categoryPackageCountMap.getOrDefault(ReferenceCategory.PROVIDE_MANAGER.name(), 0L));
+            statistics.setRuntimeDepCount(sbom.getPackages().stream()
+                    .map(pkg -> getPackageRuntimeDepSpdxIdList(pkg, sbom))
+                    .flatMap(List::stream)
+                    .distinct()
+                    .count());
+        }
+
+        private void collectVulStatistics(ProductStatistics statistics, Sbom sbom) {
+            statistics.setVulCount(sbom.getPackages().stream()
+                    .map(Package::getExternalVulRefs)
+                    .flatMap(List::stream)
+                    .map(ExternalVulRef::getVulnerability)
+                    .distinct()
+                    .count());
+
+            Map<CvssSeverity, Long> vulSeverityVulCountMap = sbom.getPackages().stream()
+                    .map(Package::getExternalVulRefs)
+                    .flatMap(List::stream)
+                    .map(ExternalVulRef::getVulnerability)
+                    .distinct()
+                    .collect(Collectors.groupingBy(CvssSeverity::calculateVulCvssSeverity, Collectors.counting()));
+            statistics.setCriticalVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.CRITICAL, 0L));
+            statistics.setHighVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.HIGH, 0L));
+            statistics.setMediumVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.MEDIUM, 0L));
+            statistics.setLowVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.LOW, 0L));
+            statistics.setNoneVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.NONE, 0L));
+            statistics.setUnknownVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.UNKNOWN, 0L));
+
+            Map<CvssSeverity, Long> vulSeverityPackageCountMap = sbom.getPackages().stream()
+                    .collect(Collectors.groupingBy(pkg -> calculatePackageMostSevereCvssSeverity(pkg.getExternalVulRefs()), Collectors.counting()));
+            statistics.setPackageWithCriticalVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.CRITICAL, 0L));
+            statistics.setPackageWithHighVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.HIGH, 0L));
+            statistics.setPackageWithMediumVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.MEDIUM, 0L));
+            statistics.setPackageWithLowVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.LOW, 0L));
+            statistics.setPackageWithNoneVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.NONE, 0L));
+            statistics.setPackageWithUnknownVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.UNKNOWN, 0L));
+            statistics.setPackageWithoutVulCount(vulSeverityPackageCountMap.getOrDefault(CvssSeverity.NA, 0L));
+        }
+
+        private CvssSeverity calculatePackageMostSevereCvssSeverity(List<ExternalVulRef> externalVulRefs) {
+            if (ObjectUtils.isEmpty(externalVulRefs)) {
+                return CvssSeverity.NA;
+            }
+            return externalVulRefs.stream()
+                    .map(ExternalVulRef::getVulnerability)
+                    .distinct()
+                    .map(CvssSeverity::calculateVulCvssSeverity)
+                    .max((Comparator.comparing(CvssSeverity::getSeverity)))
+                    .orElse(CvssSeverity.UNKNOWN);
+        }
+
+        private void collectLicenseStatistics(ProductStatistics statistics, Sbom sbom) {
+            statistics.setLicenseCount(sbom.getPackages().stream()
+                    .map(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).collect(Collectors.toSet()))
+                    .flatMap(Set::stream)
+                    .distinct()
+                    .count());
+            statistics.setPackageWithMultiLicenseCount(sbom.getPackages().stream()
+                    .filter(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).count() > 1)
+                    .count());
+            statistics.setPackageWithoutLicenseCount(sbom.getPackages().stream()
+                    .filter(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).findAny().isEmpty())
+                    .count());
+            statistics.setPackageWithLegalLicenseCount(sbom.getPackages().stream()
+                    .filter(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).findAny().isPresent())
+                    .filter(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).allMatch(License::getIsLegal))
+                    .count());
+            statistics.setPackageWithIllegalLicenseCount(sbom.getPackages().stream()
+                    .filter(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).anyMatch(license -> !license.getIsLegal()))
+                    .count());
+
+            TreeMap<String, Long> licenseDistribution = new TreeMap<>();
+            sbom.getPackages().stream()
+                    .map(pkg -> pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).collect(Collectors.toSet()))
+                    .forEach(licenses -> licenses.forEach(license -> licenseDistribution.merge(license.getSpdxLicenseId(), 1L, Long::sum)));
+
+            statistics.setLicenseDistribution(licenseDistribution);
+        }
+
+        private void collectPackageStatistics(Sbom sbom) {
+            sbom.getPackages().forEach(pkg -> {
+                PackageStatistics statistics = new PackageStatistics();
+                collectPackageDepStatistics(statistics, pkg);
+                collectPackageVulStatistics(statistics, pkg);
+                collectPackageLicenseStatistics(statistics, pkg);
+                statistics.setPkg(pkg);
+                pkg.setPackageStatistics(statistics);
+            });
+        }
+
+        private void collectPackageDepStatistics(PackageStatistics statistics, Package pkg) {
+            Map<String, Long> categoryPackageCountMap = pkg.getExternalPurlRefs().stream()
+                    .collect(Collectors.groupingBy(ExternalPurlRef::getCategory, Collectors.counting()));
+
+            statistics.setDepCount(categoryPackageCountMap.getOrDefault(ReferenceCategory.EXTERNAL_MANAGER.name(), 0L));
+            statistics.setModuleCount(categoryPackageCountMap.getOrDefault(ReferenceCategory.PROVIDE_MANAGER.name(), 0L));
+            statistics.setRuntimeDepCount((long) getPackageRuntimeDepSpdxIdList(pkg, pkg.getSbom()).size());
+        }
+
+        private List<String> getPackageRuntimeDepSpdxIdList(Package pkg, Sbom sbom) {
+            return sbom.getSbomElementRelationships().stream()
+                    .filter(it -> StringUtils.equals(it.getElementId(), pkg.getSpdxId()))
+                    .map(SbomElementRelationship::getRelatedElementId)
+                    .toList();
+        }
+
+        private void collectPackageVulStatistics(PackageStatistics statistics, Package pkg) {
+            statistics.setVulCount(pkg.getExternalVulRefs().stream()
+                    .map(ExternalVulRef::getVulnerability)
+                    .distinct()
+                    .count());
+
+            Map<CvssSeverity, Long> vulSeverityVulCountMap = pkg.getExternalVulRefs().stream()
+                    .map(ExternalVulRef::getVulnerability)
+                    .distinct()
+                    .collect(Collectors.groupingBy(CvssSeverity::calculateVulCvssSeverity, Collectors.counting()));
+            statistics.setCriticalVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.CRITICAL, 0L));
+            statistics.setHighVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.HIGH, 0L));
+            statistics.setMediumVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.MEDIUM, 0L));
+            statistics.setLowVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.LOW, 0L));
+            statistics.setNoneVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.NONE, 0L));
+            statistics.setUnknownVulCount(vulSeverityVulCountMap.getOrDefault(CvssSeverity.UNKNOWN, 0L));
+
+            statistics.setSeverity(calculatePackageMostSevereCvssSeverity(pkg.getExternalVulRefs()).name());
+        }
+
+        private void collectPackageLicenseStatistics(PackageStatistics statistics, Package pkg) {
+            statistics.setLicenseCount((long) pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).collect(Collectors.toSet()).size());
+            statistics.setLicenses(pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).map(License::getSpdxLicenseId).toList());
+            statistics.setLegalLicense(pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).findAny().isPresent() ?
+                    pkg.getPkgLicenseRelps().stream().map(PkgLicenseRelp::getLicense).allMatch(License::getIsLegal) : null);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.opensourceway.sbom.batch.step;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.api.vcs.VcsApi;
+import org.opensourceway.sbom.batch.staging.SbomStagingStore;
+import org.opensourceway.sbom.batch.utils.ExecutionContextUtils;
+import org.opensourceway.sbom.cache.constant.CacheConstants;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.model.spdx.SpdxDocument;
+import org.opensourceway.sbom.model.spdx.SpdxExternalReference;
+import org.opensourceway.sbom.model.spdx.SpdxPackage;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@SpringBootTest
+public class OpenHarmonySpecialTaskStepTest {
+
+    private static final Long JOB_EXECUTION_ID = -25L;
+
+    private static final String TAG = "OpenHarmony-v3.1-Release";
+
+    private static final String LIBXML2_META = """
+            [{"Name": "libxml2", "Version Number": "2.9.10", "Upstream URL": "http://xmlsoft.org/"}]""";
+
+    private static final String ZLIB_META = """
+            [{"Name": "zlib", "Version Number": "1.2.11", "Upstream URL": "https://www.zlib.net/"}]""";
+
+    @MockBean(name = "giteeApi")
+    private VcsApi giteeApi;
+
+    @Autowired
+    private OpenHarmonySpecialTaskStep openHarmonySpecialTaskStep;
+
+    @Autowired
+    private SbomStagingStore sbomStagingStore;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final Set<String> fetchThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        cacheManager.getCache(CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME).clear();
+        sbomStagingStore.cleanup(JOB_EXECUTION_ID);
+    }
+
+    @Test
+    public void fetchDistinctReposConcurrently() throws Exception {
+        // both distinct repos must be in flight at the same time, a sequential fetch times out here
+        CountDownLatch inFlight = new CountDownLatch(2);
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_libxml2", TAG)))
+                .thenAnswer(invocation -> awaitOthers(inFlight, LIBXML2_META));
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_zlib", "master")))
+                .thenAnswer(invocation -> awaitOthers(inFlight, ZLIB_META));
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_broken", TAG)))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        Map<String, SpdxPackage> packages = execute();
+
+        assertThat(providedPurls(packages.get("libxml2-revision")))
+                .containsExactly("pkg:generic/libxml2@2.9.10?download_url=http://xmlsoft.org/");
+        assertThat(providedPurls(packages.get("libxml2-version")))
+                .containsExactly("pkg:generic/libxml2@2.9.10?download_url=http://xmlsoft.org/");
+        assertThat(providedPurls(packages.get("zlib"))).containsExactly("pkg:generic/zlib@1.2.11?download_url=https://www.zlib.net/");
+        assertThat(providedPurls(packages.get("broken"))).isEmpty();
+        assertThat(providedPurls(packages.get("not-third-party"))).isEmpty();
+        assertThat(fetchThreads).doesNotContain(Thread.currentThread().getName());
+
+        // purls of the same repo and revision are fetched once
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(metaUrl("third_party_libxml2", TAG));
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(metaUrl("third_party_zlib", "master"));
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(metaUrl("third_party_broken", TAG));
+        Mockito.verify(giteeApi, Mockito.times(3)).getFileContext(anyString());
+    }
+
+    @Test
+    public void fetchOnlyMutableRevisionsAndFailuresAgain() throws Exception {
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_libxml2", TAG))).thenReturn(LIBXML2_META);
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_zlib", "master"))).thenReturn(ZLIB_META);
+        Mockito.when(giteeApi.getFileContext(metaUrl("third_party_broken", TAG)))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        execute();
+        Map<String, SpdxPackage> packages = execute();
+
+        assertThat(providedPurls(packages.get("libxml2-revision"))).hasSize(1);
+        assertThat(providedPurls(packages.get("zlib"))).hasSize(1);
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(metaUrl("third_party_libxml2", TAG));
+        Mockito.verify(giteeApi, Mockito.times(2)).getFileContext(metaUrl("third_party_zlib", "master"));
+        Mockito.verify(giteeApi, Mockito.times(2)).getFileContext(metaUrl("third_party_broken", TAG));
+    }
+
+    private String awaitOthers(CountDownLatch inFlight, String meta) throws InterruptedException {
+        fetchThreads.add(Thread.currentThread().getName());
+        inFlight.countDown();
+        if (!inFlight.await(10, TimeUnit.SECONDS)) {
+            throw new RuntimeException("third party metas are not fetched concurrently");
+        }
+        return meta;
+    }
+
+    private Map<String, SpdxPackage> execute() throws Exception {
+        SpdxDocument document = new SpdxDocument("SPDXRef-DOCUMENT");
+        document.setPackages(List.of(
+                spdxPackage("libxml2-revision", "pkg:gitee/openharmony/third_party_libxml2@2.9.10?revision=" + TAG),
+                spdxPackage("libxml2-version", "pkg:gitee/openharmony/third_party_libxml2@" + TAG),
+                spdxPackage("zlib", "pkg:gitee/openharmony/third_party_zlib@master"),
+                spdxPackage("broken", "pkg:gitee/openharmony/third_party_broken@" + TAG),
+                spdxPackage("not-third-party", "pkg:gitee/openharmony/customization_enterprise_device_management@" + TAG)));
+
+        JobExecution jobExecution = new JobExecution(JOB_EXECUTION_ID);
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+        jobContext.put(BatchContextConstants.BATCH_RAW_SBOM_ID_KEY, UUID.randomUUID());
+        jobContext.putString(BatchContextConstants.BATCH_SBOM_PRODUCT_NAME_KEY, "openHarmonySpecialTaskStepTest");
+        jobContext.put(BatchContextConstants.BATCH_SBOM_DOCUMENT_KEY, document);
+        StepExecution stepExecution = jobExecution.createStepExecution("openHarmonySpecialTaskStep");
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        openHarmonySpecialTaskStep.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+
+        SpdxDocument processed = ExecutionContextUtils.loadSbomDocument(jobContext, sbomStagingStore, SpdxDocument.class);
+        return processed.getPackages().stream().collect(Collectors.toMap(SpdxPackage::getName, Function.identity()));
+    }
+
+    private SpdxPackage spdxPackage(String name, String purl) {
+        SpdxPackage pkg = new SpdxPackage("SPDXRef-Package-" + name);
+        pkg.setName(name);
+        pkg.setExternalRefs(new ArrayList<>(List.of(
+                new SpdxExternalReference(null, ReferenceCategory.PACKAGE_MANAGER, ReferenceType.PURL, purl))));
+        return pkg;
+    }
+
+    private List<String> providedPurls(SpdxPackage pkg) {
+        return pkg.getExternalRefs().stream()
+                .filter(it -> ReferenceCategory.PROVIDE_MANAGER.equals(it.referenceCategory()))
+                .map(SpdxExternalReference::referenceLocator)
+                .toList();
+    }
+
+    private static String metaUrl(String repo, String revision) {
+        return "https://gitee.com/openharmony/%s/raw/%s/%s".formatted(
+                repo, revision, SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE);
+    }
+}
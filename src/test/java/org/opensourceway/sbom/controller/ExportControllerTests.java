@@ -10,6 +10,7 @@ import org.opensourceway.sbom.model.cyclonedx.CycloneDXDocument;
 import org.opensourceway.sbom.model.cyclonedx.ExternalReference;
 import org.opensourceway.sbom.model.cyclonedx.ExternalReferenceType;
 import org.opensourceway.sbom.model.cyclonedx.Patch;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.opensourceway.sbom.model.spdx.FileType;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.model.spdx.ReferenceType;
@@ -19,6 +20,7 @@ import org.opensourceway.sbom.model.spdx.SpdxExternalReference;
 import org.opensourceway.sbom.model.spdx.SpdxFile;
 import org.opensourceway.sbom.model.spdx.SpdxPackage;
 import org.opensourceway.sbom.model.spdx.SpdxRelationship;
+import org.opensourceway.sbom.utils.FileUtil;
 import org.opensourceway.sbom.utils.Mapper;
 import org.opensourceway.sbom.utils.SbomApplicationContextHolder;
 import org.opensourceway.sbom.utils.TestCommon;
@@ -28,11 +30,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -195,6 +202,80 @@ public class ExportControllerTests {
         TestCommon.assertCycloneDXDocument(cycloneDXDocument);
     }
 
+    @Test
+    public void exportCompactCycloneDXSbomJsonWithZstdSuccess() throws Exception {
+        MvcResult mvcResult = this.mockMvc
+                .perform(post("/sbom-api/exportSbom")
+                        .param("productName", TestConstants.SAMPLE_PRODUCT_NAME)
+                        .param("spec", "cyclonedx")
+                        .param("specVersion", "1.4")
+                        .param("format", "json")
+                        .param("compact", "true")
+                        .param("compression", "zstd")
+                        .contentType(MediaType.ALL)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment;filename=" + TestConstants.SAMPLE_PRODUCT_NAME + "-cyclonedx-sbom.json.tar.zst"))
+                .andReturn();
+        String content = TestCommon.extractSbomFromTar(mvcResult.getResponse().getContentAsByteArray(),
+                TestConstants.SAMPLE_PRODUCT_NAME + "-cyclonedx-sbom.json", ArchiveCompression.ZSTD);
+        assertThat(content).doesNotContain("\n");
+        CycloneDXDocument cycloneDXDocument = Mapper.jsonSbomMapper.readValue(content, CycloneDXDocument.class);
+        TestCommon.assertCycloneDXDocument(cycloneDXDocument);
+    }
+
+    @Test
+    public void exportSbomFailedInvalidCompression() throws Exception {
+        this.mockMvc
+                .perform(post("/sbom-api/exportSbom")
+                        .param("productName", TestConstants.SAMPLE_PRODUCT_NAME)
+                        .param("spec", "spdx")
+                        .param("specVersion", "2.2")
+                        .param("format", "json")
+                        .param("compression", "rar")
+                        .contentType(MediaType.ALL)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string("export sbom metadata failed"));
+    }
+
+    @Test
+    public void exportAllPackageSbomSuccess() throws Exception {
+        MvcResult mvcResult = this.mockMvc
+                .perform(post("/sbom-api/exportAllPackageSbom")
+                        .param("productName", TestConstants.SAMPLE_PRODUCT_NAME)
+                        .param("spec", "cyclonedx")
+                        .param("specVersion", "1.4")
+                        .param("format", "json")
+                        .contentType(MediaType.ALL)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment;filename=" + TestConstants.SAMPLE_PRODUCT_NAME + "-cyclonedx-sbom.tar.gz.tar.gz"))
+                .andReturn();
+        Path outerDir = Files.createTempDirectory("test");
+        Path innerDir = Files.createTempDirectory("test");
+        try {
+            FileUtil.extractTarGzipArchive(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()), outerDir.toString());
+            FileUtil.extractTarGzipArchive(outerDir.resolve(TestConstants.SAMPLE_PRODUCT_NAME + "-cyclonedx-sbom.tar.gz"),
+                    innerDir.toString());
+
+            List<Path> pkgSboms;
+            try (Stream<Path> files = Files.list(innerDir)) {
+                pkgSboms = files.toList();
+            }
+            assertThat(pkgSboms).isNotEmpty();
+            for (Path pkgSbom : pkgSboms) {
+                CycloneDXDocument document = Mapper.jsonSbomMapper.readValue(pkgSbom.toFile(), CycloneDXDocument.class);
+                Component component = document.getMetadata().getComponent();
+                assertThat(pkgSbom.getFileName().toString()).isEqualTo("%s-%s-%s-cyclonedx-sbom.json"
+                        .formatted(TestConstants.SAMPLE_PRODUCT_NAME, component.getName(), component.getVersion()));
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(outerDir);
+            FileSystemUtils.deleteRecursively(innerDir);
+        }
+    }
+
     @Test
     public void exportSbomYamlSuccess() throws Exception {
         MvcResult mvcResult = this.mockMvc
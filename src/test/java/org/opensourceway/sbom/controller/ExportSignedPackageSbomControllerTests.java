@@ -0,0 +1,68 @@
+package org.opensourceway.sbom.controller;
+
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.SbomManagerApplication;
+import org.opensourceway.sbom.TestConstants;
+import org.opensourceway.sbom.utils.FileUtil;
+import org.opensourceway.sbom.utils.SbomApplicationContextHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = {SbomManagerApplication.class, SbomApplicationContextHolder.class},
+        properties = "sbom.export.package-sbom.sign=true")
+@AutoConfigureMockMvc
+public class ExportSignedPackageSbomControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void exportAllPackageSbomWithDigests() throws Exception {
+        MvcResult mvcResult = this.mockMvc
+                .perform(post("/sbom-api/exportAllPackageSbom")
+                        .param("productName", TestConstants.SAMPLE_PRODUCT_NAME)
+                        .param("spec", "cyclonedx")
+                        .param("specVersion", "1.4")
+                        .param("format", "json")
+                        .contentType(MediaType.ALL)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andReturn();
+        Path outerDir = Files.createTempDirectory("test");
+        Path innerDir = Files.createTempDirectory("test");
+        try {
+            FileUtil.extractTarGzipArchive(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()), outerDir.toString());
+            FileUtil.extractTarGzipArchive(outerDir.resolve(TestConstants.SAMPLE_PRODUCT_NAME + "-cyclonedx-sbom.tar.gz"),
+                    innerDir.toString());
+
+            List<Path> pkgSboms;
+            try (Stream<Path> files = Files.list(innerDir)) {
+                pkgSboms = files.filter(it -> it.getFileName().toString().endsWith(".json")).toList();
+            }
+            assertThat(pkgSboms).isNotEmpty();
+            for (Path pkgSbom : pkgSboms) {
+                assertThat(pkgSbom.resolveSibling(pkgSbom.getFileName() + ".sha256"))
+                        .hasContent(Hashing.sha256().hashBytes(Files.readAllBytes(pkgSbom)).toString());
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(outerDir);
+            FileSystemUtils.deleteRecursively(innerDir);
+        }
+    }
+}
@@ -986,6 +986,43 @@ public class PkgQueryControllerTests {
                 .andExpect(jsonPath("$.edges.[0].size").value(1.0));
     }
 
+    @Test
+    public void queryVulImpactWithNodeLimit() throws Exception {
+        this.mockMvc
+                .perform(get("/sbom-api/queryVulImpact/%s".formatted(TestConstants.SAMPLE_PRODUCT_NAME))
+                        .param("vulId", "CVE-2022-00000-test")
+                        .param("maxNodes", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/json"))
+                .andExpect(jsonPath("$.nodes.length()").value(1))
+                .andExpect(jsonPath("$.nodes.[0].nodeType").value("vulnerability"))
+                .andExpect(jsonPath("$.edges.length()").value(0));
+    }
+
+    @Test
+    public void queryVulImpactWithInvalidLimit() throws Exception {
+        this.mockMvc
+                .perform(get("/sbom-api/queryVulImpact/%s".formatted(TestConstants.SAMPLE_PRODUCT_NAME))
+                        .param("vulId", "CVE-2022-00000-test")
+                        .param("maxDepth", "0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc
+                .perform(get("/sbom-api/queryVulImpact/%s".formatted(TestConstants.SAMPLE_PRODUCT_NAME))
+                        .param("vulId", "CVE-2022-00000-test")
+                        .param("maxNodes", "-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void queryVulImpactNotExistVul() throws Exception {
         this.mockMvc
@@ -1,5 +1,6 @@
 package org.opensourceway.sbom.dao;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
@@ -7,13 +8,20 @@ import org.opensourceway.sbom.TestConstants;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.model.spec.ExternalPurlRefCondition;
+import org.opensourceway.sbom.model.spec.ExternalPurlRefSpecs;
+import org.opensourceway.sbom.utils.VersionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.util.Pair;
 
+import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -27,6 +35,95 @@ public class ExternalPurlRefRepositoryTest {
     @Autowired
     private SbomRepository sbomRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void versionSortKeyTest() {
+        List<String> versions = List.of("0.9", "1", "1.0", "1.0.0", "1.0.0.0", "01.0", "1.0-sp1", "1.0+sp1", "1.0-dev",
+                "1.0-alpha", "1.0.0-alpha.1", "1.0.0-alpha.1.a-bc", "1.0-beta2", "1.0-SNAPSHOT", "1.0.0-rc.1",
+                "1.0.0-rc.1+build-12345", "1.0.0+build-12345", "1.0.Final", "1.0.a", "1.a", "1.0.1", "1.0.2", "1.0.11",
+                "1.11.0", "1_0_0", "2.1.12-stable", "1.4.35-1.oe2203", "1.4.35-2.oe2203", "1.4.36-1.oe2203",
+                "2019-12-09", "2020-11-01", "10.0.0");
+        for (String v : versions) {
+            for (String another : versions) {
+                int expected = Integer.signum(VersionUtil.parse(v).compareTo(VersionUtil.parse(another)));
+                assertThat(Integer.signum(versionSortKey(v).compareTo(versionSortKey(another))))
+                        .as("%s compared to %s", v, another)
+                        .isEqualTo(expected);
+            }
+        }
+
+        // not parsed by VersionUtil either, compared as strings by ExternalPurlRefSpecs.hasVersionInRange
+        assertThat(versionSortKey("v1.0")).isNull();
+        assertThat(versionSortKey("1.0-")).isNull();
+        assertThat(versionSortKey("")).isNull();
+    }
+
+    @Test
+    public void hasVersionInRangeTest() {
+        UUID sbomId = sbomRepository.findByProductName(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME).orElseThrow().getId();
+        Specification<ExternalPurlRef> refs = ExternalPurlRefSpecs.hasSbomId(sbomId)
+                .and(ExternalPurlRefSpecs.hasCategory(ReferenceCategory.EXTERNAL_MANAGER.name()));
+        List<ExternalPurlRef> allRefs = externalPurlRefRepository.findAll(refs).stream()
+                .filter(ref -> Objects.nonNull(ref.getPurl().getVersion()))
+                .toList();
+        assertThat(allRefs).isNotEmpty();
+
+        List<Pair<String, String>> ranges = List.of(Pair.of("3.4.5", ""), Pair.of("", "3.4.6"), Pair.of("1.0", "2.9.9"),
+                Pair.of("3.4.5-rc1", "3.4.14"), Pair.of("v1.0", "z"), Pair.of("0", "v9"));
+        for (Pair<String, String> range : ranges) {
+            String start = range.getFirst();
+            String end = range.getSecond();
+            List<UUID> expected = allRefs.stream()
+                    .filter(ref -> inRange(ref.getPurl().getVersion(), start, end))
+                    .map(ExternalPurlRef::getId)
+                    .toList();
+            List<UUID> result = externalPurlRefRepository.findAll(refs.and(ExternalPurlRefSpecs.hasVersionInRange(start, end)))
+                    .stream()
+                    .map(ExternalPurlRef::getId)
+                    .toList();
+            assertThat(result).as("range [%s, %s]", start, end).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void generatedPurlColumnsTest() {
+        Number refs = (Number) entityManager.createNativeQuery("SELECT count(*) FROM external_purl_ref").getSingleResult();
+        Number mismatches = (Number) entityManager.createNativeQuery("SELECT count(*) FROM external_purl_ref WHERE " +
+                        "purl_type IS DISTINCT FROM jsonb_extract_path_text(purl, 'type') " +
+                        "OR purl_namespace IS DISTINCT FROM jsonb_extract_path_text(purl, 'namespace') " +
+                        "OR purl_name IS DISTINCT FROM jsonb_extract_path_text(purl, 'name') " +
+                        "OR purl_version IS DISTINCT FROM jsonb_extract_path_text(purl, 'version')")
+                .getSingleResult();
+        assertThat(refs.longValue()).isPositive();
+        assertThat(mismatches.longValue()).isZero();
+    }
+
+    @Test
+    public void queryPackageRefByRelationFuzzyTest() {
+        ExternalPurlRefCondition condition = ExternalPurlRefCondition.Builder.newBuilder()
+                .productName(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME)
+                .sbomId(sbomRepository.findByProductName(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME).orElseThrow().getId())
+                .binaryType(ReferenceCategory.RELATIONSHIP_MANAGER.name())
+                .type("rpm")
+                .namespace("")
+                .name("hiv")
+                .build();
+        condition.setTypeExactly(false);
+        condition.setType("rp");
+
+        Page<ExternalPurlRef> pageResult = externalPurlRefRepository.queryPackageRefByRelation(condition, PageRequest.of(0, 15));
+
+        assertThat(condition.isNameExactly()).isFalse();
+        assertThat(pageResult.getContent().stream().map(it -> it.getPurl().getName()).toList())
+                .contains("hadoop-3.1-common", "spark", "storm");
+        assertThat(pageResult.getContent()).allMatch(it -> it.getCategory().equals(ReferenceCategory.PACKAGE_MANAGER.name()));
+
+        condition.setName("hive-not-exist");
+        assertThat(externalPurlRefRepository.queryPackageRefByRelation(condition, PageRequest.of(0, 15))).isEmpty();
+    }
+
     @Test
     public void queryPackageRefByRelationTest() {
         ExternalPurlRefCondition condition = ExternalPurlRefCondition.Builder.newBuilder()
@@ -264,4 +361,22 @@ public class ExternalPurlRefRepositoryTest {
         assertThat(result.get(2).getPurl().getName()).isEqualTo("storm");
     }
 
+    /**
+     * the range filter of the binary query before it was done in the database
+     */
+    private boolean inRange(String version, String start, String end) {
+        if (StringUtils.isNotEmpty(start) && StringUtils.isNotEmpty(end)) {
+            return VersionUtil.inRange(version, start, end);
+        } else if (StringUtils.isEmpty(start)) {
+            return VersionUtil.lessThanOrEqualTo(version, end);
+        } else {
+            return VersionUtil.greaterThanOrEqualTo(version, start);
+        }
+    }
+
+    private String versionSortKey(String version) {
+        return (String) entityManager.createNativeQuery("SELECT version_sort_key(CAST(:version AS TEXT))")
+                .setParameter("version", version)
+                .getSingleResult();
+    }
 }
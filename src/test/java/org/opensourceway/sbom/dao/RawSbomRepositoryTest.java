@@ -0,0 +1,158 @@
+package org.opensourceway.sbom.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Product;
+import org.opensourceway.sbom.model.entity.RawSbom;
+import org.opensourceway.sbom.model.enums.SbomContentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class RawSbomRepositoryTest {
+
+    private static final String PRODUCT_NAME = "rawSbomClaimTestProduct";
+
+    /**
+     * a status no other test uses, so that the claims only see the rows of this test
+     */
+    private static final String TEST_WAIT_STATUS = "CLAIM_TEST_WAIT";
+
+    private static final List<String> BUSY_STATUS = List.of(SbomConstants.TASK_STATUS_RUNNING,
+            SbomConstants.TASK_STATUS_FINISH_PARSE);
+
+    @Autowired
+    private RawSbomRepository rawSbomRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        Product product = new Product();
+        product.setName(PRODUCT_NAME);
+        product.setAttribute(Map.of("productType", PRODUCT_NAME));
+        product = productRepository.save(product);
+
+        for (SbomContentType contentType : List.of(SbomContentType.SPDX_2_2_JSON_SBOM, SbomContentType.CYCLONEDX_1_4_JSON_SBOM)) {
+            RawSbom rawSbom = new RawSbom();
+            rawSbom.setProduct(product);
+            rawSbom.setValueType(contentType.getType());
+            rawSbom.setValue(new byte[0]);
+            rawSbom.setTaskStatus(TEST_WAIT_STATUS);
+            rawSbomRepository.save(rawSbom);
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        productRepository.findByName(PRODUCT_NAME).ifPresent(productRepository::delete);
+    }
+
+    @Test
+    public void concurrentClaimsOfOneProduct() throws Exception {
+        int workers = 4;
+        CyclicBarrier barrier = new CyclicBarrier(workers);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executorService = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Boolean>> claims = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                claims.add(executorService.submit(() -> {
+                    barrier.await();
+                    return transactionTemplate.execute(status -> {
+                        Optional<RawSbom> rawSbom = rawSbomRepository.claimOneIdleProductTaskByTaskStatusWithLock(
+                                TEST_WAIT_STATUS, BUSY_STATUS);
+                        rawSbom.ifPresent(it -> {
+                            it.setTaskStatus(SbomConstants.TASK_STATUS_RUNNING);
+                            rawSbomRepository.saveAndFlush(it);
+                        });
+                        // keep the claim uncommitted for a while, the other workers run their claims meanwhile
+                        try {
+                            Thread.sleep(500);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return rawSbom.isPresent();
+                    });
+                }));
+            }
+
+            int claimed = 0;
+            for (Future<Boolean> claim : claims) {
+                claimed += Boolean.TRUE.equals(claim.get()) ? 1 : 0;
+            }
+            assertThat(claimed).isEqualTo(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        List<String> statuses = productRepository.findByName(PRODUCT_NAME).orElseThrow().getRawSboms().stream()
+                .map(RawSbom::getTaskStatus)
+                .toList();
+        assertThat(statuses).containsExactlyInAnyOrder(SbomConstants.TASK_STATUS_RUNNING, TEST_WAIT_STATUS);
+    }
+
+    @Test
+    public void claimAfterTaskFinished() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        RawSbom first = transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS).orElseThrow());
+        assertThat(first).isNotNull();
+        first.setTaskStatus(SbomConstants.TASK_STATUS_RUNNING);
+        rawSbomRepository.save(first);
+
+        assertThat(transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS))).isEmpty();
+
+        first.setTaskStatus(SbomConstants.TASK_STATUS_FINISH);
+        rawSbomRepository.save(first);
+        Optional<RawSbom> second = transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS));
+        assertThat(second).isPresent();
+        assertThat(second.get().getId()).isNotEqualTo(first.getId());
+    }
+
+    @Test
+    public void waitingTasksLeftWhileProductIsBusy() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        RawSbom first = transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS).orElseThrow());
+        assertThat(first).isNotNull();
+        first.setTaskStatus(SbomConstants.TASK_STATUS_RUNNING);
+        rawSbomRepository.save(first);
+
+        // nothing can be claimed, but the queue is not empty, a read job worker backs off instead of exiting
+        assertThat(transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS))).isEmpty();
+        assertThat(rawSbomRepository.existsByTaskStatus(TEST_WAIT_STATUS)).isTrue();
+
+        first.setTaskStatus(SbomConstants.TASK_STATUS_FINISH);
+        rawSbomRepository.save(first);
+        RawSbom second = transactionTemplate.execute(status -> rawSbomRepository
+                .claimOneIdleProductTaskByTaskStatusWithLock(TEST_WAIT_STATUS, BUSY_STATUS).orElseThrow());
+        assertThat(second).isNotNull();
+        second.setTaskStatus(SbomConstants.TASK_STATUS_FINISH);
+        rawSbomRepository.save(second);
+        assertThat(rawSbomRepository.existsByTaskStatus(TEST_WAIT_STATUS)).isFalse();
+    }
+}
@@ -112,6 +112,19 @@ public class RepoMetaRepositoryTest {
 
     @Test
     @Order(5)
+    public void selectRepoMetaByPackageNamesTest() {
+        List<RepoMeta> repoMetaList = repoMetaRepository.queryRepoMetaByPackageNames(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME, "openEuler-22.03-LTS",
+                List.of("389-ds-base", "389-ds-base-devel", "389-ds-base-XXX"));
+        assertThat(repoMetaList.size()).isEqualTo(1);
+        assertThat(repoMetaList.get(0).getPackageNames()).contains("389-ds-base", "389-ds-base-devel");
+
+        repoMetaList = repoMetaRepository.queryRepoMetaByPackageNames(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME, "openEuler-22.03-LTS",
+                List.of("389-ds-base-XXX"));
+        assertThat(CollectionUtils.isNotEmpty(repoMetaList)).isFalse();
+    }
+
+    @Test
+    @Order(6)
     public void deleteRepoMetaTest() {
         Optional<RepoMeta> repoMetaOptional = repoMetaRepository.findByProductTypeAndRepoNameAndBranch(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME,
                 "three-eight-nine-ds-base",
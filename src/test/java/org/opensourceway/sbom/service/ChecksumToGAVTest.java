@@ -5,16 +5,23 @@ import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.mockito.Mockito;
 import org.opensourceway.sbom.SbomManagerApplication;
 import org.opensourceway.sbom.TestConstants;
+import org.opensourceway.sbom.api.checksum.SonatypeClient;
+import org.opensourceway.sbom.dao.PackageMetaRepository;
 import org.opensourceway.sbom.dao.PackageRepository;
 import org.opensourceway.sbom.dao.ProductRepository;
 import org.opensourceway.sbom.dao.SbomRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.entity.ExternalPurlRef;
 import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.PackageMeta;
 import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.pojo.response.checksum.maven.Docs;
+import org.opensourceway.sbom.model.pojo.response.checksum.maven.GAVInfo;
+import org.opensourceway.sbom.model.pojo.response.checksum.maven.Response;
 import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
 import org.opensourceway.sbom.model.spdx.ReferenceCategory;
 import org.opensourceway.sbom.service.checksum.impl.ChecksumServiceImpl;
@@ -22,10 +29,13 @@ import org.opensourceway.sbom.utils.SbomApplicationContextHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -33,6 +43,25 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 @AutoConfigureMockMvc
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class ChecksumToGAVTest {
+
+    private static final String BULK_PRODUCT_NAME = "checksumBulkTest";
+
+    private static final String KNOWN_CHECKSUM = "checksum-bulk-test-known";
+
+    private static final String KNOWN_WITHOUT_GAV_CHECKSUM = "checksum-bulk-test-known-without-gav";
+
+    private static final String MISSING_CHECKSUM = "checksum-bulk-test-missing";
+
+    private static final String MISSING_WITHOUT_GAV_CHECKSUM = "checksum-bulk-test-missing-without-gav";
+
+    private static final String RESOLVED_MEANWHILE_CHECKSUM = "checksum-bulk-test-resolved-meanwhile";
+
+    @SpyBean(name = "sonatypeClientImpl")
+    private SonatypeClient sonatypeClient;
+
+    @Autowired
+    private PackageMetaRepository packageMetaRepository;
+
     @Autowired
     private SbomRepository sbomRepository;
 
@@ -150,4 +179,108 @@ public class ChecksumToGAVTest {
         assertThat(pkg1.getExternalPurlRefs().get(0).getPurl().getName()).isEqualTo("log4j");
         assertThat(pkg1.getExternalPurlRefs().get(0).getPurl().getVersion()).isEqualTo("1.2.17");
     }
+
+    /**
+     * All the checksum refs of a package are resolved together: known checksums are read from package_meta at once,
+     * each missing checksum is requested once and saved by the native upsert.
+     */
+    @Test
+    @Order(3)
+    public void resolveChecksumsOfPackageInBulk() {
+        productRepository.findByName(BULK_PRODUCT_NAME).ifPresent(product -> productRepository.delete(product));
+        packageMetaRepository.deleteAll(packageMetaRepository.findAllById(List.of(KNOWN_CHECKSUM,
+                KNOWN_WITHOUT_GAV_CHECKSUM, MISSING_CHECKSUM, MISSING_WITHOUT_GAV_CHECKSUM, RESOLVED_MEANWHILE_CHECKSUM)));
+        PackageUrlVo knownPurl = new PackageUrlVo("pkg", "maven", "org.apache.hbase", "hbase-common", "2.0.0-alpha4", null, null);
+        packageMetaRepository.save(packageMeta(KNOWN_CHECKSUM, knownPurl));
+        packageMetaRepository.save(packageMeta(KNOWN_WITHOUT_GAV_CHECKSUM, null));
+        PackageUrlVo meanwhilePurl = new PackageUrlVo("pkg", "maven", "org.slf4j", "slf4j-api", "1.7.36", null, null);
+
+        Mockito.doReturn(gavInfo("log4j", "log4j", "1.2.17")).when(sonatypeClient).getGAVByChecksum(MISSING_CHECKSUM);
+        Mockito.doReturn(gavInfo()).when(sonatypeClient).getGAVByChecksum(MISSING_WITHOUT_GAV_CHECKSUM);
+        Mockito.doAnswer(invocation -> {
+            // another chunk resolves the same checksum in the meantime, the upsert must keep its row
+            PackageMeta resolvedMeanwhile = packageMeta(RESOLVED_MEANWHILE_CHECKSUM, meanwhilePurl);
+            resolvedMeanwhile.setExtendedAttr(Map.of("doc_count", 2));
+            packageMetaRepository.save(resolvedMeanwhile);
+            return gavInfo("org.slf4j", "slf4j-api", "1.7.36");
+        }).when(sonatypeClient).getGAVByChecksum(RESOLVED_MEANWHILE_CHECKSUM);
+
+        Package pkg = initBulkChecksumSbom(KNOWN_CHECKSUM, KNOWN_WITHOUT_GAV_CHECKSUM, MISSING_CHECKSUM, MISSING_CHECKSUM,
+                MISSING_WITHOUT_GAV_CHECKSUM, RESOLVED_MEANWHILE_CHECKSUM);
+        List<List<ExternalPurlRef>> externalPurlRefList = checksumServiceImpl.extractGAVByChecksumRef(pkg.getId(),
+                ReferenceCategory.EXTERNAL_MANAGER.name(), SbomConstants.ExternalPurlRef_TYPE_CHECKSUM);
+
+        Assertions.assertThat(externalPurlRefList.get(0).stream().map(ExternalPurlRef::getPurl))
+                .containsExactlyInAnyOrder(knownPurl, meanwhilePurl,
+                        new PackageUrlVo("pkg", "maven", "log4j", "log4j", "1.2.17", null, null));
+        Assertions.assertThat(externalPurlRefList.get(1)).hasSize(3);
+
+        Mockito.verify(sonatypeClient, Mockito.times(1)).getGAVByChecksum(MISSING_CHECKSUM);
+        Mockito.verify(sonatypeClient, Mockito.times(1)).getGAVByChecksum(MISSING_WITHOUT_GAV_CHECKSUM);
+        Mockito.verify(sonatypeClient, Mockito.never()).getGAVByChecksum(KNOWN_CHECKSUM);
+        Mockito.verify(sonatypeClient, Mockito.never()).getGAVByChecksum(KNOWN_WITHOUT_GAV_CHECKSUM);
+
+        PackageMeta missing = packageMetaRepository.findById(MISSING_CHECKSUM).orElseThrow();
+        assertThat(missing.getChecksumType()).isEqualTo("sha1");
+        assertThat(missing.getPurl()).isEqualTo(new PackageUrlVo("pkg", "maven", "log4j", "log4j", "1.2.17", null, null));
+        assertThat(missing.getExtendedAttr()).isEqualTo(Map.of("doc_count", 1));
+        PackageMeta missingWithoutGav = packageMetaRepository.findById(MISSING_WITHOUT_GAV_CHECKSUM).orElseThrow();
+        assertThat(missingWithoutGav.getPurl()).isNull();
+        assertThat(missingWithoutGav.getExtendedAttr()).isEqualTo(Map.of("doc_count", 0));
+        assertThat(packageMetaRepository.findById(RESOLVED_MEANWHILE_CHECKSUM).orElseThrow().getExtendedAttr())
+                .isEqualTo(Map.of("doc_count", 2));
+
+        productRepository.findByName(BULK_PRODUCT_NAME).ifPresent(product -> productRepository.delete(product));
+    }
+
+    private Package initBulkChecksumSbom(String... checksums) {
+        Product product = new Product();
+        product.setName(BULK_PRODUCT_NAME);
+        product.setAttribute(Map.of("productType", "testProduct", "arg", "8"));
+        Sbom sbom = new Sbom(product);
+        sbom.setName("checksumBulkTest");
+        product.setSbom(sbom);
+        Package pkg = new Package();
+        pkg.setName("bulk");
+        pkg.setSbom(sbom);
+        pkg.setExternalPurlRefs(Stream.of(checksums).map(checksum -> {
+            ExternalPurlRef externalPurlRef = new ExternalPurlRef();
+            externalPurlRef.setType(SbomConstants.ExternalPurlRef_TYPE_CHECKSUM);
+            externalPurlRef.setCategory(ReferenceCategory.EXTERNAL_MANAGER.name());
+            externalPurlRef.setPurl(new PackageUrlVo("pkg", "maven", "sha1", checksum, "1.0.0", null, null));
+            externalPurlRef.setPkg(pkg);
+            return externalPurlRef;
+        }).collect(Collectors.toCollection(ArrayList::new)));
+        sbom.setPackages(List.of(pkg));
+        productRepository.save(product);
+
+        Sbom savedSbom = sbomRepository.findByProductName(BULK_PRODUCT_NAME).orElseThrow();
+        return packageRepository.findBySbomIdAndSpdxId(savedSbom.getId(), null).get(0);
+    }
+
+    private PackageMeta packageMeta(String checksum, PackageUrlVo purl) {
+        PackageMeta packageMeta = new PackageMeta();
+        packageMeta.setChecksum(checksum);
+        packageMeta.setChecksumType("sha1");
+        packageMeta.setPurl(purl);
+        packageMeta.setExtendedAttr(Map.of("doc_count", purl == null ? 0 : 1));
+        return packageMeta;
+    }
+
+    private GAVInfo gavInfo(String group, String artifact, String version) {
+        Docs docs = new Docs();
+        docs.setGroup(group);
+        docs.setArtifact(artifact);
+        docs.setVersion(version);
+        return gavInfo(docs);
+    }
+
+    private GAVInfo gavInfo(Docs... docs) {
+        Response response = new Response();
+        response.setNumFound(docs.length);
+        response.setDocs(List.of(docs));
+        GAVInfo gavInfo = new GAVInfo();
+        gavInfo.setResponse(response);
+        return gavInfo;
+    }
 }
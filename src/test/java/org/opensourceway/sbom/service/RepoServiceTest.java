@@ -10,14 +10,17 @@ import org.opensourceway.sbom.api.repo.RepoMetaParser;
 import org.opensourceway.sbom.api.repo.RepoService;
 import org.opensourceway.sbom.dao.RepoMetaRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
 import org.opensourceway.sbom.model.entity.RepoMeta;
 import org.opensourceway.sbom.model.pojo.vo.repo.RepoInfoVo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -101,4 +104,35 @@ public class RepoServiceTest {
         System.out.printf("fetchOpenEulerRepoMetaTest coast:%d, repoSet size:%d%n", (System.currentTimeMillis() - start), result.size());
     }
 
+    @Test
+    @Order(3)
+    public void updateSyncedAtTest() {
+        RepoMeta withAttr = new RepoMeta();
+        withAttr.setProductType(TestConstants.PUBLISH_SAMPLE_PRODUCT_NAME);
+        withAttr.setRepoName("synced-at-with-attr");
+        withAttr.setBranch("openEuler-22.03-LTS");
+        Map<String, Object> extendedAttr = new HashMap<>();
+        extendedAttr.put(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c1");
+        extendedAttr.put(SbomRepoConstants.SYNCED_AT_KEY, 1L);
+        withAttr.setExtendedAttr(extendedAttr);
+        withAttr = repoMetaRepository.save(withAttr);
+        RepoMeta withoutAttr = new RepoMeta();
+        withoutAttr.setProductType(TestConstants.PUBLISH_SAMPLE_PRODUCT_NAME);
+        withoutAttr.setRepoName("synced-at-without-attr");
+        withoutAttr.setBranch("openEuler-22.03-LTS");
+        withoutAttr = repoMetaRepository.save(withoutAttr);
+
+        long syncedAt = System.currentTimeMillis();
+        assertThat(repoMetaRepository.updateSyncedAt(List.of(withAttr.getId(), withoutAttr.getId()), syncedAt)).isEqualTo(2);
+
+        assertThat(repoMetaRepository.findById(withAttr.getId()).orElseThrow().getExtendedAttr())
+                .containsOnlyKeys(SbomRepoConstants.LAST_COMMIT_ID_KEY, SbomRepoConstants.SYNCED_AT_KEY)
+                .containsEntry(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c1")
+                .containsEntry(SbomRepoConstants.SYNCED_AT_KEY, syncedAt);
+        assertThat(repoMetaRepository.findById(withoutAttr.getId()).orElseThrow().getExtendedAttr())
+                .containsOnlyKeys(SbomRepoConstants.SYNCED_AT_KEY)
+                .containsEntry(SbomRepoConstants.SYNCED_AT_KEY, syncedAt);
+
+        repoMetaRepository.deleteByProductType(TestConstants.PUBLISH_SAMPLE_PRODUCT_NAME);
+    }
 }
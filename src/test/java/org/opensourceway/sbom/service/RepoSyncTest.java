@@ -0,0 +1,300 @@
+package org.opensourceway.sbom.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.api.repo.RepoMetaParser;
+import org.opensourceway.sbom.api.repo.RepoService;
+import org.opensourceway.sbom.dao.RepoMetaRepository;
+import org.opensourceway.sbom.dao.RepoSyncCheckpointRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.entity.RepoMeta;
+import org.opensourceway.sbom.model.entity.RepoSyncCheckpoint;
+import org.opensourceway.sbom.model.pojo.vo.repo.RepoInfoVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.util.Pair;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+@SpringBootTest(properties = {
+        "sbom.repo-sync.batch-size=1",
+        "sbom.repo-sync.heartbeat-interval-seconds=1"})
+public class RepoSyncTest {
+
+    private static final String BRANCH = "openEuler-22.03-LTS";
+
+    private static final String REPO_NAME_PREFIX = "repo-sync-test-";
+
+    @MockBean
+    private RepoMetaParser repoMetaParser;
+
+    @Autowired
+    private RepoService repoService;
+
+    @Autowired
+    private RepoMetaRepository repoMetaRepository;
+
+    @Autowired
+    private RepoSyncCheckpointRepository checkpointRepository;
+
+    private RepoSyncCheckpoint originalCheckpoint;
+
+    @BeforeEach
+    public void setUp() {
+        originalCheckpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElse(null);
+        cleanUpRepoMetas();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanUpRepoMetas();
+        if (originalCheckpoint == null) {
+            checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).ifPresent(checkpointRepository::delete);
+        } else {
+            checkpointRepository.save(originalCheckpoint);
+        }
+    }
+
+    @Test
+    public void resumeInterruptedRun() throws IOException {
+        long runStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(runStartedAt, null, null, null);
+
+        saveRepoMeta("synced", "c1", runStartedAt + 1000L);
+        RepoMeta unchanged = saveRepoMeta("unchanged", "c2", runStartedAt - 1000L);
+        RepoMeta changed = saveRepoMeta("changed", "c3", null);
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenReturn(repoInfos("synced", "unchanged", "changed", "new"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), ArgumentMatchers.eq("c2"))).thenReturn(Pair.of(false, ""));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), ArgumentMatchers.eq("c3"))).thenReturn(Pair.of(true, "c3-new"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), ArgumentMatchers.isNull())).thenReturn(Pair.of(true, "c4"));
+
+        long start = System.currentTimeMillis();
+        Set<RepoInfoVo> result = repoService.fetchOpenEulerRepoMeta();
+
+        assertThat(result).extracting(RepoInfoVo::getRepoName)
+                .containsExactlyInAnyOrder(REPO_NAME_PREFIX + "changed", REPO_NAME_PREFIX + "new");
+        // the repo synced by the interrupted run is not checked again
+        Mockito.verify(repoMetaParser, Mockito.never()).isRepoChanged(any(), ArgumentMatchers.eq("c1"));
+        Mockito.verify(repoMetaParser, Mockito.times(2)).fetchRepoBuildFileInfo(any());
+        Mockito.verify(repoMetaParser, Mockito.times(2)).fetchRepoPackageAndPatchInfo(any());
+
+        // the unchanged repo is only marked as synced, its other attributes are kept
+        assertThat(findRepoMeta("unchanged").getExtendedAttr())
+                .containsEntry(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c2")
+                .hasEntrySatisfying(SbomRepoConstants.SYNCED_AT_KEY,
+                        syncedAt -> assertThat(((Number) syncedAt).longValue()).isGreaterThanOrEqualTo(start));
+        assertThat(findRepoMeta("unchanged").getId()).isEqualTo(unchanged.getId());
+        RepoMeta savedChanged = findRepoMeta("changed");
+        assertThat(savedChanged.getId()).isEqualTo(changed.getId());
+        assertThat(savedChanged.getExtendedAttr())
+                .containsEntry(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c3-new")
+                .containsKey(SbomRepoConstants.SYNCED_AT_KEY);
+        assertThat(findRepoMeta("new").getExtendedAttr()).containsEntry(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c4");
+
+        // the resumed run keeps its start time, and is finished and released at the end
+        RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+        assertThat(checkpoint.getStartedAt().getTime()).isEqualTo(runStartedAt);
+        assertThat(checkpoint.getFinishedAt()).isNotNull();
+        assertThat(checkpoint.getClaimedBy()).isNull();
+    }
+
+    @Test
+    public void startNewRunAfterFinishedRun() throws IOException {
+        long lastRunStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(lastRunStartedAt, lastRunStartedAt + 1000L, null, null);
+
+        saveRepoMeta("synced", "c1", lastRunStartedAt + 1000L);
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenReturn(repoInfos("synced"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), any())).thenReturn(Pair.of(false, ""));
+
+        assertThat(repoService.fetchOpenEulerRepoMeta()).isEmpty();
+
+        // synced by the finished run, so it's checked again by the new run
+        Mockito.verify(repoMetaParser).isRepoChanged(any(), ArgumentMatchers.eq("c1"));
+        Mockito.verify(repoMetaParser, Mockito.never()).fetchRepoBuildFileInfo(any());
+        RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+        assertThat(checkpoint.getStartedAt().getTime()).isGreaterThan(lastRunStartedAt);
+        assertThat(checkpoint.getFinishedAt()).isAfterOrEqualTo(checkpoint.getStartedAt());
+    }
+
+    @Test
+    public void skipRunWhileAnotherRunHoldsTheClaim() throws Exception {
+        long lastRunStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(lastRunStartedAt, lastRunStartedAt + 1000L, null, null);
+
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch skipped = new CountDownLatch(1);
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenAnswer(invocation -> {
+            fetching.countDown();
+            assertThat(skipped.await(30, TimeUnit.SECONDS)).isTrue();
+            return repoInfos("new");
+        });
+        Mockito.when(repoMetaParser.isRepoChanged(any(), any())).thenReturn(Pair.of(true, "c1"));
+
+        // e.g. the scheduled job
+        CompletableFuture<Set<RepoInfoVo>> firstRun = CompletableFuture.supplyAsync(() -> {
+            try {
+                return repoService.fetchOpenEulerRepoMeta();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(fetching.await(30, TimeUnit.SECONDS)).isTrue();
+
+        // e.g. the endpoint, started while the scheduled job is syncing
+        Set<RepoInfoVo> secondRunResult;
+        try {
+            secondRunResult = repoService.fetchOpenEulerRepoMeta();
+        } finally {
+            skipped.countDown();
+        }
+
+        assertThat(secondRunResult).isEmpty();
+        assertThat(firstRun.get(30, TimeUnit.SECONDS)).extracting(RepoInfoVo::getRepoName)
+                .containsExactly(REPO_NAME_PREFIX + "new");
+        Mockito.verify(repoMetaParser, Mockito.times(1)).fetchObsMetaSourceCode();
+        Mockito.verify(repoMetaParser, Mockito.times(1)).fetchRepoBuildFileInfo(any());
+        RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+        assertThat(checkpoint.getFinishedAt()).isNotNull();
+        assertThat(checkpoint.getClaimedBy()).isNull();
+    }
+
+    @Test
+    public void takeOverStaleClaim() throws IOException {
+        long runStartedAt = System.currentTimeMillis() - 7_200_000L;
+        saveCheckpoint(runStartedAt, null, "stale-run", runStartedAt);
+
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenReturn(repoInfos("new"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), any())).thenReturn(Pair.of(true, "c1"));
+
+        assertThat(repoService.fetchOpenEulerRepoMeta()).hasSize(1);
+
+        RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+        assertThat(checkpoint.getStartedAt().getTime()).isEqualTo(runStartedAt);
+        assertThat(checkpoint.getFinishedAt()).isNotNull();
+        assertThat(checkpoint.getClaimedBy()).isNull();
+    }
+
+    @Test
+    public void releaseClaimOfFailedRun() throws IOException {
+        long lastRunStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(lastRunStartedAt, lastRunStartedAt + 1000L, null, null);
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenThrow(new IOException("obs meta is unavailable"));
+
+        assertThatThrownBy(() -> repoService.fetchOpenEulerRepoMeta()).isInstanceOf(IOException.class);
+
+        // unfinished, and resumed by the next run at once
+        RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+        assertThat(checkpoint.getFinishedAt()).isNull();
+        assertThat(checkpoint.getClaimedBy()).isNull();
+        assertThat(checkpointRepository.claim(SbomConstants.PRODUCT_OPENEULER_NAME, "next-run", 1800)).isEqualTo(1);
+        assertThat(checkpointRepository.claim(SbomConstants.PRODUCT_OPENEULER_NAME, "another-run", 1800)).isZero();
+        assertThat(checkpointRepository.release(SbomConstants.PRODUCT_OPENEULER_NAME, "next-run")).isEqualTo(1);
+    }
+
+    @Test
+    public void keepClaimWhileRepoIsSlow() throws IOException {
+        long lastRunStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(lastRunStartedAt, lastRunStartedAt + 1000L, null, null);
+
+        Map<String, Timestamp> heartbeats = new HashMap<>();
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenReturn(repoInfos("slow"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), any())).thenAnswer(invocation -> {
+            heartbeats.put("before", checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow().getHeartbeatAt());
+            // several heartbeat intervals without any repo completed
+            TimeUnit.MILLISECONDS.sleep(3500);
+            heartbeats.put("after", checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow().getHeartbeatAt());
+            return Pair.of(true, "c1");
+        });
+
+        assertThat(repoService.fetchOpenEulerRepoMeta()).hasSize(1);
+
+        assertThat(heartbeats.get("after")).isAfter(heartbeats.get("before"));
+        assertThat(findRepoMeta("slow").getExtendedAttr()).containsEntry(SbomRepoConstants.LAST_COMMIT_ID_KEY, "c1");
+    }
+
+    @Test
+    public void stopWhenClaimIsTakenOver() {
+        long lastRunStartedAt = System.currentTimeMillis() - 60_000L;
+        saveCheckpoint(lastRunStartedAt, lastRunStartedAt + 1000L, null, null);
+
+        Mockito.when(repoMetaParser.fetchObsMetaSourceCode()).thenReturn(repoInfos("taken-over"));
+        Mockito.when(repoMetaParser.isRepoChanged(any(), any())).thenAnswer(invocation -> {
+            // e.g. this run stalled beyond the claim timeout and another run took over meanwhile
+            RepoSyncCheckpoint checkpoint = checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow();
+            checkpoint.setClaimedBy("another-run");
+            checkpointRepository.save(checkpoint);
+            return Pair.of(true, "c1");
+        });
+
+        assertThatThrownBy(() -> repoService.fetchOpenEulerRepoMeta())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("taken over by another run");
+
+        // nothing saved by this run, and the claim of the other run is kept
+        assertThat(repoMetaRepository.findByProductTypeAndRepoNameAndBranch(SbomConstants.PRODUCT_OPENEULER_NAME,
+                REPO_NAME_PREFIX + "taken-over", BRANCH)).isEmpty();
+        assertThat(checkpointRepository.findById(SbomConstants.PRODUCT_OPENEULER_NAME).orElseThrow().getClaimedBy())
+                .isEqualTo("another-run");
+    }
+
+    private void saveCheckpoint(long startedAt, Long finishedAt, String claimedBy, Long heartbeatAt) {
+        RepoSyncCheckpoint checkpoint = new RepoSyncCheckpoint();
+        checkpoint.setProductType(SbomConstants.PRODUCT_OPENEULER_NAME);
+        checkpoint.setStartedAt(new Timestamp(startedAt));
+        checkpoint.setFinishedAt(finishedAt == null ? null : new Timestamp(finishedAt));
+        checkpoint.setClaimedBy(claimedBy);
+        checkpoint.setHeartbeatAt(heartbeatAt == null ? null : new Timestamp(heartbeatAt));
+        checkpointRepository.save(checkpoint);
+    }
+
+    private Set<RepoInfoVo> repoInfos(String... repoNames) {
+        Set<RepoInfoVo> repoInfos = new LinkedHashSet<>();
+        for (String repoName : repoNames) {
+            repoInfos.add(new RepoInfoVo(REPO_NAME_PREFIX + repoName, BRANCH));
+        }
+        return repoInfos;
+    }
+
+    private RepoMeta saveRepoMeta(String repoName, String lastCommitId, Long syncedAt) {
+        RepoMeta repoMeta = new RepoMeta();
+        repoMeta.setProductType(SbomConstants.PRODUCT_OPENEULER_NAME);
+        repoMeta.setRepoName(REPO_NAME_PREFIX + repoName);
+        repoMeta.setBranch(BRANCH);
+        Map<String, Object> extendedAttr = new HashMap<>();
+        extendedAttr.put(SbomRepoConstants.LAST_COMMIT_ID_KEY, lastCommitId);
+        if (syncedAt != null) {
+            extendedAttr.put(SbomRepoConstants.SYNCED_AT_KEY, syncedAt);
+        }
+        repoMeta.setExtendedAttr(extendedAttr);
+        return repoMetaRepository.save(repoMeta);
+    }
+
+    private RepoMeta findRepoMeta(String repoName) {
+        return repoMetaRepository.findByProductTypeAndRepoNameAndBranch(SbomConstants.PRODUCT_OPENEULER_NAME,
+                REPO_NAME_PREFIX + repoName, BRANCH).orElseThrow();
+    }
+
+    private void cleanUpRepoMetas() {
+        repoMetaRepository.deleteAllInBatch(repoMetaRepository.findByProductType(SbomConstants.PRODUCT_OPENEULER_NAME).stream()
+                .filter(it -> it.getRepoName().startsWith(REPO_NAME_PREFIX))
+                .toList());
+    }
+}
@@ -0,0 +1,146 @@
+package org.opensourceway.sbom.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.TestConstants;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.opensourceway.sbom.dao.VulnerabilityRepository;
+import org.opensourceway.sbom.service.sbom.impl.SbomExportCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "sbom.export.cache.dir=${java.io.tmpdir}/sbom-export-cache-test",
+        "sbom.export.cache.max-size=64B"})
+public class SbomExportCacheTest {
+
+    private static final Path CACHE_DIR = Path.of(System.getProperty("java.io.tmpdir"), "sbom-export-cache-test");
+
+    @Autowired
+    private SbomExportCache sbomExportCache;
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Autowired
+    private VulnerabilityRepository vulnerabilityRepository;
+
+    private Path tmpDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tmpDir = Files.createTempDirectory("test");
+        sbomExportCache.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tmpDir);
+        FileSystemUtils.deleteRecursively(CACHE_DIR);
+    }
+
+    @Test
+    public void serveCachedArchiveUntilSbomChanged() throws IOException {
+        List<String> exportParams = List.of("exportSbom", "spdx", "2.2", "json");
+        SbomExportCache.CacheKey key = createKey(exportParams);
+        assertThat(sbomExportCache.open(key)).isNull();
+
+        sbomExportCache.put(key, writeArchive("v0", "archive of version 0"));
+        assertThat(readArchive(key)).isEqualTo("archive of version 0");
+        assertThat(createKey(List.of("exportSbom", "spdx", "2.2", "yaml"))).isNotEqualTo(key);
+
+        sbomRepository.increaseDataVersion(key.sbomId());
+        SbomExportCache.CacheKey newKey = createKey(exportParams);
+        assertThat(newKey).isNotEqualTo(key);
+        assertThat(sbomExportCache.open(newKey)).isNull();
+
+        // caching the new version removes the archives of the old version
+        sbomExportCache.put(newKey, writeArchive("v1", "archive of version 1"));
+        assertThat(readArchive(newKey)).isEqualTo("archive of version 1");
+        assertThat(sbomExportCache.open(key)).isNull();
+    }
+
+    @Test
+    public void notServedAfterEmbeddedVulnerabilityChanged() throws IOException {
+        List<String> exportParams = List.of("exportSbom", "cyclonedx", "1.4", "json");
+        SbomExportCache.CacheKey key = createKey(exportParams);
+        sbomExportCache.put(key, writeArchive("v0", "archive of version 0"));
+
+        // the vulnerability is referred to by a package of the sample product
+        int sbomCount = sbomRepository.increaseDataVersionByVulIds(
+                List.of(vulnerabilityRepository.findByVulId("CVE-2022-00000-test").orElseThrow().getId()));
+        assertThat(sbomCount).isGreaterThanOrEqualTo(1);
+
+        SbomExportCache.CacheKey newKey = createKey(exportParams);
+        assertThat(newKey.dataVersion()).isGreaterThan(key.dataVersion());
+        assertThat(sbomExportCache.open(newKey)).isNull();
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedArchives() throws IOException {
+        String content = "x".repeat(30);
+        SbomExportCache.CacheKey first = createKey(List.of("first"));
+        SbomExportCache.CacheKey second = createKey(List.of("second"));
+        SbomExportCache.CacheKey third = createKey(List.of("third"));
+
+        sbomExportCache.put(first, writeArchive("first", content));
+        Files.setLastModifiedTime(firstCachedFile(first), FileTime.fromMillis(0));
+        sbomExportCache.put(second, writeArchive("second", content));
+        sbomExportCache.put(third, writeArchive("third", content));
+
+        assertThat(sbomExportCache.open(first)).isNull();
+        assertThat(readArchive(second)).isEqualTo(content);
+        assertThat(readArchive(third)).isEqualTo(content);
+    }
+
+    @Test
+    public void initKeepsFilesNotOwnedByCache() throws IOException {
+        SbomExportCache.CacheKey key = createKey(List.of("exportSbom"));
+        sbomExportCache.put(key, writeArchive("v0", "archive of version 0"));
+        Path foreignFile = Files.writeString(CACHE_DIR.resolve("foreign.txt"), "not cached by the export cache");
+
+        sbomExportCache.init();
+
+        assertThat(sbomExportCache.open(key)).isNull();
+        assertThat(foreignFile).hasContent("not cached by the export cache");
+    }
+
+    @Test
+    public void noKeyWithoutSbom() {
+        assertThat(sbomExportCache.createKey(TestConstants.SAMPLE_PRODUCT_NAME + ".iso", List.of("exportSbom"))).isEmpty();
+    }
+
+    private SbomExportCache.CacheKey createKey(List<String> exportParams) {
+        return sbomExportCache.createKey(TestConstants.SAMPLE_PRODUCT_NAME, exportParams).orElseThrow();
+    }
+
+    private Path firstCachedFile(SbomExportCache.CacheKey key) throws IOException {
+        try (var files = Files.list(CACHE_DIR.resolve("sbom-export-cache").resolve(key.sbomId().toString()))) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private Path writeArchive(String name, String content) throws IOException {
+        return Files.writeString(tmpDir.resolve(name), content);
+    }
+
+    private String readArchive(SbomExportCache.CacheKey key) throws IOException {
+        try (SbomExportCache.ExportArchive archive = sbomExportCache.open(key)) {
+            assertThat(archive).isNotNull();
+            byte[] content = archive.content().readAllBytes();
+            assertThat(archive.size()).isEqualTo(content.length);
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -210,6 +210,25 @@ class SbomServiceTest {
         assertThat(result.getTotalElements()).isEqualTo(7);
     }
 
+    @Test
+    public void queryPackageInfoByBinaryRangePagedTest() {
+        ExternalPurlRefCondition condition = ExternalPurlRefCondition.Builder.newBuilder()
+                .productName(TestConstants.SAMPLE_REPODATA_PRODUCT_NAME)
+                .binaryType(ReferenceCategory.EXTERNAL_MANAGER.name())
+                .type("maven")
+                .namespace("org.apache.zookeeper")
+                .name("zookeeper")
+                .version("")
+                .startVersion("3.4.5")
+                .build();
+        Pageable pageable = PageRequest.of(1, 2);
+
+        PageVo<PackagePurlVo> result = sbomService.queryPackageInfoByBinaryViaSpec(condition, pageable);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+        assertThat(result.getNumberOfElements()).isEqualTo(2);
+    }
+
     @Test
     public void queryPackageInfoByBinaryOnlyNameTest() {
         ExternalPurlRefCondition condition = ExternalPurlRefCondition.Builder.newBuilder()
@@ -0,0 +1,242 @@
+package org.opensourceway.sbom.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.api.sbom.SbomService;
+import org.opensourceway.sbom.dao.ProductRepository;
+import org.opensourceway.sbom.dao.VulnerabilityRepository;
+import org.opensourceway.sbom.model.echarts.Edge;
+import org.opensourceway.sbom.model.echarts.Graph;
+import org.opensourceway.sbom.model.echarts.Node;
+import org.opensourceway.sbom.model.echarts.NodeType;
+import org.opensourceway.sbom.model.entity.ExternalPurlRef;
+import org.opensourceway.sbom.model.entity.ExternalVulRef;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.Product;
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.entity.SbomElementRelationship;
+import org.opensourceway.sbom.model.entity.Vulnerability;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.utils.PurlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Vulnerability impact graph of a product, where package A is impacted:
+ * <pre>
+ *       A
+ *      / \
+ *     B   C
+ *    / \ / \
+ *   X   F   |
+ *    \      |
+ *     `---- D
+ *           |
+ *           E
+ * </pre>
+ * B, C depend on A, F depends on both B and C, X depends on B, D depends on both X and C, E depends on D.
+ * Package G is impacted through a purl provided by it, not through its own purl.
+ */
+@SpringBootTest
+public class VulImpactGraphTest {
+
+    private static final String PRODUCT_NAME = "vulImpactGraphTestProduct";
+
+    private static final String VUL_ID = "CVE-2022-VUL-IMPACT-GRAPH-TEST";
+
+    private static final String PROVIDED_VUL_ID = "CVE-2022-VUL-IMPACT-GRAPH-PROVIDED-TEST";
+
+    @Autowired
+    private SbomService sbomService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private VulnerabilityRepository vulnerabilityRepository;
+
+    private Map<String, String> pkgIds;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        Vulnerability vulnerability = vulnerabilityRepository.save(vulnerability(VUL_ID));
+        Vulnerability providedVulnerability = vulnerabilityRepository.save(vulnerability(PROVIDED_VUL_ID));
+
+        Product product = new Product();
+        product.setName(PRODUCT_NAME);
+        product.setAttribute(Map.of("productType", PRODUCT_NAME));
+        Sbom sbom = new Sbom();
+        sbom.setProduct(product);
+        product.setSbom(sbom);
+
+        List<Package> packages = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d", "e", "f", "x", "g")) {
+            packages.add(pkg(sbom, name));
+        }
+        Map<String, Package> packagesByName = packages.stream().collect(Collectors.toMap(Package::getName, Function.identity()));
+        addVulRef(packagesByName.get("a"), vulnerability, "pkg:pypi/vul-impact-a@1.0");
+        Package g = packagesByName.get("g");
+        g.getExternalPurlRefs().add(purlRef(g, ReferenceCategory.PROVIDE_MANAGER, "pkg:github/vul-impact/provided-g@1.0"));
+        addVulRef(g, providedVulnerability, "pkg:github/vul-impact/provided-g@1.0");
+        sbom.setPackages(packages);
+
+        sbom.setSbomElementRelationships(new ArrayList<>(List.of(
+                dependsOn(sbom, "b", "a"),
+                dependsOn(sbom, "c", "a"),
+                dependsOn(sbom, "x", "b"),
+                dependsOn(sbom, "f", "c"),
+                dependsOn(sbom, "f", "b"),
+                dependsOn(sbom, "d", "x"),
+                dependsOn(sbom, "d", "c"),
+                dependsOn(sbom, "e", "d"))));
+        productRepository.save(product);
+
+        pkgIds = productRepository.findByName(PRODUCT_NAME).orElseThrow().getSbom().getPackages().stream()
+                .collect(Collectors.toMap(Package::getName, it -> it.getId().toString()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        productRepository.findByName(PRODUCT_NAME).ifPresent(productRepository::delete);
+        vulnerabilityRepository.findByVulId(VUL_ID).ifPresent(vulnerabilityRepository::delete);
+        vulnerabilityRepository.findByVulId(PROVIDED_VUL_ID).ifPresent(vulnerabilityRepository::delete);
+    }
+
+    @Test
+    public void attachSharedDependentsToClosestParent() {
+        Graph graph = sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, null, null);
+
+        Map<String, Node> nodes = graph.getNodes().stream()
+                .filter(it -> it.getElementId() != null)
+                .collect(Collectors.toMap(it -> nameOf(it.getElementId()), Function.identity()));
+        assertThat(graph.getNodes()).hasSize(8);
+        assertThat(nodes).containsOnlyKeys("a", "b", "c", "d", "e", "f", "x");
+
+        // F is reached from B and C at the same depth, the first one walked owns it. D is reached from C at depth 2
+        // and from X at depth 3, C owns it, so that D and E sit one level higher than a depth first walk puts them.
+        assertThat(graph.getEdges()).containsExactlyInAnyOrder(
+                new Edge("0", nodes.get("a").getId()),
+                new Edge(nodes.get("a").getId(), nodes.get("b").getId()),
+                new Edge(nodes.get("a").getId(), nodes.get("c").getId()),
+                new Edge(nodes.get("b").getId(), nodes.get("f").getId()),
+                new Edge(nodes.get("b").getId(), nodes.get("x").getId()),
+                new Edge(nodes.get("c").getId(), nodes.get("d").getId()),
+                new Edge(nodes.get("d").getId(), nodes.get("e").getId()));
+
+        assertNode(nodes.get("a"), NodeType.PKG, "1", 0.0, 0.0, 32.0);
+        assertNode(nodes.get("b"), NodeType.TRANSITIVE_DEP, "2", 0.0, 1000.0, 22.0);
+        assertNode(nodes.get("c"), NodeType.TRANSITIVE_DEP, "3", -300.0, 1000.0, 21.0);
+        assertNode(nodes.get("f"), NodeType.TRANSITIVE_DEP, "4", 0.0, 2000.0, 20.0);
+        assertNode(nodes.get("x"), NodeType.TRANSITIVE_DEP, "5", -300.0, 2000.0, 20.0);
+        assertNode(nodes.get("d"), NodeType.TRANSITIVE_DEP, "6", 300.0, 2000.0, 21.0);
+        assertNode(nodes.get("e"), NodeType.TRANSITIVE_DEP, "7", 0.0, 3000.0, 20.0);
+    }
+
+    @Test
+    public void limitDepth() {
+        Graph graph = sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, 1, null);
+
+        assertThat(graph.getNodes().stream().map(it -> nameOf(it.getElementId())))
+                .containsExactlyInAnyOrder(null, "a", "b", "c");
+    }
+
+    @Test
+    public void limitNodesBeforeEveryNode() {
+        // the vulnerability, the provided purl and G take 3 nodes
+        assertThat(sbomService.queryVulImpact(PRODUCT_NAME, PROVIDED_VUL_ID, null, null).getNodes()).hasSize(3);
+
+        Graph graph = sbomService.queryVulImpact(PRODUCT_NAME, PROVIDED_VUL_ID, null, 2);
+        assertThat(graph.getNodes()).hasSize(2);
+        assertThat(graph.getNodes().stream().map(Node::getNodeType))
+                .containsExactlyInAnyOrder(NodeType.VUL.getType(), NodeType.DEP.getType());
+        assertThat(graph.getEdges()).hasSize(1);
+
+        graph = sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, null, 5);
+        assertThat(graph.getNodes()).hasSize(5);
+        assertThat(graph.getEdges()).hasSize(4);
+    }
+
+    @Test
+    public void rejectNonPositiveLimits() {
+        assertThatThrownBy(() -> sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sbomService.queryVulImpact(PRODUCT_NAME, VUL_ID, -1, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String nameOf(String elementId) {
+        return pkgIds.entrySet().stream()
+                .filter(it -> it.getValue().equals(elementId))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void assertNode(Node node, NodeType nodeType, String id, Double x, Double y, Double size) {
+        assertThat(node.getNodeType()).isEqualTo(nodeType.getType());
+        assertThat(node.getId()).isEqualTo(id);
+        assertThat(node.getX()).isEqualTo(x);
+        assertThat(node.getY()).isEqualTo(y);
+        assertThat(node.getSize()).isEqualTo(size);
+    }
+
+    private Vulnerability vulnerability(String vulId) {
+        Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulId(vulId);
+        return vulnerability;
+    }
+
+    private Package pkg(Sbom sbom, String name) {
+        Package pkg = new Package();
+        pkg.setSbom(sbom);
+        pkg.setName(name);
+        pkg.setVersion("1.0");
+        pkg.setSpdxId("SPDXRef-Package-" + name);
+        pkg.setExternalPurlRefs(new ArrayList<>(List.of(
+                purlRef(pkg, ReferenceCategory.PACKAGE_MANAGER, "pkg:pypi/vul-impact-%s@1.0".formatted(name)))));
+        pkg.setExternalVulRefs(new ArrayList<>());
+        return pkg;
+    }
+
+    private ExternalPurlRef purlRef(Package pkg, ReferenceCategory category, String purl) {
+        ExternalPurlRef purlRef = new ExternalPurlRef();
+        purlRef.setPkg(pkg);
+        purlRef.setCategory(category.name());
+        purlRef.setType(ReferenceType.PURL.getType());
+        purlRef.setPurl(PurlUtil.strToPackageUrlVo(purl));
+        return purlRef;
+    }
+
+    private void addVulRef(Package pkg, Vulnerability vulnerability, String purl) {
+        ExternalVulRef vulRef = new ExternalVulRef();
+        vulRef.setPkg(pkg);
+        vulRef.setVulnerability(vulnerability);
+        vulRef.setCategory("SECURITY");
+        vulRef.setPurl(PurlUtil.strToPackageUrlVo(purl));
+        pkg.getExternalVulRefs().add(vulRef);
+    }
+
+    private SbomElementRelationship dependsOn(Sbom sbom, String element, String relatedElement) {
+        SbomElementRelationship relationship = new SbomElementRelationship();
+        relationship.setSbom(sbom);
+        relationship.setElementId("SPDXRef-Package-" + element);
+        relationship.setRelatedElementId("SPDXRef-Package-" + relatedElement);
+        relationship.setRelationshipType(RelationshipType.DEPENDS_ON.name());
+        return relationship;
+    }
+}
@@ -0,0 +1,430 @@
+package org.opensourceway.sbom.service.reader.impl.cyclonedx;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.dao.ChecksumRepository;
+import org.opensourceway.sbom.dao.ExternalPurlRefRepository;
+import org.opensourceway.sbom.dao.PackageRepository;
+import org.opensourceway.sbom.dao.SbomCreatorRepository;
+import org.opensourceway.sbom.dao.SbomElementRelationshipRepository;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Checksum;
+import org.opensourceway.sbom.model.entity.ExternalPurlRef;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.entity.SbomCreator;
+import org.opensourceway.sbom.model.entity.SbomElementRelationship;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.enums.SbomSpecification;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.utils.Mapper;
+import org.opensourceway.sbom.utils.SbomMapperUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@SpringBootTest
+class CycloneDXReaderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CycloneDXReaderTest.class);
+
+    private static final String JSON_PRODUCT_NAME = "CycloneDXReaderJsonTest";
+
+    private static final String XML_PRODUCT_NAME = "CycloneDXReaderXmlTest";
+
+    private static final int COMPONENT_COUNT = 10000;
+
+    private static final double TARGET_COMPONENTS_PER_SECOND = 10000;
+
+    private static final String SERIAL_NUMBER = "urn:uuid:3e671687-395b-41f5-a30f-a58921a69b79";
+
+    @Autowired
+    @Qualifier(SbomConstants.CYCLONEDX_NAME + SbomConstants.READER_NAME)
+    private CycloneDXReader cycloneDXReader;
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Autowired
+    private SbomCreatorRepository sbomCreatorRepository;
+
+    @Autowired
+    private SbomElementRelationshipRepository sbomElementRelationshipRepository;
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private ChecksumRepository checksumRepository;
+
+    @Autowired
+    private ExternalPurlRefRepository externalPurlRefRepository;
+
+    @Test
+    public void readLargeJsonBom() throws IOException {
+        byte[] content = generateJsonBom();
+        assertThat(SbomMapperUtil.fileToSpec(SbomFormat.JSON, content)).isEqualTo(SbomSpecification.CYCLONEDX_1_4);
+
+        long start = System.currentTimeMillis();
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, content);
+        logger.info("read {} json components in {} ms", COMPONENT_COUNT, System.currentTimeMillis() - start);
+
+        assertPersistedBom(JSON_PRODUCT_NAME);
+    }
+
+    /**
+     * throughput target of the streaming reader, run by the benchmark task instead of the default test run
+     */
+    @Test
+    @Tag("benchmark")
+    public void readJsonBomThroughput() throws IOException {
+        byte[] content = generateJsonBom();
+        // warm up
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, content);
+
+        long start = System.nanoTime();
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, content);
+        double componentsPerSecond = COMPONENT_COUNT * 1e9 / (System.nanoTime() - start);
+        logger.info("read json components at {} components/s, target {} components/s",
+                Math.round(componentsPerSecond), Math.round(TARGET_COMPONENTS_PER_SECOND));
+
+        assertPersistedBom(JSON_PRODUCT_NAME);
+        assertThat(componentsPerSecond).isGreaterThanOrEqualTo(TARGET_COMPONENTS_PER_SECOND);
+    }
+
+    @Test
+    public void readLargeXmlBom() throws IOException, XMLStreamException {
+        byte[] content = generateXmlBom();
+        assertThat(SbomMapperUtil.fileToSpec(SbomFormat.XML, content)).isEqualTo(SbomSpecification.CYCLONEDX_1_4);
+
+        long start = System.currentTimeMillis();
+        cycloneDXReader.read(XML_PRODUCT_NAME, SbomFormat.XML, content);
+        logger.info("read {} xml components in {} ms", COMPONENT_COUNT, System.currentTimeMillis() - start);
+
+        assertPersistedBom(XML_PRODUCT_NAME);
+    }
+
+    @Test
+    public void rereadReplacesOldSbom() throws IOException {
+        byte[] content = generateJsonBom();
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, content);
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, content);
+
+        assertPersistedBom(JSON_PRODUCT_NAME);
+    }
+
+    @Test
+    public void rereadIncrementallyKeepsUnchangedPackages() throws IOException {
+        cycloneDXReader.read(JSON_PRODUCT_NAME, SbomFormat.JSON, generateJsonBom());
+        Sbom sbom = sbomRepository.findByProductName(JSON_PRODUCT_NAME).orElseThrow();
+        Package unchangedPkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-41").get(0);
+        Package changedPkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-42").get(0);
+
+        // bump the version of pkg-42 and drop the last component
+        byte[] content = generateJsonBom(COMPONENT_COUNT - 1, 42);
+        long start = System.currentTimeMillis();
+        SbomDiffVo diff = cycloneDXReader.persistSbomIncrementally(JSON_PRODUCT_NAME, SbomFormat.JSON,
+                new ByteArrayInputStream(content));
+        logger.info("incrementally read {} json components in {} ms, {}", COMPONENT_COUNT - 1,
+                System.currentTimeMillis() - start, diff);
+
+        assertThat(diff.getSbomId()).isEqualTo(sbom.getId());
+        assertThat(diff.getAddedPackageCount()).isEqualTo(0L);
+        assertThat(diff.getUpdatedPackageCount()).isEqualTo(1L);
+        assertThat(diff.getUnchangedPackageCount()).isEqualTo(COMPONENT_COUNT - 2L);
+        assertThat(diff.getRemovedPackageCount()).isEqualTo(1L);
+        assertThat(diff.getChangedPackageIds()).isEqualTo(List.of(changedPkg.getId()));
+
+        assertThat(packageRepository.findBySbomId(sbom.getId()).size()).isEqualTo(COMPONENT_COUNT - 1);
+        assertThat(packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-41").get(0).getId()).isEqualTo(unchangedPkg.getId());
+        Package pkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-42").get(0);
+        assertThat(pkg.getId()).isEqualTo(changedPkg.getId());
+        assertThat(pkg.getVersion()).isEqualTo("2.0.42");
+        assertThat(packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-" + (COMPONENT_COUNT - 1)).size()).isEqualTo(0);
+        assertThat(checksumRepository.findBySbomId(sbom.getId()).size()).isEqualTo(COMPONENT_COUNT - 1);
+        assertThat(sbomElementRelationshipRepository.findBySbomId(sbom.getId()).size()).isEqualTo(COMPONENT_COUNT - 2);
+        assertThat(sbomCreatorRepository.findBySbomId(sbom.getId()).size()).isEqualTo(2);
+    }
+
+    private void assertPersistedBom(String productName) {
+        Sbom sbom = sbomRepository.findByProductName(productName).orElse(null);
+        assertThat(sbom).isNotNull();
+        assertThat(sbom.getName()).isEqualTo("generated-bom");
+        assertThat(sbom.getNamespace()).isEqualTo(SERIAL_NUMBER);
+        assertThat(sbom.getCreated()).isEqualTo("2022-11-08T06:11:49Z");
+        assertThat(sbom.getDataLicense()).isEqualTo("CC0-1.0");
+
+        List<SbomCreator> sbomCreators = sbomCreatorRepository.findBySbomId(sbom.getId());
+        assertThat(sbomCreators.size()).isEqualTo(2);
+        assertThat(sbomCreators.stream().map(SbomCreator::getName).toList().contains("Tool: sbom-generator-1.0.0")).isTrue();
+        assertThat(sbomCreators.stream().map(SbomCreator::getName).toList().contains("Organization: openEuler")).isTrue();
+
+        List<Package> packages = packageRepository.findBySbomId(sbom.getId());
+        assertThat(packages.size()).isEqualTo(COMPONENT_COUNT);
+
+        List<Package> specificPackages = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "pkg-42");
+        assertThat(specificPackages.size()).isEqualTo(1);
+        Package pkg = specificPackages.get(0);
+        assertThat(pkg.getName()).isEqualTo("component-42");
+        assertThat(pkg.getVersion()).isEqualTo("1.0.42");
+        assertThat(pkg.getSupplier()).isEqualTo("Organization: openEuler");
+        assertThat(pkg.getLicenseConcluded()).isEqualTo("MIT AND Apache-2.0");
+        assertThat(pkg.getSummary()).isEqualTo("summary of component-42");
+        assertThat(pkg.getHomepage()).isEqualTo("https://example.com/component-42");
+
+        List<Checksum> checksums = checksumRepository.findBySbomId(sbom.getId());
+        assertThat(checksums.size()).isEqualTo(COMPONENT_COUNT);
+        assertThat(checksums.get(0).getAlgorithm()).isEqualTo("SHA256");
+
+        // one package manager purl per component, and one provide manager purl per even component
+        List<ExternalPurlRef> externalPurlRefs = externalPurlRefRepository.findBySbomId(sbom.getId());
+        assertThat(externalPurlRefs.size()).isEqualTo(COMPONENT_COUNT + COMPONENT_COUNT / 2);
+        assertThat(externalPurlRefs.stream()
+                .filter(it -> ReferenceCategory.PROVIDE_MANAGER.name().equals(it.getCategory()))
+                .count()).isEqualTo(COMPONENT_COUNT / 2);
+        assertThat(externalPurlRefs.get(0).getPurl().getName()).isNotNull();
+
+        List<SbomElementRelationship> relationships = sbomElementRelationshipRepository.findBySbomId(sbom.getId());
+        assertThat(relationships.size()).isEqualTo(COMPONENT_COUNT - 1);
+        assertThat(relationships.stream()
+                .allMatch(it -> RelationshipType.DEPENDS_ON.name().equals(it.getRelationshipType()))).isTrue();
+    }
+
+    private byte[] generateJsonBom() throws IOException {
+        return generateJsonBom(COMPONENT_COUNT, -1);
+    }
+
+    /**
+     * @param changedIndex index of the component whose major version is bumped, -1 for none
+     */
+    private byte[] generateJsonBom(int componentCount, int changedIndex) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Mapper.jsonSbomMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField("bomFormat", "CycloneDX");
+            generator.writeStringField("specVersion", "1.4");
+            generator.writeStringField("serialNumber", SERIAL_NUMBER);
+            generator.writeNumberField("version", 1);
+
+            // dependencies before components, members of a cyclonedx document are unordered
+            generator.writeArrayFieldStart("dependencies");
+            for (int i = 0; i < componentCount; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("ref", "pkg-" + i);
+                if (i + 1 < componentCount) {
+                    generator.writeArrayFieldStart("dependsOn");
+                    generator.writeString("pkg-" + (i + 1));
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("components");
+            for (int i = 0; i < componentCount; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "library");
+                generator.writeStringField("bom-ref", "pkg-" + i);
+                generator.writeStringField("name", "component-" + i);
+                generator.writeStringField("version", (i == changedIndex ? "2.0." : "1.0.") + i);
+                generator.writeObjectFieldStart("supplier");
+                generator.writeStringField("name", "openEuler");
+                generator.writeEndObject();
+                generator.writeArrayFieldStart("hashes");
+                generator.writeStartObject();
+                generator.writeStringField("alg", "SHA-256");
+                generator.writeStringField("content", "%064d".formatted(i));
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("licenses");
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("license");
+                generator.writeStringField("id", "MIT");
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeStartObject();
+                generator.writeStringField("expression", "Apache-2.0");
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeStringField("purl", "pkg:maven/org.example/component-%d@1.0.%d".formatted(i, i));
+                generator.writeArrayFieldStart("externalReferences");
+                generator.writeStartObject();
+                generator.writeStringField("type", "website");
+                generator.writeStringField("url", "https://example.com/component-" + i);
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("properties");
+                generator.writeStartObject();
+                generator.writeStringField("name", "summary");
+                generator.writeStringField("value", "summary of component-" + i);
+                generator.writeEndObject();
+                generator.writeEndArray();
+                if (i % 2 == 0) {
+                    generator.writeArrayFieldStart("components");
+                    generator.writeStartObject();
+                    generator.writeStringField("type", "library");
+                    generator.writeStringField("name", "provided-" + i);
+                    generator.writeStringField("purl", "pkg:rpm/provided-%d@1.0.%d".formatted(i, i));
+                    generator.writeArrayFieldStart("properties");
+                    generator.writeStartObject();
+                    generator.writeStringField("name", "RelationCategory");
+                    generator.writeStringField("value", ReferenceCategory.PROVIDE_MANAGER.name());
+                    generator.writeEndObject();
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("metadata");
+            generator.writeStringField("timestamp", "2022-11-08T06:11:49Z");
+            generator.writeArrayFieldStart("tools");
+            generator.writeStartObject();
+            generator.writeStringField("name", "sbom-generator");
+            generator.writeStringField("version", "1.0.0");
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("manufacture");
+            generator.writeStringField("name", "openEuler");
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("component");
+            generator.writeStringField("type", "operating-system");
+            generator.writeStringField("name", "generated-bom");
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("licenses");
+            generator.writeStartObject();
+            generator.writeStringField("expression", "CC0-1.0");
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private byte[] generateXmlBom() throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(outputStream, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("bom");
+        writer.writeDefaultNamespace("http://cyclonedx.org/schema/bom/1.4");
+        writer.writeAttribute("serialNumber", SERIAL_NUMBER);
+        writer.writeAttribute("version", "1");
+
+        writer.writeStartElement("metadata");
+        writeTextElement(writer, "timestamp", "2022-11-08T06:11:49Z");
+        writer.writeStartElement("tools");
+        writer.writeStartElement("tool");
+        writeTextElement(writer, "name", "sbom-generator");
+        writeTextElement(writer, "version", "1.0.0");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeStartElement("component");
+        writer.writeAttribute("type", "operating-system");
+        writeTextElement(writer, "name", "generated-bom");
+        writer.writeEndElement();
+        writer.writeStartElement("manufacture");
+        writeTextElement(writer, "name", "openEuler");
+        writer.writeEndElement();
+        writer.writeStartElement("licenses");
+        writeTextElement(writer, "expression", "CC0-1.0");
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeStartElement("components");
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            writer.writeStartElement("component");
+            writer.writeAttribute("type", "library");
+            writer.writeAttribute("bom-ref", "pkg-" + i);
+            writer.writeStartElement("supplier");
+            writeTextElement(writer, "name", "openEuler");
+            writer.writeEndElement();
+            writeTextElement(writer, "name", "component-" + i);
+            writeTextElement(writer, "version", "1.0." + i);
+            writer.writeStartElement("hashes");
+            writer.writeStartElement("hash");
+            writer.writeAttribute("alg", "SHA-256");
+            writer.writeCharacters("%064d".formatted(i));
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeStartElement("licenses");
+            writer.writeStartElement("license");
+            writeTextElement(writer, "id", "MIT");
+            writer.writeEndElement();
+            writeTextElement(writer, "expression", "Apache-2.0");
+            writer.writeEndElement();
+            writeTextElement(writer, "purl", "pkg:maven/org.example/component-%d@1.0.%d".formatted(i, i));
+            writer.writeStartElement("externalReferences");
+            writer.writeStartElement("reference");
+            writer.writeAttribute("type", "website");
+            writeTextElement(writer, "url", "https://example.com/component-" + i);
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeStartElement("properties");
+            writer.writeStartElement("property");
+            writer.writeAttribute("name", "summary");
+            writer.writeCharacters("summary of component-" + i);
+            writer.writeEndElement();
+            writer.writeEndElement();
+            if (i % 2 == 0) {
+                writer.writeStartElement("components");
+                writer.writeStartElement("component");
+                writer.writeAttribute("type", "library");
+                writeTextElement(writer, "name", "provided-" + i);
+                writeTextElement(writer, "purl", "pkg:rpm/provided-%d@1.0.%d".formatted(i, i));
+                writer.writeStartElement("properties");
+                writer.writeStartElement("property");
+                writer.writeAttribute("name", "RelationCategory");
+                writer.writeCharacters(ReferenceCategory.PROVIDE_MANAGER.name());
+                writer.writeEndElement();
+                writer.writeEndElement();
+                writer.writeEndElement();
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+
+        writer.writeStartElement("dependencies");
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            writer.writeStartElement("dependency");
+            writer.writeAttribute("ref", "pkg-" + i);
+            if (i + 1 < COMPONENT_COUNT) {
+                writer.writeEmptyElement("dependency");
+                writer.writeAttribute("ref", "pkg-" + (i + 1));
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private void writeTextElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+}
@@ -0,0 +1,107 @@
+package org.opensourceway.sbom.service.reader.impl.cyclonedx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.TestConstants;
+import org.opensourceway.sbom.api.writer.PackageExportContext;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.service.writer.impl.cyclonedx.CycloneDXWriter;
+import org.opensourceway.sbom.utils.Mapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CycloneDXWriteTest {
+
+    @Autowired
+    @Qualifier(SbomConstants.CYCLONEDX_NAME + SbomConstants.WRITER_NAME)
+    private CycloneDXWriter cycloneDXWriter;
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    /**
+     * The package documents must stay the same as the ones of the implementation before the shared export context.
+     * The expected document is assembled from the product document, whose components are transformed from the
+     * packages as the package metadata components were, and from the package lookup and dependency refs of that
+     * implementation.
+     */
+    @Test
+    @Transactional
+    public void writePackagesAsBefore() throws IOException {
+        Sbom sbom = sbomRepository.findByProductName(TestConstants.SAMPLE_PRODUCT_NAME).orElseThrow();
+        JsonNode productDocument = Mapper.jsonSbomMapper.readTree(
+                cycloneDXWriter.write(TestConstants.SAMPLE_PRODUCT_NAME, SbomFormat.JSON, false));
+        Map<String, JsonNode> components = new HashMap<>();
+        productDocument.get("components").forEach(it -> components.putIfAbsent(it.get("bom-ref").asText(), it));
+        PackageExportContext context = cycloneDXWriter.createPackageExportContext(TestConstants.SAMPLE_PRODUCT_NAME);
+
+        int dependencyCount = 0;
+        for (Package pkg : sbom.getPackages()) {
+            JsonNode document = Mapper.jsonSbomMapper.readTree(
+                    cycloneDXWriter.writePackage(context, pkg.getName(), pkg.getVersion(), SbomFormat.JSON, false));
+
+            Package expectedPkg = findPackageAsBefore(sbom, pkg.getName(), pkg.getVersion());
+            List<String> expectedRefs = getDependencyRefsAsBefore(sbom, expectedPkg);
+            ObjectNode expected = productDocument.deepCopy();
+            expected.put("serialNumber", "urn:uuid:" + expectedPkg.getId());
+            ((ObjectNode) expected.get("metadata")).set("component", components.get(expectedPkg.getSpdxId()));
+            expected.remove("components");
+            expected.remove("dependencies");
+            if (!expectedRefs.isEmpty()) {
+                ArrayNode dependencies = expected.putArray("dependencies");
+                expectedRefs.forEach(ref -> dependencies.addObject().put("ref", ref));
+            }
+
+            assertThat(document).isEqualTo(expected);
+            dependencyCount += expectedRefs.size();
+        }
+        assertThat(dependencyCount).isPositive();
+    }
+
+    @Test
+    public void writeNotExistPackage() {
+        PackageExportContext context = cycloneDXWriter.createPackageExportContext(TestConstants.SAMPLE_PRODUCT_NAME);
+        assertThatThrownBy(() -> cycloneDXWriter.writePackage(context, "not-exist", "1.0", SbomFormat.JSON, false))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("can't find package <not-exist> with version <1.0> in product <%s>"
+                        .formatted(TestConstants.SAMPLE_PRODUCT_NAME));
+    }
+
+    private Package findPackageAsBefore(Sbom sbom, String pkgName, String pkgVersion) {
+        return sbom.getPackages().stream()
+                .filter(it -> StringUtils.equals(pkgName, it.getName()) && StringUtils.equals(pkgVersion, it.getVersion()))
+                .findAny()
+                .orElseThrow();
+    }
+
+    private List<String> getDependencyRefsAsBefore(Sbom sbom, Package pkg) {
+        return sbom.getSbomElementRelationships().stream()
+                .filter(it -> StringUtils.equals(it.getElementId(), pkg.getSpdxId()))
+                .filter(it -> it.getRelationshipType().equals(RelationshipType.DEPENDS_ON.name()))
+                .map(it -> "urn:cdx:%s/%s#%s".formatted(sbom.getPackages().stream()
+                        .filter(p -> StringUtils.equals(p.getSpdxId(), it.getRelatedElementId()))
+                        .findAny()
+                        .map(Package::getId)
+                        .orElse(null), 1, it.getRelatedElementId()))
+                .toList();
+    }
+}
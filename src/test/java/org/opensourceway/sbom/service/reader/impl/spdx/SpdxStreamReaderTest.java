@@ -0,0 +1,232 @@
+package org.opensourceway.sbom.service.reader.impl.spdx;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.TestConstants;
+import org.opensourceway.sbom.dao.ChecksumRepository;
+import org.opensourceway.sbom.dao.ExternalPurlRefRepository;
+import org.opensourceway.sbom.dao.FileRepository;
+import org.opensourceway.sbom.dao.PackageRepository;
+import org.opensourceway.sbom.dao.PkgVerfCodeExcludedFileRepository;
+import org.opensourceway.sbom.dao.PkgVerfCodeRepository;
+import org.opensourceway.sbom.dao.SbomCreatorRepository;
+import org.opensourceway.sbom.dao.SbomElementRelationshipRepository;
+import org.opensourceway.sbom.dao.SbomRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.Checksum;
+import org.opensourceway.sbom.model.entity.ExternalPurlRef;
+import org.opensourceway.sbom.model.entity.File;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.entity.PkgVerfCode;
+import org.opensourceway.sbom.model.entity.Sbom;
+import org.opensourceway.sbom.model.entity.SbomCreator;
+import org.opensourceway.sbom.model.entity.SbomElementRelationship;
+import org.opensourceway.sbom.model.enums.SbomFileType;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.pojo.vo.sbom.SbomDiffVo;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.utils.Mapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@SpringBootTest
+class SpdxStreamReaderTest {
+
+    private static final String PRODUCT_NAME = "SpdxStreamReaderTest";
+
+    @Autowired
+    @Qualifier(SbomConstants.SPDX_NAME + SbomConstants.READER_NAME)
+    private SpdxReader spdxReader;
+
+    @Autowired
+    private SbomRepository sbomRepository;
+
+    @Autowired
+    private SbomCreatorRepository sbomCreatorRepository;
+
+    @Autowired
+    private SbomElementRelationshipRepository sbomElementRelationshipRepository;
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private PkgVerfCodeRepository pkgVerfCodeRepository;
+
+    @Autowired
+    private PkgVerfCodeExcludedFileRepository pkgVerfCodeExcludedFileRepository;
+
+    @Autowired
+    private ChecksumRepository checksumRepository;
+
+    @Autowired
+    private ExternalPurlRefRepository externalPurlRefRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Test
+    public void persistSbomInStreamingMode() throws IOException {
+        sbomRepository.findByProductName(PRODUCT_NAME).ifPresent(sbom -> sbomRepository.delete(sbom));
+
+        try (InputStream inputStream = new ClassPathResource(TestConstants.SAMPLE_UPLOAD_FILE_NAME).getInputStream()) {
+            spdxReader.persistSbom(PRODUCT_NAME, SbomFormat.JSON, inputStream);
+        }
+
+        // same expectations as SpdxReaderTest, which persists the sample through the JPA entity graph
+        Sbom sbom = sbomRepository.findByProductName(PRODUCT_NAME).orElse(null);
+        assertThat(sbom).isNotNull();
+        assertThat(sbom.getProduct().getName()).isEqualTo(PRODUCT_NAME);
+
+        List<SbomCreator> sbomCreators = sbomCreatorRepository.findBySbomId(sbom.getId());
+        assertThat(sbomCreators.size()).isEqualTo(1);
+        assertThat(sbomCreators.get(0).getName()).isEqualTo("Tool: OSS Review Toolkit - e5b343ff71-dirty");
+
+        assertThat(sbomElementRelationshipRepository.findBySbomId(sbom.getId()).size()).isEqualTo(5);
+
+        List<Package> packages = packageRepository.findBySbomId(sbom.getId());
+        assertThat(packages.size()).isEqualTo(76);
+
+        List<Package> specificPackages = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-PyPI-asttokens-2.0.5-vcs");
+        assertThat(specificPackages.size()).isEqualTo(1);
+        assertThat(specificPackages.get(0).getName()).isEqualTo("asttokens");
+
+        List<PkgVerfCode> pkgVerfCodes = pkgVerfCodeRepository.findBySbomId(sbom.getId());
+        assertThat(pkgVerfCodes.size()).isEqualTo(1);
+        assertThat(pkgVerfCodes.get(0).getValue()).isEqualTo("8aba92182455b539af15d0524fe5baffd3d9248b");
+        assertThat(pkgVerfCodeExcludedFileRepository.findBySbomId(sbom.getId()).size()).isEqualTo(2);
+
+        List<Checksum> checksums = checksumRepository.findBySbomId(sbom.getId());
+        assertThat(checksums.size()).isEqualTo(1);
+        assertThat(checksums.get(0).getAlgorithm()).isEqualTo("SHA256");
+
+        List<ExternalPurlRef> externalPurlRefs = externalPurlRefRepository.findBySbomId(sbom.getId());
+        assertThat(externalPurlRefs.size()).isEqualTo(76);
+        assertThat(externalPurlRefs.get(0).getPurl().getName()).isNotNull();
+    }
+
+    @Test
+    public void persistSbomIncrementally() throws IOException {
+        sbomRepository.findByProductName(PRODUCT_NAME).ifPresent(sbom -> sbomRepository.delete(sbom));
+        try (InputStream inputStream = new ClassPathResource(TestConstants.SAMPLE_UPLOAD_FILE_NAME).getInputStream()) {
+            spdxReader.persistSbom(PRODUCT_NAME, SbomFormat.JSON, inputStream);
+        }
+        Sbom sbom = sbomRepository.findByProductName(PRODUCT_NAME).orElseThrow();
+        Package unchangedPkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-PyPI-asttokens-2.0.5").get(0);
+        Package changedPkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-PyPI-asttokens-2.0.5-vcs").get(0);
+
+        // bump the version of asttokens-2.0.5-vcs and drop the last package, zlib-1.2.11-vcs
+        ObjectNode document;
+        try (InputStream inputStream = new ClassPathResource(TestConstants.SAMPLE_UPLOAD_FILE_NAME).getInputStream()) {
+            document = (ObjectNode) Mapper.jsonSbomMapper.readTree(inputStream);
+        }
+        ArrayNode packages = (ArrayNode) document.get("packages");
+        for (int i = 0; i < packages.size(); i++) {
+            if ("SPDXRef-Package-PyPI-asttokens-2.0.5-vcs".equals(packages.get(i).get("SPDXID").asText())) {
+                ((ObjectNode) packages.get(i)).put("versionInfo", "2.0.6");
+            }
+        }
+        packages.remove(packages.size() - 1);
+
+        SbomDiffVo diff = spdxReader.persistSbomIncrementally(PRODUCT_NAME, SbomFormat.JSON,
+                new ByteArrayInputStream(Mapper.jsonSbomMapper.writeValueAsBytes(document)));
+
+        assertThat(diff.getSbomId()).isEqualTo(sbom.getId());
+        assertThat(diff.getAddedPackageCount()).isEqualTo(0L);
+        assertThat(diff.getUpdatedPackageCount()).isEqualTo(1L);
+        assertThat(diff.getUnchangedPackageCount()).isEqualTo(74L);
+        assertThat(diff.getRemovedPackageCount()).isEqualTo(1L);
+        assertThat(diff.getChangedPackageIds()).isEqualTo(List.of(changedPkg.getId()));
+
+        assertThat(packageRepository.findBySbomId(sbom.getId()).size()).isEqualTo(75);
+        assertThat(packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-PyPI-asttokens-2.0.5").get(0).getId())
+                .isEqualTo(unchangedPkg.getId());
+        Package pkg = packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-PyPI-asttokens-2.0.5-vcs").get(0);
+        assertThat(pkg.getId()).isEqualTo(changedPkg.getId());
+        assertThat(pkg.getVersion()).isEqualTo("2.0.6");
+        assertThat(packageRepository.findBySbomIdAndSpdxId(sbom.getId(), "SPDXRef-Package-github-zlib-1.2.11-vcs").size()).isEqualTo(0);
+        assertThat(externalPurlRefRepository.findBySbomId(sbom.getId()).size()).isEqualTo(75);
+        assertThat(sbomElementRelationshipRepository.findBySbomId(sbom.getId()).size()).isEqualTo(5);
+        assertThat(sbomCreatorRepository.findBySbomId(sbom.getId()).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void rebuildFilesOfChangedPackage() throws IOException {
+        sbomRepository.findByProductName(PRODUCT_NAME).ifPresent(sbom -> sbomRepository.delete(sbom));
+        try (InputStream inputStream = new ClassPathResource(TestConstants.SAMPLE_UPLOAD_FILE_NAME).getInputStream()) {
+            spdxReader.persistSbom(PRODUCT_NAME, SbomFormat.JSON, inputStream);
+        }
+        Sbom sbom = sbomRepository.findByProductName(PRODUCT_NAME).orElseThrow();
+        String changedSpdxId = "SPDXRef-Package-PyPI-asttokens-2.0.5-vcs";
+        String unchangedSpdxId = "SPDXRef-Package-PyPI-asttokens-2.0.5";
+
+        // patches added by the enrichment of the first import, asttokens-0.patch is shared by both packages
+        savePatch(sbom, "asttokens-0.patch", changedSpdxId, unchangedSpdxId);
+        savePatch(sbom, "asttokens-1.patch", changedSpdxId);
+        savePatch(sbom, "asttokens-2.patch", changedSpdxId);
+
+        ObjectNode document;
+        try (InputStream inputStream = new ClassPathResource(TestConstants.SAMPLE_UPLOAD_FILE_NAME).getInputStream()) {
+            document = (ObjectNode) Mapper.jsonSbomMapper.readTree(inputStream);
+        }
+        ArrayNode packages = (ArrayNode) document.get("packages");
+        for (int i = 0; i < packages.size(); i++) {
+            if (changedSpdxId.equals(packages.get(i).get("SPDXID").asText())) {
+                ((ObjectNode) packages.get(i)).put("versionInfo", "2.0.6");
+            }
+        }
+        SbomDiffVo diff = spdxReader.persistSbomIncrementally(PRODUCT_NAME, SbomFormat.JSON,
+                new ByteArrayInputStream(Mapper.jsonSbomMapper.writeValueAsBytes(document)));
+        assertThat(diff.getUpdatedPackageCount()).isEqualTo(1L);
+
+        // the changed package lost its files, only the file shared with the unchanged package is left
+        assertThat(patchesOf(sbom, changedSpdxId)).isEqualTo(List.of());
+        assertThat(patchesOf(sbom, unchangedSpdxId)).isEqualTo(List.of("asttokens-0.patch"));
+        assertThat(fileRepository.findBySbomId(sbom.getId()).stream().map(File::getSpdxId).toList())
+                .isEqualTo(List.of("asttokens-0.patch"));
+
+        // the enrichment of the second import rebuilds the files, asttokens-2.patch has been removed from the package
+        savePatch(sbom, "asttokens-1.patch", changedSpdxId);
+        sbomElementRelationshipRepository.save(patchApplied(sbom, "asttokens-0.patch", changedSpdxId));
+        assertThat(patchesOf(sbom, changedSpdxId)).isEqualTo(List.of("asttokens-0.patch", "asttokens-1.patch"));
+        assertThat(fileRepository.findBySbomIdAndSpdxId(sbom.getId(), "asttokens-2.patch").size()).isEqualTo(0);
+    }
+
+    private void savePatch(Sbom sbom, String patchName, String... pkgSpdxIds) {
+        File file = new File();
+        file.setSbom(sbom);
+        file.setSpdxId(patchName);
+        file.setFileName("https://example.com/src-openeuler/asttokens/blob/master/" + patchName);
+        file.setFileTypes(new String[]{SbomFileType.SOURCE.name()});
+        fileRepository.save(file);
+        for (String pkgSpdxId : pkgSpdxIds) {
+            sbomElementRelationshipRepository.save(patchApplied(sbom, patchName, pkgSpdxId));
+        }
+    }
+
+    private SbomElementRelationship patchApplied(Sbom sbom, String patchName, String pkgSpdxId) {
+        SbomElementRelationship relationship = new SbomElementRelationship();
+        relationship.setSbom(sbom);
+        relationship.setElementId(patchName);
+        relationship.setRelatedElementId(pkgSpdxId);
+        relationship.setRelationshipType(RelationshipType.PATCH_APPLIED.name());
+        return relationship;
+    }
+
+    private List<String> patchesOf(Sbom sbom, String pkgSpdxId) {
+        return fileRepository.findPatchesInfo(sbom.getId(), pkgSpdxId).stream()
+                .map(File::getSpdxId)
+                .sorted()
+                .toList();
+    }
+}
@@ -18,8 +18,11 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class SpdxWriteTest {
@@ -56,6 +59,17 @@ class SpdxWriteTest {
         TestCommon.assertSpdxDocument(spdxDocument);
     }
 
+    @Test
+    public void writeJsonSbomStreaming() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        spdxWriter.write(PRODUCT_ID, SbomFormat.JSON, outputStream);
+        SpdxDocument spdxDocument = Mapper.jsonSbomMapper.readValue(outputStream.toByteArray(), SpdxDocument.class);
+        TestCommon.assertSpdxDocument(spdxDocument);
+
+        byte[] result = spdxWriter.write(PRODUCT_ID, SbomFormat.JSON);
+        assertThat(Mapper.jsonSbomMapper.readTree(outputStream.toByteArray())).isEqualTo(Mapper.jsonSbomMapper.readTree(result));
+    }
+
     @Test
     public void writeYamlSbom() throws IOException {
         byte[] result = spdxWriter.write(PRODUCT_ID, SbomFormat.EXT_TO_FORMAT.get("yaml"));
@@ -0,0 +1,184 @@
+package org.opensourceway.sbom.service.vul;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.packageurl.PackageURL;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.clients.vul.UvpClientImpl;
+import org.opensourceway.sbom.model.entity.ExternalPurlRef;
+import org.opensourceway.sbom.model.entity.Package;
+import org.opensourceway.sbom.model.pojo.response.vul.uvp.UvpVulnerability;
+import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.service.vul.impl.UvpServiceImpl;
+import org.opensourceway.sbom.utils.PurlUtil;
+import org.opensourceway.sbom.utils.WebUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link UvpServiceImpl} against a local stub of the uvp api which answers every batch query after a fixed
+ * delay, to compare the fan-out with different concurrency.
+ */
+public class UvpServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UvpServiceTest.class);
+
+    private static final int PURL_COUNT = 512;
+
+    private static final long RESPONSE_DELAY_MILLIS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    public void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/uvp-api/queryBatchV2", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            requestCount.incrementAndGet();
+            try {
+                String[] purls = objectMapper.readValue(exchange.getRequestBody(), String[].class);
+                Thread.sleep(RESPONSE_DELAY_MILLIS);
+                byte[] body = objectMapper.writeValueAsBytes(Arrays.stream(purls).map(this::stubReport).toList());
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStubServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentFanOutReturnsSameResult() {
+        List<ExternalPurlRef> purlRefs = generatePurlRefs();
+
+        Map<ExternalPurlRef, List<String>> sequential = extract(purlRefs, 1);
+        assertThat(maxInFlight.get()).isEqualTo(1);
+
+        maxInFlight.set(0);
+        Map<ExternalPurlRef, List<String>> concurrent = extract(purlRefs, 8);
+        assertThat(maxInFlight.get()).isBetween(2, 8);
+
+        assertThat(concurrent).isEqualTo(sequential);
+        assertThat(concurrent).hasSize(PURL_COUNT);
+        assertThat(concurrent.values()).allSatisfy(ids -> assertThat(ids).isNotEmpty().allMatch(id -> id.startsWith("CVE-")));
+    }
+
+    @Test
+    public void matchVulnerabilitiesByCanonicalAndVulnMatchPurl() {
+        List<ExternalPurlRef> purlRefs = generatePurlRefs();
+
+        Map<ExternalPurlRef, List<String>> result = extract(purlRefs, 4);
+
+        assertThat(result).hasSize(PURL_COUNT);
+        purlRefs.forEach(purlRef -> {
+            PackageURL purl = PurlUtil.packageUrlVoToPackageURL(purlRef.getPurl());
+            List<String> expected = Stream.of(PurlUtil.canonicalizePurl(purl),
+                            PurlUtil.canonicalizePurl(PurlUtil.convertPurlForVulnMatch(purl)))
+                    .map(this::stubCveId)
+                    .distinct()
+                    .toList();
+            assertThat(result.get(purlRef)).isEqualTo(expected);
+        });
+    }
+
+    private Map<ExternalPurlRef, List<String>> extract(List<ExternalPurlRef> purlRefs, int concurrency) {
+        UvpServiceImpl uvpService = new UvpServiceImpl();
+        ReflectionTestUtils.setField(uvpService, "uvpClient", createClient(concurrency));
+
+        requestCount.set(0);
+        long start = System.nanoTime();
+        Map<ExternalPurlRef, List<UvpVulnerability>> result = uvpService.extractVulForPurlRefChunk(UUID.randomUUID(), purlRefs);
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        logger.info("concurrency: {}, requests: {}, elapsed: {}ms, throughput: {} requests/s", concurrency,
+                requestCount.get(), elapsedMillis, requestCount.get() * 1000L / Math.max(elapsedMillis, 1));
+
+        return result.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                entry -> entry.getValue().stream().map(UvpVulnerability::getId).toList()));
+    }
+
+    private UvpClientImpl createClient(int concurrency) {
+        WebUtil webUtil = new WebUtil();
+        ReflectionTestUtils.setField(webUtil, "maxInMemorySize", "64MB");
+
+        UvpClientImpl client = new UvpClientImpl();
+        ReflectionTestUtils.setField(client, "defaultBaseUrl", "http://127.0.0.1:%s".formatted(server.getAddress().getPort()));
+        ReflectionTestUtils.setField(client, "concurrency", concurrency);
+        ReflectionTestUtils.setField(client, "timeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(client, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(client, "retryBackoff", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(client, "webUtil", webUtil);
+        client.init();
+        return client;
+    }
+
+    private List<ExternalPurlRef> generatePurlRefs() {
+        return IntStream.range(0, PURL_COUNT).mapToObj(i -> {
+            Package pkg = new Package();
+            pkg.setId(UUID.randomUUID());
+            ExternalPurlRef purlRef = new ExternalPurlRef();
+            purlRef.setCategory(ReferenceCategory.PACKAGE_MANAGER.name());
+            purlRef.setType("purl");
+            purlRef.setPurl(new PackageUrlVo("maven", "org.opensourceway", "pkg-%s".formatted(i), "1.0.%s".formatted(i)));
+            purlRef.setPkg(pkg);
+            return purlRef;
+        }).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Map<String, Object> stubReport(String purl) {
+        return Map.of("purl", purl, "vulns", List.of(
+                Map.of("id", stubCveId(purl)),
+                Map.of("id", "GHSA-%s".formatted(Math.abs(purl.hashCode() % 100000)))));
+    }
+
+    private String stubCveId(String purl) {
+        return "CVE-2023-%s".formatted(Math.abs(purl.hashCode() % 100000));
+    }
+}
@@ -0,0 +1,80 @@
+package org.opensourceway.sbom.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.dao.RepoMetaRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.entity.RepoMeta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@SpringBootTest(properties = "sbom.repo-meta.query-batch-size=2")
+public class RepoMetaUtilTest {
+
+    /**
+     * a branch no other test uses, so that the queries only see the rows of this test
+     */
+    private static final String BRANCH = "repo-meta-util-test";
+
+    @SpyBean
+    private RepoMetaRepository repoMetaRepository;
+
+    @Autowired
+    private RepoMetaUtil repoMetaUtil;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        repoMetaRepository.saveAll(List.of(
+                repoMeta("389-ds-base", "389-ds-base", "389-ds-base-devel", "python3-lib389"),
+                repoMeta("nodejs-lodash", "nodejs-lodash"),
+                repoMeta("zlib", "zlib", "zlib-devel")));
+        Mockito.clearInvocations(repoMetaRepository);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        repoMetaRepository.deleteAll(repoMetaRepository.findAll().stream()
+                .filter(it -> BRANCH.equals(it.getBranch()))
+                .toList());
+    }
+
+    @Test
+    public void getRepoMetasInBatches() {
+        Map<String, RepoMeta> repoMetas = repoMetaUtil.getRepoMetas(SbomConstants.PRODUCT_OPENEULER_NAME, BRANCH,
+                List.of("389-ds-base", "389-ds-base-devel", "389-ds-base", "nodejs-lodash", "unknown"));
+
+        // one query per batch of distinct names, repos of names not asked for are not picked up
+        Mockito.verify(repoMetaRepository, Mockito.times(2)).queryRepoMetaByPackageNames(anyString(), anyString(), any());
+        assertThat(repoMetas).containsOnlyKeys("389-ds-base", "389-ds-base-devel", "nodejs-lodash");
+        assertThat(repoMetas.get("389-ds-base").getRepoName()).isEqualTo("389-ds-base");
+        assertThat(repoMetas.get("389-ds-base-devel")).isSameAs(repoMetas.get("389-ds-base"));
+        assertThat(repoMetas.get("nodejs-lodash").getRepoName()).isEqualTo("nodejs-lodash");
+    }
+
+    @Test
+    public void getRepoMetasOfOtherProducts() {
+        assertThat(repoMetaUtil.getRepoMetas(SbomConstants.PRODUCT_MINDSPORE_NAME, "1.8.0", List.of("akg"))).isEmpty();
+        assertThat(repoMetaUtil.getRepoMetas(SbomConstants.PRODUCT_OPENEULER_NAME, BRANCH, List.of())).isEmpty();
+        Mockito.verify(repoMetaRepository, Mockito.never()).queryRepoMetaByPackageNames(anyString(), anyString(), any());
+    }
+
+    private RepoMeta repoMeta(String repoName, String... packageNames) {
+        RepoMeta repoMeta = new RepoMeta();
+        repoMeta.setProductType(SbomConstants.PRODUCT_OPENEULER_NAME);
+        repoMeta.setRepoName(repoName);
+        repoMeta.setBranch(BRANCH);
+        repoMeta.setPackageNames(packageNames);
+        return repoMeta;
+    }
+}
@@ -0,0 +1,138 @@
+package org.opensourceway.sbom.utils;
+
+import com.google.common.collect.Multimap;
+import org.computer.whunter.rpm.parser.RpmSpecParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares {@link RpmSpecParser} with the regex based {@link LegacyRpmSpecParser} it replaced.
+ */
+public class RpmSpecParserEquivalenceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RpmSpecParserEquivalenceTest.class);
+
+    private static final Path SPEC_DIR = Path.of("src/test/resources/specs");
+
+    private static final String SYNTHETIC_SPEC = String.join("\n",
+            "# Name: commented",
+            "%define base_name demo",
+            "%global  Major_Version   2 ",
+            "%define empty",
+            "%define base_name duplicated",
+            "%define _with_tests %{?_with_tests}",
+            "Name:           %{base_name}",
+            "NAME :  upper case",
+            "Version: %{major_version}.1.%{?minor_version}",
+            "Release: 1%{?dist}",
+            "Name_Suffix: not a field",
+            "Source:  no number",
+            "Source0 : https://example.org/%{name}-%{version}.tar.gz",
+            "source12:%{SOURCE0}.sig",
+            "Patch3: %{name}-fix.patch",
+            "Summary: Python %{python3_pkgversion} bindings by %{vendor}%{package64kb}",
+            "%Package -n python%{python3_pkgversion}-%{name}",
+            "%packagedevel",
+            "%package",
+            "BuildArch: noarch",
+            "BuildRoot: %{_tmppath}/%{name}",
+            "Requires: %{name} = %{version}-%{release}",
+            "License: %{unknown_license}",
+            "Url: https://example.org/$path\\",
+            "%global dollar $HOME",
+            "Group: %{dollar}",
+            "Vendor:\tdemo\u000Bvendor ") + "\r\nProvides: crlf\rPrefix: /usr\u2028Packager: separator\u0085Autoreqprov: no\n\n";
+
+    @Test
+    public void sameFieldsForCorpus() throws IOException {
+        List<Path> specs = corpus();
+        assertThat(specs).isNotEmpty();
+        for (Path spec : specs) {
+            String content = Files.readString(spec, StandardCharsets.UTF_8);
+            assertThat(parse(content).entries())
+                    .as(spec.toString())
+                    .containsExactlyElementsOf(LegacyRpmSpecParser.createParserByContent(content).parse().entries());
+        }
+    }
+
+    @Test
+    public void sameFieldsForSyntheticSpec() throws IOException {
+        Multimap<String, String> expected = LegacyRpmSpecParser.createParserByContent(SYNTHETIC_SPEC).parse();
+        Multimap<String, String> actual = parse(SYNTHETIC_SPEC);
+
+        assertThat(actual.entries()).containsExactlyElementsOf(expected.entries());
+        assertThat(actual.get("name")).containsExactly("demo", "upper case");
+        assertThat(actual.get("version")).containsExactly("2.1.%{minor_version}");
+        assertThat(actual.get("summary")).containsExactly("Python 3 bindings by openEuler");
+        assertThat(actual.get("requires")).containsExactly("demo = %{version}-1");
+        assertThat(actual.get("%package")).containsExactly("-n python3-demo", "devel", "");
+        assertThat(actual.get("provides")).containsExactly("crlf");
+        assertThat(actual.get("autoreqprov")).containsExactly("no");
+        assertThat(actual.containsKey("name_suffix")).isFalse();
+        assertThat(actual.containsKey("source")).isFalse();
+        assertThat(actual.containsKey("empty")).isFalse();
+    }
+
+    @Test
+    public void sameFieldsForEmptySpec() throws IOException {
+        assertThat(parse("").isEmpty()).isTrue();
+        assertThat(parse("\n\r\n").entries())
+                .containsExactlyElementsOf(LegacyRpmSpecParser.createParserByContent("\n\r\n").parse().entries());
+    }
+
+    /**
+     * run by the benchmark task instead of the default test run
+     */
+    @Test
+    @Tag("benchmark")
+    public void throughput() throws IOException {
+        List<String> contents = new ArrayList<>();
+        for (Path spec : corpus()) {
+            contents.add(Files.readString(spec, StandardCharsets.UTF_8));
+        }
+        contents.add(SYNTHETIC_SPEC);
+
+        // warm up both parsers before measuring
+        measure(contents, 100, false);
+        measure(contents, 100, true);
+        double legacyOps = measure(contents, 200, true);
+        double ops = measure(contents, 200, false);
+        logger.info("rpm spec parser throughput, legacy: {} specs/s, current: {} specs/s", Math.round(legacyOps), Math.round(ops));
+
+        assertThat(ops).isGreaterThan(legacyOps);
+    }
+
+    private double measure(List<String> contents, int rounds, boolean legacy) throws IOException {
+        long start = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < rounds; ++i) {
+            for (String content : contents) {
+                size += legacy ? LegacyRpmSpecParser.createParserByContent(content).parse().size() : parse(content).size();
+            }
+        }
+        assertThat(size).isPositive();
+        return (double) rounds * contents.size() * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private Multimap<String, String> parse(String content) throws IOException {
+        return RpmSpecParser.createParserByContent(content).parse();
+    }
+
+    private List<Path> corpus() throws IOException {
+        try (Stream<Path> paths = Files.walk(SPEC_DIR)) {
+            return paths.filter(path -> path.toString().endsWith(".spec")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.opensourceway.sbom.utils;
+
+import org.junit.jupiter.api.Test;
+import org.opensourceway.sbom.model.cyclonedx.Component;
+import org.opensourceway.sbom.model.cyclonedx.ComponentType;
+import org.opensourceway.sbom.model.cyclonedx.CycloneDXDocument;
+import org.opensourceway.sbom.model.cyclonedx.Dependency;
+import org.opensourceway.sbom.model.cyclonedx.Hash;
+import org.opensourceway.sbom.model.cyclonedx.License;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
+import org.opensourceway.sbom.model.enums.SbomFormat;
+import org.opensourceway.sbom.model.spdx.ReferenceCategory;
+import org.opensourceway.sbom.model.spdx.ReferenceType;
+import org.opensourceway.sbom.model.spdx.RelationshipType;
+import org.opensourceway.sbom.model.spdx.SpdxChecksum;
+import org.opensourceway.sbom.model.spdx.SpdxDocument;
+import org.opensourceway.sbom.model.spdx.SpdxExternalReference;
+import org.opensourceway.sbom.model.spdx.SpdxPackage;
+import org.opensourceway.sbom.model.spdx.SpdxRelationship;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that compact sboms of every format only drop the whitespace of the pretty printed ones, and that their export
+ * archives are compressed with each compression.
+ */
+public class SbomMapperUtilTest {
+
+    private static final int PACKAGE_COUNT = 200;
+
+    private static final List<SbomFormat> FORMATS = List.of(SbomFormat.JSON, SbomFormat.XML, SbomFormat.YAML);
+
+    @Test
+    public void compactCycloneDXDocument() throws IOException {
+        CycloneDXDocument document = generateCycloneDXDocument();
+        for (SbomFormat format : FORMATS) {
+            byte[] compact = assertCompact(CycloneDXDocument.class, document, format);
+            CycloneDXDocument read = SbomMapperUtil.readDocument(format, CycloneDXDocument.class, compact);
+            assertThat(read.getComponents()).hasSize(PACKAGE_COUNT);
+            assertThat(read.getDependencies()).hasSize(PACKAGE_COUNT);
+        }
+    }
+
+    @Test
+    public void compactSpdxDocument() throws IOException {
+        SpdxDocument document = generateSpdxDocument();
+        for (SbomFormat format : FORMATS) {
+            byte[] compact = assertCompact(SpdxDocument.class, document, format);
+            SpdxDocument read = SbomMapperUtil.readDocument(format, SpdxDocument.class, compact);
+            assertThat(read.getPackages()).hasSize(PACKAGE_COUNT);
+            assertThat(read.getRelationships()).hasSize(PACKAGE_COUNT);
+        }
+    }
+
+    private byte[] assertCompact(Class<?> documentClass, Object document, SbomFormat format) throws IOException {
+        byte[] pretty = SbomMapperUtil.writeAsBytes(document, format, false);
+        byte[] compact = SbomMapperUtil.writeAsBytes(document, format, true);
+
+        // yaml is written in block style either way, only json and xml have indentation and line breaks to drop
+        if (format == SbomFormat.YAML) {
+            assertThat(compact.length).isLessThanOrEqualTo(pretty.length);
+        } else {
+            assertThat(new String(compact, StandardCharsets.UTF_8)).doesNotContain("\n");
+            assertThat(compact.length).isLessThan(pretty.length);
+        }
+        // both hold the same document
+        Object readPretty = SbomMapperUtil.readDocument(format, documentClass, pretty);
+        Object readCompact = SbomMapperUtil.readDocument(format, documentClass, compact);
+        assertThat(SbomMapperUtil.writeAsBytes(readCompact, format, true))
+                .isEqualTo(SbomMapperUtil.writeAsBytes(readPretty, format, true));
+
+        for (ArchiveCompression compression : ArchiveCompression.values()) {
+            assertThat(archive(compact, compression).length).isLessThan(compact.length / 2);
+        }
+        return compact;
+    }
+
+    private byte[] archive(byte[] content, ArchiveCompression compression) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (FileUtil.TarStreamWriter tar = new FileUtil.TarStreamWriter(outputStream, compression)) {
+            tar.putEntry("sbom", content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private CycloneDXDocument generateCycloneDXDocument() {
+        List<Component> components = new ArrayList<>();
+        List<Dependency> dependencies = new ArrayList<>();
+        for (int i = 0; i < PACKAGE_COUNT; i++) {
+            Component component = new Component("package-%d".formatted(i));
+            component.setBomRef("pkg:rpm/openeuler/package-%d@1.0.%d-1.oe2203".formatted(i, i));
+            component.setType(ComponentType.LIBRARY);
+            component.setVersion("1.0.%d-1.oe2203".formatted(i));
+            component.setPurl(component.getBomRef());
+            component.setLicenses(List.of(new License("MulanPSL-2.0 AND Apache-2.0")));
+            component.setCopyright("Copyright (c) Huawei Technologies Co., Ltd. %d".formatted(i));
+            component.setHashes(List.of(new Hash(org.opensourceway.sbom.model.cyclonedx.Algorithm.SHA256,
+                    "%064x".formatted(i))));
+            components.add(component);
+
+            Dependency dependency = new Dependency();
+            dependency.setRef(component.getBomRef());
+            dependency.setDependsOn(List.of("pkg:rpm/openeuler/package-%d@1.0.%d-1.oe2203"
+                    .formatted((i + 1) % PACKAGE_COUNT, (i + 1) % PACKAGE_COUNT)));
+            dependencies.add(dependency);
+        }
+
+        CycloneDXDocument document = new CycloneDXDocument("urn:uuid:00000000-0000-0000-0000-000000000000");
+        document.setBomFormat("CycloneDX");
+        document.setSpecVersion("1.4");
+        document.setVersion(1);
+        document.setComponents(components);
+        document.setDependencies(dependencies);
+        return document;
+    }
+
+    private SpdxDocument generateSpdxDocument() {
+        List<SpdxPackage> packages = new ArrayList<>();
+        List<SpdxRelationship> relationships = new ArrayList<>();
+        for (int i = 0; i < PACKAGE_COUNT; i++) {
+            SpdxPackage spdxPackage = new SpdxPackage("SPDXRef-Package-%d".formatted(i));
+            spdxPackage.setName("package-%d".formatted(i));
+            spdxPackage.setVersionInfo("1.0.%d-1.oe2203".formatted(i));
+            spdxPackage.setDownloadLocation("https://gitee.com/src-openeuler/package-%d".formatted(i));
+            spdxPackage.setLicenseConcluded("MulanPSL-2.0 AND Apache-2.0");
+            spdxPackage.setLicenseDeclared("MulanPSL-2.0");
+            spdxPackage.setCopyrightText("Copyright (c) Huawei Technologies Co., Ltd. %d".formatted(i));
+            spdxPackage.setChecksums(List.of(new SpdxChecksum(org.opensourceway.sbom.model.spdx.Algorithm.SHA256,
+                    "%064x".formatted(i))));
+            spdxPackage.setExternalRefs(List.of(new SpdxExternalReference(null, ReferenceCategory.PACKAGE_MANAGER,
+                    ReferenceType.PURL, "pkg:rpm/openeuler/package-%d@1.0.%d-1.oe2203".formatted(i, i))));
+            packages.add(spdxPackage);
+
+            relationships.add(new SpdxRelationship(spdxPackage.getSpdxId(), RelationshipType.DEPENDS_ON,
+                    "SPDXRef-Package-%d".formatted((i + 1) % PACKAGE_COUNT), null));
+        }
+
+        SpdxDocument document = new SpdxDocument("SPDXRef-DOCUMENT");
+        document.setSpdxVersion("SPDX-2.2");
+        document.setName("generated");
+        document.setDataLicense("CC0-1.0");
+        document.setDocumentNamespace("https://sbom-service/generated");
+        document.setPackages(packages);
+        document.setRelationships(relationships);
+        return document;
+    }
+}
@@ -0,0 +1,161 @@
+package org.opensourceway.sbom.utils;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link SignatureUtil} against a fake signatrust client script, which takes a fixed delay for every invocation,
+ * to compare signing files one by one with signing them in batches.
+ */
+@SpringBootTest(properties = {
+        "signatrust.key.name=test-key",
+        "signatrust.client.timeout=5s",
+        "signatrust.client.timeout-per-file=100ms",
+        "signatrust.client.batch-size=" + SignatureUtilTest.BATCH_SIZE})
+public class SignatureUtilTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureUtilTest.class);
+
+    static final int BATCH_SIZE = 8;
+
+    private static Path clientDir;
+
+    @Autowired
+    private SignatureUtil signatureUtil;
+
+    private Path tmpDir;
+
+    @DynamicPropertySource
+    public static void signatrustClient(DynamicPropertyRegistry registry) throws IOException {
+        clientDir = Files.createTempDirectory("signatrust-client");
+        Path client = clientDir.resolve("fake-signatrust-client.sh");
+        try (InputStream script = Objects.requireNonNull(
+                SignatureUtilTest.class.getClassLoader().getResourceAsStream("signatrust/fake-signatrust-client.sh"))) {
+            Files.copy(script, client);
+        }
+        assertThat(client.toFile().setExecutable(true)).isTrue();
+        Path clientConfig = Files.writeString(clientDir.resolve("client.toml"), "");
+
+        registry.add("signatrust.client", client::toString);
+        registry.add("signatrust.client.config", clientConfig::toString);
+    }
+
+    @AfterAll
+    public static void removeClient() {
+        FileSystemUtils.deleteRecursively(clientDir.toFile());
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.deleteIfExists(invocationsFile());
+        tmpDir = Files.createTempDirectory("test");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tmpDir);
+    }
+
+    @Test
+    public void signBatchWithOneClientInvocation() throws IOException {
+        List<Path> files = createFiles(tmpDir.resolve("sboms"), BATCH_SIZE);
+
+        long start = System.nanoTime();
+        List<SignatureUtil.SignFile> oneByOne = new ArrayList<>();
+        for (Path file : files) {
+            oneByOne.add(signatureUtil.sign(file.toString()));
+        }
+        long oneByOneNanos = System.nanoTime() - start;
+        assertThat(countInvocations()).isEqualTo(BATCH_SIZE);
+
+        for (Path file : files) {
+            Files.delete(file.resolveSibling(file.getFileName() + SignatureUtil.SIGN_SUFFIX));
+        }
+        start = System.nanoTime();
+        Map<Path, SignatureUtil.SignFile> batched = signatureUtil.sign(files);
+        long batchedNanos = System.nanoTime() - start;
+        assertThat(countInvocations()).isEqualTo(BATCH_SIZE + 1);
+
+        logger.info("per file signing cost, one by one: {} ms, batched: {} ms",
+                Duration.ofNanos(oneByOneNanos / BATCH_SIZE).toMillis(), Duration.ofNanos(batchedNanos / BATCH_SIZE).toMillis());
+
+        assertThat(batched).hasSize(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Path file = files.get(i);
+            SignatureUtil.SignFile signFile = batched.get(file);
+            assertThat(signFile.getFilename()).isEqualTo(oneByOne.get(i).getFilename());
+            assertThat(signFile.getContent()).isEqualTo(oneByOne.get(i).getContent());
+            assertThat(file.resolveSibling(signFile.getFilename())).hasBinaryContent(signFile.getContent());
+        }
+    }
+
+    @Test
+    public void splitBatchesBySizeAndFilename() throws IOException {
+        List<Path> files = new ArrayList<>(createFiles(tmpDir.resolve("first"), 20));
+        // same file names as the first directory, each can not be staged with its namesake
+        files.addAll(createFiles(tmpDir.resolve("second"), 2));
+
+        Map<Path, SignatureUtil.SignFile> batched = signatureUtil.sign(files);
+        assertThat(batched).hasSize(22);
+        assertThat(batched.keySet()).containsExactlyInAnyOrderElementsOf(files);
+        assertThat(countInvocations()).isEqualTo(3);
+    }
+
+    @Test
+    public void noSignatureWithoutClient() throws IOException {
+        Path client = clientDir.resolve("fake-signatrust-client.sh");
+        Path movedClient = Files.move(client, clientDir.resolve("moved-signatrust-client.sh"));
+        try {
+            List<Path> files = createFiles(tmpDir.resolve("sboms"), 2);
+
+            assertThat(signatureUtil.sign(files)).isEmpty();
+            assertThat(signatureUtil.sign(files.get(0).toString())).isNull();
+            assertThat(countInvocations()).isZero();
+        } finally {
+            Files.move(movedClient, client);
+        }
+    }
+
+    private List<Path> createFiles(Path dir, int count) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(Files.writeString(dir.resolve("package-%d-sbom.json".formatted(i)), "{\"name\": \"package-%d\"}".formatted(i)));
+        }
+        return files;
+    }
+
+    private Path invocationsFile() {
+        return clientDir.resolve("client.toml.invocations");
+    }
+
+    private long countInvocations() throws IOException {
+        if (Files.notExists(invocationsFile())) {
+            return 0;
+        }
+        try (var lines = Files.lines(invocationsFile())) {
+            return lines.count();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.opensourceway.sbom.model.cyclonedx.ExternalReferenceType;
 import org.opensourceway.sbom.model.cyclonedx.Property;
 import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.RawSbom;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.opensourceway.sbom.model.enums.SbomContentType;
 import org.opensourceway.sbom.model.spdx.RelationshipType;
 import org.opensourceway.sbom.model.spdx.SpdxDocument;
@@ -137,8 +138,12 @@ public class TestCommon {
     }
 
     public static String extractSbomFromTar(byte[] tarBytes, String filename) throws IOException {
+        return extractSbomFromTar(tarBytes, filename, ArchiveCompression.GZIP);
+    }
+
+    public static String extractSbomFromTar(byte[] tarBytes, String filename, ArchiveCompression compression) throws IOException {
         var tmpDirPath = Files.createTempDirectory("test");
-        FileUtil.extractTarGzipArchive(new ByteArrayInputStream(tarBytes), tmpDirPath.toString());
+        FileUtil.extractTarArchive(new ByteArrayInputStream(tarBytes), tmpDirPath.toString(), compression);
         return Files.readString(tmpDirPath.resolve(filename));
     }
 }
@@ -0,0 +1,134 @@
+package org.opensourceway.sbom.utils.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.cache.OpenEulerRepoMetaCache;
+import org.opensourceway.sbom.dao.RepoMetaRepository;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.entity.RepoMeta;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class AsyncLoadingCacheTest {
+
+    private static final int LOADER_CONCURRENCY = 4;
+
+    private static final int CALLER_CONCURRENCY = 32;
+
+    private static final int LOOKUPS = 5000;
+
+    private static final int REPOS = 500;
+
+    private final RepoMetaRepository repoMetaRepository = Mockito.mock(RepoMetaRepository.class);
+
+    private final Set<String> loaderThreads = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskExecutor cacheLoaderExecutor;
+
+    private OpenEulerRepoMetaCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cacheLoaderExecutor = new ThreadPoolTaskExecutor();
+        cacheLoaderExecutor.setCorePoolSize(LOADER_CONCURRENCY);
+        cacheLoaderExecutor.setMaxPoolSize(LOADER_CONCURRENCY);
+        cacheLoaderExecutor.setThreadNamePrefix("cache-loader-");
+        cacheLoaderExecutor.initialize();
+
+        cache = new OpenEulerRepoMetaCache();
+        ReflectionTestUtils.setField(cache, "repoMetaRepository", repoMetaRepository);
+        ReflectionTestUtils.setField(cache, "cacheLoaderExecutor", cacheLoaderExecutor);
+        cache.init();
+
+        Mockito.when(repoMetaRepository.findByProductTypeAndRepoNameAndBranch(eq(SbomConstants.PRODUCT_OPENEULER_NAME), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    loaderThreads.add(Thread.currentThread().getName());
+                    Thread.sleep(1);
+                    String repo = invocation.getArgument(1);
+                    if (repo.endsWith("0")) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(repoMeta(repo, invocation.getArgument(2)));
+                });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheLoaderExecutor.shutdown();
+    }
+
+    @Test
+    public void threadCountStaysFlatUnderConcurrentLookups() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLER_CONCURRENCY);
+        try {
+            // start the callers before taking the baseline, so that only the threads created by the cache are counted
+            List<Future<?>> warmUp = new ArrayList<>();
+            for (int i = 0; i < CALLER_CONCURRENCY; i++) {
+                warmUp.add(callers.submit(() -> {
+                }));
+            }
+            for (Future<?> future : warmUp) {
+                future.get();
+            }
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            int baseline = threadMXBean.getThreadCount();
+            threadMXBean.resetPeakThreadCount();
+
+            List<Future<RepoMeta>> lookups = new ArrayList<>();
+            for (int i = 0; i < LOOKUPS; i++) {
+                String repo = "repo" + (i % REPOS);
+                lookups.add(callers.submit(() -> cache.getRepoMeta(repo, "master")));
+            }
+            for (int i = 0; i < LOOKUPS; i++) {
+                RepoMeta repoMeta = lookups.get(i).get();
+                if (i % 10 == 0) {
+                    assertThat(repoMeta).isNull();
+                } else {
+                    assertThat(repoMeta.getRepoName()).isEqualTo("repo" + (i % REPOS));
+                }
+            }
+
+            assertThat(threadMXBean.getPeakThreadCount()).isLessThanOrEqualTo(baseline + LOADER_CONCURRENCY);
+        } finally {
+            callers.shutdown();
+        }
+
+        // every key is loaded once by the shared loader threads, misses included
+        Mockito.verify(repoMetaRepository, Mockito.times(REPOS))
+                .findByProductTypeAndRepoNameAndBranch(eq(SbomConstants.PRODUCT_OPENEULER_NAME), anyString(), anyString());
+        assertThat(loaderThreads).hasSizeLessThanOrEqualTo(LOADER_CONCURRENCY)
+                .allMatch(it -> it.startsWith("cache-loader-"));
+    }
+
+    private RepoMeta repoMeta(String repo, String branch) {
+        RepoMeta repoMeta = new RepoMeta();
+        repoMeta.setProductType(SbomConstants.PRODUCT_OPENEULER_NAME);
+        repoMeta.setRepoName(repo);
+        repoMeta.setBranch(branch);
+        // upstreams already fetched, nothing to fetch from gitee
+        Map<String, Object> extendedAttr = new HashMap<>();
+        extendedAttr.put(SbomRepoConstants.UPSTREAM_ATTR_KEY, List.of("https://example.com/" + repo));
+        repoMeta.setExtendedAttr(extendedAttr);
+        return repoMeta;
+    }
+}
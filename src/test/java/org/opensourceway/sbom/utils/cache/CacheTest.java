@@ -1,15 +1,35 @@
 package org.opensourceway.sbom.utils.cache;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.opensourceway.sbom.SbomManagerApplication;
+import org.opensourceway.sbom.cache.config.CacheProperties;
+import org.opensourceway.sbom.cache.config.PersistentCacheStore;
+import org.opensourceway.sbom.dao.CacheEntryRepository;
+import org.opensourceway.sbom.model.entity.CacheEntry;
+import org.opensourceway.sbom.model.pojo.response.license.LicenseInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
 import org.springframework.context.annotation.Configuration;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(classes = {SbomManagerApplication.class})
@@ -18,6 +38,10 @@ public class CacheTest {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheTest.class);
 
+    private static final String PERSISTENT_CACHE_NAME = "cacheTestPersistent";
+
+    private static final Duration PERSISTENT_TTL = Duration.ofMinutes(10);
+
     @Autowired
     private CacheManager cacheManager;
 
@@ -27,6 +51,17 @@ public class CacheTest {
     @Autowired
     private CaffeineCacheReloadTest reloadCache;
 
+    @Autowired
+    private PersistentCacheStore persistentCacheStore;
+
+    @Autowired
+    private CacheEntryRepository cacheEntryRepository;
+
+    @AfterEach
+    public void cleanUpPersistentEntries() {
+        cacheEntryRepository.deleteByCacheName(PERSISTENT_CACHE_NAME);
+    }
+
     @Test
     public void testMultiKeyCache() throws InterruptedException {
         CaffeineCache multiKeyCacheMonitor = (CaffeineCache) cacheManager.getCache(CacheTestConstant.MULTI_KEY_CACHE_NAME);
@@ -91,6 +126,87 @@ public class CacheTest {
         assertCacheHitCount(reloadCacheMonitor, 9);
     }
 
+    @Test
+    public void testPersistentStoreRoundTrip() {
+        JavaType type = persistentCacheStore.constructType(CacheProperties.builder()
+                .cacheName(PERSISTENT_CACHE_NAME)
+                .valueType(new TypeReference<Map<String, LicenseInfo>>() {})
+                .build());
+        LicenseInfo licenseInfo = new LicenseInfo();
+        licenseInfo.setLicenseId("MulanPSL-2.0");
+        licenseInfo.setName("Mulan Permissive Software License, Version 2");
+        licenseInfo.setSeeAlso(List.of("https://license.coscl.org.cn/MulanPSL2"));
+
+        persistentCacheStore.put(PERSISTENT_CACHE_NAME, "key", Map.of("MulanPSL-2.0", licenseInfo), PERSISTENT_TTL);
+        @SuppressWarnings("unchecked")
+        Map<String, LicenseInfo> read = (Map<String, LicenseInfo>) persistentCacheStore.get(PERSISTENT_CACHE_NAME, "key", type);
+        assertThat(read).containsOnlyKeys("MulanPSL-2.0");
+        assertThat(read.get("MulanPSL-2.0").getName()).isEqualTo(licenseInfo.getName());
+        assertThat(read.get("MulanPSL-2.0").getSeeAlso()).isEqualTo(licenseInfo.getSeeAlso());
+
+        // the upsert replaces the value of the existing key
+        persistentCacheStore.put(PERSISTENT_CACHE_NAME, "key", Map.of(), PERSISTENT_TTL);
+        assertThat(persistentCacheStore.get(PERSISTENT_CACHE_NAME, "key", type)).isEqualTo(Map.of());
+        persistentCacheStore.put(PERSISTENT_CACHE_NAME, "key", NullValue.INSTANCE, PERSISTENT_TTL);
+        assertThat(persistentCacheStore.get(PERSISTENT_CACHE_NAME, "key", type)).isEqualTo(NullValue.INSTANCE);
+        assertThat(persistentEntries()).hasSize(1);
+
+        // written by a previous version of the value class, it is dropped
+        cacheEntryRepository.upsert(UUID.randomUUID(), PERSISTENT_CACHE_NAME, "key", "{\"broken\"",
+                new Timestamp(System.currentTimeMillis() + PERSISTENT_TTL.toMillis()));
+        assertThat(persistentCacheStore.get(PERSISTENT_CACHE_NAME, "key", type)).isNull();
+        assertThat(persistentEntries()).isEmpty();
+    }
+
+    @Test
+    public void testPersistentStoreExpiration() {
+        JavaType type = persistentCacheStore.constructType(CacheProperties.builder()
+                .cacheName(PERSISTENT_CACHE_NAME)
+                .valueType(new TypeReference<String>() {})
+                .build());
+
+        persistentCacheStore.put(PERSISTENT_CACHE_NAME, "expired", "value", Duration.ofMinutes(-1));
+        persistentCacheStore.put(PERSISTENT_CACHE_NAME, "valid", "value", PERSISTENT_TTL);
+        assertThat(persistentCacheStore.get(PERSISTENT_CACHE_NAME, "expired", type)).isNull();
+        assertThat(persistentCacheStore.get(PERSISTENT_CACHE_NAME, "valid", type)).isEqualTo("value");
+
+        persistentCacheStore.removeExpired();
+        assertThat(persistentEntries()).extracting(CacheEntry::getCacheKey).containsExactly("valid");
+    }
+
+    @Test
+    public void testConcurrentPersistentUpsert() throws Exception {
+        int writers = 4;
+        CyclicBarrier barrier = new CyclicBarrier(writers);
+        ExecutorService executorService = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Integer>> upserts = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                String value = "\"value-%d\"".formatted(i);
+                upserts.add(executorService.submit(() -> {
+                    barrier.await();
+                    return cacheEntryRepository.upsert(UUID.randomUUID(), PERSISTENT_CACHE_NAME, "key", value,
+                            new Timestamp(System.currentTimeMillis() + PERSISTENT_TTL.toMillis()));
+                }));
+            }
+            for (Future<Integer> upsert : upserts) {
+                assertThat(upsert.get()).isEqualTo(1);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // writers of different nodes never fail on the unique key, the last one wins
+        assertThat(persistentEntries()).hasSize(1);
+        assertThat(persistentEntries().get(0).getValue()).matches("\"value-[0-3]\"");
+    }
+
+    private List<CacheEntry> persistentEntries() {
+        return cacheEntryRepository.findAll().stream()
+                .filter(it -> PERSISTENT_CACHE_NAME.equals(it.getCacheName()))
+                .toList();
+    }
+
     private void assertCacheValue(String actual, String expected) {
         assertThat(actual).isEqualTo(expected);
     }
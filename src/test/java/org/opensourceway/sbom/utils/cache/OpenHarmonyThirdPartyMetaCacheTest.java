@@ -0,0 +1,127 @@
+package org.opensourceway.sbom.utils.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.api.vcs.VcsApi;
+import org.opensourceway.sbom.cache.OpenHarmonyThirdPartyMetaCache;
+import org.opensourceway.sbom.cache.constant.CacheConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.pojo.vo.repo.ThirdPartyMetaVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@SpringBootTest
+public class OpenHarmonyThirdPartyMetaCacheTest {
+
+    private static final String REPO = "third_party_libxml2";
+
+    private static final String TAG = "OpenHarmony-v3.1-Release";
+
+    private static final String BRANCH = "OpenHarmony-3.1-Release";
+
+    private static final String COMMIT_ID = "0123456789abcdef0123456789abcdef01234567";
+
+    private static final String META_FILE = SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE;
+
+    private static final String META_CONTENT = """
+            [{"Name": "libxml2", "Version Number": "2.9.10", "Upstream URL": "http://xmlsoft.org/"}]""";
+
+    @MockBean(name = "giteeApi")
+    private VcsApi giteeApi;
+
+    @Autowired
+    private OpenHarmonyThirdPartyMetaCache openHarmonyThirdPartyMetaCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME).clear();
+    }
+
+    @Test
+    public void fetchOncePerRepoRevisionAndPath() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(TAG))).thenReturn(META_CONTENT);
+
+        List<ThirdPartyMetaVo> metas = openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE);
+        List<ThirdPartyMetaVo> cachedMetas = openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE);
+
+        assertThat(metas).hasSize(1);
+        assertThat(metas.get(0).getName()).isEqualTo("libxml2");
+        assertThat(metas.get(0).getVersion()).isEqualTo("2.9.10");
+        assertThat(metas.get(0).getUpstreamUrl()).isEqualTo("http://xmlsoft.org/");
+        assertThat(cachedMetas).isSameAs(metas);
+        assertThat(cachedValue(TAG)).isNotNull();
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(anyString());
+    }
+
+    @Test
+    public void missingMetaIsCached() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(TAG))).thenThrow(
+                WebClientResponseException.create(404, "Not Found", HttpHeaders.EMPTY, new byte[0], null));
+
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE)).isNull();
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE)).isNull();
+        assertThat(cachedValue(TAG)).isNotNull();
+        assertThat(cachedValue(TAG).get()).isNull();
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(anyString());
+    }
+
+    @Test
+    public void fetchFailureIsNotCached() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(TAG)))
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenReturn(META_CONTENT);
+
+        assertThatThrownBy(() -> openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE))
+                .hasMessage("connection reset");
+        assertThat(cachedValue(TAG)).isNull();
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE)).hasSize(1);
+        Mockito.verify(giteeApi, Mockito.times(2)).getFileContext(anyString());
+    }
+
+    @Test
+    public void branchIsNotCached() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(BRANCH))).thenReturn(META_CONTENT);
+        Mockito.when(giteeApi.getFileContext(metaUrl("master"))).thenReturn(META_CONTENT);
+
+        for (String branch : List.of(BRANCH, "master")) {
+            assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, branch, META_FILE)).hasSize(1);
+            assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, branch, META_FILE)).hasSize(1);
+            assertThat(cachedValue(branch)).isNull();
+            Mockito.verify(giteeApi, Mockito.times(2)).getFileContext(metaUrl(branch));
+        }
+    }
+
+    @Test
+    public void commitIdIsCached() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(COMMIT_ID))).thenReturn(META_CONTENT);
+
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, COMMIT_ID, META_FILE)).hasSize(1);
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, COMMIT_ID, META_FILE)).hasSize(1);
+        assertThat(cachedValue(COMMIT_ID)).isNotNull();
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(anyString());
+    }
+
+    private Cache.ValueWrapper cachedValue(String revision) {
+        return cacheManager.getCache(CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME)
+                .get("third_party_meta_%s_%s_%s".formatted(REPO, revision, META_FILE));
+    }
+
+    private static String metaUrl(String revision) {
+        return "https://gitee.com/openharmony/%s/raw/%s/%s".formatted(REPO, revision, META_FILE);
+    }
+}
@@ -0,0 +1,105 @@
+package org.opensourceway.sbom.utils.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.api.vcs.VcsApi;
+import org.opensourceway.sbom.cache.OpenHarmonyThirdPartyMetaCache;
+import org.opensourceway.sbom.cache.config.PersistentCaffeineCache;
+import org.opensourceway.sbom.cache.constant.CacheConstants;
+import org.opensourceway.sbom.dao.CacheEntryRepository;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.entity.CacheEntry;
+import org.opensourceway.sbom.model.pojo.vo.repo.ThirdPartyMetaVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * The third party metas at a tag survive a restart through table cache_entry, the metas at a branch are never stored.
+ */
+@SpringBootTest(properties = "sbom.cache.persistent.enabled=true")
+public class OpenHarmonyThirdPartyMetaPersistentCacheTest {
+
+    private static final String REPO = "third_party_libxml2";
+
+    private static final String TAG = "OpenHarmony-v3.1-Release";
+
+    private static final String META_FILE = SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE;
+
+    private static final String META_CONTENT = """
+            [{"Name": "libxml2", "Version Number": "2.9.10", "Upstream URL": "http://xmlsoft.org/"}]""";
+
+    @MockBean(name = "giteeApi")
+    private VcsApi giteeApi;
+
+    @Autowired
+    private OpenHarmonyThirdPartyMetaCache openHarmonyThirdPartyMetaCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheEntryRepository cacheEntryRepository;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        // clears both tiers
+        cacheManager.getCache(CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME).clear();
+    }
+
+    @Test
+    public void tagIsReadFromSecondTier() {
+        Mockito.when(giteeApi.getFileContext(metaUrl(TAG))).thenReturn(META_CONTENT);
+
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE)).hasSize(1);
+        assertThat(persistedValue(TAG)).isPresent();
+
+        // a restarted node has an empty first tier
+        PersistentCaffeineCache cache = (PersistentCaffeineCache) cacheManager.getCache(
+                CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME);
+        cache.getNativeCache().invalidateAll();
+
+        List<ThirdPartyMetaVo> metas = openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, TAG, META_FILE);
+        assertThat(metas).hasSize(1);
+        assertThat(metas.get(0).getName()).isEqualTo("libxml2");
+        assertThat(metas.get(0).getVersion()).isEqualTo("2.9.10");
+        assertThat(metas.get(0).getUpstreamUrl()).isEqualTo("http://xmlsoft.org/");
+        Mockito.verify(giteeApi, Mockito.times(1)).getFileContext(anyString());
+    }
+
+    @Test
+    public void branchIsNotPersisted() {
+        Mockito.when(giteeApi.getFileContext(metaUrl("master"))).thenReturn(META_CONTENT);
+
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, "master", META_FILE)).hasSize(1);
+        assertThat(openHarmonyThirdPartyMetaCache.getThirdPartyMeta(REPO, "master", META_FILE)).hasSize(1);
+        assertThat(persistedValue("master")).isEmpty();
+        Mockito.verify(giteeApi, Mockito.times(2)).getFileContext(anyString());
+    }
+
+    private Optional<CacheEntry> persistedValue(String revision) {
+        return cacheEntryRepository.findByCacheNameAndCacheKeyAndExpireAtAfter(
+                CacheConstants.OPENHARMONY_THIRD_PARTY_REPO_META_CACHE_NAME,
+                "third_party_meta_%s_%s_%s".formatted(REPO, revision, META_FILE),
+                new Timestamp(System.currentTimeMillis()));
+    }
+
+    private static String metaUrl(String revision) {
+        return "https://gitee.com/openharmony/%s/raw/%s/%s".formatted(REPO, revision, META_FILE);
+    }
+}
@@ -0,0 +1,81 @@
+package org.opensourceway.sbom.utils.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.cache.config.PersistentCacheStore;
+import org.opensourceway.sbom.cache.config.PersistentCaffeineCache;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class PersistentCaffeineCacheTest {
+
+    private static final String CACHE_NAME = "persistentTest";
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final PersistentCacheStore store = Mockito.mock(PersistentCacheStore.class);
+
+    private final JavaType valueType = Mockito.mock(JavaType.class);
+
+    @Test
+    public void readThroughOnFirstTierMiss() {
+        PersistentCaffeineCache cache = newCache(true, true);
+        Mockito.when(store.get(CACHE_NAME, "key", valueType)).thenReturn("persisted");
+
+        assertThat(cache.get("key", String.class)).isEqualTo("persisted");
+        assertThat(cache.get("key", String.class)).isEqualTo("persisted");
+        assertThat(cache.get("key", () -> "loaded")).isEqualTo("persisted");
+        // the second tier is read once, the hit is kept by the first tier
+        Mockito.verify(store, Mockito.times(1)).get(CACHE_NAME, "key", valueType);
+        Mockito.verify(store, Mockito.never()).put(anyString(), any(), any(), any());
+    }
+
+    @Test
+    public void persistedNullIsCached() {
+        PersistentCaffeineCache cache = newCache(true, true);
+        Mockito.when(store.get(CACHE_NAME, "key", valueType)).thenReturn(NullValue.INSTANCE);
+
+        assertThat(cache.get("key")).isNotNull();
+        assertThat(cache.get("key").get()).isNull();
+    }
+
+    @Test
+    public void writeThroughLoadedAndPutValues() {
+        PersistentCaffeineCache cache = newCache(true, true);
+
+        assertThat(cache.get("loaded", () -> "value")).isEqualTo("value");
+        Mockito.verify(store).put(CACHE_NAME, "loaded", "value", TTL);
+
+        cache.put("put", null);
+        Mockito.verify(store).put(CACHE_NAME, "put", NullValue.INSTANCE, TTL);
+
+        cache.evict("put");
+        Mockito.verify(store).evict(CACHE_NAME, "put");
+        cache.clear();
+        Mockito.verify(store).clear(CACHE_NAME);
+    }
+
+    @Test
+    public void firstTierOnlyWithoutReadAndWriteThrough() {
+        PersistentCaffeineCache cache = newCache(false, false);
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+        cache.put("another", "value");
+        assertThat(cache.get("another", String.class)).isEqualTo("value");
+        Mockito.verify(store, Mockito.never()).get(anyString(), any(), any());
+        Mockito.verify(store, Mockito.never()).put(anyString(), any(), any(), any());
+    }
+
+    private PersistentCaffeineCache newCache(boolean readThrough, boolean writeThrough) {
+        return new PersistentCaffeineCache(CACHE_NAME, Caffeine.newBuilder().maximumSize(10).build(), true,
+                store, valueType, TTL, readThrough, writeThrough);
+    }
+}
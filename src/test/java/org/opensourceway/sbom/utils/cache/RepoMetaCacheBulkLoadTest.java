@@ -0,0 +1,134 @@
+package org.opensourceway.sbom.utils.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensourceway.sbom.cache.OpenEulerRepoMetaCache;
+import org.opensourceway.sbom.cache.RepoMetaLicenseCache;
+import org.opensourceway.sbom.dao.RepoMetaRepository;
+import org.opensourceway.sbom.model.constants.BatchContextConstants;
+import org.opensourceway.sbom.model.constants.SbomConstants;
+import org.opensourceway.sbom.model.constants.SbomRepoConstants;
+import org.opensourceway.sbom.model.entity.Product;
+import org.opensourceway.sbom.model.entity.RepoMeta;
+import org.opensourceway.sbom.model.pojo.vo.sbom.PackageUrlVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * A bulk lookup of missing keys loads them with one query instead of one query per key.
+ */
+@SpringBootTest
+public class RepoMetaCacheBulkLoadTest {
+
+    /**
+     * a branch no other test uses, so that the queries only see the rows of this test
+     */
+    private static final String BRANCH = "repo-meta-cache-bulk-load-test";
+
+    @SpyBean
+    private RepoMetaRepository repoMetaRepository;
+
+    @Autowired
+    private OpenEulerRepoMetaCache openEulerRepoMetaCache;
+
+    @Autowired
+    private RepoMetaLicenseCache repoMetaLicenseCache;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        repoMetaRepository.saveAll(List.of(
+                repoMeta("zlib", "zlib", "zlib-devel"),
+                repoMeta("openssl", "openssl", "openssl-libs"),
+                repoMeta("nodejs-lodash", "nodejs-lodash")));
+        Mockito.clearInvocations(repoMetaRepository);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        repoMetaRepository.deleteAll(repoMetaRepository.findAll().stream()
+                .filter(it -> BRANCH.equals(it.getBranch()))
+                .toList());
+    }
+
+    @Test
+    public void loadOpenEulerRepoMetasInBulk() {
+        List<OpenEulerRepoMetaCache.RepoBranch> keys = List.of(
+                new OpenEulerRepoMetaCache.RepoBranch("zlib", BRANCH),
+                new OpenEulerRepoMetaCache.RepoBranch("openssl", BRANCH),
+                new OpenEulerRepoMetaCache.RepoBranch("nodejs-lodash", BRANCH),
+                new OpenEulerRepoMetaCache.RepoBranch("unknown", BRANCH));
+
+        Map<OpenEulerRepoMetaCache.RepoBranch, RepoMeta> repoMetas = openEulerRepoMetaCache.getRepoMetas(keys);
+
+        assertThat(repoMetas).containsOnlyKeys(keys.subList(0, 3));
+        assertThat(repoMetas.get(keys.get(0)).getRepoName()).isEqualTo("zlib");
+        Mockito.verify(repoMetaRepository, Mockito.times(1))
+                .findByProductTypeAndBranchAndRepoNameIn(anyString(), anyString(), any());
+        Mockito.verify(repoMetaRepository, Mockito.never())
+                .findByProductTypeAndRepoNameAndBranch(anyString(), anyString(), anyString());
+
+        // the misses are cached as well
+        assertThat(openEulerRepoMetaCache.getRepoMeta("unknown", BRANCH)).isNull();
+        assertThat(openEulerRepoMetaCache.getRepoMetas(keys)).isEqualTo(repoMetas);
+        Mockito.verify(repoMetaRepository, Mockito.times(1))
+                .findByProductTypeAndBranchAndRepoNameIn(anyString(), anyString(), any());
+        Mockito.verify(repoMetaRepository, Mockito.never())
+                .findByProductTypeAndRepoNameAndBranch(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void loadRepoMetaLicensesInBulk() {
+        Product product = new Product();
+        product.setName("repoMetaCacheBulkLoadTestProduct");
+        product.setAttribute(Map.of(BatchContextConstants.BATCH_PRODUCT_TYPE_KEY, SbomConstants.PRODUCT_OPENEULER_NAME,
+                BatchContextConstants.BATCH_PRODUCT_VERSION_KEY, BRANCH));
+        List<RepoMetaLicenseCache.Key> keys = List.of(
+                licenseKey(product, "zlib-devel", "zlib"),
+                licenseKey(product, "openssl-libs", "openssl"),
+                licenseKey(product, "nodejs-lodash", "nodejs-lodash"),
+                licenseKey(product, "unknown", "unknown"));
+
+        Map<RepoMetaLicenseCache.Key, RepoMeta> repoMetas = repoMetaLicenseCache.getRepoMetas(keys);
+
+        assertThat(repoMetas).containsOnlyKeys(keys.subList(0, 3));
+        assertThat(repoMetas.get(keys.get(1)).getRepoName()).isEqualTo("openssl");
+        Mockito.verify(repoMetaRepository, Mockito.times(1)).queryRepoMetaByPackageNames(anyString(), anyString(), any());
+        Mockito.verify(repoMetaRepository, Mockito.never()).queryRepoMetaByPackageName(anyString(), anyString(), anyString());
+
+        // the misses are cached as well
+        assertThat(repoMetaLicenseCache.getRepoMeta(new PackageUrlVo("rpm", "openEuler", "unknown", "1.0"),
+                product, "unknown", BRANCH)).isNull();
+        Mockito.verify(repoMetaRepository, Mockito.times(1)).queryRepoMetaByPackageNames(anyString(), anyString(), any());
+        Mockito.verify(repoMetaRepository, Mockito.never()).queryRepoMetaByPackageName(anyString(), anyString(), anyString());
+    }
+
+    private RepoMetaLicenseCache.Key licenseKey(Product product, String pkgName, String repo) {
+        return new RepoMetaLicenseCache.Key(new PackageUrlVo("rpm", "openEuler", pkgName, "1.0"), product, repo, BRANCH);
+    }
+
+    private RepoMeta repoMeta(String repoName, String... packageNames) {
+        RepoMeta repoMeta = new RepoMeta();
+        repoMeta.setProductType(SbomConstants.PRODUCT_OPENEULER_NAME);
+        repoMeta.setRepoName(repoName);
+        repoMeta.setBranch(BRANCH);
+        repoMeta.setPackageNames(packageNames);
+        // upstreams and licenses already fetched, nothing to fetch from gitee or the compliance service
+        Map<String, Object> extendedAttr = new HashMap<>();
+        extendedAttr.put(SbomRepoConstants.UPSTREAM_ATTR_KEY, List.of("https://example.com/" + repoName));
+        extendedAttr.put(SbomRepoConstants.REPO_LICENSE, List.of("MIT"));
+        repoMeta.setExtendedAttr(extendedAttr);
+        return repoMeta;
+    }
+}
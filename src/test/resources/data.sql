@@ -18,7 +18,9 @@ VALUES
 ('d039235d-4ad9-43f2-b06f-6973942212b5', '5', '5', '13565ac5-7f88-437d-a70b-11998e98c088'),
 ('d039235d-4ad9-43f2-b06f-6973942212b6', '6', '6', '13565ac5-7f88-437d-a70b-11998e98c088'),
 ('d039235d-4ad9-43f2-b06f-6973942212b7', '7', '7', '13565ac5-7f88-437d-a70b-11998e98c088'),
-('d039235d-4ad9-43f2-b06f-6973942212b8', '8', '8', '13565ac5-7f88-437d-a70b-11998e98c088')
+('d039235d-4ad9-43f2-b06f-6973942212b8', '8', '8', '13565ac5-7f88-437d-a70b-11998e98c088'),
+('d039235d-4ad9-43f2-b06f-6973942212b9', '9', '9', '13565ac5-7f88-437d-a70b-11998e98c088'),
+('d039235d-4ad9-43f2-b06f-697394221210', '10', '10', '13565ac5-7f88-437d-a70b-11998e98c088')
 ON CONFLICT (id) DO UPDATE
     SET value = EXCLUDED.value, product_config_id = EXCLUDED.product_config_id;
 
@@ -30,6 +32,9 @@ VALUES
 ('11111111-1111-41e7-b97a-a3481bb6e444', 'publishTest', '{"productType": "testProduct", "arg":"4"}'::jsonb),
 ('11111111-1111-41e7-b97a-a3481bb6e555', 'mindsporeTracerTest', '{"productType": "testProduct", "arg":"5"}'::jsonb),
 ('11111111-1111-41e7-b97a-a3481bb6e666', 'publishServiceTest', '{"productType": "testProduct", "arg":"6"}'::jsonb),
+('11111111-1111-41e7-b97a-a3481bb6e888', 'SpdxStreamReaderTest', '{"productType": "testProduct", "arg":"7"}'::jsonb),
+('11111111-1111-41e7-b97a-a3481bb6e999', 'CycloneDXReaderJsonTest', '{"productType": "testProduct", "arg":"9"}'::jsonb),
+('11111111-1111-41e7-b97a-a3481bb6e000', 'CycloneDXReaderXmlTest', '{"productType": "testProduct", "arg":"10"}'::jsonb),
 ('11111111-1111-41e7-b97a-a3481bb6e777', 'repodataTest', '{"productType":"openEuler", "version":"openEuler-22.03-LTS","imageFormat":"ISO","imageType":"Update Wallaby","arch":"x86_64"}'::jsonb)
 ON CONFLICT (id) DO UPDATE
     SET name = EXCLUDED.name, attribute = EXCLUDED.attribute;
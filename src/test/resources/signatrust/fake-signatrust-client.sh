@@ -0,0 +1,39 @@
+#!/bin/sh
+# Fake signatrust client for tests.
+# Accepts the arguments of "client --config <config> add ... --detached <path>", writes a fake detached signature
+# <file>.asc for the file, or for every file of the directory, given as <path>, and records each invocation as a line
+# of <config>.invocations. The sleep stands for the start up and the server round trip of the real client.
+config=""
+path=""
+while [ $# -gt 0 ]; do
+    case "$1" in
+        --config)
+            config="$2"
+            shift 2
+            ;;
+        *)
+            path="$1"
+            shift
+            ;;
+    esac
+done
+
+echo "$path" >> "$config.invocations"
+sleep "${FAKE_SIGNATRUST_DELAY:-0.05}"
+
+sign() {
+    printf -- '-----BEGIN PGP SIGNATURE-----\n%s\n-----END PGP SIGNATURE-----\n' \
+        "$(sha256sum "$1" | cut -d ' ' -f 1)" > "$1.asc"
+}
+
+if [ -d "$path" ]; then
+    for file in "$path"/*; do
+        case "$file" in
+            *.asc) continue ;;
+        esac
+        [ -f "$file" ] && sign "$file"
+    done
+else
+    [ -f "$path" ] || exit 1
+    sign "$path"
+fi
@@ -1,5 +1,6 @@
 val commonsLang3Version: String by project
 val commonsCompressVersion: String by project
+val zstdJniVersion: String by project
 val packageUrlJavaVersion: String by project
 val cvssCalculatorVersion: String by project
 
@@ -13,6 +14,7 @@ dependencies {
     implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-xml")
     implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-yaml")
     implementation("org.apache.commons:commons-compress:$commonsCompressVersion")
+    implementation("com.github.luben:zstd-jni:$zstdJniVersion")
     implementation("org.apache.commons:commons-lang3:$commonsLang3Version")
     implementation("com.github.package-url:packageurl-java:$packageUrlJavaVersion")
     implementation("org.springframework.boot:spring-boot-starter-webflux")
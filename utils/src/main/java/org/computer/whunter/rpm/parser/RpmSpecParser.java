@@ -24,6 +24,8 @@
  */
 package org.computer.whunter.rpm.parser;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 import org.slf4j.Logger;
@@ -34,12 +36,17 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.Scanner;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +54,10 @@ import java.util.regex.Pattern;
  * This is a parser of an RPM Spec file. It extracts a number of properties from an RPM spec file
  * and presents them as properties. Some properties can refer to the values of other properties with
  * a syntax of %{fieldName}. The references are expanded in the properties where possible.
+ * <p>
+ * Each line is examined once by a small tokenizer instead of being matched against a regex per field, and the
+ * patterns of the macro references are compiled once and shared by all parsers. The expanded values are not memoized,
+ * they depend on the macros of each spec and on the values expanded before them.
  *
  * @author Warwick Hunter (w.hunter@computer.org)
  * {@code @date} 2012-02-22
@@ -63,8 +74,10 @@ public class RpmSpecParser {
 
     private static final String[] MACRO_FIELDS = {"package"};
 
+    private static final String NUMBERED_FIELD_SUFFIX = "[0-9]+";
+
     // FIXME 非标处理，后续优化
-    private static final Map<Pattern, String> BUILD_IN_MACRO_VALUE_MAPPING = new HashMap<>() {
+    private static final Map<Pattern, String> BUILD_IN_MACRO_VALUE_MAPPING = new LinkedHashMap<>() {
         {
             put(Pattern.compile("%\\{python3_pkgversion\\}"), "3");
             put(Pattern.compile("%\\{python3_other_pkgversion\\}"), "3");
@@ -73,13 +86,42 @@ public class RpmSpecParser {
         }
     };
 
-    private static final String[] INNER_MACRO_PATTERNS = {"^%define\\s.*", "^%global\\s.*"};
+    private static final String[] INNER_MACROS = {"%define", "%global"};
+
+    private static final String MACRO_REFERENCE_PREFIX = "%{";
+
+    private static final Pattern OPTIONAL_MACRO_PATTERN = Pattern.compile("\\%\\{\\?");
+
+    private static final Pattern UNRESOLVED_OPTIONAL_MACRO_PATTERN = Pattern.compile("\\%\\{\\?.*\\}");
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private static final Set<String> PLAIN_FIELDS = new HashSet<>();
 
-    private final Map<Pattern, String> m_fieldPatterns = new HashMap<>();
-    private final Map<Pattern, String> m_fieldReferenceMatcherPatterns = new HashMap<>();
-    private final Map<String, Pattern> m_fieldReferenceReplacePatterns = new HashMap<>();
-    private final Map<Pattern, String> m_placeholderReferenceMatcherPatterns = new HashMap<>();
-    private final Map<String, Pattern> m_placeholderReferenceReplacePatterns = new HashMap<>();
+    private static final List<String> NUMBERED_FIELDS = new ArrayList<>();
+
+    private static final List<MacroReference> FIELD_REFERENCES = new ArrayList<>();
+
+    /**
+     * The reference patterns of the macros defined by the spec files, the same macros are defined by lots of specs.
+     */
+    private static final Cache<String, MacroReference> MACRO_REFERENCES = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
+
+    static {
+        for (String field : COMMON_FIELDS) {
+            if (field.endsWith(NUMBERED_FIELD_SUFFIX)) {
+                NUMBERED_FIELDS.add(field.substring(0, field.length() - NUMBERED_FIELD_SUFFIX.length()).toLowerCase(Locale.ROOT));
+            } else {
+                PLAIN_FIELDS.add(field.toLowerCase(Locale.ROOT));
+            }
+            FIELD_REFERENCES.add(new MacroReference(field));
+        }
+        for (String field : MACRO_FIELDS) {
+            FIELD_REFERENCES.add(new MacroReference(field));
+        }
+    }
 
     private final String specFileContent;
 
@@ -102,53 +144,6 @@ public class RpmSpecParser {
      */
     private RpmSpecParser(String specFileContent) {
         this.specFileContent = specFileContent;
-
-        initFields(COMMON_FIELDS, Boolean.FALSE);
-        initFields(MACRO_FIELDS, Boolean.TRUE);
-    }
-
-    private void initFields(String[] fields, boolean isMacro) {
-        // Take the list of strings and turn them into case-insensitive pattern matchers
-        Map<Pattern, String> fieldRegexes = new HashMap<>();
-        Map<Pattern, String> macroMatchRegexes = new HashMap<>();
-        Map<String, Pattern> macroReplaceRegexes = new HashMap<>();
-        for (String field : fields) {
-            StringBuilder fieldRegex = new StringBuilder("^");
-            StringBuilder macroMatchRegex = new StringBuilder(".*%\\{");
-            StringBuilder macroReplaceRegex = new StringBuilder("%\\{");
-            fieldRegex.append("(");
-            if (isMacro) {
-                fieldRegex.append("%");
-            }
-            for (int i = 0; i < field.length(); ++i) {
-                char ch = field.charAt(i);
-                if (Character.isLetter(ch)) {
-                    String regex = String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch));
-                    fieldRegex.append(regex);
-                    macroMatchRegex.append(regex);
-                    macroReplaceRegex.append(regex);
-                } else {
-                    fieldRegex.append(ch);
-                    macroMatchRegex.append(ch);
-                    macroReplaceRegex.append(ch);
-                }
-            }
-
-            if (isMacro) {
-                fieldRegex.append(")(.*)");
-            } else {
-                fieldRegex.append(")\\s*:(.*)");
-            }
-
-            macroMatchRegex.append("\\}.*");
-            macroReplaceRegex.append("\\}");
-            fieldRegexes.put(Pattern.compile(fieldRegex.toString()), field);
-            macroMatchRegexes.put(Pattern.compile(macroMatchRegex.toString()), field);
-            macroReplaceRegexes.put(macroMatchRegex.toString(), Pattern.compile(macroReplaceRegex.toString()));
-        }
-        m_fieldPatterns.putAll(fieldRegexes);
-        m_fieldReferenceMatcherPatterns.putAll(macroMatchRegexes);
-        m_fieldReferenceReplacePatterns.putAll(macroReplaceRegexes);
     }
 
     /**
@@ -159,63 +154,127 @@ public class RpmSpecParser {
      */
     public Multimap<String, String> parse() throws FileNotFoundException {
         Multimap<String, String> properties = LinkedListMultimap.create();
-        Scanner scanner = new Scanner(this.specFileContent);
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-            if (line.startsWith("#")) {
-                // Discard comments
-                continue;
+        List<MacroReference> references = new ArrayList<>(FIELD_REFERENCES);
+        String content = this.specFileContent;
+        int length = content.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && !isLineSeparator(content.charAt(end))) {
+                ++end;
             }
+            parseLine(content.substring(start, end).trim(), properties, references);
+            if (end + 1 < length && content.charAt(end) == '\r' && content.charAt(end + 1) == '\n') {
+                ++end;
+            }
+            start = end + 1;
+        }
+        expandReferences(properties, references);
+        return properties;
+    }
 
-            // Examine the line to see if it's a macro definition
-            for (String innerMacroPatterns : INNER_MACRO_PATTERNS) {
-                if (line.matches(innerMacroPatterns)) {
-                    String[] words = line.split("\\s+");
-                    if (words.length > 2) {
-                        StringBuilder value = new StringBuilder();
-                        for (int i = 2; i < words.length; ++i) {
-                            if (i != 2) {
-                                value.append(" ");
-                            }
-                            value.append(words[i]);
-                        }
-
-                        if (properties.containsKey(words[1])) {
-                            logger.debug("macro field:{} is duplicate", words[1]);
-                            continue;
-                        }
-                        properties.put(words[1], value.toString().trim());
-                        // Add a matcher pattern for it so that any references to it can be expanded
-                        StringBuilder macroMatchRegex = new StringBuilder(".*%\\{");
-                        StringBuilder macroReplaceRegex = new StringBuilder("%\\{");
-                        for (int i = 0; i < words[1].length(); ++i) {
-                            char ch = words[1].charAt(i);
-                            if (Character.isLetter(ch)) {
-                                String regex = String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch));
-                                macroMatchRegex.append(regex);
-                                macroReplaceRegex.append(regex);
-                            } else {
-                                macroMatchRegex.append(ch);
-                                macroReplaceRegex.append(ch);
-                            }
-                        }
-                        macroMatchRegex.append("\\}.*");
-                        macroReplaceRegex.append("\\}");
-                        m_placeholderReferenceMatcherPatterns.put(Pattern.compile(macroMatchRegex.toString()), words[1]);
-                        m_placeholderReferenceReplacePatterns.put(macroMatchRegex.toString(), Pattern.compile(macroReplaceRegex.toString()));
-                    }
-                }
+    private void parseLine(String line, Multimap<String, String> properties, List<MacroReference> references) {
+        if (line.startsWith("#")) {
+            // Discard comments
+            return;
+        }
+
+        // Examine the line to see if it's a macro definition
+        if (isInnerMacro(line)) {
+            String[] words = WHITESPACE_PATTERN.split(line);
+            if (words.length <= 2) {
+                return;
             }
-            // Examine the line to see if it's a field
-            for (Map.Entry<Pattern, String> entry : m_fieldPatterns.entrySet()) {
-                Matcher matcher = entry.getKey().matcher(line);
-                if (matcher.matches() && matcher.groupCount() > 1) {
-                    properties.put(matcher.group(1).toLowerCase(), matcher.group(2).trim());
-                }
+            if (properties.containsKey(words[1])) {
+                logger.debug("macro field:{} is duplicate", words[1]);
+                return;
             }
+            properties.put(words[1], String.join(" ", Arrays.asList(words).subList(2, words.length)).trim());
+            // Add a reference for it so that any references to it can be expanded
+            references.add(macroReference(words[1]));
+            return;
         }
-        expandReferences(properties);
-        return properties;
+
+        // Examine the line to see if it's a field
+        for (String field : MACRO_FIELDS) {
+            if (line.length() > field.length() && line.charAt(0) == '%' && startsWithField(line, 1, field)) {
+                properties.put(line.substring(0, field.length() + 1).toLowerCase(), line.substring(field.length() + 1).trim());
+                return;
+            }
+        }
+        int tokenEnd = 0;
+        while (tokenEnd < line.length() && isAsciiLetterOrDigit(line.charAt(tokenEnd))) {
+            ++tokenEnd;
+        }
+        int colon = tokenEnd;
+        while (colon < line.length() && isWhitespace(line.charAt(colon))) {
+            ++colon;
+        }
+        if (colon < line.length() && line.charAt(colon) == ':' && isCommonField(line.substring(0, tokenEnd))) {
+            properties.put(line.substring(0, tokenEnd).toLowerCase(), line.substring(colon + 1).trim());
+        }
+    }
+
+    private static boolean isInnerMacro(String line) {
+        for (String innerMacro : INNER_MACROS) {
+            if (line.length() > innerMacro.length() && line.startsWith(innerMacro)
+                    && isWhitespace(line.charAt(innerMacro.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithField(String line, int offset, String field) {
+        for (int i = 0; i < field.length(); ++i) {
+            char ch = line.charAt(offset + i);
+            char fieldCh = field.charAt(i);
+            if (ch != Character.toLowerCase(fieldCh) && ch != Character.toUpperCase(fieldCh)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCommonField(String token) {
+        String field = token.toLowerCase(Locale.ROOT);
+        if (PLAIN_FIELDS.contains(field)) {
+            return true;
+        }
+        for (String numberedField : NUMBERED_FIELDS) {
+            if (field.length() > numberedField.length() && field.startsWith(numberedField)
+                    && field.chars().skip(numberedField.length()).allMatch(ch -> ch >= '0' && ch <= '9')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same line terminators as {@link java.util.Scanner#nextLine()}.
+     */
+    private static boolean isLineSeparator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u2028' || ch == '\u2029' || ch == '\u0085';
+    }
+
+    /**
+     * Same characters as regex {@code \s}.
+     */
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean isAsciiLetterOrDigit(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9');
+    }
+
+    private static MacroReference macroReference(String name) {
+        MacroReference reference = MACRO_REFERENCES.getIfPresent(name);
+        if (reference == null) {
+            reference = new MacroReference(name);
+            MACRO_REFERENCES.put(name, reference);
+        }
+        return reference;
     }
 
     /**
@@ -223,20 +282,13 @@ public class RpmSpecParser {
      * properties and replace these values if they are present.
      *
      * @param properties the properties to modify by expanding any values
+     * @param references references to fields or macros, in the order of fields and then macro definitions
      */
-    private void expandReferences(Multimap<String, String> properties) {
-
-        Map<Pattern, String> matcherPatterns = new HashMap<>();
-        matcherPatterns.putAll(m_fieldReferenceMatcherPatterns);
-        matcherPatterns.putAll(m_placeholderReferenceMatcherPatterns);
-
-        Map<String, Pattern> replacePatterns = new HashMap<>();
-        replacePatterns.putAll(m_fieldReferenceReplacePatterns);
-        replacePatterns.putAll(m_placeholderReferenceReplacePatterns);
-
+    private void expandReferences(Multimap<String, String> properties, List<MacroReference> references) {
+        boolean anchored = references.stream().anyMatch(MacroReference::isAnchored);
         Multimap<String, String> newProperties = LinkedListMultimap.create();
         for (Entry<String, String> property : properties.entries()) {
-            String newValue = expandReferences(property.getValue(), properties, newProperties, matcherPatterns, replacePatterns);
+            String newValue = expandReferences(property.getValue(), properties, newProperties, references, anchored);
             newProperties.put(property.getKey(), newValue);
         }
         properties.clear();
@@ -247,51 +299,52 @@ public class RpmSpecParser {
      * The values of fields and macros can themselves contain the values of other directives. Search through the
      * property value and replace these values if they are present.
      *
-     * @param propertyValue   the value to search for any replacements
-     * @param oldProperties   the properties to use to expand any values
-     * @param newProperties   the properties to use to expand any values
-     * @param matcherPatterns patterns to find references to fields or macros
-     * @param replacePatterns patters to replace references to fields or macros with the values
+     * @param propertyValue the value to search for any replacements
+     * @param oldProperties the properties to use to expand any values
+     * @param newProperties the properties to use to expand any values
+     * @param references    references to fields or macros
+     * @param anchored      whether any reference has to be matched against the whole value
      */
     private String expandReferences(String propertyValue, Multimap<String, String> oldProperties, Multimap<String, String> newProperties,
-                                    Map<Pattern, String> matcherPatterns,
-                                    Map<String, Pattern> replacePatterns) {
+                                    List<MacroReference> references, boolean anchored) {
         // optional macro
-        String newValue = propertyValue.replaceAll("\\%\\{\\?", "%{");
+        String normalizedValue = OPTIONAL_MACRO_PATTERN.matcher(propertyValue).replaceAll(MACRO_REFERENCE_PREFIX);
+        String newValue = normalizedValue;
 
-        // replace build-in macros
-        for (Map.Entry<Pattern, String> macro : BUILD_IN_MACRO_VALUE_MAPPING.entrySet()) {
-            newValue = newValue.replaceAll(macro.getKey().toString(), macro.getValue());
-        }
-        for (Map.Entry<Pattern, String> macro : matcherPatterns.entrySet()) {
-            Matcher matcher = macro.getKey().matcher(newValue);
-            if (matcher.matches()) {
-                Pattern replacePattern = replacePatterns.get(macro.getKey().toString());
-                String replaceValue = getProperty(oldProperties, newProperties, macro.getValue());
+        if (anchored || newValue.contains(MACRO_REFERENCE_PREFIX)) {
+            // replace build-in macros
+            for (Map.Entry<Pattern, String> macro : BUILD_IN_MACRO_VALUE_MAPPING.entrySet()) {
+                newValue = macro.getKey().matcher(newValue).replaceAll(macro.getValue());
+            }
+            for (MacroReference reference : references) {
+                if (!reference.isReferredBy(newValue)) {
+                    continue;
+                }
+                String replaceValue = getProperty(oldProperties, newProperties, reference.name);
                 if (replaceValue == null) {
-                    Matcher findMatcher = Pattern.compile(macro.getValue()).matcher(newValue.toLowerCase());
+                    Matcher findMatcher = reference.namePattern().matcher(newValue.toLowerCase());
                     if (findMatcher.find()) {
                         replaceValue = getProperty(oldProperties, newProperties, findMatcher.group(0));
                     }
                 }
                 if (replaceValue == null) {
-                    logger.debug("replacePattern:{} cant find replaceVale", replacePattern.toString());
+                    logger.debug("replacePattern:{} cant find replaceVale", reference.replacePattern);
                     continue;
                 } else if (replaceValue.contains("%")) {
-                    logger.debug("replaceVale:{} contains %, skip", replacePattern.toString());
+                    logger.debug("replaceVale:{} contains %, skip", reference.replacePattern);
                     continue;
                 } else if (replaceValue.contains("$")) {
-                    logger.debug("replaceVale:{} contains $, skip", replacePattern.toString());
+                    logger.debug("replaceVale:{} contains $, skip", reference.replacePattern);
                     continue;
                 } else if (replaceValue.endsWith("\\")) {
-                    logger.debug("replaceVale:{} end with \\, skip", replacePattern.toString());
+                    logger.debug("replaceVale:{} end with \\, skip", reference.replacePattern);
                     continue;
                 }
-                newValue = newValue.replaceAll(replacePattern.toString(), replaceValue);
+                newValue = reference.replacePattern.matcher(newValue).replaceAll(replaceValue);
             }
         }
-        if (newValue.equalsIgnoreCase(propertyValue.replaceAll("\\%\\{\\?", "%{"))) {
-            newValue = propertyValue.replaceAll("\\%\\{\\?.*\\}", "");
+        if (newValue.equalsIgnoreCase(normalizedValue)) {
+            newValue = UNRESOLVED_OPTIONAL_MACRO_PATTERN.matcher(propertyValue).replaceAll("");
         }
         return newValue;
     }
@@ -314,4 +367,62 @@ public class RpmSpecParser {
         }
         return props;
     }
+
+    /**
+     * Patterns of the references to a field or macro, a reference is %{name} with the letters of name in any case.
+     */
+    private static final class MacroReference {
+
+        private final String name;
+
+        private final Pattern replacePattern;
+
+        /**
+         * Only for names containing regex constructs that can escape the %{...} of the reference, e.g. alternation,
+         * such references are matched against the whole value as the regex based parser did.
+         */
+        private final Pattern matchPattern;
+
+        private volatile Pattern namePattern;
+
+        private MacroReference(String name) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < name.length(); ++i) {
+                char ch = name.charAt(i);
+                if (Character.isLetter(ch)) {
+                    regex.append(String.format("[%c%c]", Character.toLowerCase(ch), Character.toUpperCase(ch)));
+                } else {
+                    regex.append(ch);
+                }
+            }
+            this.name = name;
+            this.replacePattern = Pattern.compile("%\\{" + regex + "\\}");
+            this.matchPattern = isPlainName(name) ? null : Pattern.compile(".*%\\{" + regex + "\\}.*");
+        }
+
+        private static boolean isPlainName(String name) {
+            return name.indexOf('|') < 0 && name.indexOf('\\') < 0 && name.indexOf('#') < 0;
+        }
+
+        private boolean isAnchored() {
+            return matchPattern != null;
+        }
+
+        private boolean isReferredBy(String value) {
+            return matchPattern == null ? replacePattern.matcher(value).find() : matchPattern.matcher(value).matches();
+        }
+
+        /**
+         * Lower case value is searched by the name itself when the property of the name is not found, e.g. field
+         * source[0-9]+ finds source0.
+         */
+        private Pattern namePattern() {
+            Pattern pattern = namePattern;
+            if (pattern == null) {
+                pattern = Pattern.compile(name);
+                namePattern = pattern;
+            }
+            return pattern;
+        }
+    }
 }
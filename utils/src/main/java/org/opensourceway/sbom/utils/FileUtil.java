@@ -5,21 +5,27 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
 import org.apache.commons.compress.utils.IOUtils;
+import org.opensourceway.sbom.model.enums.ArchiveCompression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 
 public class FileUtil {
@@ -52,6 +58,21 @@ public class FileUtil {
         logger.info("successfully extract from input stream to '{}'", targetDir);
     }
 
+    public static void extractTarArchive(InputStream is, String targetDir, ArchiveCompression compression) throws IOException {
+        if (compression == ArchiveCompression.GZIP) {
+            extractTarGzipArchive(is, targetDir);
+            return;
+        }
+        logger.info("extract {} archive from input stream to '{}'", compression.getValue(), targetDir);
+        try (BufferedInputStream bis = new BufferedInputStream(is);
+             ZstdCompressorInputStream zis = new ZstdCompressorInputStream(bis);
+             TarArchiveInputStream tar = new TarArchiveInputStream(zis)) {
+
+            extractTarArchiveInputStream(tar, targetDir);
+        }
+        logger.info("successfully extract {} archive from input stream to '{}'", compression.getValue(), targetDir);
+    }
+
     private static void extractTarArchiveInputStream(TarArchiveInputStream tar, String targetDir) throws IOException {
         TarArchiveEntry entry;
         while ((entry = tar.getNextTarEntry()) != null) {
@@ -103,4 +124,85 @@ public class FileUtil {
         }
         return baos.toByteArray();
     }
+
+    /**
+     * Write a tar.gz archive of the files to the output stream, entries are named after the file names and their
+     * content is copied from disk. The output stream is not closed.
+     */
+    public static void tarFiles(List<Path> files, OutputStream os) throws IOException {
+        tarFiles(files, os, ArchiveCompression.GZIP);
+    }
+
+    public static void tarFiles(List<Path> files, OutputStream os, ArchiveCompression compression) throws IOException {
+        try (var tar = new TarStreamWriter(os, compression)) {
+            for (Path file : files) {
+                tar.putEntry(file);
+            }
+        }
+    }
+
+    /**
+     * Append entries to a compressed tar archive as they are produced, so only the current entry has to be kept in
+     * memory. Closing it finishes the archive but leaves the underlying output stream open.
+     */
+    public static class TarStreamWriter implements Closeable {
+        private final TarArchiveOutputStream tar;
+
+        public TarStreamWriter(OutputStream os) throws IOException {
+            this(os, ArchiveCompression.GZIP);
+        }
+
+        public TarStreamWriter(OutputStream os, ArchiveCompression compression) throws IOException {
+            OutputStream target = new NonClosingOutputStream(os);
+            OutputStream compressed = compression == ArchiveCompression.ZSTD
+                    ? new ZstdCompressorOutputStream(target)
+                    : new GzipCompressorOutputStream(target);
+            this.tar = new TarArchiveOutputStream(compressed);
+            this.tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+        }
+
+        public void putEntry(String name, byte[] data) throws IOException {
+            var entry = new TarArchiveEntry(name);
+            entry.setSize(data.length);
+            tar.putArchiveEntry(entry);
+            tar.write(data);
+            tar.closeArchiveEntry();
+        }
+
+        public void putEntry(Path file) throws IOException {
+            putEntry(file.getFileName().toString(), file);
+        }
+
+        public void putEntry(String name, Path file) throws IOException {
+            var entry = new TarArchiveEntry(name);
+            entry.setSize(Files.size(file));
+            tar.putArchiveEntry(entry);
+            Files.copy(file, tar);
+            tar.closeArchiveEntry();
+        }
+
+        /**
+         * Closing the tar stream writes the trailers of both the archive and the compressor.
+         */
+        @Override
+        public void close() throws IOException {
+            tar.close();
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream os) {
+            super(os);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.opensourceway.sbom.utils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.packageurl.PackageURL;
 import org.opensourceway.sbom.api.vcs.VcsApi;
@@ -11,17 +12,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
+/**
+ * Fetch the third party metas of OpenHarmony repos from gitee, the fetched metas are cached by
+ * OpenHarmonyThirdPartyMetaCache.
+ */
 @Component
 public class OpenHarmonyThirdPartyUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenHarmonyThirdPartyUtil.class);
 
+    private static final Pattern TAG_REVISION_PATTERN = Pattern.compile(SbomRepoConstants.OPEN_HARMONY_TAG_REVISION_REGEX);
+
+    private static final Pattern COMMIT_ID_PATTERN = Pattern.compile(SbomRepoConstants.COMMIT_ID_REGEX);
+
     @Autowired
     @Qualifier("giteeApi")
     private VcsApi giteeApi;
@@ -29,23 +41,54 @@ public class OpenHarmonyThirdPartyUtil {
     @Value("${gitee.domain.url}")
     private String giteeDomainUrl;
 
-    public List<ThirdPartyMetaVo> getThirdPartyMeta(String purl) {
-        PackageURL packageURL = PurlUtil.newPackageURL(purl);
-        if (!packageURL.getName().startsWith(SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_REPO_PREFIX)) {
+    public boolean isThirdPartyRepo(PackageURL packageURL) {
+        return packageURL.getName().startsWith(SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_REPO_PREFIX);
+    }
+
+    /**
+     * @return revision qualifier of the purl, the version of the purl if the qualifier is absent
+     */
+    public String getRevision(PackageURL packageURL) {
+        return Optional.ofNullable(packageURL.getQualifiers()).orElse(Map.of())
+                .getOrDefault(SbomRepoConstants.OPEN_HARMONY_PURL_QUALIFIER_REVISION, packageURL.getVersion());
+    }
+
+    /**
+     * Release tags, e.g. OpenHarmony-v3.1-Release, and commit ids never move, while branches, e.g. master or
+     * OpenHarmony-3.1-Release, get new commits. Only the metas at an immutable revision can be cached.
+     */
+    public static boolean isImmutableRevision(String revision) {
+        return Objects.nonNull(revision) && (TAG_REVISION_PATTERN.matcher(revision).matches()
+                || COMMIT_ID_PATTERN.matcher(revision).matches());
+    }
+
+    /**
+     * Fetch the third party metas in the file of an OpenHarmony repo at the revision.
+     * <p>
+     * A missing or invalid file is a permanent result of the revision and returns null, other failures, e.g. timeouts,
+     * are thrown so that they are not cached.
+     *
+     * @return third party metas, null if the file doesn't exist or is not valid
+     */
+    public List<ThirdPartyMetaVo> fetchThirdPartyMeta(String repo, String revision, String path) {
+        String thirdPartyMetaUrl = MessageFormat.format("{0}/{1}/{2}/raw/{3}/{4}",
+                giteeDomainUrl, SbomRepoConstants.OPEN_HARMONY_GITEE_ORG, repo, revision, path);
+        String thirdPartyMeta;
+        try {
+            thirdPartyMeta = giteeApi.getFileContext(thirdPartyMetaUrl);
+        } catch (WebClientResponseException.NotFound e) {
+            logger.warn("third party meta doesn't exist: {}", thirdPartyMetaUrl);
+            return null;
+        }
+        if (thirdPartyMeta == null) {
             return null;
         }
 
         try {
-            String thirdPartyMetaUrl = MessageFormat.format("{0}/{1}/{2}/raw/{3}/{4}",
-                    giteeDomainUrl, SbomRepoConstants.OPEN_HARMONY_GITEE_ORG, packageURL.getName(),
-                    Optional.ofNullable(packageURL.getQualifiers()).orElse(Map.of())
-                            .getOrDefault(SbomRepoConstants.OPEN_HARMONY_PURL_QUALIFIER_REVISION, packageURL.getVersion()),
-                    SbomRepoConstants.OPEN_HARMONY_THIRD_PARTY_META_FILE);
-            String thirdPartyMeta = giteeApi.getFileContext(thirdPartyMetaUrl);
             return Mapper.jsonMapper.readValue(thirdPartyMeta, new TypeReference<>() {
             });
-        } catch (Exception e) {
-            logger.warn("Unknown exception occurs when fetch repo meta for purl: {}", purl, e);
+        } catch (JsonProcessingException e) {
+            logger.warn("invalid third party meta: {}", thirdPartyMetaUrl, e);
             return null;
         }
     }
@@ -1,14 +1,23 @@
 package org.opensourceway.sbom.utils;
 
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.opensourceway.sbom.dao.RepoMetaRepository;
 import org.opensourceway.sbom.model.constants.SbomConstants;
 import org.opensourceway.sbom.model.entity.Product;
 import org.opensourceway.sbom.model.entity.RepoMeta;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Component
 public class RepoMetaUtil {
@@ -16,6 +25,12 @@ public class RepoMetaUtil {
     @Autowired
     private RepoMetaRepository repoMetaRepository;
 
+    /**
+     * max number of package names bound to one bulk query
+     */
+    @Value("${sbom.repo-meta.query-batch-size:1000}")
+    private Integer queryBatchSize;
+
     public Optional<RepoMeta> getRepoMeta(Product product, String pkgName) {
         String productType = product.getProductType();
         String productVersion = product.getProductVersion();
@@ -33,4 +48,50 @@ public class RepoMetaUtil {
         }
         return Optional.empty();
     }
+
+    public Map<String, RepoMeta> getRepoMetas(Product product, Collection<String> pkgNames) {
+        return getRepoMetas(product.getProductType(), product.getProductVersion(), pkgNames);
+    }
+
+    /**
+     * Look up the repo metas of all the package names with one query per {@link #queryBatchSize} names, instead of one
+     * query per package.
+     *
+     * @return repo meta of each package name, package names without repo meta are absent
+     */
+    public Map<String, RepoMeta> getRepoMetas(String productType, String productVersion, Collection<String> pkgNames) {
+        Map<String, RepoMeta> repoMetas = new HashMap<>();
+        if (!StringUtils.equalsIgnoreCase(productType, SbomConstants.PRODUCT_OPENEULER_NAME)) {
+            return repoMetas;
+        }
+
+        List<String> distinctPkgNames = pkgNames.stream().filter(Objects::nonNull).distinct().toList();
+        for (List<String> batch : Lists.partition(distinctPkgNames, queryBatchSize)) {
+            Set<String> batchPkgNames = new HashSet<>(batch);
+            for (RepoMeta repoMeta : repoMetaRepository.queryRepoMetaByPackageNames(productType, productVersion, batch)) {
+                for (String packageName : Optional.ofNullable(repoMeta.getPackageNames()).orElse(new String[0])) {
+                    // same as the single lookup, the first repo meta containing the package wins
+                    if (batchPkgNames.contains(packageName)) {
+                        repoMetas.putIfAbsent(packageName, repoMeta);
+                    }
+                }
+            }
+        }
+        return repoMetas;
+    }
+
+    /**
+     * Look up the repo metas of all the repos of a branch with one query per {@link #queryBatchSize} repos.
+     *
+     * @return repo meta of each repo name, repos without repo meta are absent
+     */
+    public Map<String, RepoMeta> getRepoMetasByRepoNames(String productType, String branch, Collection<String> repoNames) {
+        Map<String, RepoMeta> repoMetas = new HashMap<>();
+        List<String> distinctRepoNames = repoNames.stream().filter(Objects::nonNull).distinct().toList();
+        for (List<String> batch : Lists.partition(distinctRepoNames, queryBatchSize)) {
+            repoMetaRepository.findByProductTypeAndBranchAndRepoNameIn(productType, branch, batch)
+                    .forEach(repoMeta -> repoMetas.put(repoMeta.getRepoName(), repoMeta));
+        }
+        return repoMetas;
+    }
 }
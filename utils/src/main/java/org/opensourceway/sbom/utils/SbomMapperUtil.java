@@ -1,15 +1,25 @@
 package org.opensourceway.sbom.utils;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.commons.lang3.StringUtils;
 import org.opensourceway.sbom.model.enums.SbomFormat;
 import org.opensourceway.sbom.model.enums.SbomSpecification;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.HashMap;
 
 public class SbomMapperUtil {
 
+    private static final String CYCLONEDX_1_4_XML_NAMESPACE = "http://cyclonedx.org/schema/bom/1.4";
+
     @SuppressWarnings("unchecked")
     public static <T> T readDocument(SbomFormat format, Class<?> documentClass, byte[] fileContent) throws IOException {
         if (format == SbomFormat.JSON) {
@@ -51,6 +61,10 @@ public class SbomMapperUtil {
         if (format == SbomFormat.JSON) {
             map = Mapper.jsonSbomMapper.readValue(fileContent, typeReference);
         } else if (format == SbomFormat.XML) {
+            // cyclonedx xml has no bomFormat/specVersion element, the spec version is in the namespace of the root element
+            if (isCycloneDX14Xml(fileContent)) {
+                return SbomSpecification.CYCLONEDX_1_4;
+            }
             map = Mapper.xmlSbomMapper.readValue(fileContent, typeReference);
         } else if (format == SbomFormat.YAML) {
             map = Mapper.yamlSbomMapper.readValue(fileContent, typeReference);
@@ -71,6 +85,24 @@ public class SbomMapperUtil {
         throw new RuntimeException("failed to get sbom specification for sbom file %s");
     }
 
+    private static boolean isCycloneDX14Xml(byte[] fileContent) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(fileContent));
+            try {
+                return reader.nextTag() == XMLStreamConstants.START_ELEMENT
+                        && StringUtils.equals(reader.getLocalName(), "bom")
+                        && StringUtils.equals(reader.getNamespaceURI(), CYCLONEDX_1_4_XML_NAMESPACE);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid xml sbom file", e);
+        }
+    }
+
     private static <T> T fromJson(byte[] fileContent, Class<T> clazz) throws IOException {
         return Mapper.jsonSbomMapper.readValue(fileContent, clazz);
     }
@@ -88,12 +120,19 @@ public class SbomMapperUtil {
     }
 
     public static <T> byte[] writeAsBytes(T sbomDocument, SbomFormat format) throws IOException {
+        return writeAsBytes(sbomDocument, format, false);
+    }
+
+    /**
+     * @param compact write without indentation and line breaks, which are a large part of big pretty printed sboms
+     */
+    public static <T> byte[] writeAsBytes(T sbomDocument, SbomFormat format, boolean compact) throws IOException {
         if (format == SbomFormat.JSON) {
-            return toJsonBytes(sbomDocument);
+            return documentWriter(Mapper.jsonSbomMapper, compact).writeValueAsBytes(sbomDocument);
         } else if (format == SbomFormat.XML) {
-            return toXmlBytes(sbomDocument);
+            return documentWriter(Mapper.xmlSbomMapper, compact).writeValueAsBytes(sbomDocument);
         } else if (format == SbomFormat.YAML) {
-            return toYamlBytes(sbomDocument);
+            return documentWriter(Mapper.yamlSbomMapper, compact).writeValueAsBytes(sbomDocument);
         } else if (format == SbomFormat.RDF) {
             return toRdfBytes(sbomDocument);
         } else {
@@ -101,16 +140,10 @@ public class SbomMapperUtil {
         }
     }
 
-    private static <T> byte[] toJsonBytes(T sbomDocument) throws IOException {
-        return Mapper.jsonSbomMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sbomDocument);
-    }
-
-    private static <T> byte[] toXmlBytes(T sbomDocument) throws IOException {
-        return Mapper.xmlSbomMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sbomDocument);
-    }
-
-    private static <T> byte[] toYamlBytes(T sbomDocument) throws IOException {
-        return Mapper.yamlSbomMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sbomDocument);
+    private static ObjectWriter documentWriter(ObjectMapper mapper, boolean compact) {
+        return compact
+                ? mapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+                : mapper.writerWithDefaultPrettyPrinter();
     }
 
     private static <T> byte[] toRdfBytes(T sbomDocument) throws IOException {
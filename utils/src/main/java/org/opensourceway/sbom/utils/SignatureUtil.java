@@ -5,10 +5,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -26,6 +35,21 @@ public class SignatureUtil {
     @Value("${signatrust.key.name}")
     private String keyName;
 
+    @Value("${signatrust.client.timeout:5s}")
+    private Duration clientTimeout;
+
+    /**
+     * extra time a client invocation is allowed to take for each additional file in a batch
+     */
+    @Value("${signatrust.client.timeout-per-file:100ms}")
+    private Duration clientTimeoutPerFile;
+
+    /**
+     * max number of files signed by one client invocation
+     */
+    @Value("${signatrust.client.batch-size:500}")
+    private Integer batchSize;
+
     public SignFile sign(String filename, byte[] content) {
         try {
             var tmpDirPath = Files.createTempDirectory("signatrust");
@@ -44,31 +68,17 @@ public class SignatureUtil {
             return null;
         }
 
-        if (StringUtils.isEmpty(client) || Files.notExists(Path.of(client))) {
-            logger.warn("Try to sign <{}>, but signatrust client <{}> does not exist.", file, client);
+        if (!isClientAvailable(file)) {
             return null;
         }
 
-        if (StringUtils.isEmpty(clientConfig) || Files.notExists(Path.of(clientConfig))) {
-            logger.warn("Try to sign <{}>, but signatrust client config <{}> does not exist.", file, clientConfig);
-            return null;
-        }
-
-        var builder = new ProcessBuilder();
-        builder.inheritIO().command(client, "--config", clientConfig, "add", "--file-type", "generic",
-                "--key-type", "pgp", "--key-name", keyName, "--detached", file);
         try {
-            var process = builder.start();
-            var exit = process.waitFor(5, TimeUnit.SECONDS);
-            if (!exit) {
-                process.destroy();
-                logger.warn("Timeout when signs file <{}>", file);
+            if (!runClient(file, 1)) {
                 return null;
             }
 
-            var exitValue = process.exitValue();
             var signFile = Path.of("%s%s".formatted(file, SIGN_SUFFIX));
-            if (exitValue == 0 && Files.exists(signFile)) {
+            if (Files.exists(signFile)) {
                 logger.info("Successfully signed file <{}>", file);
                 return new SignFile(signFile.getFileName().toString(), Files.readAllBytes(signFile));
             } else {
@@ -81,6 +91,128 @@ public class SignatureUtil {
         }
     }
 
+    /**
+     * Sign files with one signatrust client invocation per batch of files instead of one invocation per file. Files of a
+     * batch are linked into a staging directory, which is signed by the client as a whole. Like {@link #sign(String)},
+     * the signature of each file is also written next to the file.
+     *
+     * @return signatures of the files which are signed successfully
+     */
+    public Map<Path, SignFile> sign(List<Path> files) {
+        Map<Path, SignFile> signFiles = new HashMap<>();
+        if (files.isEmpty() || !isClientAvailable("%d files".formatted(files.size()))) {
+            return signFiles;
+        }
+
+        for (List<Path> batch : partitionByFilename(files)) {
+            Path stagingDir = null;
+            try {
+                stagingDir = Files.createTempDirectory("signatrust");
+                for (Path file : batch) {
+                    linkOrCopy(file, stagingDir.resolve(file.getFileName()));
+                }
+                if (!runClient(stagingDir.toString(), batch.size())) {
+                    continue;
+                }
+                int signedCount = 0;
+                for (Path file : batch) {
+                    var stagedSignFile = stagingDir.resolve("%s%s".formatted(file.getFileName(), SIGN_SUFFIX));
+                    if (Files.notExists(stagedSignFile)) {
+                        logger.warn("Failed to signed file <{}>", file);
+                        continue;
+                    }
+                    var signFile = file.resolveSibling(stagedSignFile.getFileName());
+                    Files.copy(stagedSignFile, signFile, StandardCopyOption.REPLACE_EXISTING);
+                    signFiles.put(file, new SignFile(signFile.getFileName().toString(), Files.readAllBytes(signFile)));
+                    signedCount++;
+                }
+                logger.info("Successfully signed {} of {} files in one batch", signedCount, batch.size());
+            } catch (IOException | InterruptedException e) {
+                logger.warn("Unknown exception occurs when signs a batch of {} files", batch.size(), e);
+            } finally {
+                if (stagingDir != null) {
+                    deleteQuietly(stagingDir);
+                }
+            }
+        }
+        return signFiles;
+    }
+
+    private boolean isClientAvailable(String target) {
+        if (StringUtils.isEmpty(client) || Files.notExists(Path.of(client))) {
+            logger.warn("Try to sign <{}>, but signatrust client <{}> does not exist.", target, client);
+            return false;
+        }
+
+        if (StringUtils.isEmpty(clientConfig) || Files.notExists(Path.of(clientConfig))) {
+            logger.warn("Try to sign <{}>, but signatrust client config <{}> does not exist.", target, clientConfig);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param path a file, or a directory of which all files are signed
+     * @return whether the client exits successfully
+     */
+    private boolean runClient(String path, int fileCount) throws IOException, InterruptedException {
+        var builder = new ProcessBuilder();
+        builder.inheritIO().command(client, "--config", clientConfig, "add", "--file-type", "generic",
+                "--key-type", "pgp", "--key-name", keyName, "--detached", path);
+        var process = builder.start();
+        var timeout = clientTimeout.plus(clientTimeoutPerFile.multipliedBy(fileCount - 1L));
+        var exit = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (!exit) {
+            process.destroy();
+            logger.warn("Timeout when signs <{}>", path);
+            return false;
+        }
+        if (process.exitValue() != 0) {
+            logger.warn("Failed to signed <{}>, signatrust client exits with {}", path, process.exitValue());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * split files into batches of at most batchSize files, files in a batch have distinct names
+     */
+    private List<List<Path>> partitionByFilename(List<Path> files) {
+        List<List<Path>> batches = new ArrayList<>();
+        List<Set<Path>> batchFilenames = new ArrayList<>();
+        for (Path file : files) {
+            int index = 0;
+            while (index < batches.size() && (batches.get(index).size() >= batchSize
+                    || batchFilenames.get(index).contains(file.getFileName()))) {
+                index++;
+            }
+            if (index == batches.size()) {
+                batches.add(new ArrayList<>());
+                batchFilenames.add(new HashSet<>());
+            }
+            batches.get(index).add(file);
+            batchFilenames.get(index).add(file.getFileName());
+        }
+        return batches;
+    }
+
+    private void linkOrCopy(Path file, Path link) throws IOException {
+        try {
+            Files.createLink(link, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            // different file store, or hard links are not supported
+            Files.copy(file, link);
+        }
+    }
+
+    private void deleteQuietly(Path dir) {
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            logger.warn("Failed to delete signatrust staging directory <{}>", dir, e);
+        }
+    }
+
     public static class SignFile {
         private String filename;
 
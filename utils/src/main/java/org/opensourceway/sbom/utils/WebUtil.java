@@ -1,10 +1,15 @@
 package org.opensourceway.sbom.utils;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Component
 public class WebUtil {
@@ -24,6 +29,25 @@ public class WebUtil {
                 .build();
     }
 
+    /**
+     * Create a client backed by its own connection pool, meant to be created once and shared, so that concurrent
+     * requests to the same host reuse keep-alive connections instead of opening a new one per call.
+     */
+    public final WebClient createPooledWebClient(String baseUrl, String poolName, int maxConnections, Duration responseTimeout) {
+        ConnectionProvider provider = ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(provider).responseTimeout(responseTimeout);
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .exchangeStrategies(customStrategy())
+                .build();
+    }
+
     private ExchangeStrategies customStrategy() {
         return ExchangeStrategies.builder()
                 .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) DataSize.parse(maxInMemorySize).toBytes()))